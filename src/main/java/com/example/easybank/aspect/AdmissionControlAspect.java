@@ -0,0 +1,101 @@
+package com.example.easybank.aspect;
+
+import com.example.easybank.exception.ServiceUnavailableException;
+import com.example.easybank.service.AdaptiveConcurrencyLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control in front of single transfers: a transfer only starts while the
+ * {@link AdaptiveConcurrencyLimiter} has room, otherwise it is refused with 503 right away
+ * rather than waiting for a connection or a row lock. Runs outside every other advice, so a
+ * refused transfer costs nothing but the check.
+ *
+ * That includes the retries of {@code @Retryable}, whose recovery turns the last failure into a
+ * FAILED transaction. As a {@link RetryListener} the aspect therefore sees what every attempt
+ * failed with: a transfer that ran into a lock timeout or a lost connection on any attempt is
+ * counted as dropped, and one that needed a retry for another reason is ignored, since its
+ * latency includes the retry backoff.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class AdmissionControlAspect extends RetryListenerSupport {
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    // The attempts of the transfer admitted on this thread
+    private final ThreadLocal<Attempts> current = new ThreadLocal<>();
+
+    @Value("${app.transfer.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.transfer.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    public AdmissionControlAspect(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Around("execution(* com.example.easybank.service.TransactionService.processTransaction(..))")
+    public Object admit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!enabled) {
+            return joinPoint.proceed();
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            log.debug("Transfer refused, {} in flight", concurrencyLimiter.getInFlight());
+            throw new ServiceUnavailableException("Too many transfers in progress. Please try again later.",
+                    retryAfterSeconds);
+        }
+
+        Attempts attempts = new Attempts();
+        current.set(attempts);
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            attempts.failed(e);
+            throw e;
+        } finally {
+            current.remove();
+            if (attempts.overloaded) {
+                concurrencyLimiter.onDropped();
+            } else if (attempts.failed) {
+                concurrencyLimiter.onIgnore();
+            } else {
+                concurrencyLimiter.onSuccess(System.nanoTime() - started);
+            }
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                 Throwable throwable) {
+        Attempts attempts = current.get();
+        if (attempts != null) {
+            attempts.failed(throwable);
+        }
+    }
+
+    private static final class Attempts {
+        boolean failed;
+        boolean overloaded;
+
+        void failed(Throwable e) {
+            failed = true;
+            // Lock and query timeouts, deadlocks, no connection from the pool
+            overloaded |= e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException;
+        }
+    }
+}
@@ -5,98 +5,172 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StopWatch;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times transfers and repository calls.
+ *
+ * Meters are registered on the first call of each join point and looked up in a map afterwards,
+ * durations are taken with {@link System#nanoTime()}, and only one call in
+ * {@code 1 / app.monitoring.log-sample-rate} is logged; repository calls slower than
+ * {@code app.monitoring.slow-operation-ms} are always logged. The time spent in the aspect
+ * itself, outside the measured call, is recorded as {@code monitoring.overhead}.
+ */
 @Aspect
 @Component
 @Slf4j
 public class PerformanceMonitoringAspect {
 
     private final MeterRegistry meterRegistry;
+    private final double logSampleRate;
+    private final long slowOperationNanos;
+
+    private final ConcurrentMap<Method, TransactionMeters> transactionMeters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Method, Timer> repositoryTimers = new ConcurrentHashMap<>();
+    private final Timer transactionOverhead;
+    private final Timer repositoryOverhead;
 
-    public PerformanceMonitoringAspect(MeterRegistry meterRegistry) {
+    public PerformanceMonitoringAspect(MeterRegistry meterRegistry,
+                                       @Value("${app.monitoring.log-sample-rate:0.01}") double logSampleRate,
+                                       @Value("${app.monitoring.slow-operation-ms:50}") long slowOperationMs) {
         this.meterRegistry = meterRegistry;
+        this.logSampleRate = logSampleRate;
+        this.slowOperationNanos = TimeUnit.MILLISECONDS.toNanos(slowOperationMs);
+        this.transactionOverhead = meterRegistry.timer("monitoring.overhead", "pointcut", "transaction");
+        this.repositoryOverhead = meterRegistry.timer("monitoring.overhead", "pointcut", "repository");
     }
 
     @Around("execution(* com.example.easybank.service.TransactionService.processTransaction(..))")
     public Object measureTransactionPerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        StopWatch stopWatch = new StopWatch();
-        String methodName = joinPoint.getSignature().getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        String fullMethodName = className + "." + methodName;
-        
+        long enteredAt = System.nanoTime();
         Object[] arguments = joinPoint.getArgs();
-        String sourceAccount = arguments.length > 0 ? (String) arguments[0] : "unknown";
-        String destinationAccount = arguments.length > 1 ? (String) arguments[1] : "unknown";
-        
-        log.info("Starting transaction processing: {} -> {}", sourceAccount, destinationAccount);
-        
-        stopWatch.start();
-        Object result = null;
+        String sourceAccount = arguments.length > 0 ? (String) arguments[0] : null;
+        boolean sampled = logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate;
+        if (sampled) {
+            log.info("Starting transaction processing: {} -> {}", sourceAccount, destination(arguments));
+        }
+
         boolean success = false;
-        
+        long startedAt = System.nanoTime();
+        long finishedAt = startedAt;
         try {
-            result = joinPoint.proceed();
+            Object result = joinPoint.proceed();
+            finishedAt = System.nanoTime();
             success = true;
             return result;
         } catch (Throwable e) {
-            log.error("Transaction processing failed: {}", e.getMessage());
+            finishedAt = System.nanoTime();
+            if (sampled) {
+                log.warn("Transaction processing failed: {}", e.getMessage());
+            }
             throw e;
         } finally {
-            stopWatch.stop();
-            long executionTime = stopWatch.getTotalTimeMillis();
-            
-            log.info("Transaction processing completed in {}ms: {} -> {} (success={})", 
-                     executionTime, sourceAccount, destinationAccount, success);
-            
-            // Record metrics using Micrometer
-            Timer.builder("transaction.processing.time")
-                 .tag("method", fullMethodName)
-                 .tag("success", String.valueOf(success))
-                 .tag("source", anonymizeAccount(sourceAccount))
-                 .register(meterRegistry)
-                 .record(executionTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+            long executionNanos = finishedAt - startedAt;
+            if (sampled) {
+                log.info("Transaction processing completed in {}us: {} -> {} (success={})",
+                         TimeUnit.NANOSECONDS.toMicros(executionNanos), sourceAccount, destination(arguments), success);
+            }
+            transactionMeters(joinPoint).timer(sourceAccount, success).record(executionNanos, TimeUnit.NANOSECONDS);
+            transactionOverhead.record((startedAt - enteredAt) + (System.nanoTime() - finishedAt), TimeUnit.NANOSECONDS);
         }
     }
-    
+
     @Around("execution(* com.example.easybank.repository.AccountRepository.*(..)) || " +
             "execution(* com.example.easybank.repository.TransactionRepository.*(..))")
     public Object measureRepositoryPerformance(ProceedingJoinPoint joinPoint) throws Throwable {
-        StopWatch stopWatch = new StopWatch();
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
-        String methodName = signature.getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        String fullMethodName = className + "." + methodName;
-        
-        stopWatch.start();
-        
+        long startedAt = System.nanoTime();
         try {
             return joinPoint.proceed();
         } finally {
-            stopWatch.stop();
-            long executionTime = stopWatch.getTotalTimeMillis();
-            
-            if (executionTime > 50) {  // Only log slow queries
-                log.warn("Slow database operation: {}ms for {}", executionTime, fullMethodName);
+            long finishedAt = System.nanoTime();
+            long executionNanos = finishedAt - startedAt;
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            if (executionNanos > slowOperationNanos) {
+                log.warn("Slow database operation: {}ms for {}",
+                         TimeUnit.NANOSECONDS.toMillis(executionNanos), operationName(method));
             }
-            
-            // Record repository metrics
-            Timer.builder("database.operation.time")
-                 .tag("operation", fullMethodName)
-                 .register(meterRegistry)
-                 .record(executionTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+            Timer timer = repositoryTimers.get(method);
+            if (timer == null) {
+                timer = repositoryTimers.computeIfAbsent(method, m -> Timer.builder("database.operation.time")
+                    .tag("operation", operationName(m))
+                    .register(meterRegistry));
+            }
+            timer.record(executionNanos, TimeUnit.NANOSECONDS);
+            repositoryOverhead.record(System.nanoTime() - finishedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private TransactionMeters transactionMeters(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        TransactionMeters meters = transactionMeters.get(method);
+        if (meters == null) {
+            meters = transactionMeters.computeIfAbsent(method, m -> new TransactionMeters(operationName(m)));
         }
+        return meters;
     }
-    
+
+    /**
+     * The timers of one transfer method, one pair (failed, succeeded) per anonymized source
+     * account prefix. The prefix is keyed by its two characters, so looking up a registered timer
+     * builds no strings.
+     */
+    private final class TransactionMeters {
+        private final String method;
+        private final ConcurrentMap<Integer, Timer[]> timersBySource = new ConcurrentHashMap<>();
+
+        private TransactionMeters(String method) {
+            this.method = method;
+        }
+
+        Timer timer(String sourceAccount, boolean success) {
+            Integer key = sourceKey(sourceAccount);
+            Timer[] timers = timersBySource.get(key);
+            if (timers == null) {
+                String source = anonymizeAccount(sourceAccount);
+                timers = timersBySource.computeIfAbsent(key, k -> new Timer[] {register(source, false), register(source, true)});
+            }
+            return timers[success ? 1 : 0];
+        }
+
+        private Timer register(String source, boolean success) {
+            return Timer.builder("transaction.processing.time")
+                 .tag("method", method)
+                 .tag("success", String.valueOf(success))
+                 .tag("source", source)
+                 .register(meterRegistry);
+        }
+    }
+
+    private static Integer sourceKey(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() < 4) {
+            return -1;
+        }
+        return accountNumber.charAt(0) << 16 | accountNumber.charAt(1);
+    }
+
+    private static String operationName(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    private static Object destination(Object[] arguments) {
+        return arguments.length > 1 ? arguments[1] : null;
+    }
+
     // Anonymize account number for privacy in metrics
-    private String anonymizeAccount(String accountNumber) {
+    private static String anonymizeAccount(String accountNumber) {
         if (accountNumber == null || accountNumber.length() < 4) {
             return "unknown";
         }
         return accountNumber.substring(0, 2) + "***";
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.example.easybank.aspect;
+
+import com.example.easybank.service.RateLimitQuota;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Lookup table from handler method to its compiled rate limit {@link Policy}.
+ *
+ * Built once all singletons exist, from the handler methods Spring MVC registered: the
+ * {@link RateLimited} annotation, its property overrides and the endpoint pattern are resolved
+ * here, so a request only looks its handler method up in a map.
+ */
+@Slf4j
+@Component
+public class RateLimitPolicyRegistry implements SmartInitializingSingleton {
+    private static final String POLICY_PREFIX = "app.rate-limit.policies.";
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final Environment environment;
+
+    @Value("${app.rate-limit.max-requests-per-minute:600}")
+    private int maxRequestsPerMinute;
+
+    @Value("${app.rate-limit.key-cache-size:10000}")
+    private int keyCacheSize;
+
+    private volatile Map<Method, Policy> policies = Map.of();
+
+    public RateLimitPolicyRegistry(@Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+                                   Environment environment) {
+        this.handlerMapping = handlerMapping;
+        this.environment = environment;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        compile();
+    }
+
+    /**
+     * The policy of a handler method, or null if it is not a registered handler.
+     */
+    public Policy policyFor(Method handlerMethod) {
+        return policies.get(handlerMethod);
+    }
+
+    void compile() {
+        Map<String, String> clientClasses = clientClassesByAddress();
+        Map<String, Policy> named = new HashMap<>();
+        Map<Method, Policy> compiled = new HashMap<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handler = entry.getValue();
+            RateLimited rateLimited = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), RateLimited.class);
+            if (rateLimited == null) {
+                rateLimited = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), RateLimited.class);
+            }
+            Policy policy;
+            if (rateLimited == null) {
+                // One quota per endpoint and client
+                String pattern = entry.getKey().getPatternValues().stream().findFirst().orElse("");
+                policy = new Policy("endpoint " + pattern, pattern + ":", RateLimitQuota.of(maxRequestsPerMinute),
+                    Map.of(), clientClasses, keyCacheSize);
+            } else {
+                policy = compile(rateLimited, clientClasses, named);
+                log.info("Rate limit policy {} for {}", policy, handler.getShortLogMessage());
+            }
+            compiled.put(handler.getMethod(), policy);
+        }
+        policies = Map.copyOf(compiled);
+    }
+
+    private Policy compile(RateLimited rateLimited, Map<String, String> clientClasses, Map<String, Policy> named) {
+        String name = rateLimited.value();
+        String prefix = POLICY_PREFIX + name + ".";
+        int requestsPerMinute = property(prefix + "requests-per-minute",
+            rateLimited.requestsPerMinute() > 0 ? rateLimited.requestsPerMinute() : maxRequestsPerMinute);
+        int burst = property(prefix + "burst", rateLimited.burst() > 0 ? rateLimited.burst() : requestsPerMinute);
+        int cost = property(prefix + "cost", rateLimited.cost());
+        RateLimitQuota quota = RateLimitQuota.of(requestsPerMinute, burst, cost);
+
+        Map<String, RateLimitQuota> classQuotas = new HashMap<>();
+        for (RateLimited.ClientClassLimit limit : rateLimited.clientClasses()) {
+            String classPrefix = prefix + "client-classes." + limit.name() + ".";
+            int classRate = property(classPrefix + "requests-per-minute", limit.requestsPerMinute());
+            int classBurst = property(classPrefix + "burst", limit.burst() > 0 ? limit.burst() : classRate);
+            classQuotas.put(limit.name(), RateLimitQuota.of(classRate, classBurst, cost));
+        }
+
+        Policy existing = named.get(name);
+        if (existing != null) {
+            // Handlers sharing a policy share its keys, so they must agree on the rate
+            if (existing.quota.getRequestsPerMinute() != requestsPerMinute || existing.quota.getBurst() != burst) {
+                throw new IllegalStateException("Handlers of rate limit policy " + name
+                    + " declare different limits: " + existing.quota + " and " + quota);
+            }
+            return existing.withQuotas(quota, classQuotas);
+        }
+        Policy policy = new Policy(name, "policy:" + name + ":", quota, classQuotas, clientClasses, keyCacheSize);
+        named.put(name, policy);
+        return policy;
+    }
+
+    private int property(String name, int defaultValue) {
+        return environment.getProperty(name, Integer.class, defaultValue);
+    }
+
+    /**
+     * {@code app.rate-limit.client-classes.<class>=<address>,<address>}, inverted to address to class.
+     */
+    private Map<String, String> clientClassesByAddress() {
+        Map<String, String> addressesByClass = Binder.get(environment)
+            .bind("app.rate-limit.client-classes", Bindable.mapOf(String.class, String.class))
+            .orElse(Map.of());
+        Map<String, String> byAddress = new HashMap<>();
+        addressesByClass.forEach((clientClass, addresses) -> {
+            for (String address : StringUtils.commaDelimitedListToStringArray(addresses)) {
+                if (StringUtils.hasText(address)) {
+                    byAddress.put(address.trim(), clientClass);
+                }
+            }
+        });
+        return Map.copyOf(byAddress);
+    }
+
+    /**
+     * Compiled policy of a handler method: the quota per client class and the rate limit key
+     * per client address.
+     */
+    public static final class Policy {
+        private final String name;
+        private final RateLimitQuota quota;
+        private final Map<String, RateLimitQuota> clientClassQuotas;
+        private final Map<String, String> clientClasses;
+        private final Cache<String, String> keys;
+        private final Function<String, String> keyForAddress;
+
+        private Policy(String name, String keyPrefix, RateLimitQuota quota, Map<String, RateLimitQuota> clientClassQuotas,
+                       Map<String, String> clientClasses, int keyCacheSize) {
+            this(name, quota, clientClassQuotas, clientClasses,
+                Caffeine.newBuilder().maximumSize(keyCacheSize).build(), keyPrefix::concat);
+        }
+
+        private Policy(String name, RateLimitQuota quota, Map<String, RateLimitQuota> clientClassQuotas,
+                       Map<String, String> clientClasses, Cache<String, String> keys,
+                       Function<String, String> keyForAddress) {
+            this.name = name;
+            this.quota = quota;
+            this.clientClassQuotas = Map.copyOf(clientClassQuotas);
+            this.clientClasses = clientClasses;
+            this.keys = keys;
+            this.keyForAddress = keyForAddress;
+        }
+
+        /**
+         * Same policy and keys with other quotas, for a handler with its own cost.
+         */
+        private Policy withQuotas(RateLimitQuota quota, Map<String, RateLimitQuota> clientClassQuotas) {
+            return new Policy(name, quota, clientClassQuotas, clientClasses, keys, keyForAddress);
+        }
+
+        /**
+         * Rate limit key of a client address, built once per address.
+         */
+        public String keyFor(String clientAddress) {
+            return keys.get(clientAddress, keyForAddress);
+        }
+
+        public RateLimitQuota quotaFor(String clientAddress) {
+            String clientClass = clientClasses.get(clientAddress);
+            return clientClass == null ? quota : clientClassQuotas.getOrDefault(clientClass, quota);
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + quota + (clientClassQuotas.isEmpty() ? "" : ", client classes " + clientClassQuotas);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.easybank.aspect;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Rate limit policy of a handler method, or of every handler method of a controller.
+ *
+ * Handler methods that share a policy name share one quota per client. The limits given here
+ * are defaults; each can be overridden with {@code app.rate-limit.policies.<name>.requests-per-minute},
+ * {@code .burst} and {@code .cost}, and per client class with
+ * {@code app.rate-limit.policies.<name>.client-classes.<class>.requests-per-minute} and {@code .burst}.
+ * Handlers without a policy are limited per endpoint by {@code app.rate-limit.max-requests-per-minute}.
+ *
+ * Policies are compiled once at startup by {@link RateLimitPolicyRegistry}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RateLimited {
+
+    /**
+     * Policy name, also the prefix of its configuration properties.
+     */
+    String value();
+
+    /**
+     * Sustained rate; -1 for {@code app.rate-limit.max-requests-per-minute}.
+     */
+    int requestsPerMinute() default -1;
+
+    /**
+     * Calls that may be made at once; -1 for the requests per minute.
+     */
+    int burst() default -1;
+
+    /**
+     * Quota one call uses, for endpoints that do more work per call than a single read.
+     */
+    int cost() default 1;
+
+    /**
+     * Different limits for clients of a class, see {@code app.rate-limit.client-classes}.
+     */
+    ClientClassLimit[] clientClasses() default {};
+
+    /**
+     * Limits of one client class under a {@link RateLimited} policy.
+     */
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({})
+    @interface ClientClassLimit {
+
+        /**
+         * Client class name, as configured in {@code app.rate-limit.client-classes.<name>}.
+         */
+        String name();
+
+        int requestsPerMinute();
+
+        /**
+         * -1 for the requests per minute.
+         */
+        int burst() default -1;
+    }
+}
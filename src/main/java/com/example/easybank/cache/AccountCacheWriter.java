@@ -0,0 +1,140 @@
+package com.example.easybank.cache;
+
+import com.example.easybank.domain.Account;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@code accounts} cache in step with committed balance changes.
+ *
+ * Writers hand over the accounts they changed; the cache is only touched once the surrounding
+ * transaction commits, so a rolled-back transfer leaves it as it was. Entries are keyed by
+ * account number and versioned by {@link Account#getVersion()}, so a late write can never
+ * replace a newer snapshot. Outside a transaction the change is applied immediately.
+ */
+@Slf4j
+@Component
+public class AccountCacheWriter {
+    public static final String CACHE_NAME = "accounts";
+
+    private final CacheManager cacheManager;
+
+    public AccountCacheWriter(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Version of a cached account, for {@link TwoTierCacheManager}.
+     */
+    public static Long versionOf(Object value) {
+        if (value instanceof Account account && account.getVersion() != null) {
+            return account.getVersion().longValue();
+        }
+        return null;
+    }
+
+    /**
+     * Whether account reads may go through the cache: not inside a transaction, which could
+     * hold uncommitted writes to the accounts it reads.
+     */
+    public static boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Writes snapshots of the accounts after commit. The accounts must carry the balance and
+     * version they were committed with. Accounts with balance slots are evicted instead: their
+     * row holds only part of the balance and they are not cached.
+     */
+    public void putAfterCommit(Collection<Account> accounts) {
+        List<Account> snapshots = new ArrayList<>(accounts.size());
+        List<String> slotted = new ArrayList<>();
+        for (Account account : accounts) {
+            if (account.hasBalanceSlots()) {
+                slotted.add(account.getAccountNumber());
+            } else {
+                snapshots.add(snapshot(account));
+            }
+        }
+        afterCommit(cache -> {
+            for (Account snapshot : snapshots) {
+                if (cache instanceof TwoTierCache twoTierCache) {
+                    twoTierCache.write(snapshot.getAccountNumber(), snapshot);
+                } else {
+                    cache.put(snapshot.getAccountNumber(), snapshot);
+                }
+            }
+            slotted.forEach(cache::evict);
+        });
+    }
+
+    /**
+     * Evicts an account after commit, for writers that know the committed version but not the
+     * full row. With a null version the entry is evicted unconditionally.
+     */
+    public void evictAfterCommit(String accountNumber, Integer version) {
+        afterCommit(cache -> {
+            if (version != null && cache instanceof TwoTierCache twoTierCache) {
+                twoTierCache.evictOlderThan(accountNumber, version);
+            } else {
+                cache.evict(accountNumber);
+            }
+        });
+    }
+
+    public void evictAfterCommit(Collection<String> accountNumbers) {
+        List<String> keys = List.copyOf(accountNumbers);
+        afterCommit(cache -> keys.forEach(cache::evict));
+    }
+
+    private void afterCommit(Consumer<Cache> update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(update);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(update);
+            }
+        });
+    }
+
+    private void apply(Consumer<Cache> update) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        try {
+            update.accept(cache);
+        } catch (RuntimeException e) {
+            // The transfer is committed either way; the entry ages out with the cache TTL
+            log.warn("Could not update account cache after commit: {}", e.getMessage());
+        }
+    }
+
+    private static Account snapshot(Account account) {
+        Account snapshot = new Account();
+        snapshot.setId(account.getId());
+        snapshot.setAccountNumber(account.getAccountNumber());
+        snapshot.setAccountHolder(account.getAccountHolder());
+        snapshot.setBalance(account.getBalance());
+        snapshot.setCurrency(account.getCurrency());
+        snapshot.setAccountType(account.getAccountType());
+        snapshot.setStatus(account.getStatus());
+        snapshot.setVersion(account.getVersion());
+        snapshot.setBalanceSlots(account.getBalanceSlots());
+        snapshot.setCreatedAt(account.getCreatedAt());
+        snapshot.setUpdatedAt(account.getUpdatedAt());
+        return snapshot;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.easybank.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Tells the other nodes to drop entries from their in-process L1 caches, over Redis pub/sub.
+ *
+ * Messages are {@code node|E|cache|key} for a single key and {@code node|C|cache} for a whole
+ * cache. A node ignores its own messages. Delivery is best effort: a node that misses a
+ * message serves the old entry until its L1 time-to-live expires.
+ */
+@Slf4j
+public class CacheInvalidationBroadcaster implements MessageListener {
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private TwoTierCacheManager cacheManager;
+
+    public CacheInvalidationBroadcaster(StringRedisTemplate redisTemplate, String channel, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.meterRegistry = meterRegistry;
+    }
+
+    void bind(TwoTierCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(cacheName, nodeId + "|" + EVICT + "|" + cacheName + "|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, nodeId + "|" + CLEAR + "|" + cacheName);
+    }
+
+    private void publish(String cacheName, String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            meterRegistry.counter("cache.invalidations", "cache", cacheName, "direction", "sent").increment();
+        } catch (RuntimeException e) {
+            // The local write already happened; peers fall back to their L1 time-to-live
+            meterRegistry.counter("cache.invalidations.failed", "cache", cacheName).increment();
+            log.warn("Could not broadcast cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 3 || nodeId.equals(parts[0]) || cacheManager == null) {
+            return;
+        }
+        TwoTierCache cache = cacheManager.getExistingCache(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.evictLocal(parts[3]);
+        }
+        meterRegistry.counter("cache.invalidations", "cache", parts[2], "direction", "received").increment();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.easybank.cache;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * {@link VersionedCacheStore} on top of the entries a {@link org.springframework.data.redis.cache.RedisCache}
+ * reads: keys and values are built with the same {@link RedisCacheConfiguration}.
+ *
+ * Next to every entry a {@code <key>#version} key holds the highest version written for it.
+ * Both keys are compared and written by one Lua script, so concurrent writers from any node
+ * cannot interleave between the check and the write.
+ */
+public class RedisVersionedCacheStore implements VersionedCacheStore {
+    private static final String VERSION_SUFFIX = "#version";
+
+    // KEYS: entry, version; ARGV: version, value, ttl in ms (0 = none)
+    private static final RedisScript<Long> PUT_IF_NEWER = RedisScript.of(
+        "local current = redis.call('GET', KEYS[2]) " +
+        "if current and tonumber(current) > tonumber(ARGV[1]) then return 0 end " +
+        "if tonumber(ARGV[3]) > 0 then " +
+        "  redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) " +
+        "  redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[3]) " +
+        "else " +
+        "  redis.call('SET', KEYS[1], ARGV[2]) " +
+        "  redis.call('SET', KEYS[2], ARGV[1]) " +
+        "end " +
+        "return 1", Long.class);
+
+    // KEYS: entry, version; ARGV: version, ttl in ms (0 = none)
+    private static final RedisScript<Long> EVICT_OLDER_THAN = RedisScript.of(
+        "local current = redis.call('GET', KEYS[2]) " +
+        "if current and tonumber(current) >= tonumber(ARGV[1]) then return 0 end " +
+        "redis.call('DEL', KEYS[1]) " +
+        "if tonumber(ARGV[2]) > 0 then " +
+        "  redis.call('SET', KEYS[2], ARGV[1], 'PX', ARGV[2]) " +
+        "else " +
+        "  redis.call('SET', KEYS[2], ARGV[1]) " +
+        "end " +
+        "return 1", Long.class);
+
+    private final RedisTemplate<byte[], byte[]> redisTemplate;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final byte[] ttlMillis;
+
+    public RedisVersionedCacheStore(RedisConnectionFactory connectionFactory, RedisCacheConfiguration cacheConfiguration) {
+        this.cacheConfiguration = cacheConfiguration;
+        this.ttlMillis = ascii(cacheConfiguration.getTtl().toMillis());
+        this.redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(RedisSerializer.byteArray());
+        redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @Override
+    public boolean putIfNewer(String cacheName, Object key, Object value, long version) {
+        String cacheKey = cacheKey(cacheName, key);
+        Long applied = redisTemplate.execute(PUT_IF_NEWER,
+            List.of(serializeKey(cacheKey), serializeKey(cacheKey + VERSION_SUFFIX)),
+            ascii(version), ByteUtils.getBytes(cacheConfiguration.getValueSerializationPair().write(value)), ttlMillis);
+        return applied != null && applied == 1L;
+    }
+
+    @Override
+    public void evictOlderThan(String cacheName, Object key, long version) {
+        String cacheKey = cacheKey(cacheName, key);
+        redisTemplate.execute(EVICT_OLDER_THAN,
+            List.of(serializeKey(cacheKey), serializeKey(cacheKey + VERSION_SUFFIX)),
+            ascii(version), ttlMillis);
+    }
+
+    /**
+     * Same key a {@link org.springframework.data.redis.cache.RedisCache} named {@code cacheName} uses.
+     */
+    private String cacheKey(String cacheName, Object key) {
+        String convertedKey = key instanceof String
+            ? (String) key
+            : cacheConfiguration.getConversionService().convert(key, String.class);
+        return cacheConfiguration.usePrefix()
+            ? cacheConfiguration.getKeyPrefixFor(cacheName) + convertedKey
+            : convertedKey;
+    }
+
+    private byte[] serializeKey(String cacheKey) {
+        return ByteUtils.getBytes(cacheConfiguration.getKeySerializationPair().write(cacheKey));
+    }
+
+    private static byte[] ascii(long number) {
+        return Long.toString(number).getBytes(StandardCharsets.US_ASCII);
+    }
+}
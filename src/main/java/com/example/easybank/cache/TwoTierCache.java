@@ -0,0 +1,239 @@
+package com.example.easybank.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} with a bounded in-process Caffeine L1 in front
+ * of a shared L2 (the Redis cache).
+ *
+ * Reads try L1, then L2, and fill L1 from L2. A value loaded on a miss is put into both tiers
+ * without telling anyone: another node holds either the same value or nothing, since the
+ * writer of a newer one broadcast it. Writes of changed values through {@link #write} and
+ * evictions go to L2 first, then L1, then are broadcast so the other nodes drop their L1 copy.
+ * L1 holds the same instances it hands out, so cached values must be treated as read-only.
+ *
+ * When {@code versionOf} returns a version for a value, puts go through the
+ * {@link VersionedCacheStore} and are dropped if either tier already holds a newer snapshot.
+ */
+public class TwoTierCache implements org.springframework.cache.Cache {
+    private final String name;
+    private final Cache<Object, ValueWrapper> local;
+    private final org.springframework.cache.Cache shared;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final VersionedCacheStore versionedStore;
+    private final Function<Object, Long> versionOf;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Counter staleWrites;
+
+    public TwoTierCache(String name, Cache<Object, ValueWrapper> local, org.springframework.cache.Cache shared,
+                        CacheInvalidationBroadcaster broadcaster, VersionedCacheStore versionedStore,
+                        Function<Object, Long> versionOf, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.broadcaster = broadcaster;
+        this.versionedStore = versionedStore;
+        this.versionOf = versionOf;
+        this.localHits = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "hit");
+        this.localMisses = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l1", "result", "miss");
+        this.sharedHits = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "hit");
+        this.sharedMisses = meterRegistry.counter("cache.tier.gets", "cache", name, "tier", "l2", "result", "miss");
+        this.staleWrites = meterRegistry.counter("cache.stale.writes", "cache", name);
+        Gauge.builder("cache.tier.size", local, Cache::estimatedSize)
+            .tags("cache", name, "tier", "l1")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+        value = shared.get(key);
+        if (value != null) {
+            sharedHits.increment();
+            local.put(key, value);
+        } else {
+            sharedMisses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Looks the key up in the in-process tier only, for callers that must not block on Redis.
+     */
+    public ValueWrapper getLocal(Object key) {
+        ValueWrapper value = local.getIfPresent(key);
+        (value != null ? localHits : localMisses).increment();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded = shared.get(key, valueLoader);
+        local.put(key, new SimpleValueWrapper(loaded));
+        return loaded;
+    }
+
+    /**
+     * Fills both tiers with a value loaded on a miss; nothing is broadcast.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value, false);
+    }
+
+    /**
+     * Writes a changed value to both tiers and has the other nodes drop their L1 copy.
+     */
+    public void write(Object key, Object value) {
+        store(key, value, true);
+    }
+
+    private void store(Object key, Object value, boolean broadcast) {
+        Long version = versionOf(value);
+        if (version != null && versionedStore != null) {
+            putIfNewer(key, value, version, broadcast);
+            return;
+        }
+        shared.put(key, value);
+        local.put(key, new SimpleValueWrapper(value));
+        if (broadcast) {
+            broadcaster.publishEvict(name, key);
+        }
+    }
+
+    /**
+     * @return false when a newer snapshot was already cached and the value was dropped
+     */
+    private boolean putIfNewer(Object key, Object value, long version, boolean broadcast) {
+        boolean written = versionedStore.putIfNewer(name, key, value, version);
+        if (written) {
+            local.asMap().compute(key, (k, current) -> {
+                Long currentVersion = current == null ? null : versionOf(current.get());
+                return currentVersion != null && currentVersion > version ? current : new SimpleValueWrapper(value);
+            });
+        } else {
+            // L2 holds something newer; let the next read pick it up
+            staleWrites.increment();
+            local.invalidate(key);
+        }
+        if (broadcast) {
+            broadcaster.publishEvict(name, key);
+        }
+        return written;
+    }
+
+    /**
+     * Drops the entry unless it is already at {@code version} or newer, for writers that know
+     * the committed version but not the full value. Older snapshots are refused afterwards.
+     */
+    public void evictOlderThan(Object key, long version) {
+        if (versionedStore != null) {
+            versionedStore.evictOlderThan(name, key, version);
+        } else {
+            shared.evict(key);
+        }
+        local.asMap().computeIfPresent(key, (k, current) -> {
+            Long currentVersion = versionOf(current.get());
+            return currentVersion != null && currentVersion >= version ? current : null;
+        });
+        broadcaster.publishEvict(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        // A fill like put: nothing is broadcast
+        ValueWrapper existing = shared.putIfAbsent(key, value);
+        local.put(key, existing != null ? existing : new SimpleValueWrapper(value));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        shared.evict(key);
+        local.invalidate(key);
+        broadcaster.publishEvict(name, key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = shared.evictIfPresent(key);
+        local.invalidate(key);
+        broadcaster.publishEvict(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        shared.clear();
+        local.invalidateAll();
+        broadcaster.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = shared.invalidate();
+        local.invalidateAll();
+        broadcaster.publishClear(name);
+        return present;
+    }
+
+    private Long versionOf(Object value) {
+        return versionOf == null || value == null ? null : versionOf.apply(value);
+    }
+
+    /**
+     * Drops a key from this node's L1 only; used for invalidations received from other nodes.
+     */
+    void evictLocal(Object key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.easybank.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Wraps every cache of the shared (Redis) cache manager in a {@link TwoTierCache}.
+ */
+public class TwoTierCacheManager implements CacheManager {
+    private final CacheManager sharedCacheManager;
+    private final CacheInvalidationBroadcaster broadcaster;
+    private final VersionedCacheStore versionedStore;
+    private final Function<Object, Long> versionOf;
+    private final MeterRegistry meterRegistry;
+    private final long localMaximumSize;
+    private final Duration localTimeToLive;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager sharedCacheManager, CacheInvalidationBroadcaster broadcaster,
+                               MeterRegistry meterRegistry, long localMaximumSize, Duration localTimeToLive) {
+        this(sharedCacheManager, broadcaster, null, null, meterRegistry, localMaximumSize, localTimeToLive);
+    }
+
+    /**
+     * @param versionOf version of a cached value, or null for values that are not versioned
+     */
+    public TwoTierCacheManager(CacheManager sharedCacheManager, CacheInvalidationBroadcaster broadcaster,
+                               VersionedCacheStore versionedStore, Function<Object, Long> versionOf,
+                               MeterRegistry meterRegistry, long localMaximumSize, Duration localTimeToLive) {
+        this.sharedCacheManager = sharedCacheManager;
+        this.broadcaster = broadcaster;
+        this.versionedStore = versionedStore;
+        this.versionOf = versionOf;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTimeToLive = localTimeToLive;
+        broadcaster.bind(this);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache shared = sharedCacheManager.getCache(name);
+        if (shared == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new TwoTierCache(key,
+            Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTimeToLive)
+                .build(),
+            shared, broadcaster, versionedStore, versionOf, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return sharedCacheManager.getCacheNames();
+    }
+
+    TwoTierCache getExistingCache(String name) {
+        return caches.get(name);
+    }
+}
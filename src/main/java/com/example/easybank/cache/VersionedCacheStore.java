@@ -0,0 +1,24 @@
+package com.example.easybank.cache;
+
+/**
+ * Version-guarded writes to the shared (L2) tier of a {@link TwoTierCache}.
+ *
+ * The store remembers the highest version written per key, so a snapshot that arrives late
+ * (a slow writer, or a read that loaded the row before a transfer committed) can never
+ * replace a newer one.
+ */
+public interface VersionedCacheStore {
+
+    /**
+     * Stores {@code value} unless the entry already holds a newer version.
+     *
+     * @return false when the write was refused as stale
+     */
+    boolean putIfNewer(String cacheName, Object key, Object value, long version);
+
+    /**
+     * Drops the entry unless it already holds {@code version} or newer, and refuses any
+     * snapshot older than {@code version} from then on.
+     */
+    void evictOlderThan(String cacheName, Object key, long version);
+}
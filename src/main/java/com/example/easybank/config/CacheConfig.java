@@ -0,0 +1,97 @@
+package com.example.easybank.config;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.cache.CacheInvalidationBroadcaster;
+import com.example.easybank.cache.RedisVersionedCacheStore;
+import com.example.easybank.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+
+/**
+ * Cache configuration for EasyBank
+ *
+ * Account lookups are cached in two tiers: a small in-process Caffeine cache (L1) in front
+ * of the shared Redis cache (L2) configured by the spring.cache.redis properties. Nodes
+ * keep their L1 caches consistent by broadcasting invalidations over Redis pub/sub.
+ * Accounts are written version-guarded, see {@link AccountCacheWriter}.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Value("${app.cache.l1.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${app.cache.l1.time-to-live:30000}")
+    private long localTimeToLiveMs;
+
+    @Value("${app.cache.invalidation-channel:easybank:cache-invalidation}")
+    private String invalidationChannel;
+
+    /**
+     * The Redis (L2) cache settings, built the way Spring Boot builds them from spring.cache.redis.
+     */
+    private RedisCacheConfiguration redisCacheConfiguration(CacheProperties cacheProperties) {
+        CacheProperties.Redis redisProperties = cacheProperties.getRedis();
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig(getClass().getClassLoader());
+        if (redisProperties.getTimeToLive() != null) {
+            config = config.entryTtl(redisProperties.getTimeToLive());
+        }
+        if (redisProperties.getKeyPrefix() != null) {
+            config = config.prefixCacheNameWith(redisProperties.getKeyPrefix());
+        }
+        if (!redisProperties.isCacheNullValues()) {
+            config = config.disableCachingNullValues();
+        }
+        if (!redisProperties.isUseKeyPrefix()) {
+            config = config.disableKeyPrefix();
+        }
+        return config;
+    }
+
+    @Bean
+    public CacheInvalidationBroadcaster cacheInvalidationBroadcaster(StringRedisTemplate stringRedisTemplate,
+                                                                     MeterRegistry meterRegistry) {
+        return new CacheInvalidationBroadcaster(stringRedisTemplate, invalidationChannel, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            CacheInvalidationBroadcaster cacheInvalidationBroadcaster) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBroadcaster, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheProperties cacheProperties,
+                                     CacheInvalidationBroadcaster cacheInvalidationBroadcaster,
+                                     MeterRegistry meterRegistry) {
+        RedisCacheConfiguration redisCacheConfiguration = redisCacheConfiguration(cacheProperties);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(redisCacheConfiguration)
+                .initialCacheNames(new LinkedHashSet<>(cacheProperties.getCacheNames()))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager, cacheInvalidationBroadcaster,
+                new RedisVersionedCacheStore(connectionFactory, redisCacheConfiguration), AccountCacheWriter::versionOf,
+                meterRegistry, localMaximumSize, Duration.ofMillis(localTimeToLiveMs));
+    }
+}
@@ -2,8 +2,10 @@ package com.example.easybank.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -15,6 +17,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.time.Duration;
@@ -24,6 +27,11 @@ import java.time.Duration;
  * 
  * Redis is used primarily for rate limiting. Transaction data is stored in the
  * application's primary database, not Redis.
+ *
+ * The rate limiter has its own connection with a command timeout of a few milliseconds
+ * ({@code app.rate-limit.redis.command-timeout-ms}), so a slow Redis fails its checks fast and
+ * trips {@link com.example.easybank.service.RateLimiterCircuitBreaker} instead of holding
+ * request threads.
  */
 @Configuration
 public class RedisConfig {
@@ -34,7 +42,14 @@ public class RedisConfig {
     @Value("${spring.redis.port}")
     private int redisPort;
 
+    @Value("${spring.redis.timeout:2000}")
+    private long commandTimeoutMs;
+
+    @Value("${app.rate-limit.redis.command-timeout-ms:100}")
+    private long rateLimiterCommandTimeoutMs;
+
     @Bean
+    @Primary
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
         redisConfig.setHostName(redisHost);
@@ -54,7 +69,7 @@ public class RedisConfig {
 
         LettucePoolingClientConfiguration lettucePoolConfig = LettucePoolingClientConfiguration.builder()
                 .poolConfig(poolConfig)
-                .commandTimeout(Duration.ofSeconds(10))
+                .commandTimeout(Duration.ofMillis(commandTimeoutMs))
                 .shutdownTimeout(Duration.ofSeconds(3))
                 .build();
 
@@ -100,18 +115,33 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Connection of the rate limiter: one shared, pipelined Lettuce connection (no pool, so no
+     * validation pings per call) with a tight command timeout.
+     */
+    @Bean
+    public LettuceConnectionFactory rateLimiterConnectionFactory() {
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(rateLimiterCommandTimeoutMs))
+                .shutdownTimeout(Duration.ofSeconds(1))
+                .build();
+        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort), clientConfig);
+    }
+
     /**
      * Redis template used by the rate limiter service
      */
     @Bean
-    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, String> redisTemplate(
+            @Qualifier("rateLimiterConnectionFactory") RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
         template.setHashValueSerializer(new StringRedisSerializer());
-        template.setEnableTransactionSupport(true);
+        // No transaction support: inside a database transaction (batch transfers) commands would be
+        // queued in MULTI and every reply the rate limiter reads would come back null
         return template;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.easybank.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Virtual-thread execution mode, switched on with {@code app.threads.virtual.enabled=true}.
+ *
+ * Tomcat then runs every request on its own virtual thread instead of its bounded platform
+ * thread pool, and the application task executor (streaming exports, other async MVC work)
+ * starts a virtual thread per task. Threads blocked on JDBC, Redis or a retry backoff no
+ * longer hold a platform thread, so the number of requests in flight is bounded by the
+ * connection pool and the transfer admission limit rather than by {@code server.tomcat.threads.max}.
+ *
+ * Scheduled jobs keep their platform thread: the ledger write-behind flush holds a monitor
+ * across its JDBC batch and would pin a virtual thread's carrier.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Handling requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-vt-"));
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-vt-"));
+    }
+}
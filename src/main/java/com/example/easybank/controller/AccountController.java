@@ -1,17 +1,26 @@
 package com.example.easybank.controller;
 
+import com.example.easybank.aspect.RateLimited;
 import com.example.easybank.domain.Account;
 import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.BatchTransferResult;
+import com.example.easybank.dto.TransactionHistoryPage;
 import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.dto.TransferRequest;
 import com.example.easybank.service.AccountService;
+import com.example.easybank.service.AsyncTransferService;
+import com.example.easybank.service.HotAccountService;
+import com.example.easybank.service.IdempotentTransferService;
 import com.example.easybank.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -20,10 +29,19 @@ import java.util.List;
 public class AccountController {
     private final TransactionService transactionService;
     private final AccountService accountService;
+    private final IdempotentTransferService idempotentTransferService;
+    private final HotAccountService hotAccountService;
+    private final AsyncTransferService asyncTransferService;
 
-    public AccountController(TransactionService transactionService, AccountService accountService) {
+    public AccountController(TransactionService transactionService, AccountService accountService,
+                             IdempotentTransferService idempotentTransferService,
+                             HotAccountService hotAccountService,
+                             AsyncTransferService asyncTransferService) {
         this.transactionService = transactionService;
         this.accountService = accountService;
+        this.idempotentTransferService = idempotentTransferService;
+        this.hotAccountService = hotAccountService;
+        this.asyncTransferService = asyncTransferService;
     }
     
     @Operation(summary = "Get account details", description = "Retrieves account information by account number")
@@ -47,24 +65,78 @@ public class AccountController {
             @RequestParam BigDecimal initialBalance) {
         return ResponseEntity.ok(accountService.createAccount(accountHolder, accountType, currency, initialBalance));
     }
+
+    @Operation(summary = "Set balance slots", description = "Spreads the balance of a hot account over this many " +
+            "slot rows so concurrent credits do not queue on its row lock; 0 turns slotting off")
+    @PutMapping("/{accountNumber}/balance-slots")
+    public ResponseEntity<Account> setBalanceSlots(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "Number of slots", required = true, example = "16")
+            @RequestParam int slots) {
+        return ResponseEntity.ok(hotAccountService.setBalanceSlots(accountNumber, slots));
+    }
     
-    @Operation(summary = "Transfer money", description = "Transfer money between two accounts")
+    @Operation(summary = "Transfer money", description = "Transfer money between two accounts. A request repeated " +
+            "with the same Idempotency-Key returns the original transaction instead of transferring again")
     @PostMapping("/{sourceAccountNumber}/transfer")
+    @RateLimited(value = "transfers", requestsPerMinute = 120, burst = 20,
+            clientClasses = @RateLimited.ClientClassLimit(name = "internal", requestsPerMinute = 1200, burst = 200))
     public ResponseEntity<Transaction> transfer(
             @Parameter(description = "Source account number", required = true)
             @PathVariable String sourceAccountNumber,
             @Parameter(description = "Destination account number", required = true)
             @RequestParam String destinationAccountNumber,
             @Parameter(description = "Amount to transfer", required = true, example = "100.00")
-            @RequestParam BigDecimal amount) {
-        Transaction transaction = transactionService.processTransaction(
-                sourceAccountNumber,
-                destinationAccountNumber,
-                amount
-        );
+            @RequestParam BigDecimal amount,
+            @Parameter(description = "Client-chosen key, unique per transfer of this source account")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(transactionService.processTransaction(
+                    sourceAccountNumber, destinationAccountNumber, amount));
+        }
+        Transaction transaction = idempotentTransferService.execute(idempotencyKey,
+                sourceAccountNumber, destinationAccountNumber, amount,
+                transactionId -> transactionService.processTransaction(
+                        sourceAccountNumber, destinationAccountNumber, amount, transactionId));
         return ResponseEntity.ok(transaction);
     }
     
+    @Operation(summary = "Submit transfer", description = "Queues a transfer and answers 202 Accepted at once. " +
+            "The transaction is PENDING until a worker applies it; poll the Location URL for its status")
+    @PostMapping("/{sourceAccountNumber}/transfer/async")
+    @RateLimited(value = "transfers", requestsPerMinute = 120, burst = 20,
+            clientClasses = @RateLimited.ClientClassLimit(name = "internal", requestsPerMinute = 1200, burst = 200))
+    public ResponseEntity<Transaction> submitTransfer(
+            @Parameter(description = "Source account number", required = true)
+            @PathVariable String sourceAccountNumber,
+            @Parameter(description = "Destination account number", required = true)
+            @RequestParam String destinationAccountNumber,
+            @Parameter(description = "Amount to transfer", required = true, example = "100.00")
+            @RequestParam BigDecimal amount,
+            @Parameter(description = "Client-chosen key, unique per transfer of this source account")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Transaction transaction = idempotencyKey == null
+                ? asyncTransferService.submit(sourceAccountNumber, destinationAccountNumber, amount)
+                : idempotentTransferService.execute(idempotencyKey, sourceAccountNumber, destinationAccountNumber, amount,
+                        transactionId -> asyncTransferService.submit(
+                                sourceAccountNumber, destinationAccountNumber, amount, transactionId));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/api/transactions/" + transaction.getTransactionId()))
+                .body(transaction);
+    }
+    
+    @Operation(summary = "Batch transfer",
+            description = "Applies a list of transfers in one database transaction and returns a result for each item")
+    @PostMapping("/transfers/batch")
+    @RateLimited(value = "transfers", requestsPerMinute = 120, burst = 20, cost = 10,
+            clientClasses = @RateLimited.ClientClassLimit(name = "internal", requestsPerMinute = 1200, burst = 200))
+    public ResponseEntity<List<BatchTransferResult>> batchTransfer(
+            @Parameter(description = "Transfers to apply, in order", required = true)
+            @RequestBody List<TransferRequest> transfers) {
+        return ResponseEntity.ok(transactionService.processBatchTransfer(transfers));
+    }
+    
     @Operation(summary = "Get account transactions", description = "Retrieves all transactions for an account")
     @GetMapping("/{accountNumber}/transactions")
     public ResponseEntity<List<TransactionResponse>> getAccountTransactions(
@@ -72,4 +144,17 @@ public class AccountController {
             @PathVariable String accountNumber) {
         return ResponseEntity.ok(transactionService.getAccountTransactions(accountNumber));
     }
+
+    @Operation(summary = "Get account transaction history",
+            description = "Retrieves one page of an account's transactions, newest first")
+    @GetMapping("/{accountNumber}/transactions/history")
+    public ResponseEntity<TransactionHistoryPage> getTransactionHistory(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "Page size", example = "50")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor of the previous page")
+            @RequestParam(required = false) String before) {
+        return ResponseEntity.ok(transactionService.getTransactionHistory(accountNumber, limit, before));
+    }
 }
@@ -0,0 +1,60 @@
+package com.example.easybank.controller;
+
+import com.example.easybank.aspect.RateLimited;
+import com.example.easybank.domain.Account;
+import com.example.easybank.service.ExportFormat;
+import com.example.easybank.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/exports")
+@Tag(name = "Exports", description = "Streaming exports of transactions and accounts")
+@RateLimited(value = "exports", requestsPerMinute = 10, burst = 3)
+public class ExportController {
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(summary = "Export account transactions",
+            description = "Streams every transaction of an account, oldest first, as NDJSON or CSV")
+    @GetMapping("/accounts/{accountNumber}/transactions")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "NDJSON or CSV", example = "NDJSON")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        Account account = exportService.requireAccount(accountNumber);
+        return stream(format, "transactions-" + account.getAccountNumber(),
+                out -> exportService.exportTransactions(account, format, out));
+    }
+
+    @Operation(summary = "Export accounts", description = "Streams a snapshot of every account as NDJSON or CSV")
+    @GetMapping("/accounts")
+    public ResponseEntity<StreamingResponseBody> exportAccounts(
+            @Parameter(description = "NDJSON or CSV", example = "CSV")
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return stream(format, "accounts", out -> exportService.exportAccounts(format, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(ExportFormat format, String fileName,
+                                                               StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + fileName + "." + format.name().toLowerCase() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.easybank.controller;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.dto.TransactionHistoryPage;
+import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.service.ReactiveQueryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read-only account API on the non-blocking read path. Handlers return as soon as the query is
+ * sent; Spring MVC completes the response asynchronously when the row arrives, so no request
+ * thread or JDBC connection is held while the database works.
+ */
+@RestController
+@RequestMapping("/api/reactive/accounts")
+@Tag(name = "Account Queries (non-blocking)", description = "Account and transaction reads over R2DBC")
+public class ReactiveAccountController {
+    private final ReactiveQueryService queryService;
+
+    public ReactiveAccountController(ReactiveQueryService queryService) {
+        this.queryService = queryService;
+    }
+
+    @Operation(summary = "Get account details", description = "Retrieves account information by account number")
+    @GetMapping("/{accountNumber}")
+    public Mono<Account> getAccount(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber) {
+        return queryService.getAccount(accountNumber);
+    }
+
+    @Operation(summary = "Get account transactions", description = "Retrieves all transactions for an account, newest first")
+    @GetMapping("/{accountNumber}/transactions")
+    public Mono<List<TransactionResponse>> getAccountTransactions(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber) {
+        return queryService.getAccountTransactions(accountNumber).collectList();
+    }
+
+    @Operation(summary = "Get account transaction history",
+            description = "Retrieves one page of an account's transactions, newest first")
+    @GetMapping("/{accountNumber}/transactions/history")
+    public Mono<TransactionHistoryPage> getTransactionHistory(
+            @Parameter(description = "Account number", required = true)
+            @PathVariable String accountNumber,
+            @Parameter(description = "Page size", example = "50")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "nextCursor of the previous page")
+            @RequestParam(required = false) String before) {
+        return queryService.getTransactionHistory(accountNumber, limit, before);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.easybank.controller;
+
+import com.example.easybank.dto.SlowTransfer;
+import com.example.easybank.service.TransferStageRecorder;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowtransfers}: the slowest recent transfers with the time each one
+ * spent per stage, slowest first.
+ */
+@Component
+@Endpoint(id = "slowtransfers")
+public class SlowTransfersEndpoint {
+    private final TransferStageRecorder stageRecorder;
+
+    public SlowTransfersEndpoint(TransferStageRecorder stageRecorder) {
+        this.stageRecorder = stageRecorder;
+    }
+
+    @ReadOperation
+    public List<SlowTransfer> slowTransfers() {
+        return stageRecorder.slowest();
+    }
+}
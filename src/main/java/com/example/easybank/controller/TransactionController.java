@@ -0,0 +1,33 @@
+package com.example.easybank.controller;
+
+import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.service.TransactionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/transactions")
+@Tag(name = "Transactions", description = "Lookup of single transactions")
+public class TransactionController {
+    private final TransactionService transactionService;
+
+    public TransactionController(TransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @Operation(summary = "Get transaction",
+            description = "Retrieves a transaction by the transactionId returned when it was submitted")
+    @GetMapping("/{transactionId}")
+    public ResponseEntity<TransactionResponse> getTransaction(
+            @Parameter(description = "Transaction id", required = true,
+                    example = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f70")
+            @PathVariable String transactionId) {
+        return ResponseEntity.ok(transactionService.getTransaction(transactionId));
+    }
+}
@@ -32,6 +32,10 @@ public class Account extends BaseEntity implements Serializable {
     @Version
     private Integer version;
 
+    // Number of balance slot rows; 0 for a regular account
+    @Column(name = "balance_slots", nullable = false)
+    private Integer balanceSlots;
+
     private static final long serialVersionUID = 1L;
 
     public Long getId() {
@@ -98,6 +102,21 @@ public class Account extends BaseEntity implements Serializable {
         this.version = version;
     }
 
+    public Integer getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public void setBalanceSlots(Integer balanceSlots) {
+        this.balanceSlots = balanceSlots;
+    }
+
+    /**
+     * Whether part of the balance lives in slot rows, see {@code account_balance_slots}.
+     */
+    public boolean hasBalanceSlots() {
+        return balanceSlots != null && balanceSlots > 0;
+    }
+
     @Override
     public boolean equals(Object that) {
         if (this == that) {
@@ -117,6 +136,7 @@ public class Account extends BaseEntity implements Serializable {
             && (this.getAccountType() == null ? other.getAccountType() == null : this.getAccountType().equals(other.getAccountType()))
             && (this.getStatus() == null ? other.getStatus() == null : this.getStatus().equals(other.getStatus()))
             && (this.getVersion() == null ? other.getVersion() == null : this.getVersion().equals(other.getVersion()))
+            && (this.getBalanceSlots() == null ? other.getBalanceSlots() == null : this.getBalanceSlots().equals(other.getBalanceSlots()))
             && (this.getCreatedAt() == null ? other.getCreatedAt() == null : this.getCreatedAt().equals(other.getCreatedAt()))
             && (this.getUpdatedAt() == null ? other.getUpdatedAt() == null : this.getUpdatedAt().equals(other.getUpdatedAt()));
     }
@@ -132,6 +152,7 @@ public class Account extends BaseEntity implements Serializable {
         result = prime * result + ((getAccountType() == null) ? 0 : getAccountType().hashCode());
         result = prime * result + ((getStatus() == null) ? 0 : getStatus().hashCode());
         result = prime * result + ((getVersion() == null) ? 0 : getVersion().hashCode());
+        result = prime * result + ((getBalanceSlots() == null) ? 0 : getBalanceSlots().hashCode());
         result = prime * result + ((getCreatedAt() == null) ? 0 : getCreatedAt().hashCode());
         result = prime * result + ((getUpdatedAt() == null) ? 0 : getUpdatedAt().hashCode());
         return result;
@@ -151,6 +172,7 @@ public class Account extends BaseEntity implements Serializable {
         sb.append(", accountType=").append(accountType);
         sb.append(", status=").append(status);
         sb.append(", version=").append(version);
+        sb.append(", balanceSlots=").append(balanceSlots);
         sb.append(", createdAt=").append(getCreatedAt());
         sb.append(", updatedAt=").append(getUpdatedAt());
         sb.append(", serialVersionUID=").append(serialVersionUID);
@@ -51,7 +51,7 @@ public class Transaction extends BaseEntity implements Serializable {
 
     private String description;
 
-    @Transient
+    @Column(name = "transaction_id", columnDefinition = "uuid", insertable = false, updatable = false)
     private String transactionId;
 
     @Transient
@@ -0,0 +1,17 @@
+package com.example.easybank.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Row returned when ledger entries are rolled into an account: the new checkpointed
+ * balance and version, and how many entries were folded in.
+ */
+@Data
+public class BalanceCheckpoint {
+    private String accountNumber;
+    private BigDecimal balance;
+    private Integer version;
+    private long entries;
+}
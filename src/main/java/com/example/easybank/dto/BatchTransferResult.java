@@ -0,0 +1,49 @@
+package com.example.easybank.dto;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Outcome of one item of a batch transfer, reported at the same position as the request.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchTransferResult {
+    private int index;
+    private String transactionId;
+    private String sourceAccountNumber;
+    private String destinationAccountNumber;
+    private BigDecimal amount;
+    private String currency;
+    private TransactionStatus status;
+    private String errorMessage;
+
+    public static BatchTransferResult completed(int index, Transaction transaction) {
+        return BatchTransferResult.builder()
+                .index(index)
+                .transactionId(transaction.getTransactionId())
+                .sourceAccountNumber(transaction.getSourceAccountNumber())
+                .destinationAccountNumber(transaction.getDestinationAccountNumber())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .status(transaction.getStatus())
+                .build();
+    }
+
+    public static BatchTransferResult failed(int index, TransferRequest request, String errorMessage) {
+        return BatchTransferResult.builder()
+                .index(index)
+                .sourceAccountNumber(request != null ? request.getSourceAccountNumber() : null)
+                .destinationAccountNumber(request != null ? request.getDestinationAccountNumber() : null)
+                .amount(request != null ? request.getAmount() : null)
+                .status(TransactionStatus.FAILED)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.easybank.dto;
+
+import lombok.Data;
+
+/**
+ * Stored state of a transfer's idempotency key: the hash of the request that claimed it, the id
+ * the transfer runs under and, once the transfer finished, the JSON of the transaction it returned.
+ */
+@Data
+public class IdempotencyRecord {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    private String requestHash;
+    private String transactionId;
+    private String status;
+    private String response;
+}
@@ -0,0 +1,22 @@
+package com.example.easybank.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Row of the transfer outbox: one event per completed transfer. {@code id} grows with the
+ * insert order and is the order events are published in.
+ */
+@Data
+public class OutboxEvent {
+    private Long id;
+    private String eventType;
+    private String transactionId;
+    private String sourceAccountNumber;
+    private String destinationAccountNumber;
+    private BigDecimal amount;
+    private String currency;
+    private OffsetDateTime createdAt;
+}
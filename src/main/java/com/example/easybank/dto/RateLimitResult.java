@@ -0,0 +1,31 @@
+package com.example.easybank.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of one rate limit check: whether the call is admitted, how many more calls the key
+ * has right now, and when it can retry or is back at its full quota.
+ */
+@Data
+@Builder
+public class RateLimitResult {
+    private boolean allowed;
+    private int limit;
+    private int remaining;
+    /**
+     * Time until the next call would be admitted, 0 when this one was.
+     */
+    private long retryAfterMs;
+    /**
+     * Time until the key is back at its full quota.
+     */
+    private long resetAfterMs;
+
+    /**
+     * Retry delay rounded up to whole seconds, for the Retry-After header.
+     */
+    public int getRetryAfterSeconds() {
+        return (int) Math.max(1, (retryAfterMs + 999) / 1000);
+    }
+}
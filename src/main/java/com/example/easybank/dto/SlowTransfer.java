@@ -0,0 +1,19 @@
+package com.example.easybank.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One of the slowest recent transfers, with the time spent in each stage that it went through.
+ */
+@Data
+public class SlowTransfer {
+    private String transactionId;
+    private String mode;
+    private String outcome;
+    private Instant finishedAt;
+    private long totalMicros;
+    private Map<String, Long> stageMicros;
+}
@@ -0,0 +1,19 @@
+package com.example.easybank.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of an account's transaction history, newest first. Pass {@code nextCursor} as
+ * {@code before} to get the next page; it is absent on the last page.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionHistoryPage {
+    private List<TransactionResponse> transactions;
+    private String nextCursor;
+}
@@ -6,12 +6,15 @@ import com.example.easybank.domain.TransactionType;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
 @Data
 @Builder
-public class TransactionResponse {
+public class TransactionResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private String transactionId;
     private BigDecimal amount;
     private String currency;
@@ -39,4 +42,35 @@ public class TransactionResponse {
                 .timestamp(transaction.getUpdatedAt())
                 .build();
     }
-} 
\ No newline at end of file
+
+    /**
+     * Entry of an account's history from a row with flat account columns. Money leaving the
+     * account is reported as a negative amount.
+     */
+    public static TransactionResponse forAccount(Transaction transaction, Long accountId) {
+        TransactionResponse response = fromRow(transaction);
+        if (accountId.equals(transaction.getSourceAccountId())) {
+            response.setAmount(transaction.getAmount().negate());
+        }
+        return response;
+    }
+
+    /**
+     * A transaction from a row with flat account columns, with the amount as stored.
+     */
+    public static TransactionResponse fromRow(Transaction transaction) {
+        return TransactionResponse.builder()
+                .transactionId(transaction.getTransactionId())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .description(transaction.getDescription())
+                .sourceAccountNumber(transaction.getSourceAccountNumber())
+                .sourceAccountHolder(transaction.getSourceAccountHolder())
+                .destinationAccountNumber(transaction.getDestinationAccountNumber())
+                .destinationAccountHolder(transaction.getDestinationAccountHolder())
+                .status(transaction.getStatus())
+                .transactionType(transaction.getTransactionType())
+                .timestamp(transaction.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.easybank.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Row returned by the single-statement transfer: the inserted transaction id and the
+ * balances and versions both accounts were left with.
+ */
+@Data
+public class TransferExecution {
+    private Long transactionId;
+    private OffsetDateTime createdAt;
+    private String currency;
+
+    private Long sourceAccountId;
+    private String sourceAccountHolder;
+    private BigDecimal sourceBalance;
+    private Integer sourceVersion;
+
+    private Long destinationAccountId;
+    private String destinationAccountHolder;
+    private BigDecimal destinationBalance;
+    private Integer destinationVersion;
+}
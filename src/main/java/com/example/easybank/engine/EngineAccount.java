@@ -0,0 +1,39 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.domain.Account;
+
+/**
+ * Authoritative in-memory state of an account while the engine owns it. Only the owning
+ * shard thread reads or writes the balance.
+ */
+final class EngineAccount {
+    final long id;
+    final String accountNumber;
+    final String accountHolder;
+    final String currency;
+    final boolean active;
+    long balance;
+
+    EngineAccount(Account account) {
+        this.id = account.getId();
+        this.accountNumber = account.getAccountNumber();
+        this.accountHolder = account.getAccountHolder();
+        this.currency = account.getCurrency();
+        this.active = "ACTIVE".equals(account.getStatus());
+        this.balance = LedgerAmounts.toCents(account.getBalance());
+    }
+
+    /**
+     * Detached copy handed to the transfer result, so callers never see the live balance.
+     */
+    Account snapshot() {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder(accountHolder);
+        account.setCurrency(currency);
+        account.setStatus(active ? "ACTIVE" : "INACTIVE");
+        account.setBalance(LedgerAmounts.fromCents(balance));
+        return account;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.easybank.engine;
+
+import java.util.UUID;
+
+/**
+ * One fixed-size record of a shard journal. Amounts are in minor units (cents).
+ *
+ * @param sequence             position in the shard's journal, strictly increasing across restarts
+ * @param type                 what the record did to the shard's balances
+ * @param transferId           id pairing the legs of a cross-shard transfer
+ * @param sourceAccountId      debited account
+ * @param destinationAccountId credited account, 0 for a {@link Type#DEBIT} leg
+ * @param amount               transfer amount in cents
+ * @param timestamp            epoch millis when the shard applied the record
+ */
+record JournalEntry(long sequence, Type type, UUID transferId, long sourceAccountId,
+                    long destinationAccountId, long amount, long timestamp) {
+
+    enum Type {
+        /** Both legs applied on one shard. */
+        TRANSFER,
+        /** Source leg of a cross-shard transfer; the amount is reserved on the source shard. */
+        DEBIT,
+        /** Destination leg of a cross-shard transfer; completes it. */
+        CREDIT,
+        /** Returns a reserved amount to the source after the destination leg was rejected. */
+        REFUND
+    }
+}
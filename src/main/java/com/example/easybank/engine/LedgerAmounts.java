@@ -0,0 +1,25 @@
+package com.example.easybank.engine;
+
+import java.math.BigDecimal;
+
+/**
+ * The engine keeps money as long cents, matching the DECIMAL(19,2) balance column.
+ */
+final class LedgerAmounts {
+    private static final int SCALE = 2;
+
+    private LedgerAmounts() {
+    }
+
+    static long toCents(BigDecimal amount) {
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + amount);
+        }
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.exception.TooManyRequestsException;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.outbox.TransferOutbox;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerCheckpointRepository;
+import com.example.easybank.repository.TransactionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory transfer engine used when {@code app.transfer.mode=ENGINE}.
+ *
+ * Accounts are partitioned by account number across single-writer {@link LedgerShard}s, which
+ * hold the authoritative balances and apply transfers without database locks. A transfer is
+ * acknowledged once its journal record is on disk; balances and transaction rows reach
+ * PostgreSQL through the {@link LedgerWriteBehind} every {@code app.engine.flush-interval-ms}.
+ *
+ * Transfers between accounts of different shards run as DEBIT on the source shard, then
+ * CREDIT on the destination shard, or REFUND back on the source shard if the destination
+ * rejects it. The caller only sees the final outcome.
+ *
+ * While the engine runs it must be the only writer of account balances, and reads that go to
+ * the database can lag the engine by up to one flush interval.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.transfer.mode", havingValue = "ENGINE")
+public class LedgerEngine {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.engine.shards:0}")
+    private int shardCount;
+
+    @Value("${app.engine.queue-capacity:65536}")
+    private int queueCapacity;
+
+    @Value("${app.engine.max-drain:1024}")
+    private int maxDrain;
+
+    @Value("${app.engine.journal-dir:data/ledger-journal}")
+    private String journalDir;
+
+    @Value("${app.engine.journal-fsync:true}")
+    private boolean journalFsync;
+
+    @Value("${app.engine.flush-chunk-size:500}")
+    private int flushChunkSize;
+
+    @Value("${app.engine.submit-timeout-ms:5000}")
+    private long submitTimeoutMs;
+
+    @Value("${app.engine.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Autowired(required = false)
+    private AccountCacheWriter accountCacheWriter;
+
+    @Autowired(required = false)
+    private TransferOutbox transferOutbox;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private LedgerShard[] shards;
+    private LedgerWriteBehind writeBehind;
+    private Timer flushTimer;
+    private volatile boolean accepting;
+
+    public LedgerEngine(AccountRepository accountRepository,
+                        TransactionRepository transactionRepository,
+                        LedgerCheckpointRepository checkpointRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        Path directory = Path.of(journalDir);
+        new LedgerRecovery(accountRepository, transactionRepository, checkpointRepository,
+            transactionTemplate, transferOutbox, journalFsync).recover(directory);
+
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        long[] sequences = new long[count];
+        for (int i = 0; i < count; i++) {
+            Long checkpoint = checkpointRepository.findJournalSequence(i);
+            sequences[i] = checkpoint == null ? 0 : checkpoint;
+        }
+        writeBehind = new LedgerWriteBehind(count, accountRepository, transactionRepository, checkpointRepository,
+            transactionTemplate, accountCacheWriter, transferOutbox, flushChunkSize, sequences);
+        shards = new LedgerShard[count];
+        for (int i = 0; i < count; i++) {
+            LedgerJournal journal = LedgerJournal.open(directory.resolve(LedgerRecovery.journalFileName(i)), journalFsync);
+            shards[i] = new LedgerShard(i, this, accountRepository, journal, writeBehind, queueCapacity, maxDrain, sequences[i]);
+            LedgerShard shard = shards[i];
+            Gauge.builder("ledger.engine.queue.depth", shard, LedgerShard::queueDepth)
+                .tag("shard", String.valueOf(i))
+                .register(meterRegistry);
+            shard.start();
+        }
+        Gauge.builder("ledger.engine.inflight", inFlight, AtomicInteger::get).register(meterRegistry);
+        flushTimer = meterRegistry.timer("ledger.engine.flush.time");
+        accepting = true;
+        log.info("Ledger engine started with {} shards, journal in {}", count, directory.toAbsolutePath());
+    }
+
+    /**
+     * Applies a transfer and waits for its outcome. Validation failures surface as
+     * {@link IllegalArgumentException}, like the database-backed transfer modes.
+     */
+    public Transaction transfer(String transactionId, String sourceAccountNumber,
+                                String destinationAccountNumber, BigDecimal amount) {
+        return await(submit(transactionId, sourceAccountNumber, destinationAccountNumber, amount), transactionId);
+    }
+
+    /**
+     * Waits up to {@code app.engine.submit-timeout-ms} for a submitted transfer.
+     *
+     * @throws TransferInDoubtException if the wait times out or is interrupted: the transfer
+     *         stays queued and may still be applied, so callers must look its transaction id up
+     *         before retrying it
+     */
+    public Transaction await(CompletableFuture<Transaction> result, String transactionId) {
+        try {
+            return result.get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Transfer " + transactionId + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The transfer is still queued and may complete later
+            throw new TransferInDoubtException(transactionId, "Transfer " + transactionId
+                + " was not confirmed within " + submitTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferInDoubtException(transactionId,
+                "Interrupted while waiting for transfer " + transactionId, e);
+        }
+    }
+
+    /**
+     * Queues a transfer on the shard of its source account without waiting for it.
+     *
+     * @throws TooManyRequestsException if that shard's queue is full
+     */
+    public CompletableFuture<Transaction> submit(String transactionId, String sourceAccountNumber,
+                                                 String destinationAccountNumber, BigDecimal amount) {
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        long cents = LedgerAmounts.toCents(amount);
+        if (cents <= 0) {
+            throw new IllegalArgumentException("Transaction amount must be positive");
+        }
+        if (!accepting) {
+            throw new IllegalStateException("Ledger engine is not running");
+        }
+
+        CompletableFuture<Transaction> result = new CompletableFuture<>();
+        UUID transferId = transferId(transactionId);
+        LedgerShard source = shardFor(sourceAccountNumber);
+        LedgerShard.Command command = source == shardFor(destinationAccountNumber)
+            ? new LedgerShard.Transfer(transactionId, transferId, sourceAccountNumber, destinationAccountNumber, cents, result)
+            : new LedgerShard.Debit(transactionId, transferId, sourceAccountNumber, destinationAccountNumber, cents, result);
+
+        inFlight.incrementAndGet();
+        if (!source.offer(command)) {
+            inFlight.decrementAndGet();
+            throw new TooManyRequestsException("Ledger engine is saturated. Please try again later.", 1);
+        }
+        result.whenComplete((transaction, error) -> inFlight.decrementAndGet());
+        return result;
+    }
+
+    void handOff(LedgerShard.Command command) {
+        shardFor(command.accountNumber()).handOff(command);
+    }
+
+    private LedgerShard shardFor(String accountNumber) {
+        return shards[Math.floorMod(accountNumber.hashCode(), shards.length)];
+    }
+
+    private static UUID transferId(String transactionId) {
+        try {
+            return UUID.fromString(transactionId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(transactionId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Writes everything the shards applied since the previous flush to the database.
+     */
+    @Scheduled(fixedDelayString = "${app.engine.flush-interval-ms:50}")
+    public void flush() {
+        if (writeBehind == null) {
+            return;
+        }
+        try {
+            flushTimer.record(writeBehind::flush);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("ledger.engine.flush.failures").increment();
+            log.warn("Ledger write-behind flush failed, retrying on the next run", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (shards == null) {
+            return;
+        }
+        accepting = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        // Let cross-shard transfers finish all their legs before the shards stop
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        for (LedgerShard shard : shards) {
+            shard.stop(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        flush();
+        shards = null;
+        log.info("Ledger engine stopped, {} transfers still in flight", inFlight.get());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.easybank.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of one shard. Records are fixed size and end with a CRC32C, so a record
+ * torn by a crash is detected on read and everything from it on is ignored.
+ *
+ * Not thread-safe: only the owning shard thread appends.
+ */
+final class LedgerJournal implements Closeable {
+    // sequence, type, transfer id (2 longs), source, destination, amount, timestamp, crc
+    static final int RECORD_SIZE = 8 + 1 + 16 + 8 + 8 + 8 + 8 + 4;
+    private static final int BUFFERED_RECORDS = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * BUFFERED_RECORDS);
+    private final CRC32C crc = new CRC32C();
+    private final boolean fsync;
+
+    private LedgerJournal(FileChannel channel, boolean fsync) {
+        this.channel = channel;
+        this.fsync = fsync;
+    }
+
+    static LedgerJournal open(Path file, boolean fsync) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            return new LedgerJournal(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND), fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open ledger journal " + file, e);
+        }
+    }
+
+    /**
+     * Opens an existing journal for appending after its first {@code intactRecords} records,
+     * dropping whatever follows them.
+     */
+    static LedgerJournal openTruncated(Path file, int intactRecords, boolean fsync) {
+        LedgerJournal journal = open(file, fsync);
+        try {
+            journal.channel.truncate((long) intactRecords * RECORD_SIZE);
+        } catch (IOException e) {
+            journal.close();
+            throw new UncheckedIOException("Cannot truncate ledger journal " + file, e);
+        }
+        return journal;
+    }
+
+    void append(JournalEntry entry) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            writeBuffer();
+        }
+        int start = buffer.position();
+        buffer.putLong(entry.sequence());
+        buffer.put((byte) entry.type().ordinal());
+        buffer.putLong(entry.transferId().getMostSignificantBits());
+        buffer.putLong(entry.transferId().getLeastSignificantBits());
+        buffer.putLong(entry.sourceAccountId());
+        buffer.putLong(entry.destinationAccountId());
+        buffer.putLong(entry.amount());
+        buffer.putLong(entry.timestamp());
+        crc.reset();
+        crc.update(buffer.duplicate().position(start).limit(buffer.position()));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Writes everything appended so far and, unless fsync is disabled, forces it to disk.
+     * Called once per drained batch so the cost of the force is shared by the whole batch.
+     */
+    void sync() {
+        writeBuffer();
+        if (fsync) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync ledger journal", e);
+            }
+        }
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write ledger journal", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            sync();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot close ledger journal", e);
+            }
+        }
+    }
+
+    /**
+     * Reads all intact records of a journal file, stopping at the first torn or corrupt one.
+     */
+    static List<JournalEntry> read(Path file) {
+        List<JournalEntry> entries = new ArrayList<>();
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32C checksum = new CRC32C();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && in.read(record) > 0) {
+                    // keep reading until the record is complete or the file ends
+                }
+                if (record.hasRemaining()) {
+                    return entries;
+                }
+                record.flip();
+                checksum.reset();
+                checksum.update(record.array(), 0, RECORD_SIZE - 4);
+                if ((int) checksum.getValue() != record.getInt(RECORD_SIZE - 4)) {
+                    return entries;
+                }
+                entries.add(new JournalEntry(
+                    record.getLong(),
+                    JournalEntry.Type.values()[record.get()],
+                    new UUID(record.getLong(), record.getLong()),
+                    record.getLong(),
+                    record.getLong(),
+                    record.getLong(),
+                    record.getLong()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read ledger journal " + file, e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.outbox.TransferOutbox;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerCheckpointRepository;
+import com.example.easybank.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Brings the database up to date with the journals left by the previous run before any shard
+ * starts.
+ *
+ * Records past a shard's checkpoint were acknowledged but may not have been written behind
+ * yet, so their effects are applied to the stored balances. A DEBIT without a matching CREDIT
+ * or REFUND belongs to a cross-shard transfer that was never acknowledged; it is refunded, and
+ * the refund is journaled first so that running recovery again does not refund twice. After
+ * the database commit the journals are deleted and the shards start new ones.
+ */
+@Slf4j
+final class LedgerRecovery {
+    private static final Pattern JOURNAL_FILE = Pattern.compile("shard-(\\d+)\\.journal");
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferOutbox transferOutbox;
+    private final boolean fsync;
+
+    LedgerRecovery(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                   LedgerCheckpointRepository checkpointRepository, TransactionTemplate transactionTemplate,
+                   TransferOutbox transferOutbox, boolean fsync) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.transferOutbox = transferOutbox;
+        this.fsync = fsync;
+    }
+
+    static String journalFileName(int shard) {
+        return String.format("shard-%03d.journal", shard);
+    }
+
+    void recover(Path journalDir) {
+        Map<Integer, Path> files = journalFiles(journalDir);
+        if (files.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<JournalEntry>> journals = new LinkedHashMap<>();
+        files.forEach((shard, file) -> journals.put(shard, new ArrayList<>(LedgerJournal.read(file))));
+
+        refundUnsettledDebits(files, journals);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        List<JournalEntry> transfers = new ArrayList<>();
+        Map<Integer, Long> lastSequence = new HashMap<>();
+        for (Map.Entry<Integer, List<JournalEntry>> journal : journals.entrySet()) {
+            Long stored = checkpointRepository.findJournalSequence(journal.getKey());
+            long checkpoint = stored == null ? 0 : stored;
+            long last = checkpoint;
+            for (JournalEntry entry : journal.getValue()) {
+                last = Math.max(last, entry.sequence());
+                if (entry.sequence() <= checkpoint) {
+                    continue;
+                }
+                switch (entry.type()) {
+                    case TRANSFER -> {
+                        deltas.merge(entry.sourceAccountId(), -entry.amount(), Long::sum);
+                        deltas.merge(entry.destinationAccountId(), entry.amount(), Long::sum);
+                        transfers.add(entry);
+                    }
+                    case DEBIT -> deltas.merge(entry.sourceAccountId(), -entry.amount(), Long::sum);
+                    case CREDIT -> {
+                        deltas.merge(entry.destinationAccountId(), entry.amount(), Long::sum);
+                        transfers.add(entry);
+                    }
+                    case REFUND -> deltas.merge(entry.sourceAccountId(), entry.amount(), Long::sum);
+                }
+            }
+            lastSequence.put(journal.getKey(), last);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Account> accounts = new HashMap<>();
+            List<Account> changed = new ArrayList<>();
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                Account account = load(accounts, delta.getKey());
+                account.setBalance(account.getBalance().add(LedgerAmounts.fromCents(delta.getValue())));
+                changed.add(account);
+            }
+            if (!changed.isEmpty()) {
+                accountRepository.updateBalances(changed);
+            }
+            List<Transaction> transactions = new ArrayList<>(transfers.size());
+            for (JournalEntry entry : transfers) {
+                EngineAccount source = new EngineAccount(load(accounts, entry.sourceAccountId()));
+                EngineAccount destination = new EngineAccount(load(accounts, entry.destinationAccountId()));
+                // The transfer id is the transaction id the client got back, see LedgerEngine#submit
+                transactions.add(LedgerShard.completedTransaction(
+                    entry.transferId().toString(), entry.amount(), source, destination));
+            }
+            if (!transactions.isEmpty()) {
+                transactionRepository.saveAll(transactions);
+                if (transferOutbox != null) {
+                    transferOutbox.record(transactions);
+                }
+            }
+            lastSequence.forEach(checkpointRepository::saveJournalSequence);
+        });
+        log.info("Ledger recovery applied {} balance changes and {} transfers from {} journals",
+            deltas.size(), transfers.size(), files.size());
+
+        for (Path file : files.values()) {
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot remove recovered ledger journal " + file, e);
+            }
+        }
+    }
+
+    private void refundUnsettledDebits(Map<Integer, Path> files, Map<Integer, List<JournalEntry>> journals) {
+        Set<UUID> settled = new HashSet<>();
+        for (List<JournalEntry> entries : journals.values()) {
+            for (JournalEntry entry : entries) {
+                if (entry.type() == JournalEntry.Type.CREDIT || entry.type() == JournalEntry.Type.REFUND) {
+                    settled.add(entry.transferId());
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<JournalEntry>> journal : journals.entrySet()) {
+            List<JournalEntry> entries = journal.getValue();
+            List<JournalEntry> refunds = new ArrayList<>();
+            long sequence = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).sequence();
+            for (JournalEntry entry : entries) {
+                if (entry.type() == JournalEntry.Type.DEBIT && !settled.contains(entry.transferId())) {
+                    refunds.add(new JournalEntry(++sequence, JournalEntry.Type.REFUND, entry.transferId(),
+                        entry.sourceAccountId(), 0L, entry.amount(), System.currentTimeMillis()));
+                }
+            }
+            if (refunds.isEmpty()) {
+                continue;
+            }
+            log.warn("Refunding {} unfinished cross-shard transfers from journal of shard {}",
+                refunds.size(), journal.getKey());
+            // Cut off a torn tail first, or the refunds would be unreadable behind it
+            try (LedgerJournal out = LedgerJournal.openTruncated(files.get(journal.getKey()), entries.size(), fsync)) {
+                refunds.forEach(out::append);
+            }
+            entries.addAll(refunds);
+        }
+    }
+
+    private Account load(Map<Long, Account> accounts, long id) {
+        return accounts.computeIfAbsent(id, key -> accountRepository.findById(key)
+            .orElseThrow(() -> new IllegalStateException("Journaled account " + key + " no longer exists")));
+    }
+
+    private static Map<Integer, Path> journalFiles(Path journalDir) {
+        Map<Integer, Path> files = new LinkedHashMap<>();
+        if (!Files.isDirectory(journalDir)) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.list(journalDir)) {
+            paths.sorted().forEach(path -> {
+                Matcher matcher = JOURNAL_FILE.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    files.put(Integer.parseInt(matcher.group(1)), path);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list ledger journals in " + journalDir, e);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.repository.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer for a partition of the accounts.
+ *
+ * The shard thread drains its inbox in batches: it applies every command of the batch to the
+ * in-memory balances, appends their journal records, syncs the journal once and only then
+ * settles the commands (completes futures or hands the next leg to another shard) and
+ * publishes the batch to the write-behind. No lock is taken on the hot path.
+ */
+@Slf4j
+final class LedgerShard implements Runnable {
+    private final int index;
+    private final LedgerEngine engine;
+    private final AccountRepository accountRepository;
+    private final LedgerJournal journal;
+    private final LedgerWriteBehind writeBehind;
+    private final int maxDrain;
+
+    // Unbounded so a shard handing a leg to another shard never blocks; client intake is
+    // bounded by the admission permits instead
+    private final BlockingQueue<Command> inbox = new LinkedBlockingQueue<>();
+    private final Semaphore admissions;
+    private final Map<String, EngineAccount> accounts = new HashMap<>();
+    private final Thread thread;
+    private long sequence;
+    private volatile boolean running = true;
+    private volatile boolean failed;
+
+    LedgerShard(int index, LedgerEngine engine, AccountRepository accountRepository, LedgerJournal journal,
+                LedgerWriteBehind writeBehind, int queueCapacity, int maxDrain, long sequence) {
+        this.index = index;
+        this.engine = engine;
+        this.accountRepository = accountRepository;
+        this.journal = journal;
+        this.writeBehind = writeBehind;
+        this.maxDrain = maxDrain;
+        this.admissions = new Semaphore(queueCapacity);
+        this.sequence = sequence;
+        this.thread = new Thread(this, "ledger-shard-" + index);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Accepts a client command, or returns false when the shard is saturated or stopped.
+     */
+    boolean offer(Command command) {
+        if (!running || failed || !admissions.tryAcquire()) {
+            return false;
+        }
+        command.admitted = true;
+        inbox.add(command);
+        return true;
+    }
+
+    /**
+     * Accepts the next leg of a transfer that another shard already started.
+     */
+    void handOff(Command command) {
+        inbox.add(command);
+    }
+
+    int queueDepth() {
+        return inbox.size();
+    }
+
+    void stop(long timeoutMs) throws InterruptedException {
+        running = false;
+        thread.join(timeoutMs);
+        journal.close();
+    }
+
+    @Override
+    public void run() {
+        List<Command> drained = new ArrayList<>(maxDrain);
+        while (running || !inbox.isEmpty()) {
+            Command first;
+            try {
+                first = inbox.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+            drained.add(first);
+            inbox.drainTo(drained, maxDrain - 1);
+            processBatch(drained);
+            drained.clear();
+        }
+    }
+
+    private void processBatch(List<Command> commands) {
+        if (failed) {
+            commands.forEach(command -> settleUnavailable(command));
+            return;
+        }
+        LedgerWriteBehind.ShardBatch batch = new LedgerWriteBehind.ShardBatch();
+        for (Command command : commands) {
+            if (command.admitted) {
+                admissions.release();
+            }
+            try {
+                command.apply(this, batch);
+            } catch (RuntimeException e) {
+                // Loading an account failed; nothing was applied for this command, but a credit
+                // still has to return the amount its debit reserved
+                log.warn("Ledger shard {} could not apply transfer {}", index, command.transactionId, e);
+                if (command instanceof Credit credit) {
+                    command.next = new Refund(credit, "Destination account could not be loaded");
+                } else {
+                    command.error = e;
+                }
+            }
+        }
+        try {
+            journal.sync();
+        } catch (RuntimeException e) {
+            // Balances in memory are ahead of the journal now; refuse further work and let
+            // recovery rebuild the state from the database and the durable journal on restart
+            log.error("Ledger shard {} cannot write its journal, stopping the shard", index, e);
+            failed = true;
+            commands.forEach(command -> settleUnavailable(command));
+            return;
+        }
+        if (!batch.isEmpty()) {
+            batch.sequence = sequence;
+            writeBehind.publish(index, batch);
+        }
+        for (Command command : commands) {
+            command.settle(engine);
+        }
+    }
+
+    /**
+     * Fails a command the shard cannot settle. Only a command that journaled nothing, and whose
+     * transfer did not debit another shard before, has definitely failed: anything else may be
+     * in the durable journal, which recovery applies on restart, so its transfer is in doubt.
+     */
+    private static void settleUnavailable(Command command) {
+        if (command.journaled || command instanceof Credit || command instanceof Refund) {
+            command.result.completeExceptionally(new TransferInDoubtException(command.transactionId,
+                "Ledger shard is unavailable"));
+        } else {
+            command.result.completeExceptionally(new IllegalStateException("Ledger shard is unavailable"));
+        }
+    }
+
+    EngineAccount account(String accountNumber) {
+        EngineAccount account = accounts.get(accountNumber);
+        if (account == null) {
+            Account stored = accountRepository.findByAccountNumber(accountNumber).orElse(null);
+            if (stored == null) {
+                return null;
+            }
+            account = new EngineAccount(stored);
+            accounts.put(accountNumber, account);
+        }
+        return account;
+    }
+
+    void journal(JournalEntry.Type type, Command command, long sourceAccountId, long destinationAccountId) {
+        command.journaled = true;
+        journal.append(new JournalEntry(++sequence, type, command.transferId, sourceAccountId,
+            destinationAccountId, command.amount, System.currentTimeMillis()));
+    }
+
+    static Transaction completedTransaction(String transactionId, long amount,
+                                            EngineAccount source, EngineAccount destination) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(LedgerAmounts.fromCents(amount));
+        transaction.setCurrency(source.currency);
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(String.format("Transfer %s USD from %s to %s",
+            transaction.getAmount().toString(), source.accountNumber, destination.accountNumber));
+        transaction.setSourceAccount(reference(source));
+        transaction.setDestinationAccount(reference(destination));
+        transaction.setSourceAccountId(source.id);
+        transaction.setDestinationAccountId(destination.id);
+        transaction.setSourceAccountNumber(source.accountNumber);
+        transaction.setDestinationAccountNumber(destination.accountNumber);
+        transaction.setSourceAccountHolder(source.accountHolder);
+        transaction.setDestinationAccountHolder(destination.accountHolder);
+        return transaction;
+    }
+
+    private static Account reference(EngineAccount engineAccount) {
+        Account account = new Account();
+        account.setId(engineAccount.id);
+        account.setAccountNumber(engineAccount.accountNumber);
+        account.setAccountHolder(engineAccount.accountHolder);
+        account.setCurrency(engineAccount.currency);
+        return account;
+    }
+
+    /**
+     * One step of a transfer. The outcome is decided in {@link #apply} on the shard thread and
+     * acted on in {@link #settle} once the journal is durable.
+     */
+    abstract static class Command {
+        final String transactionId;
+        final UUID transferId;
+        final long amount;
+        final CompletableFuture<Transaction> result;
+        boolean admitted;
+        boolean journaled;
+
+        Transaction completed;
+        RuntimeException error;
+        Command next;
+
+        Command(String transactionId, UUID transferId, long amount, CompletableFuture<Transaction> result) {
+            this.transactionId = transactionId;
+            this.transferId = transferId;
+            this.amount = amount;
+            this.result = result;
+        }
+
+        abstract void apply(LedgerShard shard, LedgerWriteBehind.ShardBatch batch);
+
+        /**
+         * Account number whose shard runs this command.
+         */
+        abstract String accountNumber();
+
+        void settle(LedgerEngine engine) {
+            if (next != null) {
+                engine.handOff(next);
+            } else if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(completed);
+            }
+        }
+    }
+
+    /**
+     * Both accounts live on this shard: one journal record applies the whole transfer.
+     */
+    static final class Transfer extends Command {
+        final String sourceAccountNumber;
+        final String destinationAccountNumber;
+
+        Transfer(String transactionId, UUID transferId, String sourceAccountNumber, String destinationAccountNumber,
+                 long amount, CompletableFuture<Transaction> result) {
+            super(transactionId, transferId, amount, result);
+            this.sourceAccountNumber = sourceAccountNumber;
+            this.destinationAccountNumber = destinationAccountNumber;
+        }
+
+        @Override
+        String accountNumber() {
+            return sourceAccountNumber;
+        }
+
+        @Override
+        void apply(LedgerShard shard, LedgerWriteBehind.ShardBatch batch) {
+            EngineAccount source = shard.account(sourceAccountNumber);
+            EngineAccount destination = shard.account(destinationAccountNumber);
+            String rejection = source == null ? "Source account not found: " + sourceAccountNumber
+                : destination == null ? "Destination account not found: " + destinationAccountNumber
+                : !source.active ? "Source account is not active"
+                : !destination.active ? "Destination account is not active"
+                : source.balance < amount ? "Insufficient funds in source account"
+                : null;
+            if (rejection != null) {
+                error = new IllegalArgumentException(rejection);
+                return;
+            }
+            shard.journal(JournalEntry.Type.TRANSFER, this, source.id, destination.id);
+            source.balance -= amount;
+            destination.balance += amount;
+            batch.balance(source);
+            batch.balance(destination);
+            completed = completedTransaction(transactionId, amount, source, destination);
+            batch.transactions.add(completed);
+        }
+    }
+
+    /**
+     * First leg of a cross-shard transfer, run on the source shard: validates the source and
+     * reserves the amount by debiting it, then hands a {@link Credit} to the destination shard.
+     */
+    static final class Debit extends Command {
+        final String sourceAccountNumber;
+        final String destinationAccountNumber;
+
+        Debit(String transactionId, UUID transferId, String sourceAccountNumber, String destinationAccountNumber,
+              long amount, CompletableFuture<Transaction> result) {
+            super(transactionId, transferId, amount, result);
+            this.sourceAccountNumber = sourceAccountNumber;
+            this.destinationAccountNumber = destinationAccountNumber;
+        }
+
+        @Override
+        String accountNumber() {
+            return sourceAccountNumber;
+        }
+
+        @Override
+        void apply(LedgerShard shard, LedgerWriteBehind.ShardBatch batch) {
+            EngineAccount source = shard.account(sourceAccountNumber);
+            String rejection = source == null ? "Source account not found: " + sourceAccountNumber
+                : !source.active ? "Source account is not active"
+                : source.balance < amount ? "Insufficient funds in source account"
+                : null;
+            if (rejection != null) {
+                error = new IllegalArgumentException(rejection);
+                return;
+            }
+            shard.journal(JournalEntry.Type.DEBIT, this, source.id, 0L);
+            source.balance -= amount;
+            batch.balance(source);
+            next = new Credit(this, source, destinationAccountNumber);
+        }
+    }
+
+    /**
+     * Second leg, run on the destination shard. Completes the transfer, or hands a
+     * {@link Refund} back to the source shard when the destination cannot take the credit.
+     */
+    static final class Credit extends Command {
+        // Only the immutable fields of the source are read here; its balance belongs to the source shard
+        final EngineAccount source;
+        final String destinationAccountNumber;
+
+        Credit(Debit debit, EngineAccount source, String destinationAccountNumber) {
+            super(debit.transactionId, debit.transferId, debit.amount, debit.result);
+            this.source = source;
+            this.destinationAccountNumber = destinationAccountNumber;
+        }
+
+        @Override
+        String accountNumber() {
+            return destinationAccountNumber;
+        }
+
+        @Override
+        void apply(LedgerShard shard, LedgerWriteBehind.ShardBatch batch) {
+            EngineAccount destination = shard.account(destinationAccountNumber);
+            String rejection = destination == null ? "Destination account not found: " + destinationAccountNumber
+                : !destination.active ? "Destination account is not active"
+                : null;
+            if (rejection != null) {
+                next = new Refund(this, rejection);
+                return;
+            }
+            shard.journal(JournalEntry.Type.CREDIT, this, source.id, destination.id);
+            destination.balance += amount;
+            batch.balance(destination);
+            completed = completedTransaction(transactionId, amount, source, destination);
+            batch.transactions.add(completed);
+        }
+    }
+
+    /**
+     * Compensating leg, run on the source shard: returns the reserved amount and fails the transfer.
+     */
+    static final class Refund extends Command {
+        final EngineAccount source;
+        final String reason;
+
+        Refund(Credit credit, String reason) {
+            super(credit.transactionId, credit.transferId, credit.amount, credit.result);
+            this.source = credit.source;
+            this.reason = reason;
+        }
+
+        @Override
+        void apply(LedgerShard shard, LedgerWriteBehind.ShardBatch batch) {
+            shard.journal(JournalEntry.Type.REFUND, this, source.id, 0L);
+            source.balance += amount;
+            batch.balance(source);
+            error = new IllegalArgumentException(reason);
+        }
+
+        @Override
+        String accountNumber() {
+            return source.accountNumber;
+        }
+    }
+}
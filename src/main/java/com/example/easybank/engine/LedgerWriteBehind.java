@@ -0,0 +1,165 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.outbox.TransferOutbox;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerCheckpointRepository;
+import com.example.easybank.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Carries shard changes to PostgreSQL in batches.
+ *
+ * Shards publish one {@link ShardBatch} per drained batch. A flush coalesces everything
+ * published since the last flush into the latest balance per account, writes balances,
+ * transaction rows, their outbox events and the journal checkpoint of every shard in one
+ * database transaction.
+ * A failed flush keeps its pending state and the next flush retries it. Once a flush has
+ * committed, the cached entries of the accounts it wrote are evicted.
+ */
+@Slf4j
+final class LedgerWriteBehind {
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountCacheWriter accountCacheWriter;
+    private final TransferOutbox transferOutbox;
+    private final int chunkSize;
+
+    private final Queue<ShardBatch>[] published;
+    // Only touched under the flush lock
+    private final Map<Long, Long>[] pendingBalances;
+    private List<Transaction> pendingTransactions = new ArrayList<>();
+    private final Set<String> pendingAccountNumbers = new HashSet<>();
+    private final long[] pendingSequence;
+    private final long[] flushedSequence;
+
+    @SuppressWarnings("unchecked")
+    LedgerWriteBehind(int shards, AccountRepository accountRepository, TransactionRepository transactionRepository,
+                      LedgerCheckpointRepository checkpointRepository, TransactionTemplate transactionTemplate,
+                      AccountCacheWriter accountCacheWriter, TransferOutbox transferOutbox, int chunkSize,
+                      long[] initialSequence) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.accountCacheWriter = accountCacheWriter;
+        this.transferOutbox = transferOutbox;
+        this.chunkSize = chunkSize;
+        this.published = new Queue[shards];
+        this.pendingBalances = new Map[shards];
+        for (int i = 0; i < shards; i++) {
+            published[i] = new ConcurrentLinkedQueue<>();
+            pendingBalances[i] = new HashMap<>();
+        }
+        this.pendingSequence = initialSequence.clone();
+        this.flushedSequence = initialSequence.clone();
+    }
+
+    void publish(int shard, ShardBatch batch) {
+        published[shard].add(batch);
+    }
+
+    /**
+     * @return number of transaction rows written
+     */
+    synchronized int flush() {
+        for (int shard = 0; shard < published.length; shard++) {
+            ShardBatch batch;
+            while ((batch = published[shard].poll()) != null) {
+                pendingBalances[shard].putAll(batch.balances);
+                pendingAccountNumbers.addAll(batch.accountNumbers);
+                pendingTransactions.addAll(batch.transactions);
+                pendingSequence[shard] = batch.sequence;
+            }
+        }
+        if (!hasPending()) {
+            return 0;
+        }
+
+        List<Account> accounts = new ArrayList<>();
+        for (Map<Long, Long> balances : pendingBalances) {
+            for (Map.Entry<Long, Long> balance : balances.entrySet()) {
+                Account account = new Account();
+                account.setId(balance.getKey());
+                account.setBalance(LedgerAmounts.fromCents(balance.getValue()));
+                accounts.add(account);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < accounts.size(); from += chunkSize) {
+                accountRepository.updateBalances(accounts.subList(from, Math.min(from + chunkSize, accounts.size())));
+            }
+            for (int from = 0; from < pendingTransactions.size(); from += chunkSize) {
+                List<Transaction> chunk = pendingTransactions.subList(from, Math.min(from + chunkSize, pendingTransactions.size()));
+                transactionRepository.saveAll(chunk);
+                if (transferOutbox != null) {
+                    transferOutbox.record(chunk);
+                }
+            }
+            for (int shard = 0; shard < pendingSequence.length; shard++) {
+                if (pendingSequence[shard] != flushedSequence[shard]) {
+                    checkpointRepository.saveJournalSequence(shard, pendingSequence[shard]);
+                }
+            }
+            if (accountCacheWriter != null) {
+                accountCacheWriter.evictAfterCommit(pendingAccountNumbers);
+            }
+        });
+
+        int written = pendingTransactions.size();
+        log.debug("Ledger write-behind flushed {} balances and {} transactions", accounts.size(), written);
+        // A fresh list rather than clear(): the chunks handed to the mapper are views of this one
+        pendingTransactions = new ArrayList<>();
+        pendingAccountNumbers.clear();
+        for (int shard = 0; shard < pendingBalances.length; shard++) {
+            pendingBalances[shard].clear();
+            flushedSequence[shard] = pendingSequence[shard];
+        }
+        return written;
+    }
+
+    private boolean hasPending() {
+        if (!pendingTransactions.isEmpty()) {
+            return true;
+        }
+        for (int shard = 0; shard < pendingBalances.length; shard++) {
+            if (!pendingBalances[shard].isEmpty() || pendingSequence[shard] != flushedSequence[shard]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Changes made by one drained batch of a shard, up to and including {@link #sequence}.
+     */
+    static final class ShardBatch {
+        long sequence;
+        final Map<Long, Long> balances = new HashMap<>();
+        final Set<String> accountNumbers = new HashSet<>();
+        final List<Transaction> transactions = new ArrayList<>();
+
+        void balance(EngineAccount account) {
+            balances.put(account.id, account.balance);
+            accountNumbers.add(account.accountNumber);
+        }
+
+        boolean isEmpty() {
+            return balances.isEmpty() && transactions.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.easybank.exception;
+
+/**
+ * A transfer with the same Idempotency-Key has been claimed but has not finished yet; the
+ * client should retry the same request later.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.easybank.exception;
+
+/**
+ * The transfer was handed over but its outcome was not confirmed in time: it may still be
+ * applied. Callers must look the transaction id up before retrying, or retry with the same
+ * Idempotency-Key.
+ */
+public class TransferInDoubtException extends RuntimeException {
+
+    private final String transactionId;
+
+    public TransferInDoubtException(String transactionId, String message) {
+        super(message);
+        this.transactionId = transactionId;
+    }
+
+    public TransferInDoubtException(String transactionId, String message, Throwable cause) {
+        super(message, cause);
+        this.transactionId = transactionId;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.dto.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes outbox events to the application log, for running without a consumer
+ * ({@code app.outbox.sink=log}).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "log")
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("Outbox event {}: {} {} {} -> {} {} {}", event.getId(), event.getEventType(),
+                event.getTransactionId(), event.getSourceAccountNumber(), event.getDestinationAccountNumber(),
+                event.getAmount(), event.getCurrency());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.dto.OutboxEvent;
+import com.example.easybank.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the transfer outbox to the {@link OutboxSink}.
+ *
+ * Every {@code app.outbox.relay-interval-ms} the relay takes the oldest unpublished events in
+ * batches of {@code batch-size}, publishes them and marks them published in one database
+ * transaction, until it has caught up. An advisory lock keeps a single relay running across
+ * instances, so events go out in insert order. Events of one source account are inserted while
+ * its row is locked, hence in commit order, and reach the sink in that order. Events of one
+ * destination account have no such order: LEDGER mode and hot accounts credit it without locking
+ * its row. A failed publish or commit leaves the batch unpublished and it is sent again on the
+ * next run: delivery is at least once.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long retentionSeconds;
+
+    private final Counter published;
+    private final Counter failures;
+    private final Timer publishTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       OutboxSink sink,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.retention-seconds:86400}") long retentionSeconds) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.batchSize = batchSize;
+        this.retentionSeconds = retentionSeconds;
+        this.published = meterRegistry.counter("outbox.published");
+        this.failures = meterRegistry.counter("outbox.publish.failures");
+        this.publishTimer = meterRegistry.timer("outbox.publish.time");
+        Gauge.builder("outbox.lag", lagMillis, AtomicLong::get).baseUnit("milliseconds").register(meterRegistry);
+    }
+
+    /**
+     * Publishes batches until the outbox is drained or a batch fails.
+     *
+     * @return the number of events published
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay-interval-ms:200}")
+    public synchronized long relay() {
+        long total = 0;
+        try {
+            while (true) {
+                Integer count = transactionTemplate.execute(status -> publishBatch());
+                if (count == null || count == 0) {
+                    break;
+                }
+                total += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Outbox relay failed after {} events, retrying on the next run: {}", total, e.getMessage());
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        if (!outboxRepository.tryLockRelay()) {
+            return 0;
+        }
+        List<OutboxEvent> events = outboxRepository.findUnpublished(batchSize);
+        if (events.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        // Age of the oldest event still waiting when this batch was read
+        OutboxEvent oldest = events.get(0);
+        if (oldest.getCreatedAt() != null) {
+            lagMillis.set(Math.max(0, Duration.between(oldest.getCreatedAt(), OffsetDateTime.now()).toMillis()));
+        }
+
+        publishTimer.record(() -> sink.publish(events));
+        List<Long> ids = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            ids.add(event.getId());
+        }
+        outboxRepository.markPublished(ids);
+        published.increment(events.size());
+        return events.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-ms:600000}")
+    public void deletePublished() {
+        int deleted = outboxRepository.deletePublished(retentionSeconds);
+        if (deleted > 0) {
+            log.debug("Deleted {} published outbox events", deleted);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.dto.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the outbox relay, selected with {@code app.outbox.sink}.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publishes events in the given order and returns once the sink has stored all of them.
+     * Throwing makes the relay publish the whole batch again on its next run, so consumers see
+     * every event at least once and must tolerate duplicates.
+     */
+    void publish(List<OutboxEvent> events);
+}
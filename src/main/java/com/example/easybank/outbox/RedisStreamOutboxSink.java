@@ -0,0 +1,69 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.dto.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends outbox events to a Redis Stream, {@code app.outbox.redis.stream}, with one pipelined
+ * XADD per event and a single approximate trim to {@code max-length} entries per batch.
+ * Consumers read the stream with XREAD or a consumer group and can deduplicate on
+ * {@code eventId}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "redis", matchIfMissing = true)
+public class RedisStreamOutboxSink implements OutboxSink {
+    private final StringRedisTemplate redisTemplate;
+    private final byte[] stream;
+    private final long maxLength;
+
+    public RedisStreamOutboxSink(StringRedisTemplate redisTemplate,
+                                 @Value("${app.outbox.redis.stream:easybank:transfers}") String stream,
+                                 @Value("${app.outbox.redis.max-length:1000000}") long maxLength) {
+        this.redisTemplate = redisTemplate;
+        this.stream = stream.getBytes(StandardCharsets.UTF_8);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (OutboxEvent event : events) {
+                append(connection, event);
+            }
+            if (maxLength > 0) {
+                connection.streamCommands().xTrim(stream, maxLength, true);
+            }
+            return null;
+        });
+    }
+
+    private void append(RedisConnection connection, OutboxEvent event) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        put(fields, "eventId", event.getId());
+        put(fields, "type", event.getEventType());
+        put(fields, "transactionId", event.getTransactionId());
+        put(fields, "sourceAccountNumber", event.getSourceAccountNumber());
+        put(fields, "destinationAccountNumber", event.getDestinationAccountNumber());
+        put(fields, "amount", event.getAmount().toPlainString());
+        put(fields, "currency", event.getCurrency());
+        put(fields, "createdAt", event.getCreatedAt());
+        connection.streamCommands().xAdd(MapRecord.create(stream, fields));
+    }
+
+    private static void put(Map<byte[], byte[]> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name.getBytes(StandardCharsets.UTF_8), value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
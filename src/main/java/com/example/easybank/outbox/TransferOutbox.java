@@ -0,0 +1,35 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.repository.OutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes the outbox events of completed transfers. Callers run inside the database transaction
+ * that completes the transfers, so an event exists if and only if its transfer committed.
+ * Switched off with {@code app.outbox.enabled=false}.
+ */
+@Component
+public class TransferOutbox {
+    private final OutboxRepository outboxRepository;
+    private final boolean enabled;
+
+    public TransferOutbox(OutboxRepository outboxRepository,
+                          @Value("${app.outbox.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.enabled = enabled;
+    }
+
+    public void record(Transaction transaction) {
+        record(List.of(transaction));
+    }
+
+    public void record(List<Transaction> transactions) {
+        if (enabled && !transactions.isEmpty()) {
+            outboxRepository.saveAll(transactions);
+        }
+    }
+}
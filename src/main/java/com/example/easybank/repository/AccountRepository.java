@@ -1,31 +1,83 @@
 package com.example.easybank.repository;
 
 import com.example.easybank.domain.Account;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Mapper
 public interface AccountRepository {
+    /**
+     * The balance as reads show it: the row plus the balance slots of a hot account and the
+     * ledger entries of {@code TransferMode.LEDGER} after the last checkpoint.
+     */
+    String CURRENT_BALANCE = "a.balance + CASE WHEN a.balance_slots = 0 THEN 0 ELSE " +
+           "COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s WHERE s.account_id = a.id), 0) END + " +
+           "COALESCE((SELECT SUM(CASE WHEN e.entry_type = 'CREDIT' THEN e.amount ELSE -e.amount END) " +
+           "FROM ledger_entries e WHERE e.account_id = a.id AND e.id > a.ledger_entry_id), 0) AS balance";
+
     @Select("SELECT id, account_number as accountNumber, account_holder as accountHolder, " +
-           "balance, currency, account_type as accountType, status, version, created_at as createdAt, " +
+           "balance, currency, account_type as accountType, status, version, balance_slots as balanceSlots, created_at as createdAt, " +
            "updated_at as updatedAt FROM accounts WHERE id = #{id}")
     Optional<Account> findById(Long id);
     
     @Select("SELECT id, account_number as accountNumber, account_holder as accountHolder, " +
-           "balance, currency, account_type as accountType, status, version, created_at as createdAt, " +
+           "balance, currency, account_type as accountType, status, version, balance_slots as balanceSlots, created_at as createdAt, " +
            "updated_at as updatedAt FROM accounts WHERE account_number = #{accountNumber}")
     Optional<Account> findByAccountNumber(String accountNumber);
     
     @Select("SELECT id, account_number as accountNumber, account_holder as accountHolder, " +
-           "balance, currency, account_type as accountType, status, version, created_at as createdAt, " +
+           "balance, currency, account_type as accountType, status, version, balance_slots as balanceSlots, created_at as createdAt, " +
            "updated_at as updatedAt FROM accounts WHERE account_number = #{accountNumber} FOR UPDATE")
     Optional<Account> findByAccountNumberWithLock(String accountNumber);
+
+    /**
+     * Locks all given accounts in a single statement. Rows are locked in id order, so two
+     * callers locking overlapping sets can never wait on each other in a cycle.
+     */
+    @Select("<script>" +
+           "SELECT id, account_number as accountNumber, account_holder as accountHolder, " +
+           "balance, currency, account_type as accountType, status, version, balance_slots as balanceSlots, created_at as createdAt, " +
+           "updated_at as updatedAt FROM accounts WHERE account_number IN " +
+           "<foreach collection='accountNumbers' item='accountNumber' open='(' separator=',' close=')'>" +
+           "#{accountNumber}" +
+           "</foreach> " +
+           "ORDER BY id FOR UPDATE" +
+           "</script>")
+    List<Account> findAllByAccountNumberWithLock(@Param("accountNumbers") Collection<String> accountNumbers);
     
+    /**
+     * Same row as {@link #findByAccountNumber}, with the balance slots and the ledger entries
+     * after the checkpoint added to the balance, see {@link #CURRENT_BALANCE}. For reads that
+     * show the balance only: writers must not store this balance in the row.
+     */
+    @Select("SELECT a.id, a.account_number as accountNumber, a.account_holder as accountHolder, " +
+           CURRENT_BALANCE + ", a.currency, a.account_type as accountType, a.status, a.version, " +
+           "a.balance_slots as balanceSlots, a.created_at as createdAt, a.updated_at as updatedAt " +
+           "FROM accounts a WHERE a.account_number = #{accountNumber}")
+    Optional<Account> findWithSlotBalanceByAccountNumber(String accountNumber);
+
+    /**
+     * All accounts in id order, read in chunks of {@link TransactionRepository#EXPORT_FETCH_SIZE}.
+     * Balances are {@link #CURRENT_BALANCE}. Must be read inside a transaction.
+     */
+    @Select("SELECT a.id, a.account_number as accountNumber, a.account_holder as accountHolder, " +
+           CURRENT_BALANCE + ", a.currency, a.account_type as accountType, a.status, a.version, " +
+           "a.balance_slots as balanceSlots, a.created_at as createdAt, a.updated_at as updatedAt " +
+           "FROM accounts a ORDER BY a.id")
+    @Options(fetchSize = TransactionRepository.EXPORT_FETCH_SIZE)
+    Cursor<Account> streamAll();
+
     @Insert("INSERT INTO accounts (account_number, account_holder, balance, version, account_type, currency, status) " +
             "VALUES (#{accountNumber}, #{accountHolder}, #{balance}, #{version}, #{accountType}, #{currency}, #{status})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
@@ -41,7 +93,91 @@ public interface AccountRepository {
             "updated_at = now() " +
             "WHERE id = #{id}")
     int update(Account account);
+
+    /**
+     * Optimistic update: only succeeds if nobody changed the account since it was read.
+     * Returns 0 when the version no longer matches.
+     */
+    @Update("UPDATE accounts SET " +
+            "balance = #{balance}, " +
+            "version = version + 1, " +
+            "updated_at = now() " +
+            "WHERE id = #{id} AND version = #{version}")
+    int updateBalanceIfVersionMatches(Account account);
+
+    /**
+     * Adds {@code delta} to the balance of an active account, refusing to go below zero.
+     * Returns 0 when the guard fails, so a negative delta doubles as a sufficient-funds check.
+     */
+    @Update("UPDATE accounts SET " +
+            "balance = balance + #{delta}, " +
+            "version = version + 1, " +
+            "updated_at = now() " +
+            "WHERE id = #{id} AND status = 'ACTIVE' AND balance + #{delta} >= 0")
+    int applyBalanceDelta(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /**
+     * Writes the balances of several accounts in one round trip and bumps their versions.
+     */
+    @Update("<script>" +
+            "UPDATE accounts a SET " +
+            "balance = v.balance, " +
+            "version = a.version + 1, " +
+            "updated_at = now() " +
+            "FROM (VALUES " +
+            "<foreach collection='accounts' item='account' separator=','>" +
+            "(CAST(#{account.id} AS BIGINT), CAST(#{account.balance} AS DECIMAL(19,2)))" +
+            "</foreach>" +
+            ") AS v(id, balance) " +
+            "WHERE a.id = v.id" +
+            "</script>")
+    int updateBalances(@Param("accounts") List<Account> accounts);
     
+    /**
+     * Credits one balance slot of a hot account; only that slot row is locked. Returns 0 when
+     * the slot does not exist, e.g. because the slot count was lowered meanwhile.
+     */
+    @Update("UPDATE account_balance_slots SET balance = balance + #{amount} " +
+            "WHERE account_id = #{accountId} AND slot = #{slot}")
+    int creditBalanceSlot(@Param("accountId") Long accountId, @Param("slot") int slot,
+                          @Param("amount") BigDecimal amount);
+
+    /**
+     * Locks every balance slot of an account and returns their sum. Credits to the slots wait
+     * until the transaction ends.
+     */
+    @Select("SELECT COALESCE(SUM(balance), 0) FROM " +
+            "(SELECT balance FROM account_balance_slots WHERE account_id = #{accountId} FOR UPDATE) s")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE)
+    BigDecimal lockBalanceSlots(@Param("accountId") Long accountId);
+
+    /**
+     * Empties the balance slots of an account, after {@link #lockBalanceSlots}.
+     */
+    @Update("UPDATE account_balance_slots SET balance = 0 WHERE account_id = #{accountId} AND balance <> 0")
+    int clearBalanceSlots(@Param("accountId") Long accountId);
+
+    @Delete("DELETE FROM account_balance_slots WHERE account_id = #{accountId}")
+    int deleteBalanceSlots(@Param("accountId") Long accountId);
+
+    @Insert("INSERT INTO account_balance_slots(account_id, slot) " +
+            "SELECT #{accountId}, generate_series(0, #{slots} - 1)")
+    int insertBalanceSlots(@Param("accountId") Long accountId, @Param("slots") int slots);
+
+    /**
+     * Writes the balance and the slot count of an account and bumps its version.
+     */
+    @Update("UPDATE accounts SET " +
+            "balance = #{balance}, " +
+            "balance_slots = #{balanceSlots}, " +
+            "version = version + 1, " +
+            "updated_at = now() " +
+            "WHERE id = #{id}")
+    int updateBalanceSlots(Account account);
+
+    @Select("SELECT account_number FROM accounts WHERE balance_slots > 0")
+    List<String> findAccountNumbersWithBalanceSlots();
+
     default int save(Account account) {
         if (account.getId() != null) {
             return update(account);
@@ -0,0 +1,51 @@
+package com.example.easybank.repository;
+
+import com.example.easybank.dto.IdempotencyRecord;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * Durable store of transfer idempotency keys, unique per source account.
+ */
+@Mapper
+public interface IdempotencyKeyRepository {
+    /**
+     * Claims a key for a new transfer, which will run under {@code transactionId}. Returns 0 when
+     * the key is already taken.
+     */
+    @Insert("INSERT INTO transfer_idempotency_keys(source_account_number, idempotency_key, request_hash, transaction_id) " +
+           "VALUES(#{sourceAccountNumber}, #{idempotencyKey}, #{requestHash}, CAST(#{transactionId} AS uuid)) " +
+           "ON CONFLICT (source_account_number, idempotency_key) DO NOTHING")
+    int claim(@Param("sourceAccountNumber") String sourceAccountNumber,
+              @Param("idempotencyKey") String idempotencyKey,
+              @Param("requestHash") String requestHash,
+              @Param("transactionId") String transactionId);
+
+    @Select("SELECT request_hash as requestHash, transaction_id as transactionId, status, response " +
+           "FROM transfer_idempotency_keys " +
+           "WHERE source_account_number = #{sourceAccountNumber} AND idempotency_key = #{idempotencyKey}")
+    IdempotencyRecord find(@Param("sourceAccountNumber") String sourceAccountNumber,
+                           @Param("idempotencyKey") String idempotencyKey);
+
+    @Update("UPDATE transfer_idempotency_keys SET status = 'COMPLETED', response = #{response} " +
+           "WHERE source_account_number = #{sourceAccountNumber} AND idempotency_key = #{idempotencyKey}")
+    int complete(@Param("sourceAccountNumber") String sourceAccountNumber,
+                 @Param("idempotencyKey") String idempotencyKey,
+                 @Param("response") String response);
+
+    /**
+     * Gives up the claim of a transfer that failed, so the key can be used again.
+     */
+    @Delete("DELETE FROM transfer_idempotency_keys " +
+           "WHERE source_account_number = #{sourceAccountNumber} AND idempotency_key = #{idempotencyKey} " +
+           "AND status = 'IN_PROGRESS'")
+    int release(@Param("sourceAccountNumber") String sourceAccountNumber,
+                @Param("idempotencyKey") String idempotencyKey);
+
+    @Delete("DELETE FROM transfer_idempotency_keys WHERE created_at < now() - make_interval(secs => #{ttlSeconds})")
+    int deleteExpired(@Param("ttlSeconds") long ttlSeconds);
+}
@@ -0,0 +1,21 @@
+package com.example.easybank.repository;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * Journal positions of the ledger engine shards that are already reflected in the
+ * accounts and transactions tables.
+ */
+@Mapper
+public interface LedgerCheckpointRepository {
+    @Select("SELECT journal_sequence FROM ledger_checkpoints WHERE shard_id = #{shardId}")
+    Long findJournalSequence(@Param("shardId") int shardId);
+
+    @Insert("INSERT INTO ledger_checkpoints(shard_id, journal_sequence) " +
+           "VALUES(#{shardId}, #{journalSequence}) " +
+           "ON CONFLICT (shard_id) DO UPDATE SET journal_sequence = EXCLUDED.journal_sequence, updated_at = now()")
+    int saveJournalSequence(@Param("shardId") int shardId, @Param("journalSequence") long journalSequence);
+}
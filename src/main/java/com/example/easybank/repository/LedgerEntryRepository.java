@@ -0,0 +1,113 @@
+package com.example.easybank.repository;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.BalanceCheckpoint;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Double-entry ledger of {@code TransferMode.LEDGER}. Transfers only insert entries; the
+ * balance of an account is its checkpointed {@code accounts.balance} plus the entries after
+ * {@code accounts.ledger_entry_id}, until {@link #rollForward} folds them into the row.
+ *
+ * Transfers hold a shared advisory lock on each account they post to and the roll-forward an
+ * exclusive one, so a checkpoint never runs while an entry of the account is uncommitted.
+ */
+@Mapper
+public interface LedgerEntryRepository {
+
+    /**
+     * Inserts a DEBIT entry for the source and a CREDIT entry for the destination of every
+     * transaction, in one multi-row INSERT.
+     */
+    @Insert("<script>" +
+           "INSERT INTO ledger_entries(transaction_id, account_id, entry_type, amount) " +
+           "VALUES " +
+           "<foreach collection='transactions' item='t' separator=','>" +
+           "(CAST(#{t.transactionId} AS uuid), #{t.sourceAccount.id}, 'DEBIT', #{t.amount}), " +
+           "(CAST(#{t.transactionId} AS uuid), #{t.destinationAccount.id}, 'CREDIT', #{t.amount})" +
+           "</foreach>" +
+           "</script>")
+    int saveTransfers(@Param("transactions") List<Transaction> transactions);
+
+    /**
+     * Current balances: checkpoint plus the entries after it. Must run in its own statement
+     * after the rows are locked, so it sees every entry committed before the lock was granted.
+     * Only id and balance are set.
+     */
+    @Select("<script>" +
+           "SELECT a.id, a.balance + COALESCE((SELECT SUM(CASE WHEN e.entry_type = 'CREDIT' THEN e.amount ELSE -e.amount END) " +
+           "FROM ledger_entries e WHERE e.account_id = a.id AND e.id > a.ledger_entry_id), 0) AS balance " +
+           "FROM accounts a WHERE a.id IN " +
+           "<foreach collection='accountIds' item='accountId' open='(' separator=',' close=')'>" +
+           "#{accountId}" +
+           "</foreach>" +
+           "</script>")
+    @Options(useCache = false)
+    List<Account> findBalances(@Param("accountIds") Collection<Long> accountIds);
+
+    /**
+     * Taken by transfers for every account they post to, in account number order, until commit.
+     */
+    @Select("SELECT count(*) FROM pg_advisory_xact_lock_shared(hashtextextended(#{accountNumber}, 0))")
+    @Options(useCache = false)
+    int lockShared(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Taken by the checkpoint: waits for the transfers posting to the account to finish and
+     * holds off new ones until commit.
+     */
+    @Select("SELECT count(*) FROM pg_advisory_xact_lock(hashtextextended(#{accountNumber}, 0))")
+    @Options(useCache = false)
+    int lockExclusive(@Param("accountNumber") String accountNumber);
+
+    /**
+     * Every transaction id below this one has finished, so its entries are visible.
+     */
+    @Select("SELECT txid_snapshot_xmin(txid_current_snapshot())")
+    @Options(useCache = false)
+    long oldestRunningTxid();
+
+    /**
+     * Accounts with entries written by transactions from {@code sinceTxid} on.
+     */
+    @Select("SELECT DISTINCT a.account_number FROM ledger_entries e " +
+           "JOIN accounts a ON a.id = e.account_id " +
+           "WHERE e.created_txid >= #{sinceTxid}")
+    @Options(useCache = false)
+    List<String> findAccountsWithEntriesSince(@Param("sinceTxid") long sinceTxid);
+
+    /**
+     * Accounts with entries after their checkpoint, whoever wrote them.
+     */
+    @Select("SELECT a.account_number FROM accounts a " +
+           "WHERE EXISTS (SELECT 1 FROM ledger_entries e WHERE e.account_id = a.id AND e.id > a.ledger_entry_id)")
+    @Options(useCache = false)
+    List<String> findAccountsBehindLedger();
+
+    /**
+     * Folds the entries after the checkpoint into the account row and bumps its version.
+     * Returns null when there is nothing to fold. Run after {@link #lockExclusive}.
+     */
+    @Select("UPDATE accounts a SET " +
+           "balance = a.balance + d.delta, " +
+           "ledger_entry_id = d.last_entry_id, " +
+           "version = a.version + 1, " +
+           "updated_at = now() " +
+           "FROM (SELECT x.id AS account_id, " +
+           "SUM(CASE WHEN e.entry_type = 'CREDIT' THEN e.amount ELSE -e.amount END) AS delta, " +
+           "MAX(e.id) AS last_entry_id, COUNT(*) AS entries " +
+           "FROM accounts x JOIN ledger_entries e ON e.account_id = x.id AND e.id > x.ledger_entry_id " +
+           "WHERE x.account_number = #{accountNumber} GROUP BY x.id) d " +
+           "WHERE a.id = d.account_id " +
+           "RETURNING a.account_number AS accountNumber, a.balance, a.version, d.entries")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    BalanceCheckpoint rollForward(@Param("accountNumber") String accountNumber);
+}
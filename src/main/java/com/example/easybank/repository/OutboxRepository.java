@@ -0,0 +1,64 @@
+package com.example.easybank.repository;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.OutboxEvent;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * Transactional outbox of completed transfers. Events are inserted by the transaction that
+ * completes the transfer and published by {@link com.example.easybank.outbox.OutboxRelay}.
+ */
+@Mapper
+public interface OutboxRepository {
+
+    /**
+     * Inserts a TRANSFER_COMPLETED event for each transfer with a single multi-row INSERT.
+     */
+    @Insert("<script>" +
+           "INSERT INTO transfer_outbox(event_type, transaction_id, source_account_number, destination_account_number, amount, currency) " +
+           "VALUES " +
+           "<foreach collection='transactions' item='t' separator=','>" +
+           "('TRANSFER_COMPLETED', CAST(#{t.transactionId} AS uuid), #{t.sourceAccountNumber}, #{t.destinationAccountNumber}, #{t.amount}, #{t.currency})" +
+           "</foreach>" +
+           "</script>")
+    int saveAll(@Param("transactions") List<Transaction> transactions);
+
+    /**
+     * Makes the calling transaction the only relay until it ends. Returns false at once if
+     * another relay holds the lock, so relays on other instances skip a run instead of
+     * publishing events out of order.
+     */
+    @Select("SELECT pg_try_advisory_xact_lock(hashtextextended('transfer_outbox_relay', 0))")
+    @Options(useCache = false)
+    boolean tryLockRelay();
+
+    /**
+     * The oldest unpublished events, in the order they were inserted; a scan of the partial
+     * index on unpublished rows.
+     */
+    @Select("SELECT id, event_type as eventType, transaction_id as transactionId, " +
+           "source_account_number as sourceAccountNumber, destination_account_number as destinationAccountNumber, " +
+           "amount, currency, created_at as createdAt " +
+           "FROM transfer_outbox WHERE published_at IS NULL " +
+           "ORDER BY id LIMIT #{limit}")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<OutboxEvent> findUnpublished(@Param("limit") int limit);
+
+    @Update("<script>" +
+           "UPDATE transfer_outbox SET published_at = now() WHERE id IN " +
+           "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+           "</script>")
+    int markPublished(@Param("ids") List<Long> ids);
+
+    @Delete("DELETE FROM transfer_outbox " +
+           "WHERE published_at IS NOT NULL AND published_at < now() - make_interval(secs => #{retentionSeconds})")
+    int deletePublished(@Param("retentionSeconds") long retentionSeconds);
+}
@@ -0,0 +1,137 @@
+package com.example.easybank.repository;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterparts of the account and history queries of {@link AccountRepository}
+ * and {@link TransactionRepository}, over R2DBC. Rows are mapped to the same domain objects
+ * the MyBatis mappers return.
+ */
+@Repository
+public class ReactiveReadRepository {
+    private static final String HISTORY_COLUMNS =
+            "SELECT h.id, h.transaction_id, h.amount, h.currency, h.transaction_type, h.status, h.description, " +
+            "h.created_at, h.updated_at, h.source_account_id, h.destination_account_id, " +
+            "sa.account_number AS source_account_number, sa.account_holder AS source_account_holder, " +
+            "da.account_number AS destination_account_number, da.account_holder AS destination_account_holder ";
+
+    private static final String HISTORY_SIDE =
+            "SELECT id, transaction_id, amount, currency, transaction_type, status, description, created_at, updated_at, " +
+            "source_account_id, destination_account_id FROM transactions WHERE %s = :accountId " +
+            "AND status IN ('COMPLETED', 'FAILED') ";
+
+    private static final String JOIN_ACCOUNTS =
+            "JOIN accounts sa ON sa.id = h.source_account_id " +
+            "JOIN accounts da ON da.id = h.destination_account_id ";
+
+    /**
+     * Same plan as {@link TransactionRepository#findHistoryPage}: one bounded range scan per side.
+     */
+    private static final String HISTORY_PAGE = historyPage("");
+    private static final String HISTORY_PAGE_BEFORE = historyPage("AND (created_at, id) < (:beforeCreatedAt, :beforeId) ");
+
+    private static final String ALL_HISTORY = HISTORY_COLUMNS + "FROM (" +
+            String.format(HISTORY_SIDE, "source_account_id") + "UNION ALL " +
+            String.format(HISTORY_SIDE, "destination_account_id") + ") h " + JOIN_ACCOUNTS +
+            "ORDER BY h.created_at DESC, h.id DESC";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Account> findByAccountNumber(String accountNumber) {
+        return databaseClient.sql("SELECT a.id, a.account_number, a.account_holder, " + AccountRepository.CURRENT_BALANCE +
+                        ", a.currency, a.account_type, a.status, a.version, a.balance_slots, a.created_at, a.updated_at " +
+                        "FROM accounts a WHERE a.account_number = :accountNumber")
+                .bind("accountNumber", accountNumber)
+                .map((row, metadata) -> toAccount(row))
+                .one();
+    }
+
+    /**
+     * One page of an account's COMPLETED and FAILED transactions, newest first, strictly before
+     * the {@code (beforeCreatedAt, beforeId)} cursor when one is given.
+     */
+    public Flux<Transaction> findHistoryPage(Long accountId, OffsetDateTime beforeCreatedAt, Long beforeId, int limit) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql(beforeId == null ? HISTORY_PAGE : HISTORY_PAGE_BEFORE)
+                .bind("accountId", accountId)
+                .bind("limit", limit);
+        if (beforeId != null) {
+            spec = spec.bind("beforeCreatedAt", beforeCreatedAt).bind("beforeId", beforeId);
+        }
+        return spec.map((row, metadata) -> toTransaction(row)).all();
+    }
+
+    /**
+     * Every COMPLETED and FAILED transaction of an account, newest first.
+     */
+    public Flux<Transaction> findHistory(Long accountId) {
+        return databaseClient.sql(ALL_HISTORY)
+                .bind("accountId", accountId)
+                .map((row, metadata) -> toTransaction(row))
+                .all();
+    }
+
+    private static String historyPage(String cursorCondition) {
+        return HISTORY_COLUMNS + "FROM (" +
+                "(" + String.format(HISTORY_SIDE, "source_account_id") + cursorCondition +
+                "ORDER BY created_at DESC, id DESC LIMIT :limit) " +
+                "UNION ALL " +
+                "(" + String.format(HISTORY_SIDE, "destination_account_id") + cursorCondition +
+                "ORDER BY created_at DESC, id DESC LIMIT :limit)" +
+                ") h " + JOIN_ACCOUNTS +
+                "ORDER BY h.created_at DESC, h.id DESC LIMIT :limit";
+    }
+
+    private static Account toAccount(Row row) {
+        Account account = new Account();
+        account.setId(row.get("id", Long.class));
+        account.setAccountNumber(row.get("account_number", String.class));
+        account.setAccountHolder(row.get("account_holder", String.class));
+        account.setBalance(row.get("balance", BigDecimal.class));
+        account.setCurrency(row.get("currency", String.class));
+        account.setAccountType(row.get("account_type", String.class));
+        account.setStatus(row.get("status", String.class));
+        account.setVersion(row.get("version", Integer.class));
+        account.setBalanceSlots(row.get("balance_slots", Integer.class));
+        account.setCreatedAt(row.get("created_at", OffsetDateTime.class));
+        account.setUpdatedAt(row.get("updated_at", OffsetDateTime.class));
+        return account;
+    }
+
+    private static Transaction toTransaction(Row row) {
+        Transaction transaction = new Transaction();
+        transaction.setId(row.get("id", Long.class));
+        UUID transactionId = row.get("transaction_id", UUID.class);
+        transaction.setTransactionId(transactionId == null ? null : transactionId.toString());
+        transaction.setAmount(row.get("amount", BigDecimal.class));
+        transaction.setCurrency(row.get("currency", String.class));
+        transaction.setTransactionType(TransactionType.valueOf(row.get("transaction_type", String.class)));
+        transaction.setStatus(TransactionStatus.valueOf(row.get("status", String.class)));
+        transaction.setDescription(row.get("description", String.class));
+        transaction.setCreatedAt(row.get("created_at", OffsetDateTime.class));
+        transaction.setUpdatedAt(row.get("updated_at", OffsetDateTime.class));
+        transaction.setSourceAccountId(row.get("source_account_id", Long.class));
+        transaction.setDestinationAccountId(row.get("destination_account_id", Long.class));
+        transaction.setSourceAccountNumber(row.get("source_account_number", String.class));
+        transaction.setSourceAccountHolder(row.get("source_account_holder", String.class));
+        transaction.setDestinationAccountNumber(row.get("destination_account_number", String.class));
+        transaction.setDestinationAccountHolder(row.get("destination_account_holder", String.class));
+        return transaction;
+    }
+}
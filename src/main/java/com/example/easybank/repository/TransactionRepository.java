@@ -1,17 +1,30 @@
 package com.example.easybank.repository;
 
 import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.dto.TransferExecution;
 
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Mapper
 public interface TransactionRepository {
-    @Select("SELECT t.id, t.amount, t.currency, t.transaction_type, " +
+    /**
+     * Rows the JDBC driver fetches per round trip when a query is read through a {@link Cursor}.
+     */
+    int EXPORT_FETCH_SIZE = 1000;
+
+    @Select("SELECT t.id, t.transaction_id as transactionId, t.amount, t.currency, t.transaction_type, " +
            "t.status, t.description, t.created_at, t.updated_at, " +
            "t.source_account_id, t.destination_account_id, " +
            "sa.account_number as source_account_number, " +
@@ -27,7 +40,183 @@ public interface TransactionRepository {
     List<Transaction> findLatestTransactionsByAccountNumber(
         @Param("accountNumber") String accountNumber);
     
-    @Insert("INSERT INTO transactions(source_account_id, destination_account_id, amount, currency, transaction_type, status, description) " +
-           "VALUES(#{sourceAccount.id}, #{destinationAccount.id}, #{amount}, #{currency}, #{transactionType}, #{status}, #{description})")
+    /**
+     * One page of an account's COMPLETED and FAILED transactions, newest first, strictly
+     * before the {@code (beforeCreatedAt, beforeId)} cursor when one is given.
+     *
+     * Each branch of the UNION ALL is a range scan of one (account, created_at, id) index that
+     * stops after {@code limit} rows, so a page costs the same however long the history is.
+     * Both accounts of every row are resolved by primary key in the same statement.
+     */
+    @Select("<script>" +
+           "SELECT h.id, h.transaction_id as transactionId, h.amount, h.currency, h.transaction_type as transactionType, " +
+           "h.status, h.description, " +
+           "h.created_at as createdAt, h.updated_at as updatedAt, " +
+           "h.source_account_id as sourceAccountId, h.destination_account_id as destinationAccountId, " +
+           "sa.account_number as sourceAccountNumber, sa.account_holder as sourceAccountHolder, " +
+           "da.account_number as destinationAccountNumber, da.account_holder as destinationAccountHolder " +
+           "FROM (" +
+           "(SELECT id, transaction_id, amount, currency, transaction_type, status, description, created_at, updated_at, " +
+           "source_account_id, destination_account_id FROM transactions " +
+           "WHERE source_account_id = #{accountId} AND status IN ('COMPLETED', 'FAILED') " +
+           "<if test='beforeId != null'>AND (created_at, id) &lt; (#{beforeCreatedAt}, #{beforeId}) </if>" +
+           "ORDER BY created_at DESC, id DESC LIMIT #{limit}) " +
+           "UNION ALL " +
+           "(SELECT id, transaction_id, amount, currency, transaction_type, status, description, created_at, updated_at, " +
+           "source_account_id, destination_account_id FROM transactions " +
+           "WHERE destination_account_id = #{accountId} AND status IN ('COMPLETED', 'FAILED') " +
+           "<if test='beforeId != null'>AND (created_at, id) &lt; (#{beforeCreatedAt}, #{beforeId}) </if>" +
+           "ORDER BY created_at DESC, id DESC LIMIT #{limit})" +
+           ") h " +
+           "JOIN accounts sa ON sa.id = h.source_account_id " +
+           "JOIN accounts da ON da.id = h.destination_account_id " +
+           "ORDER BY h.created_at DESC, h.id DESC LIMIT #{limit}" +
+           "</script>")
+    List<Transaction> findHistoryPage(@Param("accountId") Long accountId,
+                                      @Param("beforeCreatedAt") OffsetDateTime beforeCreatedAt,
+                                      @Param("beforeId") Long beforeId,
+                                      @Param("limit") int limit);
+
+    /**
+     * Every transaction of an account, oldest first, read in chunks of {@link #EXPORT_FETCH_SIZE}.
+     * Each side is an index scan in (created_at, id) order, merged without a sort. Must be
+     * read inside a transaction, or PostgreSQL returns the whole result at once.
+     */
+    @Select("SELECT h.id, h.transaction_id as transactionId, h.amount, h.currency, h.transaction_type as transactionType, " +
+           "h.status, h.description, " +
+           "h.created_at as createdAt, h.updated_at as updatedAt, " +
+           "h.source_account_id as sourceAccountId, h.destination_account_id as destinationAccountId, " +
+           "sa.account_number as sourceAccountNumber, sa.account_holder as sourceAccountHolder, " +
+           "da.account_number as destinationAccountNumber, da.account_holder as destinationAccountHolder " +
+           "FROM (" +
+           "SELECT id, transaction_id, amount, currency, transaction_type, status, description, created_at, updated_at, " +
+           "source_account_id, destination_account_id FROM transactions WHERE source_account_id = #{accountId} " +
+           "UNION ALL " +
+           "SELECT id, transaction_id, amount, currency, transaction_type, status, description, created_at, updated_at, " +
+           "source_account_id, destination_account_id FROM transactions WHERE destination_account_id = #{accountId}" +
+           ") h " +
+           "JOIN accounts sa ON sa.id = h.source_account_id " +
+           "JOIN accounts da ON da.id = h.destination_account_id " +
+           "ORDER BY h.created_at, h.id")
+    @Options(fetchSize = EXPORT_FETCH_SIZE)
+    Cursor<Transaction> streamAccountHistory(@Param("accountId") Long accountId);
+
+    @Insert("INSERT INTO transactions(transaction_id, source_account_id, destination_account_id, amount, currency, transaction_type, status, description) " +
+           "VALUES(CAST(#{transactionId} AS uuid), #{sourceAccount.id}, #{destinationAccount.id}, #{amount}, #{currency}, #{transactionType}, #{status}, #{description})")
     int save(Transaction transaction);
+
+    /**
+     * Moves a transaction written by {@link #save} to its next status.
+     */
+    @Update("UPDATE transactions SET status = #{status}, updated_at = now() " +
+           "WHERE transaction_id = CAST(#{transactionId} AS uuid)")
+    int updateStatus(@Param("transactionId") String transactionId, @Param("status") TransactionStatus status);
+
+    /**
+     * Claims up to {@code limit} asynchronously submitted PENDING transfers, oldest first, with
+     * both account numbers resolved. The rows stay locked until the claiming transaction ends;
+     * rows claimed by another worker are skipped, and a rollback leaves them PENDING.
+     */
+    @Select("SELECT t.id, t.transaction_id as transactionId, t.amount, t.currency, t.transaction_type as transactionType, " +
+           "t.status, t.description, t.created_at as createdAt, t.updated_at as updatedAt, " +
+           "t.source_account_id as sourceAccountId, t.destination_account_id as destinationAccountId, " +
+           "sa.account_number as sourceAccountNumber, da.account_number as destinationAccountNumber " +
+           "FROM transactions t " +
+           "JOIN accounts sa ON sa.id = t.source_account_id " +
+           "JOIN accounts da ON da.id = t.destination_account_id " +
+           "WHERE t.status = 'PENDING' " +
+           "ORDER BY t.id LIMIT #{limit} " +
+           "FOR UPDATE OF t SKIP LOCKED")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    List<Transaction> claimPending(@Param("limit") int limit);
+
+    /**
+     * Writes the final status and description of several claimed transfers in one round trip.
+     */
+    @Update("<script>" +
+           "UPDATE transactions t SET " +
+           "status = v.status, " +
+           "description = v.description, " +
+           "updated_at = now() " +
+           "FROM (VALUES " +
+           "<foreach collection='transactions' item='tx' separator=','>" +
+           "(CAST(#{tx.id} AS BIGINT), #{tx.status}, #{tx.description})" +
+           "</foreach>" +
+           ") AS v(id, status, description) " +
+           "WHERE t.id = v.id" +
+           "</script>")
+    int finishAll(@Param("transactions") List<Transaction> transactions);
+
+    /**
+     * One transaction by the id returned to clients, with both accounts resolved by primary
+     * key; a single probe of the unique transaction_id index.
+     */
+    @Select("SELECT t.id, t.transaction_id as transactionId, t.amount, t.currency, t.transaction_type as transactionType, " +
+           "t.status, t.description, t.created_at as createdAt, t.updated_at as updatedAt, " +
+           "t.source_account_id as sourceAccountId, t.destination_account_id as destinationAccountId, " +
+           "sa.account_number as sourceAccountNumber, sa.account_holder as sourceAccountHolder, " +
+           "da.account_number as destinationAccountNumber, da.account_holder as destinationAccountHolder " +
+           "FROM transactions t " +
+           "LEFT JOIN accounts sa ON sa.id = t.source_account_id " +
+           "LEFT JOIN accounts da ON da.id = t.destination_account_id " +
+           "WHERE t.transaction_id = CAST(#{transactionId} AS uuid)")
+    Optional<Transaction> findByTransactionId(@Param("transactionId") String transactionId);
+
+    /**
+     * Inserts several transactions with a single multi-row INSERT.
+     */
+    @Insert("<script>" +
+           "INSERT INTO transactions(transaction_id, source_account_id, destination_account_id, amount, currency, transaction_type, status, description) " +
+           "VALUES " +
+           "<foreach collection='transactions' item='t' separator=','>" +
+           "(CAST(#{t.transactionId} AS uuid), #{t.sourceAccount.id}, #{t.destinationAccount.id}, #{t.amount}, #{t.currency}, #{t.transactionType}, #{t.status}, #{t.description})" +
+           "</foreach>" +
+           "</script>")
+    int saveAll(@Param("transactions") List<Transaction> transactions);
+
+    /**
+     * Performs a complete transfer in one statement: locks both accounts in id order, debits
+     * the source only if both accounts are active and the balance covers the amount, credits
+     * the destination and inserts the COMPLETED transaction row.
+     *
+     * Returns no row when any guard fails. The debit may already have been applied in that
+     * case, so the caller must roll back.
+     */
+    @Select("WITH locked AS (" +
+           "  SELECT id, status FROM accounts " +
+           "  WHERE account_number IN (#{sourceAccountNumber}, #{destinationAccountNumber}) " +
+           "  ORDER BY id FOR UPDATE" +
+           "), checked AS (" +
+           "  SELECT count(*) FILTER (WHERE status = 'ACTIVE') AS active_accounts FROM locked" +
+           "), debit AS (" +
+           "  UPDATE accounts a SET balance = a.balance - #{amount}, version = a.version + 1, updated_at = now() " +
+           "  FROM checked " +
+           "  WHERE a.account_number = #{sourceAccountNumber} " +
+           "    AND checked.active_accounts = 2 " +
+           "    AND a.balance >= #{amount} " +
+           "  RETURNING a.id, a.account_holder, a.balance, a.version, a.currency" +
+           "), credit AS (" +
+           "  UPDATE accounts a SET balance = a.balance + #{amount}, version = a.version + 1, updated_at = now() " +
+           "  FROM debit " +
+           "  WHERE a.account_number = #{destinationAccountNumber} " +
+           "  RETURNING a.id, a.account_holder, a.balance, a.version" +
+           "), inserted AS (" +
+           "  INSERT INTO transactions(transaction_id, source_account_id, destination_account_id, amount, currency, transaction_type, status, description) " +
+           "  SELECT CAST(#{transactionId} AS uuid), debit.id, credit.id, #{amount}, debit.currency, 'TRANSFER', 'COMPLETED', #{description} " +
+           "  FROM debit, credit " +
+           "  RETURNING id, created_at" +
+           ") " +
+           "SELECT inserted.id as transactionId, inserted.created_at as createdAt, debit.currency as currency, " +
+           "debit.id as sourceAccountId, debit.account_holder as sourceAccountHolder, " +
+           "debit.balance as sourceBalance, debit.version as sourceVersion, " +
+           "credit.id as destinationAccountId, credit.account_holder as destinationAccountHolder, " +
+           "credit.balance as destinationBalance, credit.version as destinationVersion " +
+           "FROM debit, credit, inserted")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Optional<TransferExecution> executeTransfer(
+        @Param("transactionId") String transactionId,
+        @Param("sourceAccountNumber") String sourceAccountNumber,
+        @Param("destinationAccountNumber") String destinationAccountNumber,
+        @Param("amount") BigDecimal amount,
+        @Param("description") String description);
 }
@@ -2,6 +2,7 @@ package com.example.easybank.service;
 
 import com.example.easybank.domain.Account;
 import com.example.easybank.repository.AccountRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,16 +42,26 @@ public class AccountService {
         return "ACC-" + randomPart;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Cached under the normalized account number. No transaction here: a cache hit needs none
+     * and a miss is a single SELECT. Called inside a transaction the cache is bypassed, since it
+     * only holds committed snapshots and the transaction must see its own writes. Hot accounts
+     * are not cached: their balance includes the balance slots, which credits change without
+     * touching the account row.
+     */
+    @Cacheable(value = "accounts",
+            key = "T(com.example.easybank.service.AccountService).normalizeAccountNumber(#accountNumber)",
+            condition = "T(com.example.easybank.cache.AccountCacheWriter).isCacheable()",
+            unless = "#result == null || #result.hasBalanceSlots()")
     public Account getAccount(String accountNumber) {
         // Normalize account number format if needed
         String normalizedAccountNumber = normalizeAccountNumber(accountNumber);
-        return accountRepository.findByAccountNumber(normalizedAccountNumber)
+        return accountRepository.findWithSlotBalanceByAccountNumber(normalizedAccountNumber)
             .orElseThrow(() -> new IllegalArgumentException(
                 String.format("Account not found: %s. Please ensure the account number is in the format ACC-xxxxxxxx", accountNumber)));
     }
 
-    private String normalizeAccountNumber(String accountNumber) {
+    public static String normalizeAccountNumber(String accountNumber) {
         if (accountNumber == null) {
             return null;
         }
@@ -0,0 +1,178 @@
+package com.example.easybank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for transfers that adapts to the latency they are served with.
+ *
+ * Gradient algorithm: latencies are averaged over windows of about one limit's worth of calls,
+ * and a long-term average over {@code long-window} windows is the baseline. While the window
+ * latency stays within {@code rtt-tolerance} times that baseline the limit grows by a small queue
+ * allowance per window; once transfers queue behind the connection pool or row locks and latency
+ * rises, the limit shrinks in proportion (by at most half per window). Transfers that fail from
+ * overload (lock timeouts, deadlocks, no connection) cut the limit by 10%. The limit only grows
+ * while at least half of it is in use, so a quiet period cannot inflate it.
+ *
+ * Calls beyond the limit are refused immediately instead of queueing. The limit, the calls in
+ * flight and the admission decisions are exported as {@code transfer.admission.limit},
+ * {@code transfer.admission.in_flight} and {@code transfer.admission.decisions}.
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final double SMOOTHING = 0.2;
+    private static final double DROP_BACKOFF = 0.9;
+    // Once the baseline is this far above the latest latency, the load it was measured under is gone
+    private static final double BASELINE_DECAY_RATIO = 2.0;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final int longWindow;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by lock; a lock rather than a monitor so waiting does not pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long windows;
+    private int windowSamples;
+    private long windowRttNanos;
+    private int windowMaxInFlight;
+
+    private final Counter admitted;
+    private final Counter rejected;
+
+    public AdaptiveConcurrencyLimiter(@Value("${app.transfer.admission.initial-limit:20}") int initialLimit,
+                                      @Value("${app.transfer.admission.min-limit:4}") int minLimit,
+                                      @Value("${app.transfer.admission.max-limit:200}") int maxLimit,
+                                      @Value("${app.transfer.admission.rtt-tolerance:1.5}") double rttTolerance,
+                                      @Value("${app.transfer.admission.long-window:500}") int longWindow,
+                                      MeterRegistry meterRegistry) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Admission limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.longWindow = longWindow;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+
+        Gauge.builder("transfer.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("transfer.admission.in_flight", this, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        this.admitted = meterRegistry.counter("transfer.admission.decisions", "result", "admitted");
+        this.rejected = meterRegistry.counter("transfer.admission.decisions", "result", "rejected");
+    }
+
+    /**
+     * Whether one more call may start now. Every admitted call must be followed by exactly one
+     * of {@link #onSuccess}, {@link #onDropped} or {@link #onIgnore}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records a call that completed after {@code durationNanos}.
+     */
+    public void onSuccess(long durationNanos) {
+        int concurrency = inFlight.getAndDecrement();
+        sample(durationNanos, concurrency);
+    }
+
+    /**
+     * Records a call that failed because the system was overloaded.
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            update(estimatedLimit * DROP_BACKOFF);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a call whose latency says nothing about the load, e.g. one rejected by validation.
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(long rttNanos, int concurrency) {
+        lock.lock();
+        try {
+            sampleLocked(rttNanos, concurrency);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sampleLocked(long rttNanos, int concurrency) {
+        windowRttNanos += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, concurrency);
+        if (++windowSamples < Math.max(minLimit, (int) estimatedLimit)) {
+            return;
+        }
+        double shortRttNanos = (double) windowRttNanos / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowSamples = 0;
+        windowRttNanos = 0;
+        windowMaxInFlight = 0;
+
+        // Exponential average over roughly the last longWindow windows, a plain mean until then
+        windows++;
+        longRttNanos += (shortRttNanos - longRttNanos) / Math.min(windows, longWindow);
+        if (longRttNanos / shortRttNanos > BASELINE_DECAY_RATIO) {
+            longRttNanos *= 0.95;
+        }
+
+        if (maxInFlight < estimatedLimit / 2) {
+            // Not limited by us; the latency says nothing about a higher limit
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+        double queueSize = Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+        update(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    private void update(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        int rounded = (int) estimatedLimit;
+        if (rounded != limit) {
+            log.debug("Transfer concurrency limit {} -> {}", limit, rounded);
+            limit = rounded;
+        }
+    }
+}
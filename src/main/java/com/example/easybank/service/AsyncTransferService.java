@@ -0,0 +1,147 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous transfers: a submission is recorded as a PENDING transaction and answered at
+ * once, and {@code app.transfer.async.workers} threads apply PENDING transfers in chunks of
+ * {@code batch-size}, each chunk in one transaction.
+ *
+ * The transactions table is the queue, so queued transfers survive a restart and any instance
+ * may apply them. A submission wakes an idle worker; idle workers also poll every
+ * {@code poll-interval-ms}, which picks up transfers submitted to other instances. A burst only
+ * grows the queue: the workers keep applying transfers at the rate the database allows, with at
+ * most one connection each.
+ */
+@Slf4j
+@Service
+public class AsyncTransferService {
+    private final TransactionService transactionService;
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long shutdownTimeoutMs;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final Counter submitted;
+    private final Counter failures;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public AsyncTransferService(TransactionService transactionService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.transfer.async.workers:4}") int workers,
+                                @Value("${app.transfer.async.batch-size:100}") int batchSize,
+                                @Value("${app.transfer.async.poll-interval-ms:1000}") long pollIntervalMs,
+                                @Value("${app.transfer.async.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.transactionService = transactionService;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.submitted = meterRegistry.counter("transfer.async.submitted");
+        this.failures = meterRegistry.counter("transfer.async.failures");
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (workers <= 0) {
+            log.info("No asynchronous transfer workers on this instance");
+            return;
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "async-transfer-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::drain);
+        }
+        log.info("Started {} asynchronous transfer workers", workers);
+    }
+
+    /**
+     * Queues a transfer and returns its PENDING transaction.
+     */
+    public Transaction submit(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        return queued(transactionService.submitTransaction(sourceAccountNumber, destinationAccountNumber, amount));
+    }
+
+    /**
+     * Queues a transfer under a transaction id chosen by the caller.
+     */
+    public Transaction submit(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                              String transactionId) {
+        return queued(transactionService.submitTransaction(sourceAccountNumber, destinationAccountNumber, amount,
+            transactionId));
+    }
+
+    private Transaction queued(Transaction transaction) {
+        submitted.increment();
+        // More permits than workers would only make idle workers spin
+        if (wakeUps.availablePermits() < workers) {
+            wakeUps.release();
+        }
+        return transaction;
+    }
+
+    /**
+     * Applies one chunk of PENDING transfers on the calling thread.
+     *
+     * @return the number of transfers claimed
+     */
+    public int processPending() {
+        try {
+            return transactionService.processPendingTransfers(batchSize);
+        } catch (RuntimeException e) {
+            // The chunk was rolled back and stays PENDING for the next attempt
+            failures.increment();
+            log.warn("Applying pending transfers failed: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            if (processPending() >= batchSize) {
+                continue;
+            }
+            try {
+                wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        wakeUps.release(workers);
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Asynchronous transfer workers did not stop within {} ms", shutdownTimeoutMs);
+        }
+        executor = null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.dto.BalanceCheckpoint;
+import com.example.easybank.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Rolls the ledger entries of {@link TransferMode#LEDGER} into {@code accounts.balance}.
+ *
+ * Each run first notes the oldest running database transaction, then looks for accounts with
+ * entries written since the previous run's note; the first run after start-up sweeps every
+ * account instead. Each account is rolled forward in its own short transaction under the
+ * exclusive ledger lock, and its cache entry is evicted once that commits. A failed account
+ * is retried by the next run. Runs in every transfer mode but ENGINE, so entries left behind
+ * by a switch away from LEDGER still reach the balance; the ledger engine must stay the only
+ * writer of balances, so its runs are skipped.
+ */
+@Slf4j
+@Service
+public class BalanceCheckpointService {
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountCacheWriter accountCacheWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferMode transferMode;
+
+    private final Counter accountsCheckpointed;
+    private final Counter entriesCheckpointed;
+    private final Timer checkpointTime;
+
+    // Entries of transactions below this id are already rolled forward; null until the first sweep
+    private Long sinceTxid;
+
+    public BalanceCheckpointService(LedgerEntryRepository ledgerEntryRepository,
+                                    AccountCacheWriter accountCacheWriter,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.transfer.mode:LOCKING}") TransferMode transferMode) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.transferMode = transferMode;
+        this.accountCacheWriter = accountCacheWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.accountsCheckpointed = meterRegistry.counter("ledger.checkpoint.accounts");
+        this.entriesCheckpointed = meterRegistry.counter("ledger.checkpoint.entries");
+        this.checkpointTime = meterRegistry.timer("ledger.checkpoint.time");
+    }
+
+    /**
+     * @return number of ledger entries rolled forward
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.checkpoint-interval-ms:1000}")
+    public synchronized long checkpoint() {
+        if (transferMode == TransferMode.ENGINE) {
+            return 0;
+        }
+        Timer.Sample sample = Timer.start();
+        long oldestRunningTxid = ledgerEntryRepository.oldestRunningTxid();
+        List<String> accountNumbers = sinceTxid == null
+                ? ledgerEntryRepository.findAccountsBehindLedger()
+                : ledgerEntryRepository.findAccountsWithEntriesSince(sinceTxid);
+
+        long entries = 0;
+        boolean failed = false;
+        for (String accountNumber : accountNumbers) {
+            try {
+                BalanceCheckpoint checkpoint = transactionTemplate.execute(status -> rollForward(accountNumber));
+                if (checkpoint != null) {
+                    accountsCheckpointed.increment();
+                    entriesCheckpointed.increment(checkpoint.getEntries());
+                    entries += checkpoint.getEntries();
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not checkpoint the balance of account {}, will retry: {}", accountNumber, e.getMessage());
+                failed = true;
+            }
+        }
+        if (!failed) {
+            sinceTxid = oldestRunningTxid;
+        }
+        if (!accountNumbers.isEmpty()) {
+            sample.stop(checkpointTime);
+            log.debug("Rolled {} ledger entries into {} accounts", entries, accountNumbers.size());
+        }
+        return entries;
+    }
+
+    private BalanceCheckpoint rollForward(String accountNumber) {
+        ledgerEntryRepository.lockExclusive(accountNumber);
+        BalanceCheckpoint checkpoint = ledgerEntryRepository.rollForward(accountNumber);
+        if (checkpoint != null) {
+            accountCacheWriter.evictAfterCommit(accountNumber, checkpoint.getVersion());
+        }
+        return checkpoint;
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            checkpoint();
+        } catch (DataAccessException e) {
+            log.warn("Final balance checkpoint failed, entries are rolled forward on next start: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.easybank.service;
+
+/**
+ * Output format of the streaming exports in {@link ExportService}.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON document per line.
+     */
+    NDJSON("application/x-ndjson"),
+    /**
+     * Header line followed by one comma-separated line per row (RFC 4180 quoting).
+     */
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
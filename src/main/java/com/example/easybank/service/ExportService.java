@@ -0,0 +1,194 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Streams full transaction histories and account snapshots as NDJSON or CSV.
+ *
+ * Rows are read through a MyBatis {@link Cursor} inside a read-only transaction, so the JDBC
+ * driver fetches {@link TransactionRepository#EXPORT_FETCH_SIZE} rows at a time, and each row
+ * is written to the output stream before the next one is read. Memory use does not depend on
+ * the number of rows.
+ */
+@Slf4j
+@Service
+public class ExportService {
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final String[] TRANSACTION_COLUMNS = {
+        "transactionId", "timestamp", "transactionType", "status", "amount", "currency",
+        "sourceAccountNumber", "sourceAccountHolder", "destinationAccountNumber", "destinationAccountHolder",
+        "description"
+    };
+
+    private static final String[] ACCOUNT_COLUMNS = {
+        "accountNumber", "accountHolder", "accountType", "status", "balance", "currency", "version",
+        "createdAt", "updatedAt"
+    };
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter jsonWriter;
+    private final MeterRegistry meterRegistry;
+
+    public ExportService(AccountRepository accountRepository,
+                         TransactionRepository transactionRepository,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Flushing is left to the write buffer instead of once per row
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Looks up the account before the response is committed, so an unknown account can still
+     * be reported as an error.
+     */
+    public Account requireAccount(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber));
+    }
+
+    /**
+     * Writes every transaction of the account, oldest first.
+     *
+     * @return number of rows written
+     */
+    public long exportTransactions(Account account, ExportFormat format, OutputStream out) {
+        Long accountId = account.getId();
+        return export("transactions", format, out,
+                () -> transactionRepository.streamAccountHistory(accountId),
+                transaction -> TransactionResponse.forAccount(transaction, accountId),
+                TRANSACTION_COLUMNS,
+                transaction -> {
+                    TransactionResponse row = TransactionResponse.forAccount(transaction, accountId);
+                    return new Object[] {
+                        row.getTransactionId(), row.getTimestamp(), row.getTransactionType(), row.getStatus(),
+                        row.getAmount(), row.getCurrency(), row.getSourceAccountNumber(), row.getSourceAccountHolder(),
+                        row.getDestinationAccountNumber(), row.getDestinationAccountHolder(), row.getDescription()
+                    };
+                });
+    }
+
+    /**
+     * Writes a snapshot of every account in id order.
+     *
+     * @return number of rows written
+     */
+    public long exportAccounts(ExportFormat format, OutputStream out) {
+        return export("accounts", format, out,
+                accountRepository::streamAll,
+                account -> account,
+                ACCOUNT_COLUMNS,
+                account -> new Object[] {
+                    account.getAccountNumber(), account.getAccountHolder(), account.getAccountType(),
+                    account.getStatus(), account.getBalance(), account.getCurrency(), account.getVersion(),
+                    account.getCreatedAt(), account.getUpdatedAt()
+                });
+    }
+
+    private <T> long export(String dataset, ExportFormat format, OutputStream out,
+                            Supplier<Cursor<T>> query, Function<T, ?> jsonRow,
+                            String[] csvHeader, Function<T, Object[]> csvRow) {
+        long started = System.nanoTime();
+        Long rows = readOnlyTransaction.execute(status -> {
+            long written = 0;
+            try (Cursor<T> cursor = query.get()) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, csvHeader);
+                    for (T row : cursor) {
+                        writeCsvLine(writer, csvRow.apply(row));
+                        written++;
+                    }
+                } else {
+                    JsonGenerator generator = jsonWriter.getFactory().createGenerator(writer);
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    // Rows are separated by the newline below, not Jackson's default space
+                    generator.setRootValueSeparator(null);
+                    for (T row : cursor) {
+                        jsonWriter.writeValue(generator, jsonRow.apply(row));
+                        generator.writeRaw('\n');
+                        written++;
+                    }
+                    generator.flush();
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return written;
+        });
+
+        long elapsedNanos = System.nanoTime() - started;
+        long count = rows == null ? 0 : rows;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : count * 1_000_000_000.0 / elapsedNanos;
+        String formatTag = format.name().toLowerCase();
+        meterRegistry.counter("export.rows", "dataset", dataset, "format", formatTag).increment(count);
+        meterRegistry.timer("export.duration", "dataset", dataset, "format", formatTag)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.summary("export.rows.per.second", "dataset", dataset, "format", formatTag)
+                .record(rowsPerSecond);
+        log.info("Exported {} {} rows as {} in {} ms ({} rows/s)", count, dataset, format,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Math.round(rowsPerSecond));
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeCsvField(writer, values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
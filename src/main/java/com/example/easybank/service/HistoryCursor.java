@@ -0,0 +1,38 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in an account's history: the (created_at, id) of the last row of a page,
+ * handed to clients as an opaque URL-safe string.
+ */
+record HistoryCursor(OffsetDateTime createdAt, long id) {
+
+    static HistoryCursor of(Transaction transaction) {
+        return new HistoryCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    String encode() {
+        String position = createdAt.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static HistoryCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new HistoryCursor(
+                    Instant.parse(position.substring(0, separator)).atOffset(ZoneOffset.UTC),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.domain.Account;
+import com.example.easybank.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balance slots of hot accounts, such as fee and settlement accounts that receive a large
+ * share of all transfers.
+ *
+ * A hot account keeps part of its balance in {@code balance_slots} rows of
+ * account_balance_slots; its balance is the account row plus the slots. Credits go to a random
+ * slot and lock only that row, so N slots let up to N credits to the account commit in
+ * parallel; hot accounts are not cached, so credits need no eviction either. A debit that the
+ * account row alone cannot cover first moves the slots into the row while holding the row lock.
+ * The set of hot account numbers is kept in memory so transfers can skip the destination row
+ * lock; it is refreshed every {@code refresh-interval-ms}, and a stale entry only costs that
+ * optimization, never correctness.
+ */
+@Slf4j
+@Service
+public class HotAccountService {
+    private final AccountRepository accountRepository;
+    private final AccountCacheWriter accountCacheWriter;
+    private final int maxSlots;
+    private final TransferMode transferMode;
+
+    private final Counter slotCredits;
+    private final Counter consolidations;
+
+    private volatile Set<String> hotAccountNumbers = Set.of();
+
+    public HotAccountService(AccountRepository accountRepository,
+                             AccountCacheWriter accountCacheWriter,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.accounts.hot.max-slots:64}") int maxSlots,
+                             @Value("${app.transfer.mode:LOCKING}") TransferMode transferMode) {
+        this.accountRepository = accountRepository;
+        this.accountCacheWriter = accountCacheWriter;
+        this.maxSlots = maxSlots;
+        this.transferMode = transferMode;
+        this.slotCredits = meterRegistry.counter("account.slots.credits");
+        this.consolidations = meterRegistry.counter("account.slots.consolidations");
+    }
+
+    /**
+     * Whether the account was hot at the last refresh. Callers still check
+     * {@link Account#hasBalanceSlots()} on the row they read.
+     */
+    public boolean isHot(String accountNumber) {
+        return hotAccountNumbers.contains(accountNumber);
+    }
+
+    @Scheduled(fixedDelayString = "${app.accounts.hot.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            hotAccountNumbers = Set.copyOf(accountRepository.findAccountNumbersWithBalanceSlots());
+        } catch (DataAccessException e) {
+            log.warn("Could not refresh hot accounts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Credits a random balance slot of an account with slots. If the slot is gone because the
+     * slot count was lowered meanwhile, the account row is credited instead.
+     */
+    public void credit(Account account, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceSlots());
+        if (accountRepository.creditBalanceSlot(account.getId(), slot, amount) == 0
+                && accountRepository.applyBalanceDelta(account.getId(), amount) == 0) {
+            throw new IllegalArgumentException("Destination account is not active");
+        }
+        slotCredits.increment();
+    }
+
+    /**
+     * Moves the slots of a locked account into its in-memory balance when the row balance does
+     * not cover {@code amount}. The slots are emptied in the database, so the caller must write
+     * the account's balance back in the same transaction.
+     *
+     * @return whether the slots were moved
+     */
+    public boolean consolidateIfShort(Account account, BigDecimal amount) {
+        if (!account.hasBalanceSlots() || account.getBalance().compareTo(amount) >= 0) {
+            return false;
+        }
+        BigDecimal slotted = accountRepository.lockBalanceSlots(account.getId());
+        accountRepository.clearBalanceSlots(account.getId());
+        account.setBalance(account.getBalance().add(slotted));
+        consolidations.increment();
+        log.debug("Moved {} from the balance slots of account {}", slotted, account.getAccountNumber());
+        return true;
+    }
+
+    /**
+     * Sets the number of balance slots of an account; 0 turns slotting off. The balance of the
+     * existing slots is moved into the account row first. Slots can only be turned on in the
+     * modes whose single transfers credit them, LOCKING and PESSIMISTIC_ORDERED; the others
+     * lock or version the account row and check funds against it alone.
+     */
+    @Transactional
+    public Account setBalanceSlots(String accountNumber, int slots) {
+        if (transferMode == TransferMode.ENGINE) {
+            // The engine must stay the only writer of balances
+            throw new IllegalArgumentException("Balance slots are not available in ENGINE mode");
+        }
+        if (slots < 0 || slots > maxSlots) {
+            throw new IllegalArgumentException(String.format("Balance slots must be between 0 and %d", maxSlots));
+        }
+        if (slots > 0 && transferMode != TransferMode.LOCKING && transferMode != TransferMode.PESSIMISTIC_ORDERED) {
+            throw new IllegalArgumentException("Balance slots are not available in " + transferMode + " mode");
+        }
+        String normalizedAccountNumber = AccountService.normalizeAccountNumber(accountNumber);
+        Account account = accountRepository.findByAccountNumberWithLock(normalizedAccountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber));
+
+        account.setBalance(account.getBalance().add(accountRepository.lockBalanceSlots(account.getId())));
+        accountRepository.deleteBalanceSlots(account.getId());
+        if (slots > 0) {
+            accountRepository.insertBalanceSlots(account.getId(), slots);
+        }
+        account.setBalanceSlots(slots);
+        accountRepository.updateBalanceSlots(account);
+        account.setVersion(account.getVersion() + 1);
+        accountCacheWriter.evictAfterCommit(normalizedAccountNumber, null);
+
+        Set<String> updated = new HashSet<>(hotAccountNumbers);
+        if (slots > 0) {
+            updated.add(normalizedAccountNumber);
+        } else {
+            updated.remove(normalizedAccountNumber);
+        }
+        hotAccountNumbers = Set.copyOf(updated);
+        log.info("Account {} now has {} balance slots", normalizedAccountNumber, slots);
+        return account;
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.dto.IdempotencyRecord;
+import com.example.easybank.exception.IdempotencyKeyInProgressException;
+import com.example.easybank.exception.ServiceUnavailableException;
+import com.example.easybank.exception.TooManyRequestsException;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.repository.IdempotencyKeyRepository;
+import com.example.easybank.repository.TransactionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Runs transfers at most once per {@code Idempotency-Key} and source account.
+ *
+ * A retried submission is answered from Redis when the key's response is cached there, else from
+ * the transfer_idempotency_keys table, whose primary key makes the claim race-free across nodes.
+ * Either way the original transaction is returned without touching account rows. A new key is
+ * claimed together with the transaction id the transfer will run under, and the response is
+ * stored once the transfer returns. The claim is released only when the transfer was definitely
+ * not applied: it was rejected, refused by the rate limit or admission control, failed without
+ * its transaction row being committed, or came back FAILED from the retry recovery. A transfer
+ * in doubt keeps its key.
+ *
+ * The transaction row commits together with the transfer, so it records the outcome even when
+ * this node dies before storing the response. A key found IN_PROGRESS is resolved by looking its
+ * transaction up; only if there is none yet does the duplicate get 409 Conflict. Reusing a key
+ * for a different transfer is rejected. Keys expire after {@code ttl-seconds} in both stores.
+ */
+@Slf4j
+@Service
+public class IdempotentTransferService {
+    static final int MAX_KEY_LENGTH = 255;
+    private static final String CACHE_KEY_PREFIX = "easybank:idempotency:";
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionRepository transactionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    private final Counter executed;
+    private final Counter replayedFromCache;
+    private final Counter replayedFromDatabase;
+    private final Counter inProgress;
+    private final Counter inDoubt;
+
+    public interface Transfer {
+        Transaction execute(String transactionId);
+    }
+
+    public IdempotentTransferService(IdempotencyKeyRepository idempotencyKeyRepository,
+                                     TransactionRepository transactionRepository,
+                                     StringRedisTemplate redisTemplate,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.transfer.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionRepository = transactionRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.executed = meterRegistry.counter("transfer.idempotency", "result", "executed");
+        this.replayedFromCache = meterRegistry.counter("transfer.idempotency", "result", "replayed_cache");
+        this.replayedFromDatabase = meterRegistry.counter("transfer.idempotency", "result", "replayed_database");
+        this.inProgress = meterRegistry.counter("transfer.idempotency", "result", "in_progress");
+        this.inDoubt = meterRegistry.counter("transfer.idempotency", "result", "in_doubt");
+    }
+
+    /**
+     * Runs {@code transfer} under a new transaction id unless a transfer with this key and source
+     * account already ran, in which case its transaction is returned instead.
+     */
+    public Transaction execute(String idempotencyKey, String sourceAccountNumber, String destinationAccountNumber,
+                               BigDecimal amount, Transfer transfer) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    String.format("Idempotency-Key must be 1 to %d characters", MAX_KEY_LENGTH));
+        }
+        String requestHash = requestHash(destinationAccountNumber, amount);
+
+        Transaction cached = fromCache(sourceAccountNumber, idempotencyKey, requestHash);
+        if (cached != null) {
+            replayedFromCache.increment();
+            return cached;
+        }
+
+        String transactionId = TransactionIds.next();
+        if (idempotencyKeyRepository.claim(sourceAccountNumber, idempotencyKey, requestHash, transactionId) == 0) {
+            return replay(sourceAccountNumber, idempotencyKey, requestHash);
+        }
+
+        Transaction transaction;
+        try {
+            transaction = transfer.execute(transactionId);
+        } catch (TransferInDoubtException e) {
+            // May still be applied: a retry must not run it again
+            inDoubt.increment();
+            throw e;
+        } catch (IllegalArgumentException | TooManyRequestsException | ServiceUnavailableException e) {
+            idempotencyKeyRepository.release(sourceAccountNumber, idempotencyKey);
+            throw e;
+        } catch (RuntimeException e) {
+            transaction = committedOrRelease(sourceAccountNumber, idempotencyKey, transactionId, e);
+        }
+        if (transaction.getStatus() == TransactionStatus.FAILED) {
+            // Recovered after its retries ran out without being applied: a retry may run it afresh
+            idempotencyKeyRepository.release(sourceAccountNumber, idempotencyKey);
+            return transaction;
+        }
+        executed.increment();
+
+        String response = toJson(transaction);
+        try {
+            idempotencyKeyRepository.complete(sourceAccountNumber, idempotencyKey, response);
+        } catch (DataAccessException e) {
+            // The transfer is applied; a retry finds it through the key's transaction id
+            log.warn("Could not store idempotent response of transaction {}: {}", transactionId, e.getMessage());
+        }
+        toCache(sourceAccountNumber, idempotencyKey, requestHash, response);
+        return transaction;
+    }
+
+    /**
+     * After an unexpected failure the transaction row tells whether the transfer committed: if it
+     * did, it is returned; if not, the key is released and the failure passed on.
+     */
+    private Transaction committedOrRelease(String sourceAccountNumber, String idempotencyKey, String transactionId,
+                                           RuntimeException failure) {
+        Optional<Transaction> committed;
+        try {
+            committed = transactionRepository.findByTransactionId(transactionId);
+        } catch (DataAccessException e) {
+            inDoubt.increment();
+            failure.addSuppressed(e);
+            throw new TransferInDoubtException(transactionId,
+                    "Outcome of transfer " + transactionId + " is unknown", failure);
+        }
+        if (committed.isPresent()) {
+            log.warn("Transaction {} committed although its transfer failed: {}", transactionId, failure.getMessage());
+            return committed.get();
+        }
+        idempotencyKeyRepository.release(sourceAccountNumber, idempotencyKey);
+        throw failure;
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.idempotency.cleanup-interval-ms:600000}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteExpired(ttl.toSeconds());
+        if (deleted > 0) {
+            log.debug("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Transaction replay(String sourceAccountNumber, String idempotencyKey, String requestHash) {
+        IdempotencyRecord record = idempotencyKeyRepository.find(sourceAccountNumber, idempotencyKey);
+        if (record == null) {
+            // Released by a failed submission between our claim and this read
+            throw new IdempotencyKeyInProgressException("Idempotency-Key was released concurrently, please retry");
+        }
+        checkSameRequest(record.getRequestHash(), requestHash);
+        if (IdempotencyRecord.COMPLETED.equals(record.getStatus())) {
+            replayedFromDatabase.increment();
+            toCache(sourceAccountNumber, idempotencyKey, requestHash, record.getResponse());
+            return fromJson(record.getResponse());
+        }
+
+        // Still running, or its node stopped before storing the response of a committed transfer
+        Optional<Transaction> committed = record.getTransactionId() == null
+                ? Optional.empty()
+                : transactionRepository.findByTransactionId(record.getTransactionId());
+        if (committed.isEmpty()) {
+            inProgress.increment();
+            throw new IdempotencyKeyInProgressException("A transfer with this Idempotency-Key is still in progress"
+                    + (record.getTransactionId() == null ? "" : ": transaction " + record.getTransactionId()));
+        }
+        replayedFromDatabase.increment();
+        String response = toJson(committed.get());
+        idempotencyKeyRepository.complete(sourceAccountNumber, idempotencyKey, response);
+        toCache(sourceAccountNumber, idempotencyKey, requestHash, response);
+        return committed.get();
+    }
+
+    /**
+     * The cached response, or null on a miss or when Redis cannot answer; the table decides then.
+     */
+    private Transaction fromCache(String sourceAccountNumber, String idempotencyKey, String requestHash) {
+        String value;
+        try {
+            value = redisTemplate.opsForValue().get(cacheKey(sourceAccountNumber, idempotencyKey));
+        } catch (DataAccessException e) {
+            log.warn("Idempotency cache unavailable: {}", e.getMessage());
+            return null;
+        }
+        if (value == null) {
+            return null;
+        }
+        // Stored as <request hash>:<transaction JSON>
+        int separator = value.indexOf(':');
+        checkSameRequest(value.substring(0, separator), requestHash);
+        return fromJson(value.substring(separator + 1));
+    }
+
+    private void toCache(String sourceAccountNumber, String idempotencyKey, String requestHash, String response) {
+        try {
+            redisTemplate.opsForValue().set(cacheKey(sourceAccountNumber, idempotencyKey),
+                    requestHash + ":" + response, ttl);
+        } catch (DataAccessException e) {
+            log.warn("Could not cache idempotent response: {}", e.getMessage());
+        }
+    }
+
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different transfer");
+        }
+    }
+
+    private static String cacheKey(String sourceAccountNumber, String idempotencyKey) {
+        return CACHE_KEY_PREFIX + sourceAccountNumber + ":" + idempotencyKey;
+    }
+
+    static String requestHash(String destinationAccountNumber, BigDecimal amount) {
+        String request = destinationAccountNumber + "|" + amount.stripTrailingZeros().toPlainString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Transaction transaction) {
+        try {
+            return objectMapper.writeValueAsString(transaction);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transaction", e);
+        }
+    }
+
+    private Transaction fromJson(String response) {
+        try {
+            return objectMapper.readValue(response, Transaction.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored transaction", e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.easybank.service;
+
+import com.example.easybank.dto.RateLimitResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process token buckets for {@link RateLimitBackend#LOCAL}, so a rate limit check makes no
+ * network call.
+ *
+ * Every node refills each key's bucket at the full rate (limit per minute) and takes admitted
+ * calls from it. Once per sync interval the calls taken since the previous sync are added to a
+ * per-key counter in Redis, all keys in one pipeline, and whatever the other nodes added in the
+ * meantime is taken from the local bucket as well. Across the cluster a key therefore converges
+ * on its limit; between two syncs each node can overshoot by what it admits in one interval.
+ * That overshoot is recorded as {@code ratelimit.local.overshoot}.
+ *
+ * If Redis is unavailable the counts are kept and pushed on a later sync, and each node
+ * enforces the limit on its own.
+ */
+@Slf4j
+@Component
+public class LocalRateLimiter {
+    private static final long PERIOD_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final String SYNC_KEY_PREFIX = "ratelimit:local:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Counter allowed;
+    private final Counter rejected;
+    private final Counter syncFailures;
+    private final DistributionSummary overshoot;
+    private final Timer syncTimer;
+
+    public LocalRateLimiter(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.allowed = meterRegistry.counter("ratelimit.local.decisions", "result", "allowed");
+        this.rejected = meterRegistry.counter("ratelimit.local.decisions", "result", "rejected");
+        this.syncFailures = meterRegistry.counter("ratelimit.local.sync.failures");
+        this.overshoot = DistributionSummary.builder("ratelimit.local.overshoot")
+            .description("Calls a key was admitted beyond its cluster-wide limit, found at sync")
+            .register(meterRegistry);
+        this.syncTimer = meterRegistry.timer("ratelimit.local.sync");
+        meterRegistry.gaugeMapSize("ratelimit.local.keys", List.of(), buckets);
+    }
+
+    /**
+     * Takes one call from the local bucket of {@code key}, without touching Redis.
+     */
+    public RateLimitResult tryAcquire(String key, int limitPerMinute) {
+        return tryAcquire(key, RateLimitQuota.of(limitPerMinute));
+    }
+
+    /**
+     * Takes the cost of one call from the local bucket of {@code key}, which holds up to the
+     * quota's burst and refills at its rate. If the quota of the key changed, its bucket
+     * switches to the new one and keeps its tokens, up to the new burst.
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitQuota quota) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(quota, now));
+        RateLimitResult result = bucket.tryAcquire(quota, now);
+        (result.isAllowed() ? allowed : rejected).increment();
+        return result;
+    }
+
+    /**
+     * Pushes the calls each bucket admitted since the previous sync to Redis and takes the
+     * calls the other nodes admitted from the local buckets. Buckets left full and idle for a
+     * period are dropped.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.local.sync-interval-ms:1000}")
+    public void sync() {
+        if (buckets.isEmpty()) {
+            return;
+        }
+        syncTimer.record(this::syncBuckets);
+    }
+
+    private void syncBuckets() {
+        long now = System.nanoTime();
+        List<String> keys = new ArrayList<>();
+        List<Bucket> batch = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        for (Map.Entry<String, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            long delta = bucket.drainPending();
+            if (delta == 0 && bucket.isIdle(now)) {
+                buckets.remove(entry.getKey(), bucket);
+                continue;
+            }
+            keys.add(entry.getKey());
+            batch.add(bucket);
+            deltas.add(delta);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Object> replies;
+        try {
+            long ttlMillis = TimeUnit.NANOSECONDS.toMillis(2 * PERIOD_NANOS);
+            replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    incrementSyncKey(connection, keys.get(i), deltas.get(i), ttlMillis);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).restorePending(deltas.get(i));
+            }
+            syncFailures.increment();
+            log.warn("Could not sync {} local rate limit buckets, enforcing locally: {}", batch.size(), e.getMessage());
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            // Two replies per key: INCRBY, then PEXPIRE
+            long overshotBy = batch.get(i).applyGlobalCount((Long) replies.get(2 * i), deltas.get(i));
+            if (overshotBy > 0) {
+                overshoot.record(overshotBy);
+            }
+        }
+    }
+
+    private static void incrementSyncKey(RedisConnection connection, String key, long delta, long ttlMillis) {
+        byte[] syncKey = (SYNC_KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+        connection.stringCommands().incrBy(syncKey, delta);
+        connection.keyCommands().pExpire(syncKey, ttlMillis);
+    }
+
+    /**
+     * Token bucket of one key on this node (burst capacity, refilled at the quota rate), with the
+     * bookkeeping for the next sync.
+     */
+    private static final class Bucket {
+        private RateLimitQuota quota;
+        private int burst;
+        private int cost;
+        private double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+        private long lastUsedAt;
+        // Calls admitted since the previous sync
+        private long pending;
+        // Cluster-wide count seen at the previous sync, -1 before the first one
+        private long lastGlobalCount = -1;
+
+        Bucket(RateLimitQuota quota, long now) {
+            use(quota);
+            this.tokens = burst;
+            this.refilledAt = now;
+            this.lastUsedAt = now;
+        }
+
+        synchronized RateLimitResult tryAcquire(RateLimitQuota quota, long now) {
+            refill(now);
+            if (!quota.equals(this.quota)) {
+                use(quota);
+                tokens = Math.min(tokens, burst);
+            }
+            lastUsedAt = now;
+            boolean admitted = tokens >= cost;
+            if (admitted) {
+                tokens -= cost;
+                pending += cost;
+            }
+            return RateLimitResult.builder()
+                .allowed(admitted)
+                .limit(burst)
+                .remaining((int) Math.max(0, Math.floor(tokens)))
+                .retryAfterMs(admitted ? 0 : nanosToMillis((cost - tokens) / tokensPerNano))
+                .resetAfterMs(nanosToMillis((burst - tokens) / tokensPerNano))
+                .build();
+        }
+
+        synchronized long drainPending() {
+            long drained = pending;
+            pending = 0;
+            return drained;
+        }
+
+        synchronized void restorePending(long delta) {
+            pending += delta;
+        }
+
+        /**
+         * Takes what the other nodes admitted since the previous sync from the bucket.
+         *
+         * @return by how many calls this pushed the key over its limit
+         */
+        synchronized long applyGlobalCount(long globalCount, long ownDelta) {
+            long overshotBy = 0;
+            // A counter that expired and restarted is smaller than the last one seen
+            if (lastGlobalCount >= 0 && globalCount >= lastGlobalCount) {
+                long others = globalCount - lastGlobalCount - ownDelta;
+                if (others > 0) {
+                    double debtBefore = Math.max(0, -tokens);
+                    tokens -= others;
+                    overshotBy = (long) Math.ceil(Math.max(0, -tokens) - debtBefore);
+                }
+            }
+            lastGlobalCount = globalCount;
+            return overshotBy;
+        }
+
+        synchronized boolean isIdle(long now) {
+            refill(now);
+            return tokens >= burst && now - lastUsedAt > PERIOD_NANOS;
+        }
+
+        private void use(RateLimitQuota quota) {
+            this.quota = quota;
+            this.burst = quota.getBurst();
+            this.cost = quota.getCost();
+            this.tokensPerNano = (double) quota.getRequestsPerMinute() / PERIOD_NANOS;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+
+        private static long nanosToMillis(double nanos) {
+            return (long) Math.ceil(nanos / 1_000_000d);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.easybank.service;
+
+/**
+ * How {@link RateLimiterService} keeps its per-key state in Redis.
+ * Selected with {@code app.rate-limit.backend}.
+ */
+public enum RateLimitBackend {
+    /**
+     * Generic cell rate algorithm: one Lua script per check keeps a single theoretical arrival
+     * time per key, so every check is one atomic round trip and every key costs O(1) memory.
+     */
+    GCRA,
+    /**
+     * In-process token buckets, see {@link LocalRateLimiter}: no Redis call on the request path.
+     * Counts are reconciled through Redis every {@code app.rate-limit.local.sync-interval-ms}, so
+     * the cluster converges on the limit but may briefly exceed it.
+     */
+    LOCAL,
+    /**
+     * Sorted set with one member per request in the last minute, maintained with separate
+     * commands per check.
+     */
+    SLIDING_LOG
+}
@@ -0,0 +1,80 @@
+package com.example.easybank.service;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quota a rate limit key is checked against: a sustained rate per minute, the burst that may be
+ * spent at once, and what one call costs. Immutable; the arguments of the Redis script are
+ * prepared once so a check does not format numbers.
+ */
+public final class RateLimitQuota {
+    private static final long PERIOD_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final int requestsPerMinute;
+    private final int burst;
+    private final int cost;
+    private final Object[] gcraArguments;
+
+    private RateLimitQuota(int requestsPerMinute, int burst, int cost) {
+        if (requestsPerMinute <= 0) {
+            throw new IllegalArgumentException("requestsPerMinute must be positive");
+        }
+        if (cost <= 0 || cost > burst) {
+            throw new IllegalArgumentException(
+                String.format("cost must be between 1 and the burst (%d), was %d", burst, cost));
+        }
+        this.requestsPerMinute = requestsPerMinute;
+        this.burst = burst;
+        this.cost = cost;
+        this.gcraArguments = new Object[] {
+            Long.toString(PERIOD_MICROS / requestsPerMinute), Integer.toString(burst), Integer.toString(cost)
+        };
+    }
+
+    public static RateLimitQuota of(int requestsPerMinute) {
+        return new RateLimitQuota(requestsPerMinute, requestsPerMinute, 1);
+    }
+
+    public static RateLimitQuota of(int requestsPerMinute, int burst, int cost) {
+        return new RateLimitQuota(requestsPerMinute, burst, cost);
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * ARGV of the GCRA script: emission interval in microseconds, burst, cost.
+     */
+    Object[] gcraArguments() {
+        return gcraArguments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof RateLimitQuota other && requestsPerMinute == other.requestsPerMinute
+            && burst == other.burst && cost == other.cost;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requestsPerMinute, burst, cost);
+    }
+
+    @Override
+    public String toString() {
+        return requestsPerMinute + "/min, burst " + burst + ", cost " + cost;
+    }
+}
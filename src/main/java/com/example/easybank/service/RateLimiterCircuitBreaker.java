@@ -0,0 +1,187 @@
+package com.example.easybank.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker around the Redis calls of {@link RateLimiterService}.
+ *
+ * The outcome of the last {@code window-size} calls is kept; a call fails when Redis throws
+ * (including the short command timeout of the rate limiter's connection) or answers slower than
+ * {@code slow-call-ms}. Once the failure rate of a full window reaches
+ * {@code failure-rate-threshold} percent the circuit opens and calls are not made at all for
+ * {@code open-duration-ms}. After that one probe call at a time is let through (half-open): a
+ * success closes the circuit, a failure opens it again.
+ *
+ * The state is exported as {@code ratelimit.circuit.state} (1 for the current state, tagged
+ * closed, open or half_open) and the outcomes as {@code ratelimit.circuit.calls}.
+ */
+@Slf4j
+@Component
+public class RateLimiterCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationNanos;
+
+    // Guards the fields below; a lock rather than a monitor so waiting does not pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ring buffer of the last windowSize outcomes, true for a failure
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    private final Counter successes;
+    private final Counter failed;
+    private final Counter slow;
+    private final Counter notPermitted;
+
+    public RateLimiterCircuitBreaker(@Value("${app.rate-limit.circuit-breaker.window-size:20}") int windowSize,
+                                     @Value("${app.rate-limit.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                     @Value("${app.rate-limit.circuit-breaker.slow-call-ms:50}") long slowCallMs,
+                                     @Value("${app.rate-limit.circuit-breaker.open-duration-ms:5000}") long openDurationMs,
+                                     MeterRegistry meterRegistry) {
+        this.windowSize = windowSize;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.outcomes = new boolean[windowSize];
+
+        Map<State, String> tags = new EnumMap<>(State.class);
+        tags.put(State.CLOSED, "closed");
+        tags.put(State.OPEN, "open");
+        tags.put(State.HALF_OPEN, "half_open");
+        tags.forEach((gaugedState, tag) -> Gauge.builder("ratelimit.circuit.state", this,
+                breaker -> breaker.getState() == gaugedState ? 1 : 0)
+            .tag("state", tag)
+            .register(meterRegistry));
+        this.successes = meterRegistry.counter("ratelimit.circuit.calls", "outcome", "success");
+        this.failed = meterRegistry.counter("ratelimit.circuit.calls", "outcome", "failure");
+        this.slow = meterRegistry.counter("ratelimit.circuit.calls", "outcome", "slow");
+        this.notPermitted = meterRegistry.counter("ratelimit.circuit.calls", "outcome", "not_permitted");
+    }
+
+    /**
+     * Whether a Redis call may be made now. Every permitted call must be followed by
+     * {@link #onSuccess} or {@link #onError}.
+     */
+    public boolean tryAcquirePermission() {
+        boolean permitted;
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            permitted = switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (probeInFlight) {
+                        yield false;
+                    }
+                    probeInFlight = true;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+        if (!permitted) {
+            notPermitted.increment();
+        }
+        return permitted;
+    }
+
+    /**
+     * Records a call that returned after {@code durationNanos}; a slow answer counts as a failure.
+     */
+    public void onSuccess(long durationNanos) {
+        boolean isSlow = durationNanos > slowCallNanos;
+        (isSlow ? slow : successes).increment();
+        record(isSlow);
+    }
+
+    public void onError() {
+        failed.increment();
+        record(true);
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        lock.lock();
+        try {
+            recordLocked(failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLocked(boolean failure) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            transitionTo(failure ? State.OPEN : State.CLOSED);
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call permitted before the circuit opened
+            return;
+        }
+        if (recorded == windowSize) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % windowSize;
+        if (recorded == windowSize && failures * 100 >= failureRateThreshold * windowSize) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State next) {
+        if (next == State.OPEN) {
+            openedAt = System.nanoTime();
+            log.warn("Rate limiter circuit opened, limiting in process for {} ms",
+                TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+        } else if (next == State.CLOSED) {
+            position = 0;
+            recorded = 0;
+            failures = 0;
+            log.info("Rate limiter circuit closed, Redis answers again");
+        }
+        state = next;
+    }
+}
@@ -1,12 +1,16 @@
 package com.example.easybank.service;
 
+import com.example.easybank.dto.RateLimitResult;
 import com.example.easybank.exception.TooManyRequestsException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -21,20 +25,154 @@ public class RateLimiterService {
     
     @Value("${app.rate-limit.retry-after-seconds:30}")
     private int retryAfterSeconds;
+
+    @Value("${app.rate-limit.backend:GCRA}")
+    private RateLimitBackend backend;
     
     private static final long WINDOW_SIZE_MS = 60000; // 1 minute in milliseconds
 
+    private static final String GCRA_KEY_PREFIX = "ratelimit:gcra:";
+
+    private static final String REQUEST_LIMIT_EXCEEDED = "Rate limit exceeded. Please try again later.";
+    private static final String TRANSACTION_LIMIT_EXCEEDED =
+        "Transaction rate limit exceeded for this account. Please try again later.";
+
+    /*
+     * GCRA: the key holds the theoretical arrival time (TAT) of the next call in microseconds of
+     * Redis server time. Each admitted call moves it cost emission intervals (period / limit)
+     * forward; a call is refused while that would put the TAT more than burst intervals ahead
+     * of now, which allows bursts of up to burst calls. The key expires once the TAT has
+     * passed, because a missing key means a full quota.
+     *
+     * KEYS: state key; ARGV: emission interval in microseconds, burst, cost
+     * Returns {allowed (0/1), remaining, retry after ms, reset after ms}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> GCRA_SCRIPT = RedisScript.of(
+        "if redis.replicate_commands then redis.replicate_commands() end " +
+        "local interval = tonumber(ARGV[1]) " +
+        "local burst = tonumber(ARGV[2]) " +
+        "local cost = tonumber(ARGV[3]) " +
+        "local time = redis.call('TIME') " +
+        "local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+        "local tat = tonumber(redis.call('GET', KEYS[1]) or now) " +
+        "if tat < now then tat = now end " +
+        "local new_tat = tat + interval * cost " +
+        "local allow_at = new_tat - interval * burst " +
+        "if allow_at > now then " +
+        "  return {0, math.max(0, math.floor((now - (tat - interval * burst)) / interval)), " +
+        "          math.ceil((allow_at - now) / 1000), math.ceil((tat - now) / 1000)} " +
+        "end " +
+        "local ttl = math.ceil((new_tat - now) / 1000) " +
+        "redis.call('SET', KEYS[1], string.format('%.0f', new_tat), 'PX', ttl) " +
+        "return {1, math.floor((now - allow_at) / interval), 0, ttl}", List.class);
+
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private LocalRateLimiter localRateLimiter;
+
+    @Autowired
+    private RateLimiterCircuitBreaker circuitBreaker;
+
+    private volatile RateLimitQuota requestQuota;
+    private volatile RateLimitQuota transactionQuota;
+
     /**
      * Checks if the request should be allowed based on rate limits
      * @param key The identifier for the request (usually IP or user ID)
      * @throws TooManyRequestsException if the rate limit is exceeded
      */
     public void checkRateLimit(String key) {
+        checkRateLimit(key, requestQuota());
+    }
+
+    /**
+     * Checks if the request should be allowed against a specific quota, e.g. the one of the
+     * endpoint's rate limit policy
+     * @param key The identifier for the request, unique per quota
+     * @throws TooManyRequestsException if the rate limit is exceeded
+     */
+    public void checkRateLimit(String key, RateLimitQuota quota) {
+        check(key, quota, REQUEST_LIMIT_EXCEEDED);
+    }
+
+    /**
+     * Checks if a transaction should be allowed based on account-specific rate limits
+     * @param accountId The account identifier
+     * @throws TooManyRequestsException if the rate limit is exceeded
+     */
+    public void checkTransactionRateLimit(String accountId) {
+        check("transaction:" + accountId, transactionQuota(), TRANSACTION_LIMIT_EXCEEDED);
+    }
+
+    /**
+     * Takes one call from the key's quota of {@code limitPerMinute} calls per minute, with a
+     * single atomic script round trip (GCRA). Unlike the check methods this never throws for an
+     * exhausted quota; Redis failures are passed on to the caller.
+     *
+     * @param key The identifier for the caller, e.g. {@code clientIp:pattern}
+     * @return whether the call is admitted, the remaining quota and the retry and reset delays
+     */
+    public RateLimitResult tryAcquire(String key, int limitPerMinute) {
+        return tryAcquire(key, RateLimitQuota.of(limitPerMinute));
+    }
+
+    /**
+     * Same as {@link #tryAcquire(String, int)}, with the burst and per-call cost of {@code quota}.
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitQuota quota) {
+        List<?> reply = redisTemplate.execute(GCRA_SCRIPT, Collections.singletonList(GCRA_KEY_PREFIX + key),
+            quota.gcraArguments());
+        if (reply == null || reply.size() != 4) {
+            throw new IllegalStateException("Unexpected rate limit script reply: " + reply);
+        }
+        return RateLimitResult.builder()
+            .allowed(((Number) reply.get(0)).longValue() == 1L)
+            .limit(quota.getBurst())
+            .remaining(((Number) reply.get(1)).intValue())
+            .retryAfterMs(((Number) reply.get(2)).longValue())
+            .resetAfterMs(((Number) reply.get(3)).longValue())
+            .build();
+    }
+
+    /**
+     * Checks the key against its quota. Redis is only asked while the circuit breaker permits
+     * it; when the circuit is open or the call fails the key is limited in process instead.
+     */
+    private void check(String key, RateLimitQuota quota, String exceededMessage) {
+        if (backend == RateLimitBackend.LOCAL || !circuitBreaker.tryAcquirePermission()) {
+            enforce(key, localRateLimiter.tryAcquire(key, quota), exceededMessage);
+            return;
+        }
+        if (backend == RateLimitBackend.SLIDING_LOG) {
+            checkSlidingLog(key, quota, exceededMessage);
+            return;
+        }
+
+        RateLimitResult result;
+        long started = System.nanoTime();
+        try {
+            result = tryAcquire(key, quota);
+            circuitBreaker.onSuccess(System.nanoTime() - started);
+        } catch (Exception e) {
+            circuitBreaker.onError();
+            log.warn("Error checking rate limit for key {}, limiting in process: {}", key, e.getMessage());
+            result = localRateLimiter.tryAcquire(key, quota);
+        }
+        enforce(key, result, exceededMessage);
+    }
+
+    /**
+     * Sorted-set check: one member per call in the last minute. Burst and cost of the quota do
+     * not apply; every call counts once against its requests per minute.
+     */
+    private void checkSlidingLog(String key, RateLimitQuota quota, String exceededMessage) {
         String requestKey = "ratelimit:" + key;
+        int limit = quota.getRequestsPerMinute();
         long currentTime = System.currentTimeMillis();
+        long started = System.nanoTime();
         
         try {
             // Remove old requests outside the window
@@ -49,12 +187,9 @@ public class RateLimiterService {
             log.debug("Current request count for key {}: {}", key, currentCount);
             
             // Check if we've already reached or exceeded the limit
-            if (currentCount >= maxRequestsPerMinute) {
+            if (currentCount >= limit) {
                 log.debug("Rate limit exceeded for key {}: {} requests", key, currentCount);
-                throw new TooManyRequestsException(
-                    "Rate limit exceeded. Please try again later.",
-                    retryAfterSeconds
-                );
+                throw new TooManyRequestsException(exceededMessage, retryAfterSeconds);
             }
             
             // If we're within limits, add the current request
@@ -71,89 +206,46 @@ public class RateLimiterService {
             }
             
             // Now make sure we didn't exceed the limit with this request
-            if (currentCount > maxRequestsPerMinute) {
+            if (currentCount > limit) {
                 log.debug("Rate limit exceeded for key {}: {} requests (post-check)", key, currentCount);
                 // Remove the request we just added
                 redisTemplate.opsForZSet().remove(requestKey, requestId);
-                throw new TooManyRequestsException(
-                    "Rate limit exceeded. Please try again later.",
-                    retryAfterSeconds
-                );
+                throw new TooManyRequestsException(exceededMessage, retryAfterSeconds);
             }
             
+            circuitBreaker.onSuccess(System.nanoTime() - started);
         } catch (TooManyRequestsException e) {
+            circuitBreaker.onSuccess(System.nanoTime() - started);
             throw e; // Re-throw our custom exception
         } catch (Exception e) {
-            log.error("Error checking rate limit for key: " + key, e);
-            throw new TooManyRequestsException(
-                "Error processing request. Please try again later.",
-                retryAfterSeconds
-            );
+            circuitBreaker.onError();
+            log.warn("Error checking rate limit for key {}, limiting in process: {}", key, e.getMessage());
+            enforce(key, localRateLimiter.tryAcquire(key, quota), exceededMessage);
         }
     }
 
-    /**
-     * Checks if a transaction should be allowed based on account-specific rate limits
-     * @param accountId The account identifier
-     * @throws TooManyRequestsException if the rate limit is exceeded
-     */
-    public void checkTransactionRateLimit(String accountId) {
-        String transactionKey = "ratelimit:transaction:" + accountId;
-        long currentTime = System.currentTimeMillis();
-        
-        try {
-            // Remove old transactions outside the window
-            redisTemplate.opsForZSet().removeRangeByScore(transactionKey, 0, currentTime - WINDOW_SIZE_MS);
-            
-            // Get the current count after removing expired entries
-            Long currentCount = redisTemplate.opsForZSet().size(transactionKey);
-            if (currentCount == null) {
-                currentCount = 0L;
-            }
-            
-            log.debug("Current transaction count for account {}: {}", accountId, currentCount);
-            
-            // Check if we've already reached or exceeded the limit
-            if (currentCount >= maxTransactionsPerMinute) {
-                log.debug("Transaction rate limit exceeded for account {}: {} transactions", accountId, currentCount);
-                throw new TooManyRequestsException(
-                    "Transaction rate limit exceeded for this account. Please try again later.",
-                    retryAfterSeconds
-                );
-            }
-            
-            // If we're within limits, add the current transaction
-            String transactionId = currentTime + ":" + Thread.currentThread().getId();
-            redisTemplate.opsForZSet().add(transactionKey, transactionId, currentTime);
-            
-            // Set expiry on the key to clean up eventually
-            redisTemplate.expire(transactionKey, 2, TimeUnit.MINUTES);
-            
-            // Check again after adding the new transaction
-            currentCount = redisTemplate.opsForZSet().size(transactionKey);
-            if (currentCount == null) {
-                currentCount = 0L;
-            }
-            
-            // Now make sure we didn't exceed the limit with this transaction
-            if (currentCount > maxTransactionsPerMinute) {
-                log.debug("Transaction rate limit exceeded for account {}: {} transactions (post-check)", accountId, currentCount);
-                // Remove the transaction we just added
-                redisTemplate.opsForZSet().remove(transactionKey, transactionId);
-                throw new TooManyRequestsException(
-                    "Transaction rate limit exceeded for this account. Please try again later.",
-                    retryAfterSeconds
-                );
-            }
-            
-        } catch (TooManyRequestsException e) {
-            throw e; // Re-throw our custom exception
-        } catch (Exception e) {
-            log.error("Error checking transaction rate limit for account: " + accountId, e);
-            throw new TooManyRequestsException(
-                "Error processing transaction. Please try again later.",
-                retryAfterSeconds
-            );
+    private void enforce(String key, RateLimitResult result, String exceededMessage) {
+        log.debug("Rate limit for key {}: allowed={}, remaining={}", key, result.isAllowed(), result.getRemaining());
+        if (!result.isAllowed()) {
+            throw new TooManyRequestsException(exceededMessage, result.getRetryAfterSeconds());
+        }
+    }
+
+    private RateLimitQuota requestQuota() {
+        RateLimitQuota quota = requestQuota;
+        if (quota == null || quota.getRequestsPerMinute() != maxRequestsPerMinute) {
+            quota = RateLimitQuota.of(maxRequestsPerMinute);
+            requestQuota = quota;
+        }
+        return quota;
+    }
+
+    private RateLimitQuota transactionQuota() {
+        RateLimitQuota quota = transactionQuota;
+        if (quota == null || quota.getRequestsPerMinute() != maxTransactionsPerMinute) {
+            quota = RateLimitQuota.of(maxTransactionsPerMinute);
+            transactionQuota = quota;
         }
+        return quota;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.TwoTierCache;
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.TransactionHistoryPage;
+import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.repository.ReactiveReadRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking reads of accounts and transaction history, returning the same results as
+ * {@link AccountService#getAccount} and {@link TransactionService#getTransactionHistory}.
+ *
+ * Nothing here blocks a thread: queries go through R2DBC, and the account cache is consulted
+ * in its in-process tier only, since the Redis tier is read with blocking calls. Cached
+ * accounts are still kept fresh by the write path.
+ */
+@Service
+public class ReactiveQueryService {
+    private final ReactiveReadRepository readRepository;
+    private final CacheManager cacheManager;
+
+    @Value("${app.history.default-page-size:50}")
+    private int historyDefaultPageSize;
+
+    @Value("${app.history.max-page-size:500}")
+    private int historyMaxPageSize;
+
+    public ReactiveQueryService(ReactiveReadRepository readRepository, CacheManager cacheManager) {
+        this.readRepository = readRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    public Mono<Account> getAccount(String accountNumber) {
+        String normalizedAccountNumber = AccountService.normalizeAccountNumber(accountNumber);
+        Cache cache = cacheManager.getCache("accounts");
+        if (cache instanceof TwoTierCache twoTierCache) {
+            Cache.ValueWrapper cached = twoTierCache.getLocal(normalizedAccountNumber);
+            if (cached != null && cached.get() instanceof Account account) {
+                return Mono.just(account);
+            }
+        }
+        return readRepository.findByAccountNumber(normalizedAccountNumber)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException(String.format(
+                        "Account not found: %s. Please ensure the account number is in the format ACC-xxxxxxxx",
+                        accountNumber))));
+    }
+
+    /**
+     * Every COMPLETED and FAILED transaction of an account, newest first. Money leaving the
+     * account is reported as a negative amount.
+     */
+    public Flux<TransactionResponse> getAccountTransactions(String accountNumber) {
+        return findAccount(accountNumber).flatMapMany(account -> readRepository.findHistory(account.getId())
+                .map(transaction -> TransactionResponse.forAccount(transaction, account.getId())));
+    }
+
+    /**
+     * Keyset-paginated history of an account, newest first; see
+     * {@link TransactionService#getTransactionHistory}. Cursors are interchangeable between the two.
+     */
+    public Mono<TransactionHistoryPage> getTransactionHistory(String accountNumber, Integer limit, String before) {
+        int pageSize = limit == null ? historyDefaultPageSize : limit;
+        if (pageSize < 1 || pageSize > historyMaxPageSize) {
+            return Mono.error(new IllegalArgumentException(
+                    String.format("limit must be between 1 and %d", historyMaxPageSize)));
+        }
+        HistoryCursor cursor;
+        try {
+            cursor = before == null || before.isBlank() ? null : HistoryCursor.decode(before);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        return findAccount(accountNumber).flatMap(account -> readRepository
+                // One extra row tells whether another page follows
+                .findHistoryPage(account.getId(), cursor == null ? null : cursor.createdAt(),
+                        cursor == null ? null : cursor.id(), pageSize + 1)
+                .collectList()
+                .map(rows -> {
+                    boolean hasMore = rows.size() > pageSize;
+                    List<Transaction> page = hasMore ? rows.subList(0, pageSize) : rows;
+                    return TransactionHistoryPage.builder()
+                            .transactions(page.stream()
+                                    .map(transaction -> TransactionResponse.forAccount(transaction, account.getId()))
+                                    .toList())
+                            .nextCursor(hasMore ? HistoryCursor.of(page.get(page.size() - 1)).encode() : null)
+                            .build();
+                }));
+    }
+
+    private Mono<Account> findAccount(String accountNumber) {
+        return readRepository.findByAccountNumber(accountNumber)
+                .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("Account not found: " + accountNumber)));
+    }
+}
@@ -1,62 +1,290 @@
 package com.example.easybank.service;
 
+import com.example.easybank.cache.AccountCacheWriter;
 import com.example.easybank.domain.Account;
 import com.example.easybank.domain.Transaction;
 import com.example.easybank.domain.TransactionStatus;
 import com.example.easybank.domain.TransactionType;
+import com.example.easybank.dto.BatchTransferResult;
+import com.example.easybank.dto.TransactionHistoryPage;
 import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.dto.TransferExecution;
+import com.example.easybank.dto.TransferRequest;
+import com.example.easybank.engine.LedgerEngine;
+import com.example.easybank.exception.TooManyRequestsException;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.outbox.TransferOutbox;
 import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerEntryRepository;
 import com.example.easybank.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
-
-import lombok.RequiredArgsConstructor;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class TransactionService {
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
     private final RateLimiterService rateLimiterService;
+    private final AccountCacheWriter accountCacheWriter;
+    private final HotAccountService hotAccountService;
+    private final TransferOutbox transferOutbox;
+    private final TransferStageRecorder stageRecorder;
+    private final TransactionTemplate repeatableReadTransaction;
+    private final TransactionTemplate readCommittedTransaction;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.transfer.mode:LOCKING}")
+    private TransferMode transferMode;
+
+    @Value("${app.transfer.optimistic.max-attempts:5}")
+    private int optimisticMaxAttempts;
+
+    @Value("${app.transfer.optimistic.max-backoff-ms:5}")
+    private long optimisticMaxBackoffMs;
+
+    @Value("${app.transfer.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${app.transfer.batch.insert-chunk-size:500}")
+    private int batchInsertChunkSize;
+
+    @Value("${app.transfer.group-commit.window-ms:2}")
+    private long groupCommitWindowMs;
+
+    @Value("${app.transfer.group-commit.max-size:100}")
+    private int groupCommitMaxSize;
+
+    @Value("${app.transfer.group-commit.queue-capacity:10000}")
+    private int groupCommitQueueCapacity;
+
+    @Value("${app.transfer.group-commit.timeout-ms:5000}")
+    private long groupCommitTimeoutMs;
 
-    @Cacheable(value = "accounts", key = "#accountNumber", unless = "#result == null")
+    @Value("${app.history.default-page-size:50}")
+    private int historyDefaultPageSize;
+
+    @Value("${app.history.max-page-size:500}")
+    private int historyMaxPageSize;
+
+    // Only present when app.transfer.mode=ENGINE
+    @Autowired(required = false)
+    private LedgerEngine ledgerEngine;
+
+    // Started on the first transfer in GROUP_COMMIT mode
+    private volatile TransferGroupCommitter groupCommitter;
+
+    public TransactionService(AccountRepository accountRepository,
+                              TransactionRepository transactionRepository,
+                              LedgerEntryRepository ledgerEntryRepository,
+                              RateLimiterService rateLimiterService,
+                              AccountCacheWriter accountCacheWriter,
+                              HotAccountService hotAccountService,
+                              TransferOutbox transferOutbox,
+                              TransferStageRecorder stageRecorder,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.rateLimiterService = rateLimiterService;
+        this.accountCacheWriter = accountCacheWriter;
+        this.hotAccountService = hotAccountService;
+        this.transferOutbox = transferOutbox;
+        this.stageRecorder = stageRecorder;
+        this.meterRegistry = meterRegistry;
+        this.repeatableReadTransaction = transactionTemplate(transactionManager, TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readCommittedTransaction = transactionTemplate(transactionManager, TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    private static TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager, int isolationLevel) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setIsolationLevel(isolationLevel);
+        return template;
+    }
+
+    /**
+     * Same cache entry as {@link AccountService#getAccount}.
+     */
+    @Cacheable(value = "accounts",
+        key = "T(com.example.easybank.service.AccountService).normalizeAccountNumber(#accountNumber)",
+        condition = "T(com.example.easybank.cache.AccountCacheWriter).isCacheable()",
+        unless = "#result == null || #result.hasBalanceSlots()")
     public Account getAccount(String accountNumber) {
         log.debug("Cache miss for account: {}", accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber)
+        return accountRepository.findWithSlotBalanceByAccountNumber(AccountService.normalizeAccountNumber(accountNumber))
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
     }
+
+    /**
+     * A single transaction by the id returned when it was submitted. COMPLETED and FAILED rows
+     * are final, so they are cached without invalidation until they expire; PENDING rows of
+     * asynchronous transfers are read from the database until they are applied.
+     */
+    @Cacheable(value = "transactions", key = "#transactionId",
+            unless = "#result == null || #result.status == T(com.example.easybank.domain.TransactionStatus).PENDING")
+    public TransactionResponse getTransaction(String transactionId) {
+        log.debug("Cache miss for transaction: {}", transactionId);
+        return transactionRepository.findByTransactionId(TransactionIds.normalize(transactionId))
+                .map(TransactionResponse::fromRow)
+                .orElseThrow(() -> new IllegalArgumentException("Transaction not found: " + transactionId));
+    }
     
-    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    /**
+     * Transfers money between two accounts. The way the transfer is applied is selected with
+     * {@code app.transfer.mode}; each mode runs in its own transaction with the isolation
+     * level it needs, so the rate limit check happens before any connection is taken.
+     *
+     * The account cache is updated for the two accounts only, once the transaction has
+     * committed; see {@link AccountCacheWriter}. Every mode that writes the transfer to the
+     * database also writes its outbox event in the same transaction; see {@link TransferOutbox}.
+     * The time spent in each stage of the transfer is recorded by {@link TransferStageRecorder}.
+     *
+     * Rejections and rate limit refusals are neither retried nor recovered: they reach the caller,
+     * as does a transfer whose outcome is unknown, see {@link TransferInDoubtException}, since it
+     * may still be applied.
+     */
     @Retryable(
-        value = {OptimisticLockingFailureException.class, RuntimeException.class}, 
+        value = RuntimeException.class, 
+        exclude = {IllegalArgumentException.class, TooManyRequestsException.class, TransferInDoubtException.class,
+                   OptimisticLockingFailureException.class},
         maxAttempts = 3, 
-        backoff = @Backoff(delay = 500, multiplier = 2)
+        backoff = @Backoff(delay = 500, multiplier = 2),
+        recover = "recoverFromFailure"
     )
-    @CacheEvict(value = "accounts", allEntries = true)
     public Transaction processTransaction(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
-        String transactionId = generateTransactionId();
-        log.info("Processing transfer: {} -> {}, amount: {}, id: {}", 
-                sourceAccountNumber, destinationAccountNumber, amount, transactionId);
-        
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Transaction amount must be positive");
+        return transfer(generateTransactionId(), sourceAccountNumber, destinationAccountNumber, amount);
+    }
+
+    /**
+     * Transfers money like {@link #processTransaction(String, String, BigDecimal)}, under a
+     * transaction id chosen by the caller, so a caller that lost track of the outcome can look the
+     * transfer up. Every attempt uses that id: in the database modes an attempt that did commit
+     * makes the next one fail on the unique transaction id instead of moving the money again.
+     */
+    @Retryable(
+        value = RuntimeException.class, 
+        exclude = {IllegalArgumentException.class, TooManyRequestsException.class, TransferInDoubtException.class,
+                   OptimisticLockingFailureException.class},
+        maxAttempts = 3, 
+        backoff = @Backoff(delay = 500, multiplier = 2),
+        recover = "recoverFromFailureOf"
+    )
+    public Transaction processTransaction(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                          String transactionId) {
+        return transfer(transactionId, sourceAccountNumber, destinationAccountNumber, amount);
+    }
+
+    private Transaction transfer(String transactionId, String sourceAccountNumber, String destinationAccountNumber,
+                                 BigDecimal amount) {
+        TransferMode mode = transferMode;
+        // Started once the transfer passed its checks: the timer covers the mode's work only
+        Timer.Sample sample = null;
+        String outcome = "error";
+        stageRecorder.start(transactionId);
+        try {
+            log.info("Processing transfer: {} -> {}, amount: {}, id: {}", 
+                    sourceAccountNumber, destinationAccountNumber, amount, transactionId);
+            
+            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Transaction amount must be positive");
+            }
+            
+            rateLimiterService.checkTransactionRateLimit(sourceAccountNumber);
+            stageRecorder.mark(TransferStage.RATE_LIMIT);
+
+            sample = Timer.start(meterRegistry);
+            Transaction transaction = switch (mode) {
+                case LOCKING -> repeatableReadTransaction.execute(status ->
+                    executeWithRowLocks(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+                case PESSIMISTIC_ORDERED -> readCommittedTransaction.execute(status ->
+                    executeWithOrderedLocks(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+                case OPTIMISTIC ->
+                    executeOptimistic(transactionId, sourceAccountNumber, destinationAccountNumber, amount);
+                case READ_COMMITTED_GUARDED -> readCommittedTransaction.execute(status ->
+                    executeWithGuardedUpdates(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+                case SINGLE_STATEMENT -> readCommittedTransaction.execute(status ->
+                    executeSingleStatement(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+                case ENGINE -> ledgerEngine().transfer(transactionId, sourceAccountNumber, destinationAccountNumber, amount);
+                case LEDGER -> readCommittedTransaction.execute(status ->
+                    executeWithLedgerEntries(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+                case GROUP_COMMIT -> awaitGroupCommit(groupCommitter().submit(transactionId,
+                    new TransferRequest(sourceAccountNumber, destinationAccountNumber, amount)), transactionId);
+            };
+            outcome = "success";
+            return transaction;
+        } catch (IllegalArgumentException e) {
+            outcome = "rejected";
+            throw e;
+        } catch (TooManyRequestsException e) {
+            // The rate limit, or a full engine or group commit queue
+            outcome = "rate_limited";
+            throw e;
+        } catch (TransferInDoubtException e) {
+            outcome = "in_doubt";
+            throw e;
+        } catch (ConcurrencyFailureException e) {
+            // Deadlocks, lock timeouts, serialization failures and exhausted optimistic retries
+            outcome = "conflict";
+            if (e instanceof PessimisticLockingFailureException) {
+                meterRegistry.counter("transfer.lock.failures", "mode", mode.name()).increment();
+            }
+            throw e;
+        } finally {
+            TransferStage lastStage;
+            if (sample == null) {
+                // Refused before it ran
+                lastStage = TransferStage.RATE_LIMIT;
+            } else {
+                sample.stop(meterRegistry.timer("transfer.execution.time", "mode", mode.name(), "outcome", outcome));
+                boolean queued = mode == TransferMode.ENGINE || mode == TransferMode.GROUP_COMMIT;
+                lastStage = queued ? TransferStage.QUEUE : TransferStage.COMMIT;
+            }
+            stageRecorder.finish(lastStage, mode, outcome);
         }
-        
-        rateLimiterService.checkTransactionRateLimit(sourceAccountNumber);
-        
+    }
+
+    private Transaction executeWithRowLocks(String transactionId, String sourceAccountNumber,
+                                            String destinationAccountNumber, BigDecimal amount) {
         Transaction transaction = new Transaction();
         transaction.setTransactionId(transactionId);
         transaction.setAmount(amount);
@@ -72,16 +300,20 @@ public class TransactionService {
             Account sourceAccount = accountRepository.findByAccountNumberWithLock(sourceAccountNumber)
                     .orElseThrow(() -> new IllegalArgumentException("Source account not found: " + sourceAccountNumber));
             
-            Account destinationAccount = accountRepository.findByAccountNumberWithLock(destinationAccountNumber)
+            Account destinationAccount = findHotDestination(destinationAccountNumber)
+                    .or(() -> accountRepository.findByAccountNumberWithLock(destinationAccountNumber))
                     .orElseThrow(() -> new IllegalArgumentException("Destination account not found: " + destinationAccountNumber));
+            stageRecorder.mark(TransferStage.LOCK);
             
             // Validation steps - these should throw exceptions before any transaction is saved
             validateAccounts(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber);
             
             // Check sufficient funds - this is a business rule validation, should throw before saving
+            hotAccountService.consolidateIfShort(sourceAccount, amount);
             if (sourceAccount.getBalance().compareTo(amount) < 0) {
                 throw new IllegalArgumentException("Insufficient funds in source account");
             }
+            stageRecorder.mark(TransferStage.VALIDATE);
             
             // Only save the transaction after all validations pass
             transaction.setStatus(TransactionStatus.PROCESSING);
@@ -89,21 +321,30 @@ public class TransactionService {
             transaction.setDestinationAccount(destinationAccount);
             transaction.setCurrency(sourceAccount.getCurrency());
             transactionRepository.save(transaction);
+            stageRecorder.mark(TransferStage.INSERT);
             
             // Process the balance changes
             sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
-            destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
-            
-            // Update accounts in database
             accountRepository.update(sourceAccount);
-            accountRepository.update(destinationAccount);
+            sourceAccount.setVersion(nextVersion(sourceAccount));
+            if (destinationAccount.hasBalanceSlots()) {
+                hotAccountService.credit(destinationAccount, amount);
+            } else {
+                destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
+                accountRepository.update(destinationAccount);
+                destinationAccount.setVersion(nextVersion(destinationAccount));
+            }
+            accountCacheWriter.putAfterCommit(List.of(sourceAccount, destinationAccount));
+            stageRecorder.mark(TransferStage.UPDATE);
             
             // Update transaction to COMPLETED
             transaction.setStatus(TransactionStatus.COMPLETED);
             // Set account details for response
             transaction.setSourceAccountHolder(sourceAccount.getAccountHolder());
             transaction.setDestinationAccountHolder(destinationAccount.getAccountHolder());
-            transactionRepository.save(transaction);
+            transactionRepository.updateStatus(transactionId, TransactionStatus.COMPLETED);
+            transferOutbox.record(transaction);
+            stageRecorder.mark(TransferStage.INSERT);
             
             log.info("Transaction {} completed successfully", transactionId);
             return transaction;
@@ -133,15 +374,380 @@ public class TransactionService {
     }
     
     /**
-     * Recover method that gets called when all retries are exhausted
+     * {@link TransferMode#PESSIMISTIC_ORDERED}: both rows are locked by one query in id order,
+     * so two opposite transfers between the same accounts queue up instead of deadlocking.
+     * A hot destination is credited through a balance slot, so only the source row is locked.
+     */
+    private Transaction executeWithOrderedLocks(String transactionId, String sourceAccountNumber,
+                                                String destinationAccountNumber, BigDecimal amount) {
+        Account sourceAccount;
+        Account destinationAccount;
+        Optional<Account> hotDestination = findHotDestination(destinationAccountNumber);
+        if (hotDestination.isPresent()) {
+            sourceAccount = requireAccount(
+                accountRepository.findByAccountNumberWithLock(sourceAccountNumber).orElse(null), "Source", sourceAccountNumber);
+            destinationAccount = hotDestination.get();
+        } else {
+            Map<String, Account> locked = new HashMap<>();
+            for (Account account : accountRepository.findAllByAccountNumberWithLock(
+                    List.of(sourceAccountNumber, destinationAccountNumber))) {
+                locked.put(account.getAccountNumber(), account);
+            }
+            sourceAccount = requireAccount(locked.get(sourceAccountNumber), "Source", sourceAccountNumber);
+            destinationAccount = requireAccount(locked.get(destinationAccountNumber), "Destination", destinationAccountNumber);
+        }
+        stageRecorder.mark(TransferStage.LOCK);
+        hotAccountService.consolidateIfShort(sourceAccount, amount);
+        checkTransferAllowed(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber, amount);
+        stageRecorder.mark(TransferStage.VALIDATE);
+
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        List<Account> written = List.of(sourceAccount);
+        if (destinationAccount.hasBalanceSlots()) {
+            hotAccountService.credit(destinationAccount, amount);
+        } else {
+            destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
+            written = inIdOrder(sourceAccount, destinationAccount);
+        }
+        for (Account account : written) {
+            accountRepository.update(account);
+            account.setVersion(nextVersion(account));
+        }
+        accountCacheWriter.putAfterCommit(List.of(sourceAccount, destinationAccount));
+        stageRecorder.mark(TransferStage.UPDATE);
+        return recordCompletedTransfer(transactionId, sourceAccount, destinationAccount, amount);
+    }
+
+    /**
+     * {@link TransferMode#OPTIMISTIC}: every attempt runs in its own transaction, so a version
+     * conflict rolls back cleanly and the retry reads fresh balances. Conflicts are only retried
+     * here, up to {@code optimistic.max-attempts}; {@code @Retryable} leaves them alone.
+     */
+    private Transaction executeOptimistic(String transactionId, String sourceAccountNumber,
+                                          String destinationAccountNumber, BigDecimal amount) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return readCommittedTransaction.execute(status ->
+                    executeWithVersionCheck(transactionId, sourceAccountNumber, destinationAccountNumber, amount));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= optimisticMaxAttempts) {
+                    log.warn("Transaction {} gave up after {} optimistic conflicts", transactionId, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("transfer.conflict.retries", "mode", TransferMode.OPTIMISTIC.name()).increment();
+                log.debug("Version conflict for transaction {} on attempt {}, retrying", transactionId, attempt);
+                backOffAfterConflict();
+                stageRecorder.mark(TransferStage.BACKOFF);
+            }
+        }
+    }
+
+    private Transaction executeWithVersionCheck(String transactionId, String sourceAccountNumber,
+                                                String destinationAccountNumber, BigDecimal amount) {
+        Account sourceAccount = requireAccount(
+            accountRepository.findByAccountNumber(sourceAccountNumber).orElse(null), "Source", sourceAccountNumber);
+        Account destinationAccount = requireAccount(
+            accountRepository.findByAccountNumber(destinationAccountNumber).orElse(null), "Destination", destinationAccountNumber);
+        stageRecorder.mark(TransferStage.READ);
+        checkTransferAllowed(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber, amount);
+        stageRecorder.mark(TransferStage.VALIDATE);
+
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
+        for (Account account : inIdOrder(sourceAccount, destinationAccount)) {
+            if (accountRepository.updateBalanceIfVersionMatches(account) == 0) {
+                throw new OptimisticLockingFailureException(
+                    "Account " + account.getAccountNumber() + " was modified concurrently");
+            }
+            account.setVersion(nextVersion(account));
+        }
+        accountCacheWriter.putAfterCommit(List.of(sourceAccount, destinationAccount));
+        stageRecorder.mark(TransferStage.UPDATE);
+        return recordCompletedTransfer(transactionId, sourceAccount, destinationAccount, amount);
+    }
+
+    /**
+     * {@link TransferMode#READ_COMMITTED_GUARDED}: no read locks at all. The debit only applies
+     * if the balance still covers the amount when the UPDATE runs, and rows are written in id
+     * order so concurrent transfers take their row locks in the same order.
+     *
+     * Other transfers may have changed the rows since they were read, so the in-memory
+     * balances are not a committed snapshot: the cache entries are evicted instead, with the
+     * lowest version the rows can now have.
+     */
+    private Transaction executeWithGuardedUpdates(String transactionId, String sourceAccountNumber,
+                                                  String destinationAccountNumber, BigDecimal amount) {
+        Account sourceAccount = requireAccount(
+            accountRepository.findByAccountNumber(sourceAccountNumber).orElse(null), "Source", sourceAccountNumber);
+        Account destinationAccount = requireAccount(
+            accountRepository.findByAccountNumber(destinationAccountNumber).orElse(null), "Destination", destinationAccountNumber);
+        stageRecorder.mark(TransferStage.READ);
+        checkTransferAllowed(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber, amount);
+        stageRecorder.mark(TransferStage.VALIDATE);
+
+        for (Account account : inIdOrder(sourceAccount, destinationAccount)) {
+            BigDecimal delta = account == sourceAccount ? amount.negate() : amount;
+            if (accountRepository.applyBalanceDelta(account.getId(), delta) == 0) {
+                // Throwing rolls back the other leg if it was already applied
+                throw new IllegalArgumentException(account == sourceAccount
+                    ? "Insufficient funds in source account"
+                    : "Destination account is not active");
+            }
+            account.setBalance(account.getBalance().add(delta));
+            account.setVersion(nextVersion(account));
+            accountCacheWriter.evictAfterCommit(account.getAccountNumber(), account.getVersion());
+        }
+        stageRecorder.mark(TransferStage.UPDATE);
+        return recordCompletedTransfer(transactionId, sourceAccount, destinationAccount, amount);
+    }
+
+    /**
+     * {@link TransferMode#LEDGER}: the transfer is a debit and a credit entry; no balance is
+     * updated. Only the source row is locked, which serializes its debits so the funds check
+     * holds. Credits only add to a balance, so the destination row is read without a lock and a
+     * popular destination does not queue its incoming transfers. Reads add the entries after the
+     * checkpoint to the balance, so the cached accounts are evicted once the entries commit.
+     */
+    private Transaction executeWithLedgerEntries(String transactionId, String sourceAccountNumber,
+                                                 String destinationAccountNumber, BigDecimal amount) {
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        lockLedgers(List.of(sourceAccountNumber, destinationAccountNumber));
+        Account sourceAccount = requireAccount(
+            accountRepository.findByAccountNumberWithLock(sourceAccountNumber).orElse(null), "Source", sourceAccountNumber);
+        stageRecorder.mark(TransferStage.LOCK);
+        Account destinationAccount = requireAccount(
+            accountRepository.findByAccountNumber(destinationAccountNumber).orElse(null), "Destination", destinationAccountNumber);
+        applyLedgerBalances(List.of(sourceAccount));
+        stageRecorder.mark(TransferStage.READ);
+        checkTransferAllowed(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber, amount);
+        stageRecorder.mark(TransferStage.VALIDATE);
+
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        Transaction transaction = recordCompletedTransfer(transactionId, sourceAccount, destinationAccount, amount);
+        ledgerEntryRepository.saveTransfers(List.of(transaction));
+        accountCacheWriter.evictAfterCommit(List.of(sourceAccountNumber, destinationAccountNumber));
+        stageRecorder.mark(TransferStage.INSERT);
+        return transaction;
+    }
+
+    /**
+     * Shared ledger locks, in account number order, so the checkpoint never rolls an account
+     * forward while one of its entries is uncommitted.
+     */
+    private void lockLedgers(Collection<String> accountNumbers) {
+        for (String accountNumber : new TreeSet<>(accountNumbers)) {
+            ledgerEntryRepository.lockShared(accountNumber);
+        }
+    }
+
+    /**
+     * Replaces the checkpointed balances of locked accounts with checkpoint plus entries.
+     */
+    private void applyLedgerBalances(Collection<Account> accounts) {
+        Map<Long, Account> byId = new HashMap<>();
+        for (Account account : accounts) {
+            byId.put(account.getId(), account);
+        }
+        for (Account current : ledgerEntryRepository.findBalances(byId.keySet())) {
+            byId.get(current.getId()).setBalance(current.getBalance());
+        }
+    }
+
+    /**
+     * The destination row, read without a lock, if it is a hot account with balance slots.
+     * Empty for every other account, which the caller locks as usual.
+     */
+    private Optional<Account> findHotDestination(String destinationAccountNumber) {
+        if (!hotAccountService.isHot(destinationAccountNumber)) {
+            return Optional.empty();
+        }
+        return accountRepository.findByAccountNumber(destinationAccountNumber).filter(Account::hasBalanceSlots);
+    }
+
+    private Account requireAccount(Account account, String role, String accountNumber) {
+        if (account == null) {
+            throw new IllegalArgumentException(role + " account not found: " + accountNumber);
+        }
+        return account;
+    }
+
+    private void checkTransferAllowed(Account sourceAccount, Account destinationAccount,
+                                      String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        if (sourceAccount.getId().equals(destinationAccount.getId())) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        validateAccounts(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber);
+        if (sourceAccount.getBalance().compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient funds in source account");
+        }
+    }
+
+    private static List<Account> inIdOrder(Account first, Account second) {
+        List<Account> accounts = new ArrayList<>(List.of(first, second));
+        accounts.sort(Comparator.comparing(Account::getId));
+        return accounts;
+    }
+
+    private static Integer nextVersion(Account account) {
+        return account.getVersion() == null ? 1 : account.getVersion() + 1;
+    }
+
+    private void backOffAfterConflict() {
+        if (optimisticMaxBackoffMs <= 0) {
+            return;
+        }
+        try {
+            // Random jitter so the conflicting transfers do not retry in lockstep
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(optimisticMaxBackoffMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OptimisticLockingFailureException("Interrupted while retrying transfer", e);
+        }
+    }
+
+    /**
+     * Inserts the COMPLETED transaction row for a transfer whose balances are already written.
+     */
+    private Transaction recordCompletedTransfer(String transactionId, Account sourceAccount,
+                                               Account destinationAccount, BigDecimal amount) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(amount);
+        transaction.setCurrency(sourceAccount.getCurrency());
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(String.format("Transfer %s USD from %s to %s",
+            amount.toString(), sourceAccount.getAccountNumber(), destinationAccount.getAccountNumber()));
+        transaction.setSourceAccount(sourceAccount);
+        transaction.setDestinationAccount(destinationAccount);
+        transaction.setSourceAccountNumber(sourceAccount.getAccountNumber());
+        transaction.setDestinationAccountNumber(destinationAccount.getAccountNumber());
+        transaction.setSourceAccountHolder(sourceAccount.getAccountHolder());
+        transaction.setDestinationAccountHolder(destinationAccount.getAccountHolder());
+        transactionRepository.save(transaction);
+        transferOutbox.record(transaction);
+        stageRecorder.mark(TransferStage.INSERT);
+
+        log.info("Transaction {} completed successfully", transactionId);
+        return transaction;
+    }
+
+    /**
+     * Applies the transfer with {@link TransactionRepository#executeTransfer}: one round trip
+     * while the row locks are held, instead of two locking reads, two updates and two inserts.
+     */
+    private Transaction executeSingleStatement(String transactionId, String sourceAccountNumber,
+                                               String destinationAccountNumber, BigDecimal amount) {
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        String description = String.format("Transfer %s USD from %s to %s",
+            amount.toString(), sourceAccountNumber, destinationAccountNumber);
+
+        TransferExecution execution = transactionRepository
+                .executeTransfer(transactionId, sourceAccountNumber, destinationAccountNumber, amount, description)
+                .orElseThrow(() -> rejectedTransfer(sourceAccountNumber, destinationAccountNumber, amount));
+        accountCacheWriter.evictAfterCommit(sourceAccountNumber, execution.getSourceVersion());
+        accountCacheWriter.evictAfterCommit(destinationAccountNumber, execution.getDestinationVersion());
+        stageRecorder.mark(TransferStage.UPDATE);
+
+        Transaction transaction = new Transaction();
+        transaction.setId(execution.getTransactionId());
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(amount);
+        transaction.setCurrency(execution.getCurrency());
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(description);
+        transaction.setSourceAccountId(execution.getSourceAccountId());
+        transaction.setSourceAccountNumber(sourceAccountNumber);
+        transaction.setSourceAccountHolder(execution.getSourceAccountHolder());
+        transaction.setDestinationAccountId(execution.getDestinationAccountId());
+        transaction.setDestinationAccountNumber(destinationAccountNumber);
+        transaction.setDestinationAccountHolder(execution.getDestinationAccountHolder());
+        transaction.setCreatedAt(execution.getCreatedAt());
+        transaction.setUpdatedAt(execution.getCreatedAt());
+        transferOutbox.record(transaction);
+        stageRecorder.mark(TransferStage.INSERT);
+
+        log.info("Transaction {} completed successfully", transactionId);
+        log.debug("Balances after transaction {}: {}={}, {}={}", transactionId,
+                sourceAccountNumber, execution.getSourceBalance(),
+                destinationAccountNumber, execution.getDestinationBalance());
+        return transaction;
+    }
+
+    /**
+     * Works out why the single-statement transfer matched no rows. The exception is thrown
+     * inside the transaction, which also rolls back a debit the statement may have applied.
+     */
+    private IllegalArgumentException rejectedTransfer(String sourceAccountNumber, String destinationAccountNumber,
+                                                      BigDecimal amount) {
+        Optional<Account> sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber);
+        if (sourceAccount.isEmpty()) {
+            return new IllegalArgumentException("Source account not found: " + sourceAccountNumber);
+        }
+        Optional<Account> destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber);
+        if (destinationAccount.isEmpty()) {
+            return new IllegalArgumentException("Destination account not found: " + destinationAccountNumber);
+        }
+        if (!"ACTIVE".equals(sourceAccount.get().getStatus())) {
+            return new IllegalArgumentException("Source account is not active");
+        }
+        if (!"ACTIVE".equals(destinationAccount.get().getStatus())) {
+            return new IllegalArgumentException("Destination account is not active");
+        }
+        if (sourceAccount.get().getBalance().compareTo(amount) < 0) {
+            return new IllegalArgumentException("Insufficient funds in source account");
+        }
+        return new IllegalArgumentException("Transfer could not be applied");
+    }
+
+    /**
+     * Recover method that gets called when all retries are exhausted. Rejections, refusals and
+     * transfers in doubt are not failures of the transfer and are passed on to the caller.
      */
     @Recover
     public Transaction recoverFromFailure(Exception e, String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        return recordFailure(e, sourceAccountNumber, destinationAccountNumber, amount, generateTransactionId());
+    }
+
+    /**
+     * Recover method of a transfer with a caller-chosen transaction id. If one of the attempts
+     * did commit, that transaction is returned instead of a failure.
+     */
+    @Recover
+    public Transaction recoverFromFailureOf(Exception e, String sourceAccountNumber, String destinationAccountNumber,
+                                            BigDecimal amount, String transactionId) {
+        passOnIfNotFailure(e);
+        Optional<Transaction> committed = transactionRepository.findByTransactionId(transactionId);
+        if (committed.isPresent()) {
+            log.warn("Transaction {} committed although an attempt failed: {}", transactionId, e.getMessage());
+            return committed.get();
+        }
+        return recordFailure(e, sourceAccountNumber, destinationAccountNumber, amount, transactionId);
+    }
+
+    /**
+     * Spring Retry also recovers the exceptions it does not retry; those reach the caller as they are.
+     */
+    private static void passOnIfNotFailure(Exception e) {
+        if (e instanceof IllegalArgumentException || e instanceof TooManyRequestsException
+                || e instanceof TransferInDoubtException) {
+            throw (RuntimeException) e;
+        }
+    }
+
+    private Transaction recordFailure(Exception e, String sourceAccountNumber, String destinationAccountNumber,
+                                      BigDecimal amount, String transactionId) {
+        passOnIfNotFailure(e);
         log.error("Transaction failed after retries: {} -> {}, amount: {}", 
                  sourceAccountNumber, destinationAccountNumber, amount);
         
         Transaction failedTransaction = new Transaction();
-        failedTransaction.setTransactionId(generateTransactionId());
+        failedTransaction.setTransactionId(transactionId);
         failedTransaction.setAmount(amount);
         failedTransaction.setSourceAccountNumber(sourceAccountNumber);
         failedTransaction.setDestinationAccountNumber(destinationAccountNumber);
@@ -158,10 +764,481 @@ public class TransactionService {
         return failedTransaction;
     }
     
+    /**
+     * Applies a list of transfers in one database transaction.
+     *
+     * Every distinct account is locked once, in id order, with a single query. Items are then
+     * applied in request order against the in-memory balances, so a later item sees the effect
+     * of earlier ones. Items that fail validation are reported as FAILED and do not affect the
+     * rest of the batch. Balances are written with one UPDATE and transaction rows with
+     * multi-row INSERTs; in LEDGER mode ledger entries are inserted instead of the UPDATE.
+     * Malformed items and the rate limits are checked before the transaction starts, so no
+     * connection is held while Redis answers.
+     */
+    public List<BatchTransferResult> processBatchTransfer(List<TransferRequest> transfers) {
+        if (transfers == null || transfers.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer");
+        }
+        if (transfers.size() > maxBatchSize) {
+            throw new IllegalArgumentException(
+                String.format("Batch contains %d transfers, maximum is %d", transfers.size(), maxBatchSize));
+        }
+        log.info("Processing batch of {} transfers", transfers.size());
+
+        BatchTransferResult[] results = new BatchTransferResult[transfers.size()];
+
+        // Reject malformed items and apply the per-account rate limit before taking any locks
+        for (int i = 0; i < transfers.size(); i++) {
+            TransferRequest request = transfers.get(i);
+            String error = checkTransferRequest(request);
+            if (error != null) {
+                results[i] = BatchTransferResult.failed(i, request, error);
+                continue;
+            }
+            try {
+                rateLimiterService.checkTransactionRateLimit(request.getSourceAccountNumber());
+            } catch (TooManyRequestsException e) {
+                results[i] = BatchTransferResult.failed(i, request, e.getMessage());
+            }
+        }
+
+        TransferMode mode = transferMode;
+        if (mode == TransferMode.ENGINE) {
+            return applyBatchInEngine(transfers, results);
+        }
+        Transaction[] applied = readCommittedTransaction.execute(status ->
+            applyTransfers(transfers, null, results, mode == TransferMode.LEDGER, true));
+
+        log.info("Batch completed: {} of {} transfers applied",
+            Arrays.stream(applied).filter(Objects::nonNull).count(), transfers.size());
+        return List.of(results);
+    }
+
+    /**
+     * Applies the items of {@code transfers} that have no result yet in the current transaction
+     * and records the outcome of each of them in {@code results}.
+     *
+     * @param transactionIds the ids to use, by position, or null to generate them
+     * @param insertTransactions whether to insert the transaction rows of the applied transfers,
+     *                           false when they already exist
+     * @return the applied transfers by position, null for the failed ones
+     */
+    private Transaction[] applyTransfers(List<TransferRequest> transfers, String[] transactionIds,
+                                         BatchTransferResult[] results, boolean ledger, boolean insertTransactions) {
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (int i = 0; i < transfers.size(); i++) {
+            if (results[i] == null) {
+                accountNumbers.add(transfers.get(i).getSourceAccountNumber());
+                accountNumbers.add(transfers.get(i).getDestinationAccountNumber());
+            }
+        }
+
+        Map<String, Account> lockedAccounts = new HashMap<>();
+        if (!accountNumbers.isEmpty()) {
+            if (ledger) {
+                lockLedgers(accountNumbers);
+            }
+            for (Account account : accountRepository.findAllByAccountNumberWithLock(accountNumbers)) {
+                lockedAccounts.put(account.getAccountNumber(), account);
+            }
+            if (ledger && !lockedAccounts.isEmpty()) {
+                applyLedgerBalances(lockedAccounts.values());
+            }
+        }
+
+        Map<Long, Account> changedAccounts = new LinkedHashMap<>();
+        List<Transaction> completed = new ArrayList<>();
+        Transaction[] applied = new Transaction[transfers.size()];
+        for (int i = 0; i < transfers.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            TransferRequest request = transfers.get(i);
+            Account source = lockedAccounts.get(request.getSourceAccountNumber());
+            if (!ledger && source != null && hotAccountService.consolidateIfShort(source, request.getAmount())) {
+                // The emptied slots must reach the row even if this item fails
+                changedAccounts.put(source.getId(), source);
+            }
+            try {
+                String transactionId = transactionIds != null ? transactionIds[i] : generateTransactionId();
+                Transaction transaction = applyBatchItem(request, lockedAccounts, transactionId);
+                changedAccounts.put(transaction.getSourceAccount().getId(), transaction.getSourceAccount());
+                changedAccounts.put(transaction.getDestinationAccount().getId(), transaction.getDestinationAccount());
+                completed.add(transaction);
+                applied[i] = transaction;
+                results[i] = BatchTransferResult.completed(i, transaction);
+            } catch (IllegalArgumentException e) {
+                log.debug("Batch item {} rejected: {}", i, e.getMessage());
+                results[i] = BatchTransferResult.failed(i, request, e.getMessage());
+            }
+        }
+
+        if (!changedAccounts.isEmpty() && !ledger) {
+            accountRepository.updateBalances(new ArrayList<>(changedAccounts.values()));
+            for (Account account : changedAccounts.values()) {
+                account.setVersion(nextVersion(account));
+            }
+            accountCacheWriter.putAfterCommit(changedAccounts.values());
+        } else if (!changedAccounts.isEmpty()) {
+            // Reads add the new entries to the balance
+            accountCacheWriter.evictAfterCommit(
+                changedAccounts.values().stream().map(Account::getAccountNumber).toList());
+        }
+        for (int from = 0; from < completed.size(); from += batchInsertChunkSize) {
+            int to = Math.min(from + batchInsertChunkSize, completed.size());
+            if (insertTransactions) {
+                transactionRepository.saveAll(completed.subList(from, to));
+            }
+            transferOutbox.record(completed.subList(from, to));
+            if (ledger) {
+                ledgerEntryRepository.saveTransfers(completed.subList(from, to));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Records a transfer as PENDING and returns without touching any balance; the
+     * {@link AsyncTransferService} workers apply it later with {@link #processPendingTransfers}.
+     * Both accounts are resolved here, so unknown accounts are rejected at submission, while
+     * funds and account status are checked when the transfer is applied.
+     */
+    public Transaction submitTransaction(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        return submitTransaction(sourceAccountNumber, destinationAccountNumber, amount, generateTransactionId());
+    }
+
+    /**
+     * Records a transfer like {@link #submitTransaction(String, String, BigDecimal)}, under a
+     * transaction id chosen by the caller.
+     */
+    public Transaction submitTransaction(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount,
+                                         String transactionId) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Transaction amount must be positive");
+        }
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            throw new IllegalArgumentException("Source and destination accounts must be different");
+        }
+        if (transferMode == TransferMode.ENGINE) {
+            // The engine must stay the only writer of balances
+            throw new IllegalArgumentException("Asynchronous transfers are not available in ENGINE mode");
+        }
+        rateLimiterService.checkTransactionRateLimit(sourceAccountNumber);
+
+        Account sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Source account not found: " + sourceAccountNumber));
+        Account destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Destination account not found: " + destinationAccountNumber));
+
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(amount);
+        transaction.setCurrency(sourceAccount.getCurrency());
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setDescription(String.format("Transfer %s USD from %s to %s",
+            amount.toString(), sourceAccountNumber, destinationAccountNumber));
+        transaction.setSourceAccount(sourceAccount);
+        transaction.setDestinationAccount(destinationAccount);
+        transaction.setSourceAccountNumber(sourceAccountNumber);
+        transaction.setDestinationAccountNumber(destinationAccountNumber);
+        transaction.setSourceAccountHolder(sourceAccount.getAccountHolder());
+        transaction.setDestinationAccountHolder(destinationAccount.getAccountHolder());
+        transactionRepository.save(transaction);
+
+        log.info("Transfer queued: {} -> {}, amount: {}, id: {}",
+                sourceAccountNumber, destinationAccountNumber, amount, transaction.getTransactionId());
+        return transaction;
+    }
+
+    /**
+     * Claims up to {@code limit} PENDING transfers and applies them like a batch, in one
+     * transaction: each claimed row becomes COMPLETED or FAILED in the same commit as its
+     * balance changes, so a transfer is applied exactly once even if a worker dies.
+     *
+     * @return the number of transfers claimed
+     */
+    public int processPendingTransfers(int limit) {
+        Integer claimed = readCommittedTransaction.execute(status -> {
+            List<Transaction> pending = transactionRepository.claimPending(limit);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<TransferRequest> transfers = new ArrayList<>(pending.size());
+            String[] transactionIds = new String[pending.size()];
+            for (int i = 0; i < pending.size(); i++) {
+                Transaction row = pending.get(i);
+                transfers.add(new TransferRequest(row.getSourceAccountNumber(), row.getDestinationAccountNumber(),
+                    row.getAmount()));
+                transactionIds[i] = row.getTransactionId();
+            }
+            BatchTransferResult[] results = new BatchTransferResult[pending.size()];
+            Transaction[] applied = applyTransfers(transfers, transactionIds, results,
+                transferMode == TransferMode.LEDGER, false);
+
+            OffsetDateTime now = OffsetDateTime.now();
+            for (int i = 0; i < pending.size(); i++) {
+                Transaction row = pending.get(i);
+                if (applied[i] != null) {
+                    row.setStatus(TransactionStatus.COMPLETED);
+                } else {
+                    row.setStatus(TransactionStatus.FAILED);
+                    row.setDescription("Transfer failed: " + results[i].getErrorMessage());
+                }
+                meterRegistry.counter("transfer.async.processed", "status", row.getStatus().name()).increment();
+                if (row.getCreatedAt() != null) {
+                    meterRegistry.timer("transfer.async.queue.time")
+                        .record(Duration.between(row.getCreatedAt(), now));
+                }
+            }
+            transactionRepository.finishAll(pending);
+            return pending.size();
+        });
+        return claimed == null ? 0 : claimed;
+    }
+
+    private TransferGroupCommitter groupCommitter() {
+        TransferGroupCommitter committer = groupCommitter;
+        if (committer == null) {
+            synchronized (this) {
+                if (groupCommitter == null) {
+                    groupCommitter = new TransferGroupCommitter(this::commitGroup, groupCommitMaxSize,
+                        groupCommitWindowMs, groupCommitQueueCapacity, meterRegistry);
+                    groupCommitter.start();
+                }
+                committer = groupCommitter;
+            }
+        }
+        return committer;
+    }
+
+    /**
+     * Applies a group collected by the {@link TransferGroupCommitter} in one transaction. If the
+     * transaction itself fails, on a deadlock or a lost connection for example, the transfers
+     * whose rows are there anyway complete with them, since the commit may have gone through
+     * before the failure. The others are applied again one per transaction, so one bad transfer
+     * cannot fail its whole group.
+     */
+    private void commitGroup(List<TransferGroupCommitter.Pending> group) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            applyGroup(group);
+            sample.stop(meterRegistry.timer("transfer.group.commit.time", "outcome", "success"));
+        } catch (RuntimeException e) {
+            sample.stop(meterRegistry.timer("transfer.group.commit.time", "outcome", "error"));
+            List<TransferGroupCommitter.Pending> notApplied = completeCommitted(group, e);
+            if (notApplied.isEmpty()) {
+                return;
+            }
+            if (group.size() == 1) {
+                notApplied.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.warn("Group of {} transfers failed, applying {} of them one by one: {}",
+                group.size(), notApplied.size(), e.getMessage());
+            meterRegistry.counter("transfer.group.fallbacks").increment();
+            for (TransferGroupCommitter.Pending pending : notApplied) {
+                try {
+                    applyGroup(List.of(pending));
+                } catch (RuntimeException itemFailure) {
+                    completeCommitted(List.of(pending), itemFailure)
+                        .forEach(failed -> failed.result().completeExceptionally(itemFailure));
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the transfers of a failed transaction whose rows were committed and returns the
+     * others. If the rows cannot be read, the outcome is unknown and every transfer of the group
+     * completes with a {@link TransferInDoubtException} instead.
+     */
+    private List<TransferGroupCommitter.Pending> completeCommitted(List<TransferGroupCommitter.Pending> group,
+                                                                   RuntimeException failure) {
+        List<TransferGroupCommitter.Pending> notApplied = new ArrayList<>(group.size());
+        for (TransferGroupCommitter.Pending pending : group) {
+            Optional<Transaction> committed;
+            try {
+                committed = transactionRepository.findByTransactionId(pending.transactionId());
+            } catch (DataAccessException e) {
+                failure.addSuppressed(e);
+                for (TransferGroupCommitter.Pending unknown : group) {
+                    unknown.result().completeExceptionally(new TransferInDoubtException(unknown.transactionId(),
+                        "Outcome of transfer " + unknown.transactionId() + " is unknown", failure));
+                }
+                return List.of();
+            }
+            if (committed.isPresent()) {
+                pending.result().complete(committed.get());
+            } else {
+                notApplied.add(pending);
+            }
+        }
+        return notApplied;
+    }
+
+    private void applyGroup(List<TransferGroupCommitter.Pending> group) {
+        List<TransferRequest> transfers = new ArrayList<>(group.size());
+        String[] transactionIds = new String[group.size()];
+        BatchTransferResult[] results = new BatchTransferResult[group.size()];
+        for (int i = 0; i < group.size(); i++) {
+            TransferRequest request = group.get(i).request();
+            transfers.add(request);
+            transactionIds[i] = group.get(i).transactionId();
+            String error = checkTransferRequest(request);
+            if (error != null) {
+                results[i] = BatchTransferResult.failed(i, request, error);
+            }
+        }
+        Transaction[] applied = readCommittedTransaction.execute(status ->
+            applyTransfers(transfers, transactionIds, results, false, true));
+
+        // Only completed once the group has committed
+        for (int i = 0; i < group.size(); i++) {
+            if (applied[i] != null) {
+                group.get(i).result().complete(applied[i]);
+            } else {
+                group.get(i).result().completeExceptionally(new IllegalArgumentException(results[i].getErrorMessage()));
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code app.transfer.group-commit.timeout-ms} for the group of a transfer to
+     * commit. Rejections surface as {@link IllegalArgumentException}, like in the other modes.
+     *
+     * @throws TransferInDoubtException if the wait times out or is interrupted: the transfer
+     *         stays queued and may still commit, so callers must look its transaction id up
+     *         before retrying it
+     */
+    private Transaction awaitGroupCommit(CompletableFuture<Transaction> result, String transactionId) {
+        try {
+            return result.get(groupCommitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Transfer " + transactionId + " failed", e.getCause());
+        } catch (TimeoutException e) {
+            // The transfer is still queued and may commit later
+            throw new TransferInDoubtException(transactionId, "Transfer " + transactionId
+                + " was not confirmed within " + groupCommitTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransferInDoubtException(transactionId,
+                "Interrupted while waiting for transfer " + transactionId, e);
+        }
+    }
+
+    @PreDestroy
+    public void stopGroupCommit() throws InterruptedException {
+        if (groupCommitter != null) {
+            groupCommitter.stop(groupCommitTimeoutMs);
+        }
+    }
+
+    private String checkTransferRequest(TransferRequest request) {
+        if (request == null) {
+            return "Transfer request is missing";
+        }
+        if (request.getSourceAccountNumber() == null || request.getDestinationAccountNumber() == null) {
+            return "Source and destination account numbers are required";
+        }
+        if (request.getSourceAccountNumber().equals(request.getDestinationAccountNumber())) {
+            return "Source and destination accounts must be different";
+        }
+        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Transaction amount must be positive";
+        }
+        return null;
+    }
+
+    private Transaction applyBatchItem(TransferRequest request, Map<String, Account> lockedAccounts,
+                                       String transactionId) {
+        String sourceAccountNumber = request.getSourceAccountNumber();
+        String destinationAccountNumber = request.getDestinationAccountNumber();
+        BigDecimal amount = request.getAmount();
+
+        Account sourceAccount = lockedAccounts.get(sourceAccountNumber);
+        if (sourceAccount == null) {
+            throw new IllegalArgumentException("Source account not found: " + sourceAccountNumber);
+        }
+        Account destinationAccount = lockedAccounts.get(destinationAccountNumber);
+        if (destinationAccount == null) {
+            throw new IllegalArgumentException("Destination account not found: " + destinationAccountNumber);
+        }
+        validateAccounts(sourceAccount, destinationAccount, sourceAccountNumber, destinationAccountNumber);
+        if (sourceAccount.getBalance().compareTo(amount) < 0) {
+            throw new IllegalArgumentException("Insufficient funds in source account");
+        }
+
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        destinationAccount.setBalance(destinationAccount.getBalance().add(amount));
+
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(amount);
+        transaction.setCurrency(sourceAccount.getCurrency());
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setDescription(String.format("Transfer %s USD from %s to %s",
+            amount.toString(), sourceAccountNumber, destinationAccountNumber));
+        transaction.setSourceAccount(sourceAccount);
+        transaction.setDestinationAccount(destinationAccount);
+        transaction.setSourceAccountNumber(sourceAccountNumber);
+        transaction.setDestinationAccountNumber(destinationAccountNumber);
+        transaction.setSourceAccountHolder(sourceAccount.getAccountHolder());
+        transaction.setDestinationAccountHolder(destinationAccount.getAccountHolder());
+        return transaction;
+    }
+
     private String generateTransactionId() {
-        return UUID.randomUUID().toString();
+        return TransactionIds.next();
     }
     
+    /**
+     * In ENGINE mode the batch is queued as individual transfers and awaited together, so the
+     * shards can apply them in parallel. Unlike the database modes the batch is not atomic:
+     * every item succeeds or fails on its own.
+     */
+    private List<BatchTransferResult> applyBatchInEngine(List<TransferRequest> transfers, BatchTransferResult[] results) {
+        LedgerEngine engine = ledgerEngine();
+        String[] transactionIds = new String[transfers.size()];
+        List<CompletableFuture<Transaction>> submitted = new ArrayList<>(transfers.size());
+        for (int i = 0; i < transfers.size(); i++) {
+            CompletableFuture<Transaction> future = null;
+            if (results[i] == null) {
+                TransferRequest request = transfers.get(i);
+                transactionIds[i] = generateTransactionId();
+                try {
+                    future = engine.submit(transactionIds[i], request.getSourceAccountNumber(),
+                        request.getDestinationAccountNumber(), request.getAmount());
+                } catch (IllegalArgumentException | TooManyRequestsException e) {
+                    results[i] = BatchTransferResult.failed(i, request, e.getMessage());
+                }
+            }
+            submitted.add(future);
+        }
+        for (int i = 0; i < transfers.size(); i++) {
+            if (submitted.get(i) == null) {
+                continue;
+            }
+            try {
+                results[i] = BatchTransferResult.completed(i, engine.await(submitted.get(i), transactionIds[i]));
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchTransferResult.failed(i, transfers.get(i), e.getMessage());
+            }
+        }
+        return List.of(results);
+    }
+
+    private LedgerEngine ledgerEngine() {
+        if (ledgerEngine == null) {
+            throw new IllegalStateException("Transfer mode ENGINE requires the ledger engine to be running");
+        }
+        return ledgerEngine;
+    }
+
     private void validateAccounts(Account sourceAccount, Account destinationAccount, 
                                 String sourceAccountNumber, String destinationAccountNumber) {
         // Validate required fields
@@ -214,11 +1291,6 @@ public class TransactionService {
                         transaction.setDestinationAccountHolder(account.getAccountHolder());
                     });
             }
-            
-            // Ensure transactionId is set if null
-            if (transaction.getTransactionId() == null) {
-                transaction.setTransactionId(generateTransactionId());
-            }
         }
 
         // Filter out intermediate states and convert to DTOs
@@ -227,4 +1299,34 @@ public class TransactionService {
             .map(TransactionResponse::fromTransaction)
             .toList();
     }
+
+    /**
+     * Keyset-paginated history of an account, newest first. {@code before} is the
+     * {@code nextCursor} of the previous page; each page is read with
+     * {@link TransactionRepository#findHistoryPage}, so deep pages cost the same as the first.
+     */
+    public TransactionHistoryPage getTransactionHistory(String accountNumber, Integer limit, String before) {
+        int pageSize = limit == null ? historyDefaultPageSize : limit;
+        if (pageSize < 1 || pageSize > historyMaxPageSize) {
+            throw new IllegalArgumentException(String.format("limit must be between 1 and %d", historyMaxPageSize));
+        }
+        HistoryCursor cursor = before == null || before.isBlank() ? null : HistoryCursor.decode(before);
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountNumber));
+
+        // One extra row tells whether another page follows
+        List<Transaction> rows = transactionRepository.findHistoryPage(account.getId(),
+                cursor == null ? null : cursor.createdAt(), cursor == null ? null : cursor.id(), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<Transaction> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        List<TransactionResponse> transactions = new ArrayList<>(page.size());
+        for (Transaction transaction : page) {
+            transactions.add(TransactionResponse.forAccount(transaction, account.getId()));
+        }
+        return TransactionHistoryPage.builder()
+                .transactions(transactions)
+                .nextCursor(hasMore ? HistoryCursor.of(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
 }
@@ -0,0 +1,149 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.TransferRequest;
+import com.example.easybank.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects concurrent transfers for {@link TransferMode#GROUP_COMMIT} and hands them to the
+ * applier in groups, so many transfers share one database transaction and one commit.
+ *
+ * A single thread takes the first waiting transfer, keeps collecting until the group holds
+ * {@code maxSize} transfers or {@code windowMs} has passed since it started, then applies the
+ * group. The applier completes the future of every transfer in it. While a group commits the
+ * next one fills up, so under load groups grow towards {@code maxSize} without waiting out the
+ * window.
+ */
+@Slf4j
+final class TransferGroupCommitter implements Runnable {
+
+    record Pending(String transactionId, TransferRequest request, CompletableFuture<Transaction> result,
+                   long enqueuedAt) {
+    }
+
+    private final Consumer<List<Pending>> applier;
+    private final BlockingQueue<Pending> queue;
+    private final int maxSize;
+    private final long windowNanos;
+    private final DistributionSummary groupSize;
+    private final Timer groupWait;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    TransferGroupCommitter(Consumer<List<Pending>> applier, int maxSize, long windowMs, int queueCapacity,
+                           MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Group commit max size must be at least 1");
+        }
+        this.applier = applier;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxSize = maxSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.groupSize = meterRegistry.summary("transfer.group.size");
+        this.groupWait = meterRegistry.timer("transfer.group.wait");
+        Gauge.builder("transfer.group.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("transfer.group.max.size", () -> maxSize).register(meterRegistry);
+        Gauge.builder("transfer.group.window", () -> windowMs).baseUnit("milliseconds").register(meterRegistry);
+        this.thread = new Thread(this, "transfer-group-commit");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a transfer for the next group without waiting for it.
+     *
+     * @throws TooManyRequestsException if the queue is full
+     */
+    CompletableFuture<Transaction> submit(String transactionId, TransferRequest request) {
+        if (!running) {
+            throw new IllegalStateException("Group commit is not running");
+        }
+        Pending pending = new Pending(transactionId, request, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(pending)) {
+            throw new TooManyRequestsException("Transfer queue is full. Please try again later.", 1);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Stops accepting transfers and waits for the queued ones to be applied.
+     */
+    void stop(long timeoutMs) throws InterruptedException {
+        running = false;
+        thread.join(timeoutMs);
+    }
+
+    @Override
+    public void run() {
+        List<Pending> group = new ArrayList<>(maxSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group, System.nanoTime() + windowNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                flush(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void collect(List<Pending> group, long deadline) throws InterruptedException {
+        while (group.size() < maxSize) {
+            queue.drainTo(group, maxSize - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxSize || remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void flush(List<Pending> group) {
+        long startedAt = System.nanoTime();
+        for (Pending pending : group) {
+            groupWait.record(startedAt - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        groupSize.record(group.size());
+        try {
+            applier.accept(group);
+        } catch (RuntimeException e) {
+            log.warn("Group of {} transfers failed", group.size(), e);
+            group.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+        // A future the applier left open would block its caller until the timeout
+        for (Pending pending : group) {
+            if (!pending.result().isDone()) {
+                pending.result().completeExceptionally(
+                    new IllegalStateException("Transfer " + pending.transactionId() + " was not applied"));
+            }
+        }
+    }
+}
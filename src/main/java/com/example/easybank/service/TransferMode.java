@@ -0,0 +1,52 @@
+package com.example.easybank.service;
+
+/**
+ * How {@link TransactionService#processTransaction} applies a transfer to the database.
+ * Selected with {@code app.transfer.mode}.
+ */
+public enum TransferMode {
+    /**
+     * Locks source and destination with SELECT ... FOR UPDATE, validates in Java, then
+     * writes the transaction and both balances with separate statements (REPEATABLE_READ).
+     */
+    LOCKING,
+    /**
+     * Locks both accounts with one SELECT ... FOR UPDATE in id order, so opposite transfers
+     * between the same pair cannot deadlock (READ_COMMITTED).
+     */
+    PESSIMISTIC_ORDERED,
+    /**
+     * Reads without locks and updates each account only if its version is unchanged. A
+     * conflicting update rolls the attempt back and it is retried up to
+     * {@code app.transfer.optimistic.max-attempts} times (READ_COMMITTED).
+     */
+    OPTIMISTIC,
+    /**
+     * Reads without locks, then debits with an UPDATE guarded by {@code balance >= amount}
+     * and credits with a relative UPDATE, in id order (READ_COMMITTED).
+     */
+    READ_COMMITTED_GUARDED,
+    /**
+     * Debit with a sufficient-funds guard, credit and transaction insert run as one
+     * data-modifying CTE, so the row locks are held for a single round trip (READ_COMMITTED).
+     */
+    SINGLE_STATEMENT,
+    /**
+     * Applies the transfer in the in-memory {@link com.example.easybank.engine.LedgerEngine}:
+     * balances live on single-writer shards, every change is journaled to disk before it is
+     * acknowledged and reaches PostgreSQL through batched write-behind.
+     */
+    ENGINE,
+    /**
+     * Inserts a debit and a credit ledger entry instead of updating balances. Only the source
+     * row is locked; {@link BalanceCheckpointService} rolls the entries into
+     * {@code accounts.balance} in the background (READ_COMMITTED).
+     */
+    LEDGER,
+    /**
+     * Collects concurrent transfers for up to {@code app.transfer.group-commit.window-ms} or
+     * {@code max-size} transfers and applies them like a batch, with the accounts locked in id
+     * order, in one transaction and one commit (READ_COMMITTED).
+     */
+    GROUP_COMMIT
+}
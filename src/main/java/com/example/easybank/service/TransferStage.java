@@ -0,0 +1,34 @@
+package com.example.easybank.service;
+
+import java.util.Locale;
+
+/**
+ * Stages of a single transfer, as timed by {@link TransferStageRecorder}. Each stage covers the
+ * time since the previous stage ended, so the stages of a transfer add up to its duration.
+ */
+public enum TransferStage {
+    /** Id generation, amount check and the rate limit check against Redis. */
+    RATE_LIMIT,
+    /** Locking reads of the account rows, including the wait for other transfers' locks. */
+    LOCK,
+    /** Plain reads of the account rows. */
+    READ,
+    /** Account and balance checks. */
+    VALIDATE,
+    /** Balance updates; the single-statement transfer is counted here as a whole. */
+    UPDATE,
+    /** Transaction row, ledger entry and outbox inserts. */
+    INSERT,
+    /** Commit or rollback, and the after-commit cache updates. */
+    COMMIT,
+    /** Optimistic conflicts and retried failures: the rolled back attempt and the backoff before the next one. */
+    BACKOFF,
+    /** Waiting for the ledger engine or a group commit, which apply and commit the transfer. */
+    QUEUE;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String tag() {
+        return tag;
+    }
+}
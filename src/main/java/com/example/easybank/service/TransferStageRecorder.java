@@ -0,0 +1,230 @@
+package com.example.easybank.service;
+
+import com.example.easybank.dto.SlowTransfer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timing of single transfers.
+ *
+ * {@link TransactionService#processTransaction} starts a trace on the calling thread and marks
+ * the end of each {@link TransferStage}; marks on a thread without a trace, such as batch and
+ * group-commit threads, do nothing. When the transfer finishes every stage it went through is
+ * recorded in {@code transfer.stage.time}, tagged with the stage and the transfer mode, and the
+ * transfer is kept if it is among the {@code app.transfer.stages.slowest-size} slowest of the
+ * current or previous {@code slowest-window-ms}.
+ *
+ * As a {@link RetryListener} the recorder keeps one trace across the attempts of a
+ * {@code @Retryable} transfer: each attempt adds to its stages, the time between two attempts
+ * is added to {@link TransferStage#BACKOFF}, and the transfer is recorded once the retries end,
+ * under the mode and outcome of its last attempt.
+ */
+@Component
+public class TransferStageRecorder extends RetryListenerSupport {
+    private static final TransferStage[] STAGES = TransferStage.values();
+    private static final Comparator<SlowTransfer> BY_TOTAL = Comparator.comparingLong(SlowTransfer::getTotalMicros);
+
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+    // Registered on first use, so only the stages and modes that occur publish histograms
+    private final Timer[][] timers = new Timer[TransferMode.values().length][STAGES.length];
+    private final int slowestSize;
+    private final long windowMs;
+
+    private PriorityQueue<SlowTransfer> slowest = new PriorityQueue<>(BY_TOTAL);
+    private List<SlowTransfer> previousSlowest = List.of();
+    private volatile long windowEndsAt;
+    // Total below which a transfer cannot enter the current window's list
+    private volatile long thresholdMicros;
+
+    public TransferStageRecorder(MeterRegistry meterRegistry,
+                                 @Value("${app.transfer.stages.slowest-size:20}") int slowestSize,
+                                 @Value("${app.transfer.stages.slowest-window-ms:300000}") long windowMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowestSize = slowestSize;
+        this.windowMs = windowMs;
+        this.windowEndsAt = System.currentTimeMillis() + windowMs;
+    }
+
+    /**
+     * Starts timing a transfer on the calling thread, or its next attempt if the retries of the
+     * transfer are traced already. Every started trace must be ended with {@link #finish},
+     * whatever the outcome, or it stays on the thread.
+     */
+    void start(String transactionId) {
+        Trace trace = current.get();
+        if (trace == null) {
+            current.set(new Trace(transactionId, false));
+            return;
+        }
+        if (trace.attempts > 0) {
+            trace.mark(TransferStage.BACKOFF);
+        }
+        trace.transactionId = transactionId;
+        trace.attempts++;
+    }
+
+    /**
+     * Ends the current stage: the time since the previous mark is added to {@code stage}.
+     */
+    void mark(TransferStage stage) {
+        Trace trace = current.get();
+        if (trace != null) {
+            trace.mark(stage);
+        }
+    }
+
+    /**
+     * Ends the attempt of the calling thread with {@code lastStage}. Its trace is recorded now,
+     * or once the retries end if they are traced.
+     */
+    void finish(TransferStage lastStage, TransferMode mode, String outcome) {
+        Trace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        trace.mark(lastStage);
+        trace.mode = mode;
+        trace.outcome = outcome;
+        if (!trace.acrossRetries) {
+            current.remove();
+            record(trace);
+        }
+    }
+
+    @Override
+    public <T, E extends Throwable> boolean open(RetryContext context, RetryCallback<T, E> callback) {
+        current.set(new Trace(null, true));
+        return true;
+    }
+
+    @Override
+    public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+                                               Throwable throwable) {
+        Trace trace = current.get();
+        if (trace == null || !trace.acrossRetries) {
+            return;
+        }
+        current.remove();
+        if (trace.mode != null) {
+            record(trace);
+        }
+    }
+
+    private void record(Trace trace) {
+        long totalNanos = 0;
+        for (TransferStage stage : STAGES) {
+            long nanos = trace.stageNanos[stage.ordinal()];
+            if (nanos >= 0) {
+                timer(trace.mode, stage).record(nanos, TimeUnit.NANOSECONDS);
+                totalNanos += nanos;
+            }
+        }
+        long totalMicros = TimeUnit.NANOSECONDS.toMicros(totalNanos);
+        if (slowestSize > 0 && (totalMicros > thresholdMicros || System.currentTimeMillis() >= windowEndsAt)) {
+            offer(trace, totalMicros);
+        }
+    }
+
+    /**
+     * The slowest transfers of the current and the previous window, slowest first.
+     */
+    public synchronized List<SlowTransfer> slowest() {
+        rotateIfDue(System.currentTimeMillis());
+        List<SlowTransfer> transfers = new ArrayList<>(slowest);
+        transfers.addAll(previousSlowest);
+        transfers.sort(BY_TOTAL.reversed());
+        return transfers.size() > slowestSize ? List.copyOf(transfers.subList(0, slowestSize)) : transfers;
+    }
+
+    private Timer timer(TransferMode mode, TransferStage stage) {
+        Timer timer = timers[mode.ordinal()][stage.ordinal()];
+        if (timer == null) {
+            // Racing threads get the same meter back from the registry
+            timer = meterRegistry.timer("transfer.stage.time", "stage", stage.tag(), "mode", mode.name());
+            timers[mode.ordinal()][stage.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    private synchronized void offer(Trace trace, long totalMicros) {
+        long now = System.currentTimeMillis();
+        rotateIfDue(now);
+        if (slowest.size() >= slowestSize) {
+            if (totalMicros <= slowest.peek().getTotalMicros()) {
+                return;
+            }
+            slowest.poll();
+        }
+        slowest.add(trace.toSlowTransfer(totalMicros, Instant.ofEpochMilli(now)));
+        thresholdMicros = slowest.size() >= slowestSize ? slowest.peek().getTotalMicros() : 0;
+    }
+
+    private void rotateIfDue(long now) {
+        if (now < windowEndsAt) {
+            return;
+        }
+        // If the following window also went by without a transfer, that empty window is the previous one
+        previousSlowest = now < windowEndsAt + windowMs ? List.copyOf(slowest) : List.of();
+        slowest = new PriorityQueue<>(BY_TOTAL);
+        thresholdMicros = 0;
+        windowEndsAt = now + windowMs;
+    }
+
+    private static final class Trace {
+        // Opened by the retry listener, so finish ends an attempt and close the trace
+        private final boolean acrossRetries;
+        private final long[] stageNanos = new long[STAGES.length];
+        private long markedAt = System.nanoTime();
+        private String transactionId;
+        private int attempts;
+        private TransferMode mode;
+        private String outcome;
+
+        private Trace(String transactionId, boolean acrossRetries) {
+            this.transactionId = transactionId;
+            this.acrossRetries = acrossRetries;
+            Arrays.fill(stageNanos, -1);
+        }
+
+        private void mark(TransferStage stage) {
+            long now = System.nanoTime();
+            int index = stage.ordinal();
+            stageNanos[index] = Math.max(stageNanos[index], 0) + (now - markedAt);
+            markedAt = now;
+        }
+
+        private SlowTransfer toSlowTransfer(long totalMicros, Instant finishedAt) {
+            Map<String, Long> stageMicros = new LinkedHashMap<>();
+            for (TransferStage stage : STAGES) {
+                if (stageNanos[stage.ordinal()] >= 0) {
+                    stageMicros.put(stage.tag(), TimeUnit.NANOSECONDS.toMicros(stageNanos[stage.ordinal()]));
+                }
+            }
+            SlowTransfer transfer = new SlowTransfer();
+            transfer.setTransactionId(transactionId);
+            transfer.setMode(mode.name());
+            transfer.setOutcome(outcome);
+            transfer.setFinishedAt(finishedAt);
+            transfer.setTotalMicros(totalMicros);
+            transfer.setStageMicros(stageMicros);
+            return transfer;
+        }
+    }
+}
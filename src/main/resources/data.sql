@@ -6,7 +6,7 @@ VALUES
     ('ACC-' || substr(gen_random_uuid()::text, 1, 8), 'Robert Johnson', 500.00, 'USD', 'SAVINGS', 'ACTIVE', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- Insert test data for transactions
-INSERT INTO public.transactions (source_account_id, destination_account_id, amount, currency, transaction_type, status, version, created_at, updated_at)
+INSERT INTO public.transactions (source_account_id, destination_account_id, amount, currency, transaction_type, status, transaction_id, version, created_at, updated_at)
 SELECT 
     a1.id as source_account_id,
     a2.id as destination_account_id,
@@ -14,6 +14,7 @@ SELECT
     'USD' as currency,
     'TRANSFER' as transaction_type,
     'COMPLETED' as status,
+    gen_random_uuid() as transaction_id,
     0 as version,
     CURRENT_TIMESTAMP as created_at,
     CURRENT_TIMESTAMP as updated_at
@@ -8,6 +8,8 @@ CREATE TABLE IF NOT EXISTS public.accounts (
     account_type VARCHAR(20) NOT NULL,
     status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
     version INTEGER NOT NULL DEFAULT 0,
+    ledger_entry_id BIGINT NOT NULL DEFAULT 0,
+    balance_slots INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
@@ -22,6 +24,7 @@ CREATE TABLE IF NOT EXISTS public.transactions (
     transaction_type VARCHAR(20) NOT NULL,
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     description TEXT,
+    transaction_id UUID,
     version INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -29,9 +32,95 @@ CREATE TABLE IF NOT EXISTS public.transactions (
     CONSTRAINT chk_positive_amount CHECK (amount > 0)
 );
 
+-- Time-ordered (UUIDv7) transaction ids; rows written before the column existed get one built from
+-- created_at and id, so every transaction can be looked up by the id clients see
+ALTER TABLE public.transactions ADD COLUMN IF NOT EXISTS transaction_id UUID;
+UPDATE public.transactions
+SET transaction_id = CAST(lpad(to_hex(CAST(floor(extract(epoch FROM COALESCE(created_at, CURRENT_TIMESTAMP)) * 1000) AS BIGINT)), 12, '0')
+    || '7000' || '8' || lpad(to_hex(id), 15, '0') AS UUID)
+WHERE transaction_id IS NULL;
+
+-- Double-entry ledger of the LEDGER transfer mode: a DEBIT and a CREDIT entry per transfer, insert-only.
+-- An account's balance is accounts.balance plus its entries after accounts.ledger_entry_id, the last
+-- entry the checkpoint job rolled into it. No foreign keys: checking one would share-lock the account
+-- row on every insert. created_txid tells the checkpoint job which entries are new.
+ALTER TABLE public.accounts ADD COLUMN IF NOT EXISTS ledger_entry_id BIGINT NOT NULL DEFAULT 0;
+CREATE TABLE IF NOT EXISTS public.ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id UUID NOT NULL,
+    account_id BIGINT NOT NULL,
+    entry_type VARCHAR(6) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    created_txid BIGINT NOT NULL DEFAULT txid_current(),
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_ledger_entry_type CHECK (entry_type IN ('DEBIT', 'CREDIT')),
+    CONSTRAINT chk_ledger_entry_amount CHECK (amount > 0)
+);
+
+-- Balance slots of hot accounts (accounts.balance_slots > 0): credits land on a random slot row instead
+-- of the account row, so they do not queue on its lock. The balance is accounts.balance plus the slots.
+-- Slot rows are only updated in place, the low fillfactor leaves room for HOT updates.
+ALTER TABLE public.accounts ADD COLUMN IF NOT EXISTS balance_slots INTEGER NOT NULL DEFAULT 0;
+CREATE TABLE IF NOT EXISTS public.account_balance_slots (
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    slot INTEGER NOT NULL,
+    balance DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_id, slot)
+) WITH (fillfactor = 50);
+
+-- Journal position of each ledger engine shard that is already written to the tables above
+CREATE TABLE IF NOT EXISTS public.ledger_checkpoints (
+    shard_id INTEGER PRIMARY KEY,
+    journal_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Idempotency keys of transfers: a key is claimed before the transfer runs and holds its response once done.
+-- transaction_id is the id the transfer runs under; the transactions row with that id commits with the transfer,
+-- so a key left IN_PROGRESS is resolved by looking it up.
+CREATE TABLE IF NOT EXISTS public.transfer_idempotency_keys (
+    source_account_number VARCHAR(50) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    transaction_id UUID,
+    status VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS',
+    response TEXT,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (source_account_number, idempotency_key)
+);
+ALTER TABLE public.transfer_idempotency_keys ADD COLUMN IF NOT EXISTS transaction_id UUID;
+
+-- Transactional outbox: one event per completed transfer, inserted in the transaction that completes it.
+-- The relay publishes unpublished events in id order and sets published_at; published rows are deleted
+-- once they are older than app.outbox.retention-seconds.
+CREATE TABLE IF NOT EXISTS public.transfer_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(30) NOT NULL,
+    transaction_id UUID NOT NULL,
+    source_account_number VARCHAR(50) NOT NULL,
+    destination_account_number VARCHAR(50) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP WITH TIME ZONE
+);
+
 -- Create indexes for better query performance
 CREATE INDEX IF NOT EXISTS idx_accounts_account_number ON public.accounts(account_number);
 CREATE INDEX IF NOT EXISTS idx_accounts_status ON public.accounts(status);
 CREATE INDEX IF NOT EXISTS idx_transactions_source_account ON public.transactions(source_account_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_destination_account ON public.transactions(destination_account_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON public.transactions(created_at);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transactions_transaction_id ON public.transactions(transaction_id);
+-- Keyset pagination of account history: one range scan per side of a transfer
+CREATE INDEX IF NOT EXISTS idx_transactions_source_history ON public.transactions(source_account_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_transactions_destination_history ON public.transactions(destination_account_id, created_at DESC, id DESC);
+-- Queue of asynchronously submitted transfers: only PENDING rows are indexed, so it stays small however long the history is
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON public.transactions(id) WHERE status = 'PENDING';
+-- Entries of an account after its checkpoint; created_txid grows with the insert order, so BRIN suffices
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_account ON public.ledger_entries(account_id, id);
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_created_txid ON public.ledger_entries USING brin(created_txid);
+CREATE INDEX IF NOT EXISTS idx_transfer_idempotency_keys_created_at ON public.transfer_idempotency_keys(created_at);
+-- Events the relay has not published yet, and published ones for the retention cleanup
+CREATE INDEX IF NOT EXISTS idx_transfer_outbox_unpublished ON public.transfer_outbox(id) WHERE published_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_transfer_outbox_published_at ON public.transfer_outbox(published_at) WHERE published_at IS NOT NULL;
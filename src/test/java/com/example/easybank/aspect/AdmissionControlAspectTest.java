@@ -0,0 +1,103 @@
+package com.example.easybank.aspect;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.service.AdaptiveConcurrencyLimiter;
+import com.example.easybank.service.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.retry.annotation.AnnotationAwareRetryOperationsInterceptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AdmissionControlAspectTest {
+
+    private static final String TRANSACTION_ID = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f72";
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter = mock(AdaptiveConcurrencyLimiter.class);
+    private final TransactionService target = mock(TransactionService.class);
+    private TransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionControlAspect aspect = new AdmissionControlAspect(concurrencyLimiter);
+        ReflectionTestUtils.setField(aspect, "enabled", true);
+        when(concurrencyLimiter.tryAcquire()).thenReturn(true);
+
+        // The aspect runs outside the retries, as it does in the application context
+        AnnotationAwareRetryOperationsInterceptor retryInterceptor = new AnnotationAwareRetryOperationsInterceptor();
+        retryInterceptor.setSleeper(backOffPeriod -> { });
+        retryInterceptor.setListeners(List.of(aspect));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(aspect);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(retryInterceptor));
+        transactionService = proxyFactory.getProxy();
+    }
+
+    @Test
+    void admit_SamplesLatencyOfTransferThatSucceededFirstTime() {
+        // Arrange
+        when(target.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID))
+            .thenReturn(transaction(TransactionStatus.COMPLETED));
+
+        // Act
+        transactionService.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID);
+
+        // Assert
+        verify(concurrencyLimiter).onSuccess(anyLong());
+        verify(concurrencyLimiter, never()).onDropped();
+    }
+
+    @Test
+    void admit_CountsTransferRecoveredAsFailedAfterLockTimeoutsAsDropped() {
+        // Arrange
+        when(target.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID))
+            .thenThrow(new CannotAcquireLockException("lock timeout"));
+        when(target.recoverFromFailureOf(any(), anyString(), anyString(), any(), anyString()))
+            .thenReturn(transaction(TransactionStatus.FAILED));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID);
+
+        // Assert
+        assertEquals(TransactionStatus.FAILED, result.getStatus());
+        verify(target, times(3)).processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID);
+        verify(concurrencyLimiter).onDropped();
+        verify(concurrencyLimiter, never()).onSuccess(anyLong());
+    }
+
+    @Test
+    void admit_DoesNotSampleBackoffOfTransferThatSucceededOnRetry() {
+        // Arrange
+        when(target.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID))
+            .thenThrow(new IllegalStateException("Unexpected update count"))
+            .thenReturn(transaction(TransactionStatus.COMPLETED));
+
+        // Act
+        transactionService.processTransaction("123", "456", new BigDecimal("100"), TRANSACTION_ID);
+
+        // Assert
+        verify(concurrencyLimiter).onIgnore();
+        verify(concurrencyLimiter, never()).onSuccess(anyLong());
+        verify(concurrencyLimiter, never()).onDropped();
+    }
+
+    private static Transaction transaction(TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(TRANSACTION_ID);
+        transaction.setStatus(status);
+        return transaction;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.easybank.aspect;
+
+import com.example.easybank.repository.AccountRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PerformanceMonitoringAspectTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountRepository target = mock(AccountRepository.class);
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void setUp() {
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addInterface(AccountRepository.class);
+        proxyFactory.addAspect(new PerformanceMonitoringAspect(meterRegistry, 0, 50));
+        accountRepository = proxyFactory.getProxy();
+    }
+
+    @Test
+    void measureRepositoryPerformance_ReusesOneTimerPerMethod() {
+        // Arrange
+        when(target.findByAccountNumber("123")).thenReturn(Optional.empty());
+
+        // Act
+        accountRepository.findByAccountNumber("123");
+        int metersAfterFirstCall = meterRegistry.getMeters().size();
+        accountRepository.findByAccountNumber("123");
+
+        // Assert
+        Timer timer = meterRegistry.get("database.operation.time")
+            .tag("operation", "AccountRepository.findByAccountNumber").timer();
+        assertEquals(2, timer.count());
+        assertEquals(metersAfterFirstCall, meterRegistry.getMeters().size());
+        assertEquals(2, meterRegistry.get("monitoring.overhead").tag("pointcut", "repository").timer().count());
+    }
+
+    @Test
+    void measureRepositoryPerformance_RecordsFailedCalls() {
+        // Arrange
+        when(target.findByAccountNumber("123")).thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        // Act & Assert
+        assertThrows(CannotAcquireLockException.class, () -> accountRepository.findByAccountNumber("123"));
+        Timer timer = meterRegistry.get("database.operation.time")
+            .tag("operation", "AccountRepository.findByAccountNumber").timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+    }
+}
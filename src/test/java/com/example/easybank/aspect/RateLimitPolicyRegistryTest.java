@@ -0,0 +1,119 @@
+package com.example.easybank.aspect;
+
+import com.example.easybank.service.RateLimitQuota;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RateLimitPolicyRegistryTest {
+
+    private RequestMappingHandlerMapping handlerMapping;
+    private MockEnvironment environment;
+    private Map<RequestMappingInfo, HandlerMethod> handlerMethods;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        handlerMapping = mock(RequestMappingHandlerMapping.class);
+        environment = new MockEnvironment();
+        handlerMethods = new LinkedHashMap<>();
+        register("/transfer", "transfer");
+        register("/batch", "batch");
+        register("/read", "read");
+        when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+    }
+
+    @Test
+    void compile_ResolvesAnnotatedAndDefaultPolicies() throws NoSuchMethodException {
+        // Act
+        RateLimitPolicyRegistry registry = registry();
+
+        // Assert
+        RateLimitPolicyRegistry.Policy transfer = registry.policyFor(method("transfer"));
+        RateLimitPolicyRegistry.Policy batch = registry.policyFor(method("batch"));
+        RateLimitPolicyRegistry.Policy read = registry.policyFor(method("read"));
+        assertQuota(transfer.quotaFor("10.0.0.1"), 120, 20, 1);
+        assertQuota(batch.quotaFor("10.0.0.1"), 120, 20, 10);
+        assertQuota(read.quotaFor("10.0.0.1"), 600, 600, 1);
+        // Handlers of one policy share a quota per client, other endpoints have their own
+        assertEquals(transfer.keyFor("10.0.0.1"), batch.keyFor("10.0.0.1"));
+        assertNotEquals(transfer.keyFor("10.0.0.1"), transfer.keyFor("10.0.0.2"));
+        assertEquals("/read:10.0.0.1", read.keyFor("10.0.0.1"));
+        assertSame(read.keyFor("10.0.0.1"), read.keyFor("10.0.0.1"));
+    }
+
+    @Test
+    void compile_AppliesPropertyOverridesAndClientClasses() throws NoSuchMethodException {
+        // Arrange
+        environment.setProperty("app.rate-limit.policies.transfers.requests-per-minute", "60");
+        environment.setProperty("app.rate-limit.policies.transfers.client-classes.internal.burst", "500");
+        environment.setProperty("app.rate-limit.client-classes.internal", "10.0.0.9, 10.0.0.8");
+
+        // Act
+        RateLimitPolicyRegistry registry = registry();
+
+        // Assert
+        RateLimitPolicyRegistry.Policy batch = registry.policyFor(method("batch"));
+        assertQuota(batch.quotaFor("10.0.0.1"), 60, 20, 10);
+        assertQuota(batch.quotaFor("10.0.0.8"), 1200, 500, 10);
+        assertQuota(registry.policyFor(method("read")).quotaFor("10.0.0.8"), 600, 600, 1);
+    }
+
+    @Test
+    void compile_RejectsCostAboveBurst() {
+        // Arrange
+        environment.setProperty("app.rate-limit.policies.transfers.cost", "50");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, this::registry);
+    }
+
+    private RateLimitPolicyRegistry registry() {
+        RateLimitPolicyRegistry registry = new RateLimitPolicyRegistry(handlerMapping, environment);
+        ReflectionTestUtils.setField(registry, "maxRequestsPerMinute", 600);
+        ReflectionTestUtils.setField(registry, "keyCacheSize", 100);
+        registry.afterSingletonsInstantiated();
+        return registry;
+    }
+
+    private void register(String path, String methodName) throws NoSuchMethodException {
+        handlerMethods.put(RequestMappingInfo.paths(path).build(), new HandlerMethod(new SampleController(), method(methodName)));
+    }
+
+    private static Method method(String name) throws NoSuchMethodException {
+        return SampleController.class.getDeclaredMethod(name);
+    }
+
+    private static void assertQuota(RateLimitQuota quota, int requestsPerMinute, int burst, int cost) {
+        assertEquals(requestsPerMinute, quota.getRequestsPerMinute());
+        assertEquals(burst, quota.getBurst());
+        assertEquals(cost, quota.getCost());
+    }
+
+    static class SampleController {
+
+        @RateLimited(value = "transfers", requestsPerMinute = 120, burst = 20,
+                clientClasses = @RateLimited.ClientClassLimit(name = "internal", requestsPerMinute = 1200))
+        void transfer() {
+        }
+
+        @RateLimited(value = "transfers", requestsPerMinute = 120, burst = 20, cost = 10,
+                clientClasses = @RateLimited.ClientClassLimit(name = "internal", requestsPerMinute = 1200))
+        void batch() {
+        }
+
+        void read() {
+        }
+    }
+}
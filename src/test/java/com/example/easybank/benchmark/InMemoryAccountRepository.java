@@ -0,0 +1,180 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.repository.AccountRepository;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap-backed stand-in for the MyBatis {@link AccountRepository} so benchmarks measure
+ * the service layer without network or database noise.
+ *
+ * Every read hands out a copy, mirroring MyBatis which maps a fresh object per row.
+ */
+public class InMemoryAccountRepository implements AccountRepository {
+    private final Map<Long, Account> accountsById = new ConcurrentHashMap<>();
+    private final Map<String, Account> accountsByNumber = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+
+    public Account seed(String accountNumber, String accountHolder, BigDecimal balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder(accountHolder);
+        account.setAccountType("CHECKING");
+        account.setCurrency("USD");
+        account.setBalance(balance);
+        account.setStatus("ACTIVE");
+        account.setVersion(0);
+        insert(account);
+        return account;
+    }
+
+    @Override
+    public Optional<Account> findById(Long id) {
+        return Optional.ofNullable(accountsById.get(id)).map(InMemoryAccountRepository::copyOf);
+    }
+
+    @Override
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        return Optional.ofNullable(accountsByNumber.get(accountNumber)).map(InMemoryAccountRepository::copyOf);
+    }
+
+    @Override
+    public Optional<Account> findWithSlotBalanceByAccountNumber(String accountNumber) {
+        return findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public Optional<Account> findByAccountNumberWithLock(String accountNumber) {
+        return findByAccountNumber(accountNumber);
+    }
+
+    @Override
+    public List<Account> findAllByAccountNumberWithLock(Collection<String> accountNumbers) {
+        List<Account> result = new ArrayList<>(accountNumbers.size());
+        for (String accountNumber : accountNumbers) {
+            findByAccountNumber(accountNumber).ifPresent(result::add);
+        }
+        result.sort(Comparator.comparing(Account::getId));
+        return result;
+    }
+
+    @Override
+    public Cursor<Account> streamAll() {
+        // Exports are not benchmarked against the heap repositories
+        throw new UnsupportedOperationException("streamAll");
+    }
+
+    @Override
+    public int insert(Account account) {
+        account.setId(idSequence.incrementAndGet());
+        store(copyOf(account));
+        return 1;
+    }
+
+    @Override
+    public int update(Account account) {
+        if (!accountsById.containsKey(account.getId())) {
+            return 0;
+        }
+        Account stored = copyOf(account);
+        stored.setVersion(account.getVersion() == null ? 1 : account.getVersion() + 1);
+        store(stored);
+        return 1;
+    }
+
+    @Override
+    public int updateBalances(List<Account> accounts) {
+        int updated = 0;
+        for (Account account : accounts) {
+            updated += update(account);
+        }
+        return updated;
+    }
+
+    @Override
+    public synchronized int updateBalanceIfVersionMatches(Account account) {
+        Account stored = accountsById.get(account.getId());
+        if (stored == null || !stored.getVersion().equals(account.getVersion())) {
+            return 0;
+        }
+        return update(account);
+    }
+
+    @Override
+    public synchronized int applyBalanceDelta(Long id, BigDecimal delta) {
+        Account stored = accountsById.get(id);
+        if (stored == null || !"ACTIVE".equals(stored.getStatus()) || stored.getBalance().add(delta).signum() < 0) {
+            return 0;
+        }
+        Account updated = copyOf(stored);
+        updated.setBalance(stored.getBalance().add(delta));
+        return update(updated);
+    }
+
+    // Benchmarked accounts have no balance slots
+    @Override
+    public int creditBalanceSlot(Long accountId, int slot, BigDecimal amount) {
+        return 0;
+    }
+
+    @Override
+    public BigDecimal lockBalanceSlots(Long accountId) {
+        return BigDecimal.ZERO;
+    }
+
+    @Override
+    public int clearBalanceSlots(Long accountId) {
+        return 0;
+    }
+
+    @Override
+    public int deleteBalanceSlots(Long accountId) {
+        return 0;
+    }
+
+    @Override
+    public int insertBalanceSlots(Long accountId, int slots) {
+        throw new UnsupportedOperationException("insertBalanceSlots");
+    }
+
+    @Override
+    public int updateBalanceSlots(Account account) {
+        throw new UnsupportedOperationException("updateBalanceSlots");
+    }
+
+    @Override
+    public List<String> findAccountNumbersWithBalanceSlots() {
+        return List.of();
+    }
+
+    private void store(Account account) {
+        accountsById.put(account.getId(), account);
+        accountsByNumber.put(account.getAccountNumber(), account);
+    }
+
+    static Account copyOf(Account source) {
+        Account copy = new Account();
+        copy.setId(source.getId());
+        copy.setAccountNumber(source.getAccountNumber());
+        copy.setAccountHolder(source.getAccountHolder());
+        copy.setAccountType(source.getAccountType());
+        copy.setCurrency(source.getCurrency());
+        copy.setBalance(source.getBalance());
+        copy.setStatus(source.getStatus());
+        copy.setVersion(source.getVersion());
+        copy.setBalanceSlots(source.getBalanceSlots());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.repository.LedgerCheckpointRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-backed stand-in for the MyBatis {@link LedgerCheckpointRepository}.
+ */
+public class InMemoryLedgerCheckpointRepository implements LedgerCheckpointRepository {
+    private final Map<Integer, Long> sequences = new ConcurrentHashMap<>();
+
+    @Override
+    public Long findJournalSequence(int shardId) {
+        return sequences.get(shardId);
+    }
+
+    @Override
+    public int saveJournalSequence(int shardId, long journalSequence) {
+        sequences.put(shardId, journalSequence);
+        return 1;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.service.RateLimitQuota;
+import com.example.easybank.service.RateLimiterService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stand-in for {@link RateLimiterService} that always admits the call.
+ *
+ * It still does a little bookkeeping so the JIT cannot fold the limiter check away.
+ */
+public class InMemoryRateLimiterService extends RateLimiterService {
+    private final LongAdder requestChecks = new LongAdder();
+    private final LongAdder transactionChecks = new LongAdder();
+
+    @Override
+    public void checkRateLimit(String key) {
+        requestChecks.increment();
+    }
+
+    @Override
+    public void checkRateLimit(String key, RateLimitQuota quota) {
+        requestChecks.increment();
+    }
+
+    @Override
+    public void checkTransactionRateLimit(String accountId) {
+        transactionChecks.increment();
+    }
+
+    public long getRequestChecks() {
+        return requestChecks.sum();
+    }
+
+    public long getTransactionChecks() {
+        return transactionChecks.sum();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import com.example.easybank.dto.TransferExecution;
+import com.example.easybank.repository.TransactionRepository;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Heap-backed stand-in for the MyBatis {@link TransactionRepository}.
+ *
+ * Only seeded history is kept for reads; rows written by {@link #save} are counted and
+ * dropped so long benchmark runs do not grow the heap and skew the allocation figures.
+ */
+public class InMemoryTransactionRepository implements TransactionRepository {
+    private final InMemoryAccountRepository accountRepository;
+    private final Map<String, List<Transaction>> historyByAccountNumber = new ConcurrentHashMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final AtomicLong savedRows = new AtomicLong();
+
+    public InMemoryTransactionRepository(InMemoryAccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    public void seedHistory(Account source, Account destination, BigDecimal amount, int count) {
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(idSequence.incrementAndGet());
+            transaction.setTransactionId(UUID.randomUUID().toString());
+            transaction.setSourceAccountId(source.getId());
+            transaction.setDestinationAccountId(destination.getId());
+            transaction.setAmount(amount);
+            transaction.setCurrency(source.getCurrency());
+            transaction.setTransactionType(TransactionType.TRANSFER);
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            transaction.setCreatedAt(OffsetDateTime.now());
+            transaction.setUpdatedAt(transaction.getCreatedAt());
+            historyByAccountNumber.computeIfAbsent(source.getAccountNumber(), k -> new CopyOnWriteArrayList<>()).add(transaction);
+            historyByAccountNumber.computeIfAbsent(destination.getAccountNumber(), k -> new CopyOnWriteArrayList<>()).add(transaction);
+        }
+    }
+
+    @Override
+    public List<Transaction> findLatestTransactionsByAccountNumber(String accountNumber) {
+        List<Transaction> history = historyByAccountNumber.getOrDefault(accountNumber, List.of());
+        // The service mutates what it gets back (amount sign, account details), so hand out copies
+        List<Transaction> result = new ArrayList<>(history.size());
+        for (Transaction stored : history) {
+            result.add(copyOf(stored));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Transaction> findHistoryPage(Long accountId, OffsetDateTime beforeCreatedAt, Long beforeId, int limit) {
+        Optional<Account> account = accountRepository.findById(accountId);
+        if (account.isEmpty()) {
+            return List.of();
+        }
+        // Seeded rows are appended in id order, so the cursor position is a binary search away
+        List<Transaction> history = historyByAccountNumber.getOrDefault(account.get().getAccountNumber(), List.of());
+        int from = history.size() - 1;
+        if (beforeId != null) {
+            int low = 0;
+            int high = history.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (history.get(middle).getId() < beforeId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            from = low - 1;
+        }
+        List<Transaction> page = new ArrayList<>(limit);
+        for (int i = from; i >= 0 && page.size() < limit; i--) {
+            Transaction row = copyOf(history.get(i));
+            accountRepository.findById(row.getSourceAccountId()).ifPresent(source -> {
+                row.setSourceAccountNumber(source.getAccountNumber());
+                row.setSourceAccountHolder(source.getAccountHolder());
+            });
+            accountRepository.findById(row.getDestinationAccountId()).ifPresent(destination -> {
+                row.setDestinationAccountNumber(destination.getAccountNumber());
+                row.setDestinationAccountHolder(destination.getAccountHolder());
+            });
+            page.add(row);
+        }
+        return page;
+    }
+
+    @Override
+    public Cursor<Transaction> streamAccountHistory(Long accountId) {
+        // Exports are not benchmarked against the heap repositories
+        throw new UnsupportedOperationException("streamAccountHistory");
+    }
+
+    @Override
+    public int save(Transaction transaction) {
+        savedRows.incrementAndGet();
+        return 1;
+    }
+
+    @Override
+    public int saveAll(List<Transaction> transactions) {
+        savedRows.addAndGet(transactions.size());
+        return transactions.size();
+    }
+
+    @Override
+    public int updateStatus(String transactionId, TransactionStatus status) {
+        return 1;
+    }
+
+    @Override
+    public List<Transaction> claimPending(int limit) {
+        // Written rows are not kept, so nothing is ever pending
+        return List.of();
+    }
+
+    @Override
+    public int finishAll(List<Transaction> transactions) {
+        return transactions.size();
+    }
+
+    @Override
+    public Optional<Transaction> findByTransactionId(String transactionId) {
+        // Written rows are not kept, see the class comment
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<TransferExecution> executeTransfer(String transactionId, String sourceAccountNumber,
+                                                       String destinationAccountNumber, BigDecimal amount,
+                                                       String description) {
+        Optional<Account> source = accountRepository.findByAccountNumber(sourceAccountNumber);
+        Optional<Account> destination = accountRepository.findByAccountNumber(destinationAccountNumber);
+        if (source.isEmpty() || destination.isEmpty() || source.get().getBalance().compareTo(amount) < 0) {
+            return Optional.empty();
+        }
+        Account debited = source.get();
+        Account credited = destination.get();
+        debited.setBalance(debited.getBalance().subtract(amount));
+        credited.setBalance(credited.getBalance().add(amount));
+        accountRepository.update(debited);
+        accountRepository.update(credited);
+        savedRows.incrementAndGet();
+
+        TransferExecution execution = new TransferExecution();
+        execution.setTransactionId(idSequence.incrementAndGet());
+        execution.setCreatedAt(OffsetDateTime.now());
+        execution.setCurrency(debited.getCurrency());
+        execution.setSourceAccountId(debited.getId());
+        execution.setSourceAccountHolder(debited.getAccountHolder());
+        execution.setSourceBalance(debited.getBalance());
+        execution.setSourceVersion(debited.getVersion() + 1);
+        execution.setDestinationAccountId(credited.getId());
+        execution.setDestinationAccountHolder(credited.getAccountHolder());
+        execution.setDestinationBalance(credited.getBalance());
+        execution.setDestinationVersion(credited.getVersion() + 1);
+        return Optional.of(execution);
+    }
+
+    public long getSavedRows() {
+        return savedRows.get();
+    }
+
+    private static Transaction copyOf(Transaction source) {
+        Transaction copy = new Transaction();
+        copy.setId(source.getId());
+        copy.setTransactionId(source.getTransactionId());
+        copy.setSourceAccountId(source.getSourceAccountId());
+        copy.setDestinationAccountId(source.getDestinationAccountId());
+        copy.setAmount(source.getAmount());
+        copy.setCurrency(source.getCurrency());
+        copy.setTransactionType(source.getTransactionType());
+        copy.setStatus(source.getStatus());
+        copy.setDescription(source.getDescription());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.engine.LedgerEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Transfer throughput of the in-memory {@link LedgerEngine} with many concurrent callers.
+ *
+ * The journal is written to a temporary directory; run with {@code -p journalFsync=true} on
+ * the target disk to include the cost of forcing each batch. Write-behind goes to the
+ * in-memory repositories every 50 ms, as in the application.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@Threads(16)
+public class LedgerEngineBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+        @Param({"4"})
+        int shards;
+
+        @Param({"1024"})
+        int accountCount;
+
+        @Param({"false"})
+        boolean journalFsync;
+
+        LedgerEngine engine;
+        ScheduledExecutorService flusher;
+        Path journalDir;
+        String[] accountNumbers;
+        BigDecimal transferAmount = new BigDecimal("0.01");
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+            InMemoryTransactionRepository transactionRepository = new InMemoryTransactionRepository(accountRepository);
+            accountNumbers = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountNumbers[i] = String.format("ACC-%08d", i);
+                accountRepository.seed(accountNumbers[i], "Holder " + i, new BigDecimal("1000000000.00"));
+            }
+
+            journalDir = Files.createTempDirectory("ledger-journal");
+            engine = new LedgerEngine(accountRepository, transactionRepository, new InMemoryLedgerCheckpointRepository(),
+                    new InMemoryTransactionManager(), new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(engine, "shardCount", shards);
+            ReflectionTestUtils.setField(engine, "queueCapacity", 65536);
+            ReflectionTestUtils.setField(engine, "maxDrain", 1024);
+            ReflectionTestUtils.setField(engine, "journalDir", journalDir.toString());
+            ReflectionTestUtils.setField(engine, "journalFsync", journalFsync);
+            ReflectionTestUtils.setField(engine, "flushChunkSize", 500);
+            ReflectionTestUtils.setField(engine, "submitTimeoutMs", 5000L);
+            ReflectionTestUtils.setField(engine, "shutdownTimeoutMs", 5000L);
+            engine.start();
+
+            flusher = Executors.newSingleThreadScheduledExecutor();
+            flusher.scheduleWithFixedDelay(engine::flush, 50, 50, TimeUnit.MILLISECONDS);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException, IOException {
+            flusher.shutdownNow();
+            engine.stop();
+            try (Stream<Path> files = Files.walk(journalDir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Transaction transfer(EngineState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(state.accountCount);
+        int destination = (source + 1 + random.nextInt(state.accountCount - 1)) % state.accountCount;
+        return state.engine.transfer(UUID.randomUUID().toString(), state.accountNumbers[source],
+                state.accountNumbers[destination], state.transferAmount);
+    }
+}
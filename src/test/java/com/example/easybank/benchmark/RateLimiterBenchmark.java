@@ -0,0 +1,148 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.exception.TooManyRequestsException;
+import com.example.easybank.service.LocalRateLimiter;
+import com.example.easybank.service.RateLimitBackend;
+import com.example.easybank.service.RateLimiterCircuitBreaker;
+import com.example.easybank.service.RateLimiterService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and accuracy of one {@link RateLimiterService#checkRateLimit} call per backend.
+ *
+ * LOCAL needs nothing; it measures the request path only, without the periodic sync.
+ * GCRA and SLIDING_LOG need a Redis server at {@code redis} (host:port), e.g.
+ * {@code -Djmh.includes=RateLimiterBenchmark -Djmh.params=backend=LOCAL,GCRA,SLIDING_LOG}.
+ * Each key's burst is used up before the run, so the {@code allowed} counter (total over the
+ * measurement iterations) can be compared with the configured {@code keys * limitPerMinute / 60}
+ * calls per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@Threads(16)
+public class RateLimiterBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class LimiterState {
+        @Param({"LOCAL"})
+        RateLimitBackend backend;
+
+        @Param({"64"})
+        int keys;
+
+        @Param({"600"})
+        int limitPerMinute;
+
+        @Param({"localhost:6379"})
+        String redis;
+
+        LettuceConnectionFactory connectionFactory;
+        RateLimiterService rateLimiterService;
+        String[] clientKeys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+            StringRedisTemplate stringRedisTemplate = new StringRedisTemplate();
+            if (backend != RateLimitBackend.LOCAL) {
+                String[] hostAndPort = redis.split(":");
+                connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                        hostAndPort[0], Integer.parseInt(hostAndPort[1])));
+                connectionFactory.afterPropertiesSet();
+                redisTemplate.setConnectionFactory(connectionFactory);
+                redisTemplate.setKeySerializer(new StringRedisSerializer());
+                redisTemplate.setValueSerializer(new StringRedisSerializer());
+                redisTemplate.afterPropertiesSet();
+            }
+
+            rateLimiterService = new RateLimiterService();
+            ReflectionTestUtils.setField(rateLimiterService, "redisTemplate", redisTemplate);
+            ReflectionTestUtils.setField(rateLimiterService, "localRateLimiter",
+                    new LocalRateLimiter(stringRedisTemplate, new SimpleMeterRegistry()));
+            ReflectionTestUtils.setField(rateLimiterService, "circuitBreaker",
+                    new RateLimiterCircuitBreaker(20, 50, 50, 5000, new SimpleMeterRegistry()));
+            ReflectionTestUtils.setField(rateLimiterService, "backend", backend);
+            ReflectionTestUtils.setField(rateLimiterService, "maxRequestsPerMinute", limitPerMinute);
+            ReflectionTestUtils.setField(rateLimiterService, "retryAfterSeconds", 30);
+
+            // Distinct per trial, so Redis state from an earlier run does not carry over
+            String run = Long.toString(System.nanoTime(), 36);
+            clientKeys = new String[keys];
+            for (int i = 0; i < keys; i++) {
+                clientKeys[i] = "benchmark-" + run + "-" + i + ":/api/accounts/{accountNumber}";
+                drainBurst(clientKeys[i]);
+            }
+        }
+
+        /**
+         * Uses up the initial burst of a key, so {@code allowed} measures the sustained rate.
+         */
+        private void drainBurst(String key) {
+            try {
+                while (true) {
+                    rateLimiterService.checkRateLimit(key);
+                }
+            } catch (TooManyRequestsException e) {
+                // Quota exhausted
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (connectionFactory != null) {
+                connectionFactory.destroy();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Decisions {
+        public long allowed;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allowed = 0;
+            rejected = 0;
+        }
+    }
+
+    @Benchmark
+    public void checkRateLimit(LimiterState state, Decisions decisions) {
+        String key = state.clientKeys[ThreadLocalRandom.current().nextInt(state.keys)];
+        try {
+            state.rateLimiterService.checkRateLimit(key);
+            decisions.allowed++;
+        } catch (TooManyRequestsException e) {
+            decisions.rejected++;
+        }
+    }
+}
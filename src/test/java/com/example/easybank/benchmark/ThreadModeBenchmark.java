@@ -0,0 +1,130 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.config.VirtualThreads;
+import com.example.easybank.outbox.TransferOutbox;
+import com.example.easybank.service.HotAccountService;
+import com.example.easybank.service.TransactionService;
+import com.example.easybank.service.TransferMode;
+import com.example.easybank.service.TransferStageRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Platform against virtual threads for a burst of concurrent transfer requests.
+ *
+ * Each operation submits {@code requests} transfers at once. A transfer runs the service on
+ * in-memory repositories and then blocks for {@code blockingMs}, standing in for the JDBC and
+ * Redis round trips of a real request. PLATFORM runs them on a pool of {@code platformThreads}
+ * (Tomcat's default maximum), VIRTUAL starts a virtual thread per request, as
+ * {@code app.threads.virtual.enabled=true} does. VIRTUAL needs Java 21 or later:
+ * {@code mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ThreadModeBenchmark -Djmh.params=threads=PLATFORM,VIRTUAL}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ThreadModeBenchmark {
+
+    public enum ThreadMode {
+        PLATFORM, VIRTUAL
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutorState {
+        @Param({"PLATFORM"})
+        ThreadMode threads;
+
+        @Param({"1000", "10000"})
+        int requests;
+
+        @Param({"5"})
+        long blockingMs;
+
+        @Param({"200"})
+        int platformThreads;
+
+        @Param({"64"})
+        int accountCount;
+
+        ExecutorService executor;
+        TransactionService transactionService;
+        String[] accountNumbers;
+        BigDecimal transferAmount = new BigDecimal("0.01");
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            executor = threads == ThreadMode.VIRTUAL
+                    ? VirtualThreads.newThreadPerTaskExecutor("benchmark-vt-")
+                    : Executors.newFixedThreadPool(platformThreads);
+
+            InMemoryAccountRepository accountRepository = new InMemoryAccountRepository();
+            accountNumbers = new String[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountNumbers[i] = String.format("ACC-%08d", i);
+                accountRepository.seed(accountNumbers[i], "Holder " + i, new BigDecimal("1000000000.00"));
+            }
+            AccountCacheWriter accountCacheWriter = new AccountCacheWriter(new NoOpCacheManager());
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            transactionService = new TransactionService(accountRepository,
+                    new InMemoryTransactionRepository(accountRepository), null, new InMemoryRateLimiterService(),
+                    accountCacheWriter, new HotAccountService(accountRepository, accountCacheWriter, meterRegistry, 64, TransferMode.LOCKING),
+                    new TransferOutbox(null, false), new TransferStageRecorder(meterRegistry, 20, 300_000),
+                    new InMemoryTransactionManager(), meterRegistry);
+            ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.LOCKING);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Time until every request of one burst has completed.
+     */
+    @Benchmark
+    public int burst(ExecutorState state) {
+        List<CompletableFuture<Void>> responses = new ArrayList<>(state.requests);
+        for (int i = 0; i < state.requests; i++) {
+            int source = i % state.accountCount;
+            responses.add(CompletableFuture.runAsync(() -> request(state, source), state.executor));
+        }
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).join();
+        return responses.size();
+    }
+
+    private static void request(ExecutorState state, int source) {
+        state.transactionService.processTransaction(state.accountNumbers[source],
+                state.accountNumbers[(source + 1) % state.accountCount], state.transferAmount);
+        try {
+            TimeUnit.MILLISECONDS.sleep(state.blockingMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
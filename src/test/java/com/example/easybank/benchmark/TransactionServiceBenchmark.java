@@ -0,0 +1,246 @@
+package com.example.easybank.benchmark;
+
+import com.example.easybank.aspect.PerformanceMonitoringAspect;
+import com.example.easybank.aspect.RateLimitAspect;
+import com.example.easybank.aspect.RateLimitPolicyRegistry;
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.controller.AccountController;
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.BatchTransferResult;
+import com.example.easybank.dto.TransactionHistoryPage;
+import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.dto.TransferRequest;
+import com.example.easybank.outbox.TransferOutbox;
+import com.example.easybank.service.AccountService;
+import com.example.easybank.service.HotAccountService;
+import com.example.easybank.service.TransactionService;
+import com.example.easybank.service.TransferMode;
+import com.example.easybank.service.TransferStageRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmarks for the transfer and read paths of the service layer.
+ *
+ * Repositories and the rate limiter are replaced by in-memory stand-ins so the numbers
+ * reflect JVM-side cost only: object churn, validation, logging and the AOP proxies.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec}; the gc profiler adds
+ * {@code gc.alloc.rate.norm} (bytes allocated per operation) to every result.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class TransactionServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ServiceState {
+        @Param({"64"})
+        int accountCount;
+
+        @Param({"50"})
+        int historyPerAccount;
+
+        @Param({"100"})
+        int batchSize;
+
+        InMemoryAccountRepository accountRepository;
+        InMemoryTransactionRepository transactionRepository;
+        InMemoryRateLimiterService rateLimiterService;
+
+        TransactionService transactionService;
+        TransactionService monitoredTransactionService;
+        TransactionService singleStatementTransactionService;
+        TransactionService pessimisticOrderedTransactionService;
+        TransactionService optimisticTransactionService;
+        TransactionService guardedTransactionService;
+        AccountService accountService;
+        AccountController rateLimitedController;
+
+        String[] accountNumbers;
+        BigDecimal transferAmount = new BigDecimal("0.01");
+        List<TransferRequest> batch;
+
+        @Setup(Level.Trial)
+        public void setUp() throws NoSuchMethodException {
+            accountRepository = new InMemoryAccountRepository();
+            transactionRepository = new InMemoryTransactionRepository(accountRepository);
+            rateLimiterService = new InMemoryRateLimiterService();
+
+            accountNumbers = new String[accountCount];
+            Account[] accounts = new Account[accountCount];
+            for (int i = 0; i < accountCount; i++) {
+                accountNumbers[i] = String.format("ACC-%08d", i);
+                accounts[i] = accountRepository.seed(accountNumbers[i], "Holder " + i, new BigDecimal("1000000000.00"));
+            }
+            for (int i = 0; i < accountCount; i++) {
+                transactionRepository.seedHistory(accounts[i], accounts[(i + 1) % accountCount],
+                        new BigDecimal("10.00"), historyPerAccount);
+            }
+
+            transactionService = newTransactionService(TransferMode.LOCKING);
+            ReflectionTestUtils.setField(transactionService, "maxBatchSize", batchSize);
+            ReflectionTestUtils.setField(transactionService, "batchInsertChunkSize", 500);
+            accountService = new AccountService(accountRepository);
+
+            singleStatementTransactionService = newTransactionService(TransferMode.SINGLE_STATEMENT);
+            pessimisticOrderedTransactionService = newTransactionService(TransferMode.PESSIMISTIC_ORDERED);
+            optimisticTransactionService = newTransactionService(TransferMode.OPTIMISTIC);
+            guardedTransactionService = newTransactionService(TransferMode.READ_COMMITTED_GUARDED);
+
+            AspectJProxyFactory serviceProxyFactory = new AspectJProxyFactory(transactionService);
+            serviceProxyFactory.addAspect(new PerformanceMonitoringAspect(new SimpleMeterRegistry(), 0.01, 50));
+            monitoredTransactionService = serviceProxyFactory.getProxy();
+
+            // Only getAccount is benchmarked through the controller
+            AccountController controller = new AccountController(transactionService, accountService, null, null, null);
+            AspectJProxyFactory controllerProxyFactory = new AspectJProxyFactory(controller);
+            controllerProxyFactory.addAspect(new RateLimitAspect(rateLimiterService, rateLimitPolicyRegistry(controller)));
+            rateLimitedController = controllerProxyFactory.getProxy();
+
+            batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(new TransferRequest(accountNumbers[i % accountCount],
+                        accountNumbers[(i + 1) % accountCount], transferAmount));
+            }
+        }
+
+        private RateLimitPolicyRegistry rateLimitPolicyRegistry(AccountController controller) throws NoSuchMethodException {
+            RequestMappingHandlerMapping handlerMapping = new RequestMappingHandlerMapping();
+            handlerMapping.registerMapping(RequestMappingInfo.paths("/api/accounts/{accountNumber}").build(), controller,
+                    AccountController.class.getMethod("getAccount", String.class));
+            RateLimitPolicyRegistry registry = new RateLimitPolicyRegistry(handlerMapping, new StandardEnvironment());
+            ReflectionTestUtils.setField(registry, "maxRequestsPerMinute", 600);
+            ReflectionTestUtils.setField(registry, "keyCacheSize", 10000);
+            registry.afterSingletonsInstantiated();
+            return registry;
+        }
+
+        private TransactionService newTransactionService(TransferMode mode) {
+            AccountCacheWriter accountCacheWriter = new AccountCacheWriter(new NoOpCacheManager());
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            TransactionService service = new TransactionService(accountRepository, transactionRepository, null,
+                    rateLimiterService, accountCacheWriter,
+                    new HotAccountService(accountRepository, accountCacheWriter, meterRegistry, 64, TransferMode.LOCKING),
+                    new TransferOutbox(null, false), new TransferStageRecorder(meterRegistry, 20, 300_000),
+                    new InMemoryTransactionManager(), meterRegistry);
+            ReflectionTestUtils.setField(service, "transferMode", mode);
+            ReflectionTestUtils.setField(service, "optimisticMaxAttempts", 5);
+            ReflectionTestUtils.setField(service, "historyDefaultPageSize", 50);
+            ReflectionTestUtils.setField(service, "historyMaxPageSize", 500);
+            return service;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+        @Setup(Level.Trial)
+        public void bindRequest() {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts");
+            request.setRemoteAddr("10.0.0." + ThreadLocalRandom.current().nextInt(1, 255));
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        }
+
+        @TearDown(Level.Trial)
+        public void unbindRequest() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public Transaction processTransaction(ServiceState state) {
+        return transfer(state, state.transactionService);
+    }
+
+    @Benchmark
+    public Transaction processTransactionMonitored(ServiceState state) {
+        return transfer(state, state.monitoredTransactionService);
+    }
+
+    @Benchmark
+    public Transaction processTransactionSingleStatement(ServiceState state) {
+        return transfer(state, state.singleStatementTransactionService);
+    }
+
+    @Benchmark
+    public Transaction processTransactionPessimisticOrdered(ServiceState state) {
+        return transfer(state, state.pessimisticOrderedTransactionService);
+    }
+
+    @Benchmark
+    public Transaction processTransactionOptimistic(ServiceState state) {
+        return transfer(state, state.optimisticTransactionService);
+    }
+
+    @Benchmark
+    public Transaction processTransactionReadCommittedGuarded(ServiceState state) {
+        return transfer(state, state.guardedTransactionService);
+    }
+
+    @Benchmark
+    public List<BatchTransferResult> processBatchTransfer(ServiceState state) {
+        return state.transactionService.processBatchTransfer(state.batch);
+    }
+
+    @Benchmark
+    public List<TransactionResponse> getAccountTransactions(ServiceState state) {
+        return state.transactionService.getAccountTransactions(randomAccount(state));
+    }
+
+    @Benchmark
+    public TransactionHistoryPage getTransactionHistoryPage(ServiceState state) {
+        return state.transactionService.getTransactionHistory(randomAccount(state), 20, null);
+    }
+
+    @Benchmark
+    public Account getAccount(ServiceState state) {
+        return state.accountService.getAccount(randomAccount(state));
+    }
+
+    @Benchmark
+    public ResponseEntity<Account> getAccountRateLimited(ServiceState state, RequestState request) {
+        return state.rateLimitedController.getAccount(randomAccount(state));
+    }
+
+    private static Transaction transfer(ServiceState state, TransactionService service) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(state.accountCount);
+        int destination = (source + 1 + random.nextInt(state.accountCount - 1)) % state.accountCount;
+        return service.processTransaction(state.accountNumbers[source], state.accountNumbers[destination],
+                state.transferAmount);
+    }
+
+    private static String randomAccount(ServiceState state) {
+        return state.accountNumbers[ThreadLocalRandom.current().nextInt(state.accountCount)];
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.easybank.cache;
+
+import com.example.easybank.domain.Account;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountCacheWriterTest {
+
+    private Cache cache;
+    private AccountCacheWriter accountCacheWriter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("accounts");
+        cache = cacheManager.getCache("accounts");
+        accountCacheWriter = new AccountCacheWriter(cacheManager);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void putAfterCommit_WritesSnapshotOnlyOnceCommitted() {
+        // Arrange
+        Account account = account("ACC-1", "900", 4);
+
+        // Act
+        accountCacheWriter.putAfterCommit(List.of(account));
+        Cache.ValueWrapper beforeCommit = cache.get("ACC-1");
+        account.setBalance(new BigDecimal("1"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Assert: the snapshot is taken when the write is registered
+        assertNull(beforeCommit);
+        Account cached = (Account) cache.get("ACC-1").get();
+        assertEquals(new BigDecimal("900"), cached.getBalance());
+        assertEquals(4, cached.getVersion());
+    }
+
+    @Test
+    void putAfterCommit_LeavesCacheUntouchedOnRollback() {
+        // Arrange
+        Account cached = account("ACC-1", "1000", 3);
+        cache.put("ACC-1", cached);
+
+        // Act
+        accountCacheWriter.putAfterCommit(List.of(account("ACC-1", "900", 4)));
+        accountCacheWriter.evictAfterCommit("ACC-1", 4);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Assert
+        assertSame(cached, cache.get("ACC-1").get());
+    }
+
+    @Test
+    void putAfterCommit_EvictsAccountsWithBalanceSlots() {
+        // Arrange
+        cache.put("ACC-1", account("ACC-1", "1000", 3));
+        Account hot = account("ACC-1", "900", 4);
+        hot.setBalanceSlots(8);
+
+        // Act
+        accountCacheWriter.putAfterCommit(List.of(hot, account("ACC-2", "100", 1)));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Assert: the row balance of a hot account is not its full balance
+        assertNull(cache.get("ACC-1"));
+        assertNotNull(cache.get("ACC-2"));
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Account account(String accountNumber, String balance, int version) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(version);
+        return account;
+    }
+}
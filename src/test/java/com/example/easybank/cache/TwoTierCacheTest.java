@@ -0,0 +1,202 @@
+package com.example.easybank.cache;
+
+import com.example.easybank.domain.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private StringRedisTemplate redisTemplate;
+    private ConcurrentMapCacheManager sharedCacheManager;
+    private CacheInvalidationBroadcaster broadcaster;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redisTemplate = mock(StringRedisTemplate.class);
+        sharedCacheManager = new ConcurrentMapCacheManager("accounts");
+        broadcaster = new CacheInvalidationBroadcaster(redisTemplate, "invalidations", meterRegistry);
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(sharedCacheManager, broadcaster, meterRegistry,
+                100, Duration.ofMinutes(1));
+        cache = cacheManager.getCache("accounts");
+    }
+
+    @Test
+    void get_FillsLocalTierFromSharedTier() {
+        // Arrange
+        sharedCacheManager.getCache("accounts").put("ACC-1", "account");
+
+        // Act
+        Cache.ValueWrapper first = cache.get("ACC-1");
+        sharedCacheManager.getCache("accounts").evict("ACC-1");
+        Cache.ValueWrapper second = cache.get("ACC-1");
+
+        // Assert
+        assertEquals("account", first.get());
+        assertEquals("account", second.get());
+        assertEquals(1.0, tierCount("l1", "hit"));
+        assertEquals(1.0, tierCount("l1", "miss"));
+        assertEquals(1.0, tierCount("l2", "hit"));
+        assertEquals(0.0, tierCount("l2", "miss"));
+    }
+
+    @Test
+    void write_WritesBothTiersAndBroadcastsEviction() {
+        // Act
+        ((TwoTierCache) cache).write("ACC-1", "account");
+
+        // Assert
+        assertEquals("account", sharedCacheManager.getCache("accounts").get("ACC-1").get());
+        assertEquals("account", cache.get("ACC-1").get());
+        verify(redisTemplate).convertAndSend(eq("invalidations"), contains("|E|accounts|ACC-1"));
+    }
+
+    @Test
+    void put_FillsBothTiersWithoutBroadcast() {
+        // Act: what @Cacheable does after a miss
+        cache.put("ACC-1", "account");
+
+        // Assert
+        assertEquals("account", sharedCacheManager.getCache("accounts").get("ACC-1").get());
+        assertEquals("account", cache.get("ACC-1").get());
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void onMessage_EvictsLocalTierOnlyForOtherNodes() {
+        // Arrange
+        ((TwoTierCache) cache).write("ACC-1", "account");
+        sharedCacheManager.getCache("accounts").put("ACC-1", "newer account");
+
+        // Act: a message this node sent is ignored, one from a peer drops the L1 entry
+        broadcaster.onMessage(message(sentMessage()), null);
+        assertEquals("account", cache.get("ACC-1").get());
+        broadcaster.onMessage(message("other-node|E|accounts|ACC-1"), null);
+
+        // Assert
+        assertEquals("newer account", cache.get("ACC-1").get());
+    }
+
+    @Test
+    void clear_IsBroadcastAndFailuresDoNotPropagate() {
+        // Arrange
+        doThrow(new IllegalStateException("down")).when(redisTemplate).convertAndSend(anyString(), anyString());
+        ((TwoTierCache) cache).write("ACC-1", "account");
+
+        // Act
+        cache.clear();
+
+        // Assert
+        assertNull(cache.get("ACC-1"));
+        assertEquals(2.0, meterRegistry.get("cache.invalidations.failed").counter().count());
+    }
+
+    @Test
+    void put_RefusesSnapshotOlderThanTheCachedOne() {
+        // Arrange
+        TwoTierCache versioned = versionedCache();
+        versioned.put("ACC-1", account(2, "200"));
+
+        // Act: a slow writer or a read that loaded the row before the last commit
+        versioned.put("ACC-1", account(1, "100"));
+
+        // Assert
+        assertEquals(new BigDecimal("200"), ((Account) versioned.get("ACC-1").get()).getBalance());
+        assertEquals(new BigDecimal("200"), ((Account) sharedCacheManager.getCache("accounts").get("ACC-1").get()).getBalance());
+        assertEquals(1.0, meterRegistry.get("cache.stale.writes").counter().count());
+    }
+
+    @Test
+    void evictOlderThan_KeepsNewerEntryAndRefusesOlderSnapshots() {
+        // Arrange
+        TwoTierCache versioned = versionedCache();
+        versioned.put("ACC-1", account(3, "300"));
+
+        // Act
+        versioned.evictOlderThan("ACC-1", 3);
+        Cache.ValueWrapper kept = versioned.get("ACC-1");
+        versioned.evictOlderThan("ACC-1", 4);
+        versioned.put("ACC-1", account(3, "300"));
+
+        // Assert
+        assertEquals(3, ((Account) kept.get()).getVersion());
+        assertNull(versioned.get("ACC-1"));
+    }
+
+    private TwoTierCache versionedCache() {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(sharedCacheManager, broadcaster,
+                new InMemoryVersionedCacheStore(), AccountCacheWriter::versionOf, meterRegistry,
+                100, Duration.ofMinutes(1));
+        return (TwoTierCache) cacheManager.getCache("accounts");
+    }
+
+    private static Account account(int version, String balance) {
+        Account account = new Account();
+        account.setAccountNumber("ACC-1");
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(version);
+        return account;
+    }
+
+    /**
+     * Same contract as the Redis store, on top of the shared test cache.
+     */
+    private class InMemoryVersionedCacheStore implements VersionedCacheStore {
+        private final Map<Object, Long> versions = new HashMap<>();
+
+        @Override
+        public boolean putIfNewer(String cacheName, Object key, Object value, long version) {
+            Long current = versions.get(key);
+            if (current != null && current > version) {
+                return false;
+            }
+            versions.put(key, version);
+            sharedCacheManager.getCache(cacheName).put(key, value);
+            return true;
+        }
+
+        @Override
+        public void evictOlderThan(String cacheName, Object key, long version) {
+            Long current = versions.get(key);
+            if (current != null && current >= version) {
+                return;
+            }
+            versions.put(key, version);
+            sharedCacheManager.getCache(cacheName).evict(key);
+        }
+    }
+
+    private String sentMessage() {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq("invalidations"), captor.capture());
+        return captor.getValue();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("invalidations".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private double tierCount(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets").tags("cache", "accounts", "tier", tier, "result", result)
+                .counter().count();
+    }
+}
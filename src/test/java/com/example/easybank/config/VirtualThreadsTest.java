@@ -0,0 +1,38 @@
+package com.example.easybank.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void newThreadPerTaskExecutor_RunsTasksOnNamedVirtualThreads() throws Exception {
+        // Arrange
+        assumeTrue(VirtualThreads.isSupported(), "Needs Java 21 or later");
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-vt-");
+
+        // Act
+        String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+        boolean daemon = executor.submit(() -> Thread.currentThread().isDaemon()).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        assertTrue(threadName.startsWith("test-vt-"));
+        assertTrue(daemon, "virtual threads are always daemon threads");
+    }
+
+    @Test
+    void threadFactory_FailsWithoutVirtualThreadSupport() {
+        // Arrange
+        assumeFalse(VirtualThreads.isSupported(), "Running on Java 21 or later");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> VirtualThreads.threadFactory("test-vt-"));
+    }
+}
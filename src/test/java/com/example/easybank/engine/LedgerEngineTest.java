@@ -0,0 +1,285 @@
+package com.example.easybank.engine;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerCheckpointRepository;
+import com.example.easybank.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class LedgerEngineTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final List<LedgerEngine> engines = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(accountRepository.findByAccountNumber(anyString())).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (LedgerEngine engine : engines) {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void transfer_SameShardIsAppliedInMemoryAndWrittenBehind() {
+        // Arrange
+        stubAccount(1L, "123", "1000.00");
+        stubAccount(2L, "456", "500.00");
+        LedgerEngine engine = startEngine(1);
+
+        // Act
+        Transaction result = engine.transfer(UUID.randomUUID().toString(), "123", "456", new BigDecimal("100"));
+        engine.flush();
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals("Holder 123", result.getSourceAccountHolder());
+        assertEquals(Map.of(1L, new BigDecimal("900.00"), 2L, new BigDecimal("600.00")), flushedBalances());
+        verify(transactionRepository).saveAll(argThat(transactions -> transactions.size() == 1));
+        verify(checkpointRepository).saveJournalSequence(0, 1L);
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+    }
+
+    @Test
+    void transfer_RejectsInsufficientFundsWithoutJournaling() {
+        // Arrange
+        stubAccount(1L, "123", "50.00");
+        stubAccount(2L, "456", "0.00");
+        LedgerEngine engine = startEngine(1);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> engine.transfer(UUID.randomUUID().toString(), "123", "456", new BigDecimal("100")));
+        assertEquals("Insufficient funds in source account", exception.getMessage());
+        engine.flush();
+        verify(accountRepository, never()).updateBalances(anyList());
+        verify(checkpointRepository, never()).saveJournalSequence(anyInt(), anyLong());
+    }
+
+    @Test
+    void transfer_CrossShardCompletesOnBothShards() {
+        // Arrange
+        String[] numbers = accountsOnDifferentShards(2);
+        stubAccount(1L, numbers[0], "1000.00");
+        stubAccount(2L, numbers[1], "500.00");
+        LedgerEngine engine = startEngine(2);
+
+        // Act
+        Transaction result = engine.transfer(UUID.randomUUID().toString(), numbers[0], numbers[1], new BigDecimal("250.50"));
+        engine.flush();
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(Map.of(1L, new BigDecimal("749.50"), 2L, new BigDecimal("750.50")), flushedBalances());
+        verify(checkpointRepository).saveJournalSequence(0, 1L);
+        verify(checkpointRepository).saveJournalSequence(1, 1L);
+    }
+
+    @Test
+    void transfer_CrossShardRefundsWhenDestinationIsMissing() {
+        // Arrange
+        String[] numbers = accountsOnDifferentShards(2);
+        stubAccount(1L, numbers[0], "1000.00");
+        LedgerEngine engine = startEngine(2);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> engine.transfer(UUID.randomUUID().toString(), numbers[0], numbers[1], new BigDecimal("100")));
+        assertEquals("Destination account not found: " + numbers[1], exception.getMessage());
+        engine.flush();
+        assertEquals(Map.of(1L, new BigDecimal("1000.00")), flushedBalances());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void transfer_ReportsDebitAsInDoubtWhenJournalSyncFails() {
+        // Arrange: the source shard's journal can no longer be written
+        String[] numbers = accountsOnDifferentShards(2);
+        stubAccount(1L, numbers[0], "1000.00");
+        stubAccount(2L, numbers[1], "500.00");
+        LedgerEngine engine = startEngine(2);
+        LedgerShard[] shards = (LedgerShard[]) ReflectionTestUtils.getField(engine, "shards");
+        ((LedgerJournal) ReflectionTestUtils.getField(shards[0], "journal")).close();
+        String transactionId = UUID.randomUUID().toString();
+
+        // Act
+        TransferInDoubtException inDoubt = assertThrows(TransferInDoubtException.class,
+            () -> engine.transfer(transactionId, numbers[0], numbers[1], new BigDecimal("100")));
+
+        // Assert - the debit was applied in memory, so the transfer is not reported as failed
+        assertEquals(transactionId, inDoubt.getTransactionId());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void start_RecoversTransfersThatWereNotWrittenBehind() {
+        // Arrange: a first run acknowledges transfers and dies before flushing
+        String[] numbers = accountsOnDifferentShards(2);
+        stubAccount(1L, numbers[0], "1000.00");
+        stubAccount(2L, numbers[1], "500.00");
+        LedgerEngine crashed = new LedgerEngine(mock(AccountRepository.class), mock(TransactionRepository.class),
+            mock(LedgerCheckpointRepository.class), mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+        AccountRepository crashedAccounts = (AccountRepository) ReflectionTestUtils.getField(crashed, "accountRepository");
+        when(crashedAccounts.findByAccountNumber(numbers[0])).thenReturn(Optional.of(account(1L, numbers[0], "1000.00")));
+        when(crashedAccounts.findByAccountNumber(numbers[1])).thenReturn(Optional.of(account(2L, numbers[1], "500.00")));
+        configure(crashed, 2);
+        crashed.start();
+        crashed.transfer(UUID.randomUUID().toString(), numbers[0], numbers[1], new BigDecimal("100"));
+        crashed.transfer(UUID.randomUUID().toString(), numbers[1], numbers[0], new BigDecimal("30"));
+
+        // Act
+        startEngine(2);
+
+        // Assert
+        assertEquals(Map.of(1L, new BigDecimal("930.00"), 2L, new BigDecimal("570.00")), flushedBalances());
+        verify(transactionRepository).saveAll(argThat(transactions -> transactions.size() == 2));
+        verify(checkpointRepository).saveJournalSequence(0, 2L);
+        verify(checkpointRepository).saveJournalSequence(1, 2L);
+    }
+
+    @Test
+    void start_RefundsCrossShardDebitWithoutCredit() {
+        // Arrange: the debit was flushed (checkpoint 1) but the credit never happened
+        stubAccount(1L, "123", "900.00");
+        when(checkpointRepository.findJournalSequence(0)).thenReturn(1L);
+        Path journalFile = journalDir.resolve(LedgerRecovery.journalFileName(0));
+        try (LedgerJournal journal = LedgerJournal.open(journalFile, false)) {
+            journal.append(new JournalEntry(1, JournalEntry.Type.DEBIT, UUID.randomUUID(), 1L, 0L, 10000L,
+                System.currentTimeMillis()));
+        }
+
+        // Act
+        startEngine(1);
+
+        // Assert
+        assertEquals(Map.of(1L, new BigDecimal("1000.00")), flushedBalances());
+        verify(transactionRepository, never()).saveAll(anyList());
+        verify(checkpointRepository).saveJournalSequence(0, 2L);
+        assertEquals(0, Files.exists(journalFile) ? LedgerJournal.read(journalFile).size() : 0);
+    }
+
+    @Test
+    void await_ReportsUnconfirmedTransferAsInDoubt() {
+        // Arrange
+        LedgerEngine engine = new LedgerEngine(accountRepository, transactionRepository, checkpointRepository,
+            transactionManager, new SimpleMeterRegistry());
+        configure(engine, 1);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMs", 1L);
+
+        // Act
+        TransferInDoubtException inDoubt = assertThrows(TransferInDoubtException.class,
+            () -> engine.await(new CompletableFuture<>(), "tx-1"));
+
+        // Assert
+        assertEquals("tx-1", inDoubt.getTransactionId());
+    }
+
+    private LedgerEngine startEngine(int shards) {
+        LedgerEngine engine = new LedgerEngine(accountRepository, transactionRepository, checkpointRepository,
+            transactionManager, new SimpleMeterRegistry());
+        configure(engine, shards);
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private void configure(LedgerEngine engine, int shards) {
+        ReflectionTestUtils.setField(engine, "shardCount", shards);
+        ReflectionTestUtils.setField(engine, "queueCapacity", 1024);
+        ReflectionTestUtils.setField(engine, "maxDrain", 64);
+        ReflectionTestUtils.setField(engine, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(engine, "journalFsync", false);
+        ReflectionTestUtils.setField(engine, "flushChunkSize", 500);
+        ReflectionTestUtils.setField(engine, "submitTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(engine, "shutdownTimeoutMs", 5000L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, BigDecimal> flushedBalances() {
+        ArgumentCaptor<List<Account>> captor = ArgumentCaptor.forClass(List.class);
+        verify(accountRepository, atLeastOnce()).updateBalances(captor.capture());
+        return captor.getAllValues().stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toMap(Account::getId, Account::getBalance, (first, last) -> last));
+    }
+
+    private void stubAccount(Long id, String accountNumber, String balance) {
+        Account account = account(id, accountNumber, balance);
+        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Optional.of(account));
+        when(accountRepository.findById(id)).thenReturn(Optional.of(account(id, accountNumber, balance)));
+    }
+
+    private static Account account(Long id, String accountNumber, String balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder("Holder " + accountNumber);
+        account.setAccountType("CHECKING");
+        account.setBalance(new BigDecimal(balance));
+        account.setCurrency("USD");
+        account.setStatus("ACTIVE");
+        account.setVersion(0);
+        return account;
+    }
+
+    private static String[] accountsOnDifferentShards(int shards) {
+        String[] numbers = new String[shards];
+        for (int i = 0, found = 0; found < shards; i++) {
+            String candidate = "ACC-" + i;
+            int shard = Math.floorMod(candidate.hashCode(), shards);
+            if (numbers[shard] == null) {
+                numbers[shard] = candidate;
+                found++;
+            }
+        }
+        return numbers;
+    }
+}
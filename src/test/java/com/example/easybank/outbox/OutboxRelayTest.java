@@ -0,0 +1,96 @@
+package com.example.easybank.outbox;
+
+import com.example.easybank.dto.OutboxEvent;
+import com.example.easybank.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class OutboxRelayTest {
+
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final OutboxSink sink = mock(OutboxSink.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, sink, transactionManager, meterRegistry, 2, 86400);
+    }
+
+    @Test
+    void relay_PublishesBatchesInOrderAndMarksThemPublished() {
+        // Arrange - a full batch, then a partial one
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.findUnpublished(2))
+            .thenReturn(List.of(event(1L), event(2L)))
+            .thenReturn(List.of(event(3L)));
+
+        // Act
+        long published = relay.relay();
+
+        // Assert
+        assertEquals(3, published);
+        verify(sink, times(2)).publish(anyList());
+        verify(outboxRepository).markPublished(List.of(1L, 2L));
+        verify(outboxRepository).markPublished(List.of(3L));
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.get("outbox.published").counter().count());
+    }
+
+    @Test
+    void relay_SkipsRunWhenAnotherRelayHoldsTheLock() {
+        // Arrange
+        when(outboxRepository.tryLockRelay()).thenReturn(false);
+
+        // Act
+        long published = relay.relay();
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxRepository, never()).findUnpublished(anyInt());
+        verifyNoInteractions(sink);
+    }
+
+    @Test
+    void relay_LeavesBatchUnpublishedWhenSinkFails() {
+        // Arrange
+        when(outboxRepository.tryLockRelay()).thenReturn(true);
+        when(outboxRepository.findUnpublished(2)).thenReturn(List.of(event(1L)));
+        doThrow(new IllegalStateException("stream unavailable")).when(sink).publish(anyList());
+
+        // Act
+        long published = relay.relay();
+
+        // Assert
+        assertEquals(0, published);
+        verify(outboxRepository, never()).markPublished(anyList());
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.get("outbox.publish.failures").counter().count());
+    }
+
+    private static OutboxEvent event(long id) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setEventType("TRANSFER_COMPLETED");
+        event.setTransactionId("01890a5d-ac96-774b-bcce-b302099a8057");
+        event.setSourceAccountNumber("123");
+        event.setDestinationAccountNumber("456");
+        event.setAmount(BigDecimal.TEN);
+        event.setCurrency("USD");
+        event.setCreatedAt(OffsetDateTime.now());
+        return event;
+    }
+}
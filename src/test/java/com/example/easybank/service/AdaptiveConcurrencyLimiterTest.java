@@ -0,0 +1,103 @@
+package com.example.easybank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void tryAcquire_RefusesCallsBeyondLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 1.5, 100, meterRegistry);
+
+        // Act
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+        limiter.onIgnore();
+        boolean afterRelease = limiter.tryAcquire();
+
+        // Assert
+        assertTrue(first && second && afterRelease);
+        assertFalse(third);
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(2.0, meterRegistry.get("transfer.admission.in_flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("transfer.admission.decisions").tag("result", "rejected").counter().count());
+        assertEquals(3.0, meterRegistry.get("transfer.admission.decisions").tag("result", "admitted").counter().count());
+    }
+
+    @Test
+    void limitGrowsWhileLatencyStaysAtBaselineAndShrinksWhenItRises() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 1.5, 100, meterRegistry);
+
+        // Act: fully used limit, steady 10 ms transfers
+        runAtLimit(limiter, 30, 10);
+        int grown = limiter.getLimit();
+        // Transfers start queueing: 4x the latency
+        runAtLimit(limiter, 10, 40);
+
+        // Assert
+        assertTrue(grown > 10, "limit should grow at steady latency, was " + grown);
+        assertTrue(limiter.getLimit() < grown * 3 / 4, "limit should shrink under queueing, was " + limiter.getLimit());
+        assertEquals(limiter.getLimit(), meterRegistry.get("transfer.admission.limit").gauge().value());
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostOfItIsUnused() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 1.5, 100, meterRegistry);
+
+        // Act: one transfer at a time
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // Assert
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void onDropped_CutsLimitDownToMinimum() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100, 1.5, 100, meterRegistry);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.onDropped();
+        }
+
+        // Assert
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Fills the current limit, then completes every call with the given latency.
+     */
+    private static void runAtLimit(AdaptiveConcurrencyLimiter limiter, int rounds, long latencyMs) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            }
+        }
+    }
+}
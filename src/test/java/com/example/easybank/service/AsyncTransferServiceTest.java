@@ -0,0 +1,58 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncTransferServiceTest {
+
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AsyncTransferService asyncTransferService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.stop();
+    }
+
+    @Test
+    void submit_WakesWorkerToApplyPendingTransfers() {
+        // Arrange - the poll interval is far longer than the test may take
+        asyncTransferService = new AsyncTransferService(transactionService, meterRegistry, 1, 100, 60_000, 1000);
+        Transaction pending = new Transaction();
+        pending.setStatus(TransactionStatus.PENDING);
+        when(transactionService.submitTransaction("123", "456", BigDecimal.TEN)).thenReturn(pending);
+        asyncTransferService.start();
+        verify(transactionService, timeout(5000).times(1)).processPendingTransfers(100);
+
+        // Act
+        Transaction result = asyncTransferService.submit("123", "456", BigDecimal.TEN);
+
+        // Assert
+        assertSame(pending, result);
+        verify(transactionService, timeout(5000).times(2)).processPendingTransfers(100);
+        assertEquals(1.0, meterRegistry.get("transfer.async.submitted").counter().count());
+    }
+
+    @Test
+    void processPending_KeepsWorkerAliveWhenChunkFails() {
+        // Arrange
+        asyncTransferService = new AsyncTransferService(transactionService, meterRegistry, 0, 100, 1000, 1000);
+        when(transactionService.processPendingTransfers(100))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"))
+            .thenReturn(3);
+
+        // Act & Assert
+        assertEquals(0, asyncTransferService.processPending());
+        assertEquals(3, asyncTransferService.processPending());
+        assertEquals(1.0, meterRegistry.get("transfer.async.failures").counter().count());
+    }
+}
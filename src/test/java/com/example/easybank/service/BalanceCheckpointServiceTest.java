@@ -0,0 +1,103 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.dto.BalanceCheckpoint;
+import com.example.easybank.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BalanceCheckpointServiceTest {
+
+    private LedgerEntryRepository ledgerEntryRepository;
+    private AccountCacheWriter accountCacheWriter;
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceCheckpointService checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        ledgerEntryRepository = mock(LedgerEntryRepository.class);
+        accountCacheWriter = mock(AccountCacheWriter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        checkpointService = new BalanceCheckpointService(ledgerEntryRepository, accountCacheWriter,
+                mock(PlatformTransactionManager.class), meterRegistry, TransferMode.LOCKING);
+    }
+
+    @Test
+    void checkpoint_SweepsAllAccountsFirstThenOnlyNewEntries() {
+        // Arrange
+        when(ledgerEntryRepository.oldestRunningTxid()).thenReturn(100L, 120L);
+        when(ledgerEntryRepository.findAccountsBehindLedger()).thenReturn(List.of("123", "456"));
+        when(ledgerEntryRepository.findAccountsWithEntriesSince(100L)).thenReturn(List.of());
+        when(ledgerEntryRepository.rollForward("123")).thenReturn(checkpoint("123", 4, 3));
+        when(ledgerEntryRepository.rollForward("456")).thenReturn(checkpoint("456", 2, 1));
+
+        // Act
+        long firstRun = checkpointService.checkpoint();
+        long secondRun = checkpointService.checkpoint();
+
+        // Assert
+        assertEquals(4, firstRun);
+        assertEquals(0, secondRun);
+        var inOrder = inOrder(ledgerEntryRepository);
+        inOrder.verify(ledgerEntryRepository).lockExclusive("123");
+        inOrder.verify(ledgerEntryRepository).rollForward("123");
+        verify(accountCacheWriter).evictAfterCommit("123", 4);
+        verify(accountCacheWriter).evictAfterCommit("456", 2);
+        verify(ledgerEntryRepository, times(1)).findAccountsBehindLedger();
+        assertEquals(2.0, meterRegistry.get("ledger.checkpoint.accounts").counter().count());
+        assertEquals(4.0, meterRegistry.get("ledger.checkpoint.entries").counter().count());
+    }
+
+    @Test
+    void checkpoint_RetriesFromSameTxidWhenAnAccountFails() {
+        // Arrange
+        when(ledgerEntryRepository.oldestRunningTxid()).thenReturn(100L, 120L, 130L);
+        when(ledgerEntryRepository.findAccountsBehindLedger()).thenReturn(List.of());
+        when(ledgerEntryRepository.findAccountsWithEntriesSince(anyLong())).thenReturn(List.of("123"));
+        when(ledgerEntryRepository.rollForward("123"))
+            .thenThrow(new CannotAcquireLockException("lock timeout"))
+            .thenReturn(checkpoint("123", 5, 2));
+
+        // Act
+        checkpointService.checkpoint();
+        checkpointService.checkpoint();
+        checkpointService.checkpoint();
+
+        // Assert
+        verify(ledgerEntryRepository, times(2)).findAccountsWithEntriesSince(100L);
+        verify(ledgerEntryRepository, never()).findAccountsWithEntriesSince(120L);
+        verify(ledgerEntryRepository, times(2)).rollForward("123");
+        verify(accountCacheWriter, times(1)).evictAfterCommit("123", 5);
+    }
+
+    @Test
+    void checkpoint_LeavesBalancesToTheLedgerEngine() {
+        // Arrange
+        BalanceCheckpointService engineMode = new BalanceCheckpointService(ledgerEntryRepository, accountCacheWriter,
+                mock(PlatformTransactionManager.class), meterRegistry, TransferMode.ENGINE);
+
+        // Act
+        long entries = engineMode.checkpoint();
+
+        // Assert
+        assertEquals(0, entries);
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    private BalanceCheckpoint checkpoint(String accountNumber, int version, long entries) {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAccountNumber(accountNumber);
+        checkpoint.setVersion(version);
+        checkpoint.setEntries(entries);
+        return checkpoint;
+    }
+}
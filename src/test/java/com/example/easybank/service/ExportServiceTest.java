@@ -0,0 +1,151 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectMapper objectMapper;
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exportService = new ExportService(accountRepository, transactionRepository,
+                mock(PlatformTransactionManager.class), objectMapper, meterRegistry);
+    }
+
+    @Test
+    void exportTransactions_WritesOneJsonDocumentPerLine() throws Exception {
+        // Arrange
+        Account account = account(1L, "ACC-1", "Alice");
+        ListCursor<Transaction> cursor = new ListCursor<>(List.of(transaction(10L, 1L, 2L), transaction(11L, 2L, 1L)));
+        when(transactionRepository.streamAccountHistory(1L)).thenReturn(cursor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        long rows = exportService.exportTransactions(account, ExportFormat.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("tx-10", first.get("transactionId").asText());
+        assertTrue(lines[0].contains("\"amount\":-25.00"));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"amount\":25.00"));
+        assertTrue(cursor.closed);
+        assertEquals(2.0, meterRegistry.get("export.rows").tags("dataset", "transactions", "format", "ndjson")
+                .counter().count());
+    }
+
+    @Test
+    void exportAccounts_WritesCsvHeaderAndQuotesFields() {
+        // Arrange
+        when(accountRepository.streamAll()).thenReturn(new ListCursor<>(List.of(
+                account(1L, "ACC-1", "Alice"), account(2L, "ACC-2", "Smith, \"Bob\""))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        exportService.exportAccounts(ExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("accountNumber,accountHolder,accountType,status,balance,currency,version,createdAt,updatedAt", lines[0]);
+        assertTrue(lines[1].startsWith("ACC-1,Alice,CHECKING,ACTIVE,100.00,USD,0,"));
+        assertTrue(lines[2].startsWith("ACC-2,\"Smith, \"\"Bob\"\"\",CHECKING,"));
+    }
+
+    private static Account account(Long id, String accountNumber, String holder) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder(holder);
+        account.setAccountType("CHECKING");
+        account.setStatus("ACTIVE");
+        account.setBalance(new BigDecimal("100.00"));
+        account.setCurrency("USD");
+        account.setVersion(0);
+        account.setCreatedAt(OffsetDateTime.parse("2024-05-01T10:00:00Z"));
+        return account;
+    }
+
+    private static Transaction transaction(Long id, Long sourceAccountId, Long destinationAccountId) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionId("tx-" + id);
+        transaction.setSourceAccountId(sourceAccountId);
+        transaction.setDestinationAccountId(destinationAccountId);
+        transaction.setAmount(new BigDecimal("25.00"));
+        transaction.setCurrency("USD");
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(OffsetDateTime.parse("2024-05-01T10:00:00Z"));
+        return transaction;
+    }
+
+    private static class ListCursor<T> implements Cursor<T> {
+        private final List<T> rows;
+        private boolean closed;
+
+        ListCursor(List<T> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return !closed;
+        }
+
+        @Override
+        public boolean isConsumed() {
+            return false;
+        }
+
+        @Override
+        public int getCurrentIndex() {
+            return 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return rows.iterator();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
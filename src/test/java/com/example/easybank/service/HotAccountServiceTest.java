@@ -0,0 +1,142 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.AccountCacheWriter;
+import com.example.easybank.domain.Account;
+import com.example.easybank.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class HotAccountServiceTest {
+
+    private AccountRepository accountRepository;
+    private AccountCacheWriter accountCacheWriter;
+    private HotAccountService hotAccountService;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        accountCacheWriter = mock(AccountCacheWriter.class);
+        hotAccountService = new HotAccountService(accountRepository, accountCacheWriter, new SimpleMeterRegistry(), 16,
+                TransferMode.LOCKING);
+    }
+
+    @Test
+    void credit_UsesSlotAndFallsBackToRowWhenSlotIsGone() {
+        // Arrange
+        Account account = account(7L, "ACC-FEES", "0", 4);
+        when(accountRepository.creditBalanceSlot(eq(7L), anyInt(), any())).thenReturn(1, 0);
+        when(accountRepository.applyBalanceDelta(7L, BigDecimal.TEN)).thenReturn(1);
+
+        // Act
+        hotAccountService.credit(account, BigDecimal.TEN);
+        hotAccountService.credit(account, BigDecimal.TEN);
+
+        // Assert
+        verify(accountRepository, times(2)).creditBalanceSlot(eq(7L), intThat(slot -> slot >= 0 && slot < 4), eq(BigDecimal.TEN));
+        verify(accountRepository, times(1)).applyBalanceDelta(7L, BigDecimal.TEN);
+        verifyNoInteractions(accountCacheWriter);
+    }
+
+    @Test
+    void consolidateIfShort_MovesSlotsOnlyWhenRowBalanceIsShort() {
+        // Arrange
+        Account account = account(7L, "ACC-FEES", "50", 4);
+        when(accountRepository.lockBalanceSlots(7L)).thenReturn(new BigDecimal("200"));
+
+        // Act
+        boolean covered = hotAccountService.consolidateIfShort(account, new BigDecimal("40"));
+        boolean moved = hotAccountService.consolidateIfShort(account, new BigDecimal("100"));
+
+        // Assert
+        assertFalse(covered);
+        assertTrue(moved);
+        assertEquals(new BigDecimal("250"), account.getBalance());
+        verify(accountRepository, times(1)).clearBalanceSlots(7L);
+        assertFalse(hotAccountService.consolidateIfShort(account(8L, "ACC-1", "0", 0), BigDecimal.TEN));
+    }
+
+    @Test
+    void setBalanceSlots_FoldsExistingSlotsAndRecreatesThem() {
+        // Arrange
+        Account account = account(7L, "ACC-FEES", "100", 4);
+        when(accountRepository.findByAccountNumberWithLock("ACC-FEES")).thenReturn(Optional.of(account));
+        when(accountRepository.lockBalanceSlots(7L)).thenReturn(new BigDecimal("30"));
+
+        // Act
+        Account result = hotAccountService.setBalanceSlots("FEES", 8);
+
+        // Assert
+        var inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).deleteBalanceSlots(7L);
+        inOrder.verify(accountRepository).insertBalanceSlots(7L, 8);
+        inOrder.verify(accountRepository).updateBalanceSlots(account);
+        assertEquals(new BigDecimal("130"), result.getBalance());
+        assertEquals(8, result.getBalanceSlots());
+        assertTrue(hotAccountService.isHot("ACC-FEES"));
+        verify(accountCacheWriter).evictAfterCommit("ACC-FEES", null);
+        assertThrows(IllegalArgumentException.class, () -> hotAccountService.setBalanceSlots("FEES", 17));
+    }
+
+    @Test
+    void setBalanceSlots_IsRejectedInEngineMode() {
+        // Arrange
+        HotAccountService engineMode = new HotAccountService(accountRepository, accountCacheWriter,
+                new SimpleMeterRegistry(), 16, TransferMode.ENGINE);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> engineMode.setBalanceSlots("FEES", 8));
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    void setBalanceSlots_OnlyTurnsSlotsOnInModesThatCreditThem() {
+        // Arrange
+        HotAccountService optimisticMode = new HotAccountService(accountRepository, accountCacheWriter,
+                new SimpleMeterRegistry(), 16, TransferMode.OPTIMISTIC);
+        Account account = account(7L, "ACC-FEES", "100", 4);
+        when(accountRepository.findByAccountNumberWithLock("ACC-FEES")).thenReturn(Optional.of(account));
+        when(accountRepository.lockBalanceSlots(7L)).thenReturn(new BigDecimal("30"));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> optimisticMode.setBalanceSlots("FEES", 8));
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+        // Slots left over from another mode can still be folded into the row
+        assertEquals(new BigDecimal("130"), optimisticMode.setBalanceSlots("FEES", 0).getBalance());
+        verify(accountRepository, never()).insertBalanceSlots(any(), anyInt());
+    }
+
+    @Test
+    void refresh_ReloadsHotAccountNumbers() {
+        // Arrange
+        when(accountRepository.findAccountNumbersWithBalanceSlots()).thenReturn(List.of("ACC-FEES"));
+
+        // Act
+        hotAccountService.refresh();
+
+        // Assert
+        assertTrue(hotAccountService.isHot("ACC-FEES"));
+        assertFalse(hotAccountService.isHot("ACC-1"));
+    }
+
+    private Account account(Long id, String accountNumber, String balance, int slots) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        account.setStatus("ACTIVE");
+        account.setVersion(0);
+        account.setBalanceSlots(slots);
+        return account;
+    }
+}
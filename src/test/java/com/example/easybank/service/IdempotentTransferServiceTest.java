@@ -0,0 +1,251 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import com.example.easybank.dto.IdempotencyRecord;
+import com.example.easybank.exception.IdempotencyKeyInProgressException;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.repository.IdempotencyKeyRepository;
+import com.example.easybank.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotentTransferServiceTest {
+
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    private TransactionRepository transactionRepository;
+    private ValueOperations<String, String> cache;
+    private ObjectMapper objectMapper;
+    private IdempotentTransferService idempotentTransferService;
+    private AtomicInteger transfers;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        cache = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(cache);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        idempotentTransferService = new IdempotentTransferService(idempotencyKeyRepository, transactionRepository,
+                redisTemplate, objectMapper, new SimpleMeterRegistry(), 3600);
+        transfers = new AtomicInteger();
+    }
+
+    @Test
+    void execute_RunsNewKeyOnceAndStoresResponse() throws Exception {
+        // Arrange
+        when(idempotencyKeyRepository.claim(eq("123"), eq("key-1"), anyString(), anyString())).thenReturn(1);
+
+        // Act
+        Transaction result = execute("key-1", "100.00");
+
+        // Assert
+        assertEquals(1, transfers.get());
+        assertEquals("tx-1", result.getTransactionId());
+        ArgumentCaptor<String> response = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).complete(eq("123"), eq("key-1"), response.capture());
+        assertEquals("tx-1", objectMapper.readValue(response.getValue(), Transaction.class).getTransactionId());
+        verify(cache).set(eq("easybank:idempotency:123:key-1"), endsWith(response.getValue()), eq(Duration.ofHours(1)));
+    }
+
+    @Test
+    void execute_ReplaysCachedResponseWithoutTransfer() throws Exception {
+        // Arrange
+        String requestHash = IdempotentTransferService.requestHash("456", new BigDecimal("100"));
+        when(cache.get("easybank:idempotency:123:key-1"))
+                .thenReturn(requestHash + ":" + objectMapper.writeValueAsString(transaction("tx-1")));
+
+        // Act
+        Transaction result = execute("key-1", "100.00");
+
+        // Assert
+        assertEquals("tx-1", result.getTransactionId());
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(0, transfers.get());
+        verify(idempotencyKeyRepository, never()).claim(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void execute_ReplaysStoredResponseWhenCacheUnavailable() throws Exception {
+        // Arrange
+        when(cache.get(anyString())).thenThrow(new QueryTimeoutException("Redis timed out"));
+        when(idempotencyKeyRepository.claim(eq("123"), eq("key-1"), anyString(), anyString())).thenReturn(0);
+        when(idempotencyKeyRepository.find("123", "key-1")).thenReturn(
+                record(IdempotencyRecord.COMPLETED, objectMapper.writeValueAsString(transaction("tx-1"))));
+
+        // Act
+        Transaction result = execute("key-1", "100");
+
+        // Assert
+        assertEquals("tx-1", result.getTransactionId());
+        assertEquals(0, transfers.get());
+    }
+
+    @Test
+    void execute_RejectsDuplicateInProgressAndKeyReusedForOtherTransfer() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(0);
+        when(idempotencyKeyRepository.find("123", "key-1")).thenReturn(record(IdempotencyRecord.IN_PROGRESS, null));
+        when(transactionRepository.findByTransactionId("tx-0")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        IdempotencyKeyInProgressException inProgress = assertThrows(IdempotencyKeyInProgressException.class,
+            () -> execute("key-1", "100"));
+        assertEquals("A transfer with this Idempotency-Key is still in progress: transaction tx-0",
+            inProgress.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> execute("key-1", "99"));
+        assertThrows(IllegalArgumentException.class, () -> execute(" ", "100"));
+        assertEquals(0, transfers.get());
+    }
+
+    @Test
+    void execute_ResolvesKeyLeftInProgressByItsCommittedTransaction() throws Exception {
+        // Arrange - the node running tx-0 stopped after the commit, before storing the response
+        when(idempotencyKeyRepository.claim(eq("123"), eq("key-1"), anyString(), anyString())).thenReturn(0);
+        when(idempotencyKeyRepository.find("123", "key-1")).thenReturn(record(IdempotencyRecord.IN_PROGRESS, null));
+        when(transactionRepository.findByTransactionId("tx-0")).thenReturn(Optional.of(transaction("tx-0")));
+
+        // Act
+        Transaction result = execute("key-1", "100");
+
+        // Assert
+        assertEquals("tx-0", result.getTransactionId());
+        assertEquals(0, transfers.get());
+        ArgumentCaptor<String> response = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).complete(eq("123"), eq("key-1"), response.capture());
+        assertEquals("tx-0", objectMapper.readValue(response.getValue(), Transaction.class).getTransactionId());
+    }
+
+    @Test
+    void execute_ReleasesKeyWhenTransferFails() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> idempotentTransferService.execute("key-1", "123", "456",
+                new BigDecimal("100"), transactionId -> {
+                    throw new IllegalArgumentException("Insufficient funds in source account");
+                }));
+        verify(idempotencyKeyRepository).release("123", "key-1");
+        verify(idempotencyKeyRepository, never()).complete(anyString(), anyString(), any());
+    }
+
+    @Test
+    void execute_KeepsKeyOfTransferInDoubt() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // Act & Assert
+        assertThrows(TransferInDoubtException.class, () -> idempotentTransferService.execute("key-1", "123", "456",
+                new BigDecimal("100"), transactionId -> {
+                    throw new TransferInDoubtException(transactionId, "Transfer was not confirmed within 5000 ms");
+                }));
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+        verify(idempotencyKeyRepository, never()).complete(anyString(), anyString(), any());
+    }
+
+    @Test
+    void execute_ReturnsCommittedTransactionWhenTransferFailsAfterCommit() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+        when(transactionRepository.findByTransactionId(anyString()))
+                .thenAnswer(invocation -> Optional.of(transaction(invocation.getArgument(0))));
+
+        // Act
+        Transaction result = idempotentTransferService.execute("key-1", "123", "456", new BigDecimal("100"),
+                transactionId -> {
+                    throw new DataAccessResourceFailureException("Connection lost after commit");
+                });
+
+        // Assert
+        verify(transactionRepository).findByTransactionId(result.getTransactionId());
+        verify(idempotencyKeyRepository, never()).release(anyString(), anyString());
+        verify(idempotencyKeyRepository).complete(eq("123"), eq("key-1"), anyString());
+    }
+
+    @Test
+    void execute_ReleasesKeyWhenFailedTransferDidNotCommit() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+        when(transactionRepository.findByTransactionId(anyString())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(DataAccessResourceFailureException.class, () -> idempotentTransferService.execute("key-1",
+                "123", "456", new BigDecimal("100"), transactionId -> {
+                    throw new DataAccessResourceFailureException("Connection lost");
+                }));
+        verify(idempotencyKeyRepository).release("123", "key-1");
+    }
+
+    @Test
+    void execute_ReleasesKeyWhenRetriesEndInFailedTransaction() {
+        // Arrange
+        when(idempotencyKeyRepository.claim(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+
+        // Act
+        Transaction result = idempotentTransferService.execute("key-1", "123", "456", new BigDecimal("100"),
+                transactionId -> {
+                    Transaction failed = transaction(transactionId);
+                    failed.setStatus(TransactionStatus.FAILED);
+                    return failed;
+                });
+
+        // Assert
+        assertEquals(TransactionStatus.FAILED, result.getStatus());
+        verify(idempotencyKeyRepository).release("123", "key-1");
+        verify(idempotencyKeyRepository, never()).complete(anyString(), anyString(), any());
+        verify(cache, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    private Transaction execute(String key, String amount) {
+        return idempotentTransferService.execute(key, "123", "456", new BigDecimal(amount), transactionId -> {
+            transfers.incrementAndGet();
+            return transaction("tx-" + transfers.get());
+        });
+    }
+
+    private IdempotencyRecord record(String status, String response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setRequestHash(IdempotentTransferService.requestHash("456", new BigDecimal("100")));
+        record.setTransactionId("tx-0");
+        record.setStatus(status);
+        record.setResponse(response);
+        return record;
+    }
+
+    private Transaction transaction(String transactionId) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        transaction.setAmount(new BigDecimal("100"));
+        transaction.setCurrency("USD");
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setSourceAccountNumber("123");
+        transaction.setDestinationAccountNumber("456");
+        return transaction;
+    }
+}
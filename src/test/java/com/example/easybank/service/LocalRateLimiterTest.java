@@ -0,0 +1,131 @@
+package com.example.easybank.service;
+
+import com.example.easybank.dto.RateLimitResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LocalRateLimiterTest {
+
+    private StringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private LocalRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LocalRateLimiter(redisTemplate, meterRegistry);
+    }
+
+    @Test
+    void tryAcquire_AdmitsBurstUpToLimitWithoutRedis() {
+        // Act
+        RateLimitResult first = limiter.tryAcquire("client", 3);
+        limiter.tryAcquire("client", 3);
+        limiter.tryAcquire("client", 3);
+        RateLimitResult fourth = limiter.tryAcquire("client", 3);
+
+        // Assert
+        assertTrue(first.isAllowed());
+        assertEquals(2, first.getRemaining());
+        assertFalse(fourth.isAllowed());
+        assertTrue(fourth.getRetryAfterMs() > 0 && fourth.getRetryAfterMs() <= 20_000);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void tryAcquire_ChargesCostAgainstBurst() {
+        // Arrange
+        RateLimitQuota quota = RateLimitQuota.of(60, 20, 10);
+
+        // Act
+        RateLimitResult first = limiter.tryAcquire("client", quota);
+        limiter.tryAcquire("client", quota);
+        RateLimitResult third = limiter.tryAcquire("client", quota);
+
+        // Assert: two calls of cost 10 use up a burst of 20, refilled at one per second
+        assertTrue(first.isAllowed());
+        assertEquals(20, first.getLimit());
+        assertEquals(10, first.getRemaining());
+        assertFalse(third.isAllowed());
+        assertTrue(third.getRetryAfterMs() > 9_000 && third.getRetryAfterMs() <= 10_000);
+    }
+
+    @Test
+    void tryAcquire_SwitchesBucketToChangedQuota() {
+        // Arrange
+        limiter.tryAcquire("client", 3);
+        limiter.tryAcquire("client", 3);
+
+        // Act: the limit of the key is raised, then lowered below what is left
+        RateLimitResult raised = limiter.tryAcquire("client", 100);
+        RateLimitResult lowered = limiter.tryAcquire("client", RateLimitQuota.of(60, 1, 1));
+
+        // Assert: the raised limit does not grant a fresh burst, the lowered one caps what is left
+        assertTrue(raised.isAllowed());
+        assertEquals(100, raised.getLimit());
+        assertEquals(0, raised.getRemaining());
+        assertFalse(lowered.isAllowed());
+        assertEquals(1, lowered.getLimit());
+    }
+
+    @Test
+    void sync_TakesCallsAdmittedByOtherNodesFromLocalBucket() {
+        // Arrange: this node admits 2 of 10; the cluster total grows by 2 + 7 between syncs
+        limiter.tryAcquire("client", 10);
+        limiter.tryAcquire("client", 10);
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenReturn(List.of(2L, true))
+            .thenReturn(List.of(11L, true));
+
+        // Act
+        limiter.sync();
+        limiter.tryAcquire("client", 10);
+        limiter.tryAcquire("client", 10);
+        limiter.sync();
+        RateLimitResult afterSync = limiter.tryAcquire("client", 10);
+
+        // Assert: 10 - 4 own - 7 others leaves the bucket empty, one call over the limit
+        assertFalse(afterSync.isAllowed());
+        assertEquals(1.0, meterRegistry.get("ratelimit.local.overshoot").summary().totalAmount());
+    }
+
+    @Test
+    void sync_KeepsCountsWhenRedisIsDown() {
+        // Arrange
+        limiter.tryAcquire("client", 10);
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+            .thenThrow(new RedisConnectionFailureException("down"))
+            .thenReturn(List.of(1L, true));
+
+        // Act
+        limiter.sync();
+        limiter.sync();
+
+        // Assert: the second sync pushes the call the failed one could not
+        assertEquals(1.0, meterRegistry.get("ratelimit.local.sync.failures").counter().count());
+        ArgumentCaptor<RedisCallback<?>> callbacks = ArgumentCaptor.forClass(RedisCallback.class);
+        verify(redisTemplate, times(2)).executePipelined(callbacks.capture());
+        RedisConnection connection = mock(RedisConnection.class);
+        RedisStringCommands stringCommands = mock(RedisStringCommands.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.keyCommands()).thenReturn(mock(RedisKeyCommands.class));
+        callbacks.getAllValues().get(1).doInRedis(connection);
+        verify(stringCommands).incrBy("ratelimit:local:client".getBytes(StandardCharsets.UTF_8), 1L);
+    }
+}
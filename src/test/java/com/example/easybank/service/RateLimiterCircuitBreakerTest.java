@@ -0,0 +1,75 @@
+package com.example.easybank.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterCircuitBreakerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void opensWhenFailureRateOfFullWindowReachesThreshold() {
+        // Arrange
+        RateLimiterCircuitBreaker breaker = new RateLimiterCircuitBreaker(4, 50, 50, 60000, meterRegistry);
+
+        // Act: one failure and one slow answer out of four calls
+        breaker.onError();
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        RateLimiterCircuitBreaker.State beforeSlowCall = breaker.getState();
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(80));
+
+        // Assert
+        assertEquals(RateLimiterCircuitBreaker.State.CLOSED, beforeSlowCall);
+        assertEquals(RateLimiterCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1.0, meterRegistry.get("ratelimit.circuit.state").tag("state", "open").gauge().value());
+        assertEquals(1.0, meterRegistry.get("ratelimit.circuit.calls").tag("outcome", "slow").counter().count());
+        assertEquals(1.0, meterRegistry.get("ratelimit.circuit.calls").tag("outcome", "not_permitted").counter().count());
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndClosesOnSuccess() throws InterruptedException {
+        // Arrange
+        RateLimiterCircuitBreaker breaker = new RateLimiterCircuitBreaker(1, 100, 50, 20, meterRegistry);
+        breaker.onError();
+        TimeUnit.MILLISECONDS.sleep(30);
+
+        // Act
+        boolean probe = breaker.tryAcquirePermission();
+        boolean secondWhileProbing = breaker.tryAcquirePermission();
+        breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+
+        // Assert
+        assertTrue(probe);
+        assertFalse(secondWhileProbing);
+        assertEquals(RateLimiterCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void failedProbeOpensCircuitAgain() throws InterruptedException {
+        // Arrange
+        RateLimiterCircuitBreaker breaker = new RateLimiterCircuitBreaker(1, 100, 50, 20, meterRegistry);
+        breaker.onError();
+        TimeUnit.MILLISECONDS.sleep(30);
+
+        // Act
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onError();
+
+        // Assert
+        assertEquals(RateLimiterCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+}
@@ -1,20 +1,30 @@
 package com.example.easybank.service;
 
+import com.example.easybank.dto.RateLimitResult;
 import com.example.easybank.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,19 +35,28 @@ class RateLimiterServiceTest {
     
     @Mock
     private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private LocalRateLimiter localRateLimiter;
+
+    // Opens once both of the last two Redis calls failed
+    @Spy
+    private RateLimiterCircuitBreaker circuitBreaker = new RateLimiterCircuitBreaker(2, 100, 1000, 60000,
+        new SimpleMeterRegistry());
     
     @InjectMocks
     private RateLimiterService rateLimiterService;
 
     @BeforeEach
     void setUp() {
-        // Set up ZSet operations
-        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        // Set up ZSet operations (not used by the GCRA tests)
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
         
         // Set the rate limit values via reflection
         ReflectionTestUtils.setField(rateLimiterService, "maxRequestsPerMinute", 600);
         ReflectionTestUtils.setField(rateLimiterService, "maxTransactionsPerMinute", 100);
         ReflectionTestUtils.setField(rateLimiterService, "retryAfterSeconds", 30);
+        ReflectionTestUtils.setField(rateLimiterService, "backend", RateLimitBackend.SLIDING_LOG);
     }
 
     @Test
@@ -135,4 +154,80 @@ class RateLimiterServiceTest {
             () -> rateLimiterService.checkTransactionRateLimit(accountNumber),
             "Should throw exception on post-check");
     }
-} 
\ No newline at end of file
+
+    @Test
+    void tryAcquire_RunsOneScriptAndReturnsQuota() {
+        // Arrange
+        ReflectionTestUtils.setField(rateLimiterService, "backend", RateLimitBackend.GCRA);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("ratelimit:gcra:test-key")), eq("100000"), eq("600"), eq("1")))
+            .thenReturn(List.of(1L, 599L, 0L, 100L));
+
+        // Act
+        RateLimitResult result = rateLimiterService.tryAcquire("test-key", 600);
+
+        // Assert
+        assertTrue(result.isAllowed());
+        assertEquals(600, result.getLimit());
+        assertEquals(599, result.getRemaining());
+        assertEquals(100, result.getResetAfterMs());
+        assertDoesNotThrow(() -> rateLimiterService.checkRateLimit("test-key"));
+    }
+
+    @Test
+    void gcraTransactionRateLimit_UsesRetryDelayFromScript() {
+        // Arrange
+        ReflectionTestUtils.setField(rateLimiterService, "backend", RateLimitBackend.GCRA);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("ratelimit:gcra:transaction:test-account")), eq("600000"), eq("100"), eq("1")))
+            .thenReturn(List.of(0L, 0L, 1200L, 60000L));
+
+        // Act
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+            () -> rateLimiterService.checkTransactionRateLimit("test-account"));
+
+        // Assert
+        assertEquals(2, e.getRetryAfterSeconds(), "Retry-After should be rounded up from the script's delay");
+        assertTrue(e.getMessage().contains("account"));
+    }
+
+    @Test
+    void redisFailure_FallsBackToLocalLimiterInsteadOfRejecting() {
+        // Arrange
+        ReflectionTestUtils.setField(rateLimiterService, "backend", RateLimitBackend.GCRA);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any(), any()))
+            .thenThrow(new QueryTimeoutException("Redis command timed out"));
+        when(localRateLimiter.tryAcquire(eq("test-key"), quotaOf(600)))
+            .thenReturn(RateLimitResult.builder().allowed(true).limit(600).remaining(599).build());
+
+        // Act & Assert
+        assertDoesNotThrow(() -> rateLimiterService.checkRateLimit("test-key"));
+        verify(localRateLimiter).tryAcquire(eq("test-key"), quotaOf(600));
+        assertEquals(RateLimiterCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void openCircuit_SkipsRedisUntilItCloses() {
+        // Arrange: the sliding log fails twice in a row
+        when(zSetOperations.removeRangeByScore(anyString(), anyDouble(), anyDouble()))
+            .thenThrow(new QueryTimeoutException("Redis command timed out"));
+        when(localRateLimiter.tryAcquire(eq("transaction:test-account"), quotaOf(100)))
+            .thenReturn(RateLimitResult.builder().allowed(true).limit(100).build())
+            .thenReturn(RateLimitResult.builder().allowed(true).limit(100).build())
+            .thenReturn(RateLimitResult.builder().allowed(false).limit(100).retryAfterMs(600).build());
+
+        // Act
+        rateLimiterService.checkTransactionRateLimit("test-account");
+        rateLimiterService.checkTransactionRateLimit("test-account");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+            () -> rateLimiterService.checkTransactionRateLimit("test-account"));
+
+        // Assert: the third check is answered in process without asking Redis
+        assertEquals(RateLimiterCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        verify(zSetOperations, times(2)).removeRangeByScore(anyString(), anyDouble(), anyDouble());
+        verify(zSetOperations, never()).add(anyString(), anyString(), anyDouble());
+        assertEquals(1, e.getRetryAfterSeconds());
+    }
+
+    private static RateLimitQuota quotaOf(int requestsPerMinute) {
+        return argThat((RateLimitQuota quota) -> quota.getRequestsPerMinute() == requestsPerMinute);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.easybank.service;
+
+import com.example.easybank.cache.CacheInvalidationBroadcaster;
+import com.example.easybank.cache.TwoTierCacheManager;
+import com.example.easybank.domain.Account;
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.domain.TransactionStatus;
+import com.example.easybank.domain.TransactionType;
+import com.example.easybank.dto.TransactionHistoryPage;
+import com.example.easybank.repository.ReactiveReadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReactiveQueryServiceTest {
+
+    private ReactiveReadRepository readRepository;
+    private ConcurrentMapCacheManager sharedCacheManager;
+    private TwoTierCacheManager cacheManager;
+    private ReactiveQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        readRepository = mock(ReactiveReadRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        sharedCacheManager = new ConcurrentMapCacheManager("accounts");
+        cacheManager = new TwoTierCacheManager(sharedCacheManager,
+                new CacheInvalidationBroadcaster(mock(StringRedisTemplate.class), "invalidations", meterRegistry),
+                meterRegistry, 100, Duration.ofMinutes(1));
+        queryService = new ReactiveQueryService(readRepository, cacheManager);
+        ReflectionTestUtils.setField(queryService, "historyDefaultPageSize", 2);
+        ReflectionTestUtils.setField(queryService, "historyMaxPageSize", 10);
+    }
+
+    @Test
+    void getAccount_ServesLocalCacheTierWithoutQuery() {
+        // Arrange
+        Account cached = account(1L, "ACC-123");
+        cacheManager.getCache("accounts").put("ACC-123", cached);
+
+        // Act
+        Account account = queryService.getAccount("123").block();
+
+        // Assert
+        assertSame(cached, account);
+        verify(readRepository, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    void getAccount_QueriesDatabaseInsteadOfRedisTier() {
+        // Arrange
+        sharedCacheManager.getCache("accounts").put("ACC-123", account(1L, "ACC-123"));
+        Account stored = account(1L, "ACC-123");
+        when(readRepository.findByAccountNumber("ACC-123")).thenReturn(Mono.just(stored));
+        when(readRepository.findByAccountNumber("ACC-999")).thenReturn(Mono.empty());
+
+        // Act
+        Account account = queryService.getAccount("ACC-123").block();
+        Mono<Account> missing = queryService.getAccount("ACC-999");
+
+        // Assert
+        assertSame(stored, account);
+        assertThrows(IllegalArgumentException.class, missing::block);
+    }
+
+    @Test
+    void getTransactionHistory_ReturnsPageAndCursorForNextPage() {
+        // Arrange
+        when(readRepository.findByAccountNumber("123")).thenReturn(Mono.just(account(1L, "123")));
+        OffsetDateTime now = OffsetDateTime.parse("2024-05-01T10:00:00.123456Z");
+        when(readRepository.findHistoryPage(1L, null, null, 3)).thenReturn(Flux.just(
+            historyRow(30L, 1L, 2L, now), historyRow(20L, 2L, 1L, now.minusSeconds(1)), historyRow(10L, 1L, 2L, now.minusSeconds(2))));
+        when(readRepository.findHistoryPage(1L, now.minusSeconds(1), 20L, 3)).thenReturn(Flux.empty());
+
+        // Act
+        TransactionHistoryPage firstPage = queryService.getTransactionHistory("123", null, null).block();
+        TransactionHistoryPage secondPage = queryService.getTransactionHistory("123", null, firstPage.getNextCursor()).block();
+
+        // Assert
+        assertEquals(2, firstPage.getTransactions().size());
+        assertEquals("tx-30", firstPage.getTransactions().get(0).getTransactionId());
+        assertEquals(new BigDecimal("-10.00"), firstPage.getTransactions().get(0).getAmount());
+        assertEquals(new BigDecimal("10.00"), firstPage.getTransactions().get(1).getAmount());
+        assertTrue(secondPage.getTransactions().isEmpty());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void getTransactionHistory_RejectsInvalidCursorAndLimit() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> queryService.getTransactionHistory("123", null, "not a cursor").block());
+        assertThrows(IllegalArgumentException.class,
+            () -> queryService.getTransactionHistory("123", 11, null).block());
+        verify(readRepository, never()).findHistoryPage(any(), any(), any(), anyInt());
+    }
+
+    private Transaction historyRow(Long id, Long sourceAccountId, Long destinationAccountId, OffsetDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionId("tx-" + id);
+        transaction.setSourceAccountId(sourceAccountId);
+        transaction.setDestinationAccountId(destinationAccountId);
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setCurrency("USD");
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+
+    private Account account(Long id, String accountNumber) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder("Holder " + accountNumber);
+        account.setBalance(new BigDecimal("1000"));
+        account.setCurrency("USD");
+        account.setStatus("ACTIVE");
+        return account;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.easybank.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionIdsTest {
+
+    @Test
+    void next_IsVersion7WithTimestampInLeadingBits() {
+        // Act
+        UUID id = TransactionIds.next(1_714_557_600_123L);
+
+        // Assert
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_714_557_600_123L, id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void next_SortsByCreationTimeAndIsUnique() {
+        // Arrange
+        Set<String> ids = new HashSet<>();
+
+        // Act
+        String earlier = TransactionIds.next(1_000L).toString();
+        String later = TransactionIds.next(1_001L).toString();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(TransactionIds.next());
+        }
+
+        // Assert
+        assertTrue(earlier.compareTo(later) < 0);
+        assertEquals(10_000, ids.size());
+    }
+
+    @Test
+    void normalize_ReturnsCanonicalFormOrRejects() {
+        // Act & Assert
+        assertEquals("0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f70",
+            TransactionIds.normalize("0190A5C4-7E2B-7C3D-9F1A-2B3C4D5E6F70"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionIds.normalize("42"));
+    }
+}
@@ -1,23 +1,51 @@
 package com.example.easybank.service;
 
+import com.example.easybank.cache.AccountCacheWriter;
 import com.example.easybank.domain.Account;
 import com.example.easybank.domain.Transaction;
 import com.example.easybank.domain.TransactionStatus;
 import com.example.easybank.domain.TransactionType;
+import com.example.easybank.dto.BatchTransferResult;
+import com.example.easybank.dto.SlowTransfer;
+import com.example.easybank.dto.TransactionHistoryPage;
 import com.example.easybank.dto.TransactionResponse;
+import com.example.easybank.dto.TransferExecution;
+import com.example.easybank.dto.TransferRequest;
+import com.example.easybank.engine.LedgerEngine;
+import com.example.easybank.exception.TooManyRequestsException;
+import com.example.easybank.exception.TransferInDoubtException;
+import com.example.easybank.outbox.TransferOutbox;
 import com.example.easybank.repository.AccountRepository;
+import com.example.easybank.repository.LedgerEntryRepository;
 import com.example.easybank.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.AnnotationAwareRetryOperationsInterceptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -31,13 +59,42 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
     @Mock
     private RateLimiterService rateLimiterService;
 
+    @Mock
+    private AccountCacheWriter accountCacheWriter;
+
+    @Mock
+    private HotAccountService hotAccountService;
+
+    @Mock
+    private TransferOutbox transferOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransferStageRecorder stageRecorder;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        transactionService = new TransactionService(accountRepository, transactionRepository, rateLimiterService);
+        meterRegistry = new SimpleMeterRegistry();
+        stageRecorder = new TransferStageRecorder(meterRegistry, 5, 60_000);
+        transactionService = new TransactionService(accountRepository, transactionRepository, ledgerEntryRepository, rateLimiterService,
+                accountCacheWriter, hotAccountService, transferOutbox, stageRecorder, transactionManager, meterRegistry);
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.LOCKING);
+        ReflectionTestUtils.setField(transactionService, "optimisticMaxAttempts", 3);
+        ReflectionTestUtils.setField(transactionService, "optimisticMaxBackoffMs", 0L);
+        ReflectionTestUtils.setField(transactionService, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(transactionService, "batchInsertChunkSize", 2);
+        ReflectionTestUtils.setField(transactionService, "historyDefaultPageSize", 2);
+        ReflectionTestUtils.setField(transactionService, "historyMaxPageSize", 10);
         
         // By default, allow rate limits for all tests
         doNothing().when(rateLimiterService).checkTransactionRateLimit(anyString());
@@ -79,6 +136,7 @@ class TransactionServiceTest {
         verify(accountRepository, times(1)).update(sourceAccount);
         verify(accountRepository, times(1)).update(destinationAccount);
         verify(rateLimiterService, times(1)).checkTransactionRateLimit("123");
+        verify(transferOutbox).record(result);
     }
 
     @Test
@@ -326,7 +384,7 @@ class TransactionServiceTest {
         account.setAccountNumber(accountNumber);
         account.setAccountHolder("John Doe");
         
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Optional.of(account));
+        when(accountRepository.findWithSlotBalanceByAccountNumber("ACC-123")).thenReturn(Optional.of(account));
         
         // Act
         Account result = transactionService.getAccount(accountNumber);
@@ -336,15 +394,15 @@ class TransactionServiceTest {
         assertEquals(accountNumber, result.getAccountNumber());
         assertEquals("John Doe", result.getAccountHolder());
         
-        // Verify repository method was called
-        verify(accountRepository).findByAccountNumber(accountNumber);
+        // Verify repository method was called with the normalized number, as AccountService does
+        verify(accountRepository).findWithSlotBalanceByAccountNumber("ACC-123");
     }
     
     @Test
     void getAccount_ThrowsExceptionWhenAccountNotFound() {
         // Arrange
         String accountNumber = "nonexistent";
-        when(accountRepository.findByAccountNumber(accountNumber)).thenReturn(Optional.empty());
+        when(accountRepository.findWithSlotBalanceByAccountNumber("ACC-nonexistent")).thenReturn(Optional.empty());
         
         // Act & Assert
         Exception exception = assertThrows(RuntimeException.class, 
@@ -353,6 +411,730 @@ class TransactionServiceTest {
         assertTrue(exception.getMessage().contains("Account not found"));
         
         // Verify repository method was called
-        verify(accountRepository).findByAccountNumber(accountNumber);
+        verify(accountRepository).findWithSlotBalanceByAccountNumber("ACC-nonexistent");
+    }
+
+    @Test
+    void getTransactionHistory_ReturnsPageAndCursorForNextPage() {
+        // Arrange
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(activeAccount(1L, "123", "1000")));
+        OffsetDateTime now = OffsetDateTime.parse("2024-05-01T10:00:00.123456Z");
+        when(transactionRepository.findHistoryPage(1L, null, null, 3)).thenReturn(List.of(
+            historyRow(30L, 1L, 2L, now), historyRow(20L, 2L, 1L, now.minusSeconds(1)), historyRow(10L, 1L, 2L, now.minusSeconds(2))));
+
+        // Act
+        TransactionHistoryPage firstPage = transactionService.getTransactionHistory("123", null, null);
+        transactionService.getTransactionHistory("123", null, firstPage.getNextCursor());
+
+        // Assert
+        assertEquals(2, firstPage.getTransactions().size());
+        assertEquals("tx-30", firstPage.getTransactions().get(0).getTransactionId());
+        assertEquals(new BigDecimal("-10.00"), firstPage.getTransactions().get(0).getAmount());
+        assertEquals(new BigDecimal("10.00"), firstPage.getTransactions().get(1).getAmount());
+        assertEquals("456", firstPage.getTransactions().get(1).getSourceAccountNumber());
+        verify(transactionRepository).findHistoryPage(eq(1L), eq(now.minusSeconds(1)), eq(20L), eq(3));
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void getTransactionHistory_RejectsInvalidCursorAndLimit() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.getTransactionHistory("123", null, "not a cursor"));
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.getTransactionHistory("123", 11, null));
+        verify(transactionRepository, never()).findHistoryPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void processBatchTransfer_AppliesItemsInOrderAndReportsFailures() {
+        // Arrange
+        Account first = activeAccount(1L, "111", "1000");
+        Account second = activeAccount(2L, "222", "100");
+        Account third = activeAccount(3L, "333", "0");
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenReturn(List.of(first, second, third));
+
+        List<TransferRequest> transfers = List.of(
+            new TransferRequest("111", "222", new BigDecimal("300")),
+            new TransferRequest("222", "333", new BigDecimal("350")),   // relies on the first credit
+            new TransferRequest("333", "111", new BigDecimal("500")),   // insufficient funds
+            new TransferRequest("111", "999", new BigDecimal("10")),    // unknown destination
+            new TransferRequest("111", "222", new BigDecimal("-5")));   // rejected before locking
+
+        // Act
+        List<BatchTransferResult> results = transactionService.processBatchTransfer(transfers);
+
+        // Assert
+        assertEquals(5, results.size());
+        assertEquals(TransactionStatus.COMPLETED, results.get(0).getStatus());
+        assertEquals(TransactionStatus.COMPLETED, results.get(1).getStatus());
+        assertEquals(TransactionStatus.FAILED, results.get(2).getStatus());
+        assertEquals("Insufficient funds in source account", results.get(2).getErrorMessage());
+        assertEquals(TransactionStatus.FAILED, results.get(3).getStatus());
+        assertEquals(TransactionStatus.FAILED, results.get(4).getStatus());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        assertEquals(new BigDecimal("700"), first.getBalance());
+        assertEquals(new BigDecimal("50"), second.getBalance());
+        assertEquals(new BigDecimal("350"), third.getBalance());
+
+        verify(accountRepository, times(1)).findAllByAccountNumberWithLock(any());
+        verify(accountRepository, times(1)).updateBalances(anyList());
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+        verify(rateLimiterService, times(4)).checkTransactionRateLimit(anyString());
+        // Redis is asked before the transaction takes a connection
+        var inOrder = inOrder(rateLimiterService, transactionManager);
+        inOrder.verify(rateLimiterService, times(4)).checkTransactionRateLimit(anyString());
+        inOrder.verify(transactionManager).getTransaction(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void processBatchTransfer_InsertsTransactionsInChunks() {
+        // Arrange
+        Account source = activeAccount(1L, "111", "1000");
+        Account destination = activeAccount(2L, "222", "0");
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenReturn(List.of(source, destination));
+
+        List<TransferRequest> transfers = List.of(
+            new TransferRequest("111", "222", new BigDecimal("1")),
+            new TransferRequest("111", "222", new BigDecimal("2")),
+            new TransferRequest("111", "222", new BigDecimal("3")));
+
+        // Act
+        transactionService.processBatchTransfer(transfers);
+
+        // Assert - chunk size is 2, so three rows go out as two INSERTs
+        ArgumentCaptor<List<Transaction>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(2)).saveAll(chunks.capture());
+        assertEquals(2, chunks.getAllValues().get(0).size());
+        assertEquals(1, chunks.getAllValues().get(1).size());
+        verify(transferOutbox, times(2)).record(anyList());
+
+        ArgumentCaptor<List<Account>> updated = ArgumentCaptor.forClass(List.class);
+        verify(accountRepository).updateBalances(updated.capture());
+        assertEquals(2, updated.getValue().size());
+        assertEquals(new BigDecimal("994"), source.getBalance());
+        assertEquals(new BigDecimal("6"), destination.getBalance());
+    }
+
+    @Test
+    void processBatchTransfer_RejectsOversizedBatch() {
+        ReflectionTestUtils.setField(transactionService, "maxBatchSize", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> transactionService.processBatchTransfer(List.of(
+            new TransferRequest("111", "222", BigDecimal.ONE),
+            new TransferRequest("111", "222", BigDecimal.ONE))));
+
+        verify(accountRepository, never()).findAllByAccountNumberWithLock(any());
+    }
+
+    @Test
+    void processTransaction_SingleStatementMode() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.SINGLE_STATEMENT);
+        TransferExecution execution = new TransferExecution();
+        execution.setTransactionId(42L);
+        execution.setCurrency("USD");
+        execution.setSourceAccountId(1L);
+        execution.setSourceAccountHolder("John Doe");
+        execution.setSourceBalance(new BigDecimal("900"));
+        execution.setDestinationAccountId(2L);
+        execution.setDestinationAccountHolder("Jane Smith");
+        execution.setDestinationBalance(new BigDecimal("600"));
+        when(transactionRepository.executeTransfer(anyString(), eq("123"), eq("456"), eq(new BigDecimal("100")), anyString()))
+            .thenReturn(Optional.of(execution));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(42L, result.getId());
+        assertEquals("John Doe", result.getSourceAccountHolder());
+        assertEquals("Jane Smith", result.getDestinationAccountHolder());
+        assertEquals("USD", result.getCurrency());
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+        verify(accountRepository, never()).update(any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void processTransaction_SingleStatementModeReportsInsufficientFunds() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.SINGLE_STATEMENT);
+        when(transactionRepository.executeTransfer(any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(activeAccount(1L, "123", "50")));
+        when(accountRepository.findByAccountNumber("456")).thenReturn(Optional.of(activeAccount(2L, "456", "0")));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> transactionService.processTransaction("123", "456", new BigDecimal("100")));
+        assertEquals("Insufficient funds in source account", exception.getMessage());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void processTransaction_PessimisticOrderedModeLocksBothRowsInOneQuery() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.PESSIMISTIC_ORDERED);
+        Account source = activeAccount(2L, "123", "1000");
+        Account destination = activeAccount(1L, "456", "500");
+        when(accountRepository.findAllByAccountNumberWithLock(List.of("123", "456")))
+            .thenReturn(List.of(destination, source));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(new BigDecimal("900"), source.getBalance());
+        assertEquals(new BigDecimal("600"), destination.getBalance());
+        var inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).update(destination);
+        inOrder.verify(accountRepository).update(source);
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(accountCacheWriter).putAfterCommit(List.of(source, destination));
+        assertEquals(1, source.getVersion());
+        assertEquals(1, meterRegistry.get("transfer.execution.time")
+            .tags("mode", "PESSIMISTIC_ORDERED", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void processTransaction_OptimisticModeRetriesOnVersionConflict() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepository.findByAccountNumber("123"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(1L, "123", "1000")));
+        when(accountRepository.findByAccountNumber("456"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(2L, "456", "500")));
+        when(accountRepository.updateBalanceIfVersionMatches(any())).thenReturn(0, 1);
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(1, result.getSourceAccount().getVersion());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
+        assertEquals(1.0, meterRegistry.get("transfer.conflict.retries").counter().count());
+        assertEquals(1, meterRegistry.get("transfer.stage.time")
+            .tags("stage", "backoff", "mode", "OPTIMISTIC").timer().count());
+    }
+
+    @Test
+    void processTransaction_RecordsStageTimingsAndKeepsSlowestTransfers() {
+        // Arrange
+        when(accountRepository.findByAccountNumberWithLock("123")).thenReturn(Optional.of(activeAccount(1L, "123", "1000")));
+        when(accountRepository.findByAccountNumberWithLock("456")).thenReturn(Optional.of(activeAccount(2L, "456", "500")));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        for (String stage : List.of("rate_limit", "lock", "validate", "insert", "update", "commit")) {
+            assertEquals(1, meterRegistry.get("transfer.stage.time")
+                .tags("stage", stage, "mode", "LOCKING").timer().count(), stage);
+        }
+        assertTrue(meterRegistry.find("transfer.stage.time").tags("stage", "backoff").timers().isEmpty());
+        List<SlowTransfer> slowest = stageRecorder.slowest();
+        assertEquals(1, slowest.size());
+        assertEquals(result.getTransactionId(), slowest.get(0).getTransactionId());
+        assertEquals("success", slowest.get(0).getOutcome());
+        assertEquals(List.of("rate_limit", "lock", "validate", "update", "insert", "commit"),
+            List.copyOf(slowest.get(0).getStageMicros().keySet()));
+    }
+
+    @Test
+    void processTransaction_RecordsRetriedTransferOnceWithItsBackoff() {
+        // Arrange
+        TransactionService proxy = retryProxy();
+        String transactionId = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f73";
+        when(accountRepository.findByAccountNumberWithLock("123"))
+            .thenThrow(new CannotAcquireLockException("lock timeout"))
+            .thenReturn(Optional.of(activeAccount(1L, "123", "1000")));
+        when(accountRepository.findByAccountNumberWithLock("456")).thenReturn(Optional.of(activeAccount(2L, "456", "500")));
+
+        // Act
+        proxy.processTransaction("123", "456", new BigDecimal("100"), transactionId);
+
+        // Assert
+        List<SlowTransfer> slowest = stageRecorder.slowest();
+        assertEquals(1, slowest.size());
+        assertEquals(transactionId, slowest.get(0).getTransactionId());
+        assertEquals("success", slowest.get(0).getOutcome());
+        assertTrue(slowest.get(0).getStageMicros().containsKey("backoff"));
+        assertEquals(1, meterRegistry.get("transfer.stage.time")
+            .tags("stage", "backoff", "mode", "LOCKING").timer().count());
+        assertEquals(1, meterRegistry.get("transfer.stage.time")
+            .tags("stage", "rate_limit", "mode", "LOCKING").timer().count());
+    }
+
+    @Test
+    void processTransaction_RecordsTransfersRefusedBeforeTheyRan() {
+        // Arrange
+        doThrow(new TooManyRequestsException("Rate limit exceeded", 1))
+            .when(rateLimiterService).checkTransactionRateLimit("789");
+
+        // Act
+        assertThrows(TooManyRequestsException.class,
+            () -> transactionService.processTransaction("789", "456", new BigDecimal("100")));
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.processTransaction("123", "456", BigDecimal.ZERO));
+
+        // Assert
+        assertEquals(List.of("rate_limited", "rejected"),
+            stageRecorder.slowest().stream().map(SlowTransfer::getOutcome).sorted().toList());
+        assertEquals(2, meterRegistry.get("transfer.stage.time")
+            .tags("stage", "rate_limit", "mode", "LOCKING").timer().count());
+        assertTrue(meterRegistry.find("transfer.execution.time").timers().isEmpty());
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+    }
+
+    @Test
+    void processTransaction_OptimisticModeGivesUpAfterMaxAttempts() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepository.findByAccountNumber("123"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(1L, "123", "1000")));
+        when(accountRepository.findByAccountNumber("456"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(2L, "456", "500")));
+        when(accountRepository.updateBalanceIfVersionMatches(any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> transactionService.processTransaction("123", "456", new BigDecimal("100")));
+        verify(accountRepository, times(3)).updateBalanceIfVersionMatches(any());
+        verify(transactionRepository, never()).save(any());
+        assertEquals(1, meterRegistry.get("transfer.execution.time")
+            .tags("mode", "OPTIMISTIC", "outcome", "conflict").timer().count());
+    }
+
+    @Test
+    void processTransaction_OptimisticConflictsAreOnlyRetriedByTheOptimisticLoop() {
+        // Arrange
+        TransactionService proxy = retryProxy();
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepository.findByAccountNumber("123"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(1L, "123", "1000")));
+        when(accountRepository.findByAccountNumber("456"))
+            .thenAnswer(invocation -> Optional.of(activeAccount(2L, "456", "500")));
+        when(accountRepository.updateBalanceIfVersionMatches(any())).thenReturn(0);
+
+        // Act
+        Transaction result = proxy.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert - recovered after optimisticMaxAttempts, not retried again around them
+        assertEquals(TransactionStatus.FAILED, result.getStatus());
+        verify(accountRepository, times(3)).updateBalanceIfVersionMatches(any());
+    }
+
+    @Test
+    void processTransaction_ReadCommittedGuardedModeRollsBackWhenDebitGuardFails() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.READ_COMMITTED_GUARDED);
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(activeAccount(2L, "123", "1000")));
+        when(accountRepository.findByAccountNumber("456")).thenReturn(Optional.of(activeAccount(1L, "456", "500")));
+        when(accountRepository.applyBalanceDelta(1L, new BigDecimal("100"))).thenReturn(1);
+        // A concurrent transfer drained the source after it was read
+        when(accountRepository.applyBalanceDelta(2L, new BigDecimal("-100"))).thenReturn(0);
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> transactionService.processTransaction("123", "456", new BigDecimal("100")));
+        assertEquals("Insufficient funds in source account", exception.getMessage());
+        verify(transactionManager).rollback(any());
+        verify(transactionRepository, never()).save(any());
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+    }
+
+    @Test
+    void processTransaction_ReadCommittedGuardedModeEvictsCachedAccountsByVersion() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.READ_COMMITTED_GUARDED);
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(activeAccount(2L, "123", "1000")));
+        when(accountRepository.findByAccountNumber("456")).thenReturn(Optional.of(activeAccount(1L, "456", "500")));
+        when(accountRepository.applyBalanceDelta(any(), any())).thenReturn(1);
+
+        // Act
+        transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert: the rows may have moved on since they were read, so no snapshot is written
+        verify(accountCacheWriter).evictAfterCommit("123", 1);
+        verify(accountCacheWriter).evictAfterCommit("456", 1);
+        verify(accountCacheWriter, never()).putAfterCommit(any());
+    }
+
+    @Test
+    void processTransaction_EngineModeDelegatesToLedgerEngine() {
+        // Arrange
+        LedgerEngine ledgerEngine = mock(LedgerEngine.class);
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.ENGINE);
+        ReflectionTestUtils.setField(transactionService, "ledgerEngine", ledgerEngine);
+        Transaction completed = new Transaction();
+        completed.setStatus(TransactionStatus.COMPLETED);
+        when(ledgerEngine.transfer(anyString(), eq("123"), eq("456"), eq(new BigDecimal("100")))).thenReturn(completed);
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        assertSame(completed, result);
+        verifyNoInteractions(accountRepository, transactionRepository, transactionManager);
+    }
+
+    @Test
+    void processTransaction_LedgerModeInsertsEntriesWithoutUpdatingBalances() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.LEDGER);
+        Account source = activeAccount(1L, "456", "50");
+        when(accountRepository.findByAccountNumberWithLock("456")).thenReturn(Optional.of(source));
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(activeAccount(2L, "123", "0")));
+        // Credits not yet rolled into the checkpointed balance of 50
+        when(ledgerEntryRepository.findBalances(any())).thenReturn(List.of(activeAccount(1L, null, "150")));
+
+        // Act
+        Transaction result = transactionService.processTransaction("456", "123", new BigDecimal("100"));
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(new BigDecimal("50"), source.getBalance());
+        var inOrder = inOrder(ledgerEntryRepository, accountRepository);
+        inOrder.verify(ledgerEntryRepository).lockShared("123");
+        inOrder.verify(ledgerEntryRepository).lockShared("456");
+        inOrder.verify(accountRepository).findByAccountNumberWithLock("456");
+        verify(ledgerEntryRepository).saveTransfers(List.of(result));
+        verify(transactionRepository).save(result);
+        verify(accountRepository, never()).findByAccountNumberWithLock("123");
+        verify(accountRepository, never()).update(any());
+        // Reads add the new entries to the balance
+        verify(accountCacheWriter).evictAfterCommit(List.of("456", "123"));
+        verify(accountCacheWriter, never()).putAfterCommit(any());
+    }
+
+    @Test
+    void processBatchTransfer_LedgerModeChecksDerivedBalances() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.LEDGER);
+        Account first = activeAccount(1L, "111", "0");
+        Account second = activeAccount(2L, "222", "0");
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenReturn(List.of(first, second));
+        when(ledgerEntryRepository.findBalances(any()))
+            .thenReturn(List.of(activeAccount(1L, null, "100"), activeAccount(2L, null, "0")));
+
+        // Act
+        List<BatchTransferResult> results = transactionService.processBatchTransfer(List.of(
+            new TransferRequest("111", "222", new BigDecimal("60")),
+            new TransferRequest("111", "222", new BigDecimal("60"))));
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, results.get(0).getStatus());
+        assertEquals("Insufficient funds in source account", results.get(1).getErrorMessage());
+        verify(ledgerEntryRepository).lockShared("111");
+        verify(ledgerEntryRepository).lockShared("222");
+        verify(ledgerEntryRepository).saveTransfers(anyList());
+        verify(accountRepository, never()).updateBalances(any());
+        verify(accountCacheWriter, never()).putAfterCommit(any());
+        verify(accountCacheWriter).evictAfterCommit(anyList());
+    }
+
+    @Test
+    void processTransaction_PersistsTimeOrderedTransactionId() {
+        // Arrange
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.SINGLE_STATEMENT);
+        TransferExecution execution = new TransferExecution();
+        execution.setTransactionId(42L);
+        when(transactionRepository.executeTransfer(anyString(), any(), any(), any(), any()))
+            .thenReturn(Optional.of(execution));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        verify(transactionRepository).executeTransfer(eq(result.getTransactionId()), eq("123"), eq("456"),
+            eq(new BigDecimal("100")), anyString());
+        assertEquals(7, UUID.fromString(result.getTransactionId()).version());
+    }
+
+    @Test
+    void processTransaction_GroupCommitModeAppliesTransferInGroupTransaction() throws Exception {
+        // Arrange
+        useGroupCommit();
+        Account source = activeAccount(1L, "123", "1000");
+        Account destination = activeAccount(2L, "456", "500");
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenReturn(List.of(source, destination));
+
+        // Act
+        Transaction result = transactionService.processTransaction("123", "456", new BigDecimal("100"));
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+            () -> transactionService.processTransaction("123", "456", new BigDecimal("5000")));
+        transactionService.stopGroupCommit();
+
+        // Assert
+        assertEquals(TransactionStatus.COMPLETED, result.getStatus());
+        assertEquals(7, UUID.fromString(result.getTransactionId()).version());
+        assertEquals("Insufficient funds in source account", rejected.getMessage());
+        assertEquals(new BigDecimal("900"), source.getBalance());
+        assertEquals(new BigDecimal("600"), destination.getBalance());
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+        assertEquals(2, meterRegistry.get("transfer.group.size").summary().count());
+    }
+
+    @Test
+    void commitGroup_AppliesTransfersOneByOneWhenGroupTransactionFails() {
+        // Arrange
+        useGroupCommit();
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenAnswer(invocation -> List.of(
+            activeAccount(1L, "123", "1000"), activeAccount(2L, "456", "500"), activeAccount(3L, "789", "0")));
+        when(accountRepository.updateBalances(anyList()))
+            .thenThrow(new CannotAcquireLockException("deadlock detected"))
+            .thenReturn(2);
+        List<TransferGroupCommitter.Pending> group = List.of(
+            pending("tx-1", new TransferRequest("123", "456", new BigDecimal("100"))),
+            pending("tx-2", new TransferRequest("456", "789", new BigDecimal("50"))));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(transactionService, "commitGroup", group);
+
+        // Assert - each transfer committed on its own after the group rolled back
+        assertEquals("tx-1", group.get(0).result().join().getTransactionId());
+        assertEquals("tx-2", group.get(1).result().join().getTransactionId());
+        verify(accountRepository, times(3)).updateBalances(anyList());
+        assertEquals(1.0, meterRegistry.get("transfer.group.fallbacks").counter().count());
+    }
+
+    @Test
+    void commitGroup_CompletesTransfersWhoseRowsCommittedBeforeTheFailure() {
+        // Arrange
+        useGroupCommit();
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenAnswer(invocation -> List.of(
+            activeAccount(1L, "123", "1000"), activeAccount(2L, "456", "500"), activeAccount(3L, "789", "0")));
+        when(accountRepository.updateBalances(anyList()))
+            .thenThrow(new DataAccessResourceFailureException("Connection lost during COMMIT"));
+        Transaction committed = historyRow(1L, 1L, 2L, OffsetDateTime.now());
+        when(transactionRepository.findByTransactionId("tx-1")).thenReturn(Optional.of(committed));
+        when(transactionRepository.findByTransactionId("tx-2")).thenReturn(Optional.empty());
+        List<TransferGroupCommitter.Pending> group = List.of(
+            pending("tx-1", new TransferRequest("123", "456", new BigDecimal("100"))),
+            pending("tx-2", new TransferRequest("456", "789", new BigDecimal("50"))));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(transactionService, "commitGroup", group);
+
+        // Assert - only the transfer without a row is applied again
+        assertSame(committed, group.get(0).result().join());
+        assertTrue(group.get(1).result().isCompletedExceptionally());
+        verify(accountRepository, times(2)).updateBalances(anyList());
+    }
+
+    @Test
+    void commitGroup_ReportsGroupAsInDoubtWhenItsRowsCannotBeRead() {
+        // Arrange
+        useGroupCommit();
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenAnswer(invocation -> List.of(
+            activeAccount(1L, "123", "1000"), activeAccount(2L, "456", "500"), activeAccount(3L, "789", "0")));
+        when(accountRepository.updateBalances(anyList()))
+            .thenThrow(new DataAccessResourceFailureException("Connection lost during COMMIT"));
+        when(transactionRepository.findByTransactionId(anyString()))
+            .thenThrow(new DataAccessResourceFailureException("Database unavailable"));
+        List<TransferGroupCommitter.Pending> group = List.of(
+            pending("tx-1", new TransferRequest("123", "456", new BigDecimal("100"))),
+            pending("tx-2", new TransferRequest("456", "789", new BigDecimal("50"))));
+
+        // Act
+        ReflectionTestUtils.invokeMethod(transactionService, "commitGroup", group);
+
+        // Assert - nothing is applied again
+        for (TransferGroupCommitter.Pending pending : group) {
+            CompletionException failure = assertThrows(CompletionException.class, () -> pending.result().join());
+            assertEquals(pending.transactionId(),
+                assertInstanceOf(TransferInDoubtException.class, failure.getCause()).getTransactionId());
+        }
+        verify(accountRepository, times(1)).updateBalances(anyList());
+    }
+
+    @Test
+    void awaitGroupCommit_ReportsUnconfirmedTransferAsInDoubt() {
+        // Arrange
+        useGroupCommit();
+        ReflectionTestUtils.setField(transactionService, "groupCommitTimeoutMs", 1L);
+
+        // Act
+        TransferInDoubtException inDoubt = assertThrows(TransferInDoubtException.class,
+            () -> ReflectionTestUtils.invokeMethod(transactionService, "awaitGroupCommit",
+                new CompletableFuture<Transaction>(), "tx-1"));
+
+        // Assert
+        assertEquals("tx-1", inDoubt.getTransactionId());
+    }
+
+    @Test
+    void recoverFromFailureOf_ReturnsAttemptThatCommittedUnderTheSameId() {
+        // Arrange
+        String transactionId = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f70";
+        Transaction committed = historyRow(30L, 1L, 2L, OffsetDateTime.now());
+        when(transactionRepository.findByTransactionId(transactionId)).thenReturn(Optional.of(committed));
+
+        // Act
+        Transaction result = transactionService.recoverFromFailureOf(new CannotAcquireLockException("duplicate key"),
+            "123", "456", new BigDecimal("10.00"), transactionId);
+
+        // Assert
+        assertSame(committed, result);
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void processTransaction_RetryProxyPassesRejectionsAndRateLimitsOn() {
+        // Arrange
+        TransactionService proxy = retryProxy();
+        String transactionId = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f71";
+        when(accountRepository.findByAccountNumberWithLock("123"))
+            .thenReturn(Optional.of(activeAccount(1L, "123", "50")));
+        when(accountRepository.findByAccountNumberWithLock("456"))
+            .thenReturn(Optional.of(activeAccount(2L, "456", "500")));
+        doThrow(new TooManyRequestsException("Rate limit exceeded", 1))
+            .when(rateLimiterService).checkTransactionRateLimit("789");
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+            () -> proxy.processTransaction("123", "456", new BigDecimal("100"), transactionId));
+        assertThrows(TooManyRequestsException.class,
+            () -> proxy.processTransaction("789", "456", new BigDecimal("100"), transactionId));
+        verify(accountRepository, times(1)).findByAccountNumberWithLock("123");
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void submitTransaction_RecordsPendingTransferWithoutTouchingBalances() {
+        // Arrange
+        Account source = activeAccount(1L, "123", "1000");
+        when(accountRepository.findByAccountNumber("123")).thenReturn(Optional.of(source));
+        when(accountRepository.findByAccountNumber("456")).thenReturn(Optional.of(activeAccount(2L, "456", "0")));
+
+        // Act
+        Transaction result = transactionService.submitTransaction("123", "456", new BigDecimal("100"));
+
+        // Assert
+        assertEquals(TransactionStatus.PENDING, result.getStatus());
+        verify(transactionRepository).save(result);
+        verify(accountRepository, never()).findAllByAccountNumberWithLock(any());
+        verify(accountRepository, never()).updateBalances(anyList());
+        assertEquals(new BigDecimal("1000"), source.getBalance());
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.submitTransaction("123", "999", new BigDecimal("100")));
+    }
+
+    @Test
+    void processPendingTransfers_FinishesClaimedRowsInsteadOfInsertingThem() {
+        // Arrange
+        Account source = activeAccount(1L, "123", "150");
+        Account destination = activeAccount(2L, "456", "0");
+        when(transactionRepository.claimPending(10)).thenReturn(List.of(
+            pendingRow(10L, "123", "456", "100"), pendingRow(11L, "123", "456", "100")));
+        when(accountRepository.findAllByAccountNumberWithLock(any())).thenReturn(List.of(source, destination));
+
+        // Act
+        int claimed = transactionService.processPendingTransfers(10);
+
+        // Assert - the second transfer no longer has the funds
+        assertEquals(2, claimed);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Transaction>> finished = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).finishAll(finished.capture());
+        assertEquals(TransactionStatus.COMPLETED, finished.getValue().get(0).getStatus());
+        assertEquals(TransactionStatus.FAILED, finished.getValue().get(1).getStatus());
+        assertEquals("Transfer failed: Insufficient funds in source account", finished.getValue().get(1).getDescription());
+        assertEquals(new BigDecimal("50"), source.getBalance());
+        verify(accountRepository).updateBalances(anyList());
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    private Transaction pendingRow(Long id, String sourceAccountNumber, String destinationAccountNumber, String amount) {
+        Transaction row = new Transaction();
+        row.setId(id);
+        row.setTransactionId("tx-" + id);
+        row.setSourceAccountNumber(sourceAccountNumber);
+        row.setDestinationAccountNumber(destinationAccountNumber);
+        row.setAmount(new BigDecimal(amount));
+        row.setStatus(TransactionStatus.PENDING);
+        row.setCreatedAt(OffsetDateTime.now());
+        return row;
+    }
+
+    private TransactionService retryProxy() {
+        AnnotationAwareRetryOperationsInterceptor interceptor = new AnnotationAwareRetryOperationsInterceptor();
+        interceptor.setSleeper(backOffPeriod -> { });
+        interceptor.setListeners(List.of(stageRecorder));
+        ProxyFactory proxyFactory = new ProxyFactory(transactionService);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(interceptor));
+        return (TransactionService) proxyFactory.getProxy();
+    }
+
+    private void useGroupCommit() {
+        ReflectionTestUtils.setField(transactionService, "transferMode", TransferMode.GROUP_COMMIT);
+        ReflectionTestUtils.setField(transactionService, "groupCommitWindowMs", 0L);
+        ReflectionTestUtils.setField(transactionService, "groupCommitMaxSize", 10);
+        ReflectionTestUtils.setField(transactionService, "groupCommitQueueCapacity", 10);
+        ReflectionTestUtils.setField(transactionService, "groupCommitTimeoutMs", 5000L);
+    }
+
+    private static TransferGroupCommitter.Pending pending(String transactionId, TransferRequest request) {
+        return new TransferGroupCommitter.Pending(transactionId, request, new CompletableFuture<>(), System.nanoTime());
+    }
+
+    @Test
+    void getTransaction_LooksUpNormalizedIdAndRejectsUnknownOrInvalidIds() {
+        // Arrange
+        String transactionId = "0190a5c4-7e2b-7c3d-9f1a-2b3c4d5e6f70";
+        when(transactionRepository.findByTransactionId(transactionId))
+            .thenReturn(Optional.of(historyRow(30L, 1L, 2L, OffsetDateTime.parse("2024-05-01T10:00:00Z"))));
+        when(transactionRepository.findByTransactionId("0190a5c4-7e2b-7c3d-9f1a-000000000000"))
+            .thenReturn(Optional.empty());
+
+        // Act
+        TransactionResponse response = transactionService.getTransaction(transactionId.toUpperCase());
+
+        // Assert
+        assertEquals("tx-30", response.getTransactionId());
+        assertEquals(new BigDecimal("10.00"), response.getAmount());
+        assertEquals("123", response.getSourceAccountNumber());
+        assertThrows(IllegalArgumentException.class,
+            () -> transactionService.getTransaction("0190a5c4-7e2b-7c3d-9f1a-000000000000"));
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransaction("not-a-uuid"));
+    }
+
+    private Transaction historyRow(Long id, Long sourceAccountId, Long destinationAccountId, OffsetDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setTransactionId("tx-" + id);
+        transaction.setSourceAccountId(sourceAccountId);
+        transaction.setSourceAccountNumber(sourceAccountId == 1L ? "123" : "456");
+        transaction.setDestinationAccountId(destinationAccountId);
+        transaction.setDestinationAccountNumber(destinationAccountId == 1L ? "123" : "456");
+        transaction.setAmount(new BigDecimal("10.00"));
+        transaction.setCurrency("USD");
+        transaction.setTransactionType(TransactionType.TRANSFER);
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+
+    private Account activeAccount(Long id, String accountNumber, String balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setAccountHolder("Holder " + accountNumber);
+        account.setAccountType("CHECKING");
+        account.setBalance(new BigDecimal(balance));
+        account.setCurrency("USD");
+        account.setStatus("ACTIVE");
+        account.setVersion(0);
+        return account;
     }
 }
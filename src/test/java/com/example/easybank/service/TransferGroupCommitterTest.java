@@ -0,0 +1,81 @@
+package com.example.easybank.service;
+
+import com.example.easybank.domain.Transaction;
+import com.example.easybank.dto.TransferRequest;
+import com.example.easybank.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferGroupCommitterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void submit_CollectsConcurrentTransfersIntoGroupsOfMaxSize() throws Exception {
+        // Arrange
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        TransferGroupCommitter committer = new TransferGroupCommitter(group -> {
+            groupSizes.add(group.size());
+            group.forEach(pending -> pending.result().complete(transaction(pending.transactionId())));
+        }, 3, 10_000, 100, meterRegistry);
+
+        // Act - the window is long, so only the size limit can close the first group
+        List<CompletableFuture<Transaction>> results = List.of(
+            committer.submit("tx-1", request()), committer.submit("tx-2", request()), committer.submit("tx-3", request()));
+        committer.start();
+
+        // Assert
+        assertEquals("tx-1", results.get(0).get(5, TimeUnit.SECONDS).getTransactionId());
+        assertEquals("tx-3", results.get(2).get(5, TimeUnit.SECONDS).getTransactionId());
+        assertEquals(List.of(3), groupSizes);
+        assertEquals(3.0, meterRegistry.get("transfer.group.max.size").gauge().value());
+        committer.stop(1000);
+    }
+
+    @Test
+    void submit_RejectsTransfersWhenQueueIsFull() {
+        // Arrange
+        TransferGroupCommitter committer = new TransferGroupCommitter(group -> { }, 10, 1, 1, meterRegistry);
+        committer.submit("tx-1", request());
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> committer.submit("tx-2", request()));
+    }
+
+    @Test
+    void flush_FailsEveryTransferOfGroupWhenApplierThrows() throws Exception {
+        // Arrange
+        TransferGroupCommitter committer = new TransferGroupCommitter(group -> {
+            throw new IllegalStateException("connection lost");
+        }, 10, 0, 10, meterRegistry);
+        committer.start();
+
+        // Act
+        CompletableFuture<Transaction> result = committer.submit("tx-1", request());
+        committer.stop(5000);
+
+        // Assert
+        CompletionException failure = assertThrows(CompletionException.class, result::join);
+        assertEquals("connection lost", failure.getCause().getMessage());
+        assertThrows(IllegalStateException.class, () -> committer.submit("tx-2", request()));
+    }
+
+    private static TransferRequest request() {
+        return new TransferRequest("123", "456", BigDecimal.ONE);
+    }
+
+    private static Transaction transaction(String transactionId) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(transactionId);
+        return transaction;
+    }
+}
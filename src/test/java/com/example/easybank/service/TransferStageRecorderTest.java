@@ -0,0 +1,48 @@
+package com.example.easybank.service;
+
+import com.example.easybank.dto.SlowTransfer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferStageRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TransferStageRecorder recorder = new TransferStageRecorder(meterRegistry, 2, 60_000);
+
+    @Test
+    void finish_KeepsOnlyTheSlowestTransfers() throws InterruptedException {
+        // Arrange & Act - three transfers that lock for 1, 20 and 10 ms
+        transfer("tx-1", 1);
+        transfer("tx-2", 20);
+        transfer("tx-3", 10);
+
+        // Assert
+        List<SlowTransfer> slowest = recorder.slowest();
+        assertEquals(List.of("tx-2", "tx-3"), slowest.stream().map(SlowTransfer::getTransactionId).toList());
+        assertTrue(slowest.get(0).getStageMicros().get("lock") >= TimeUnit.MILLISECONDS.toMicros(20));
+        assertEquals(3, meterRegistry.get("transfer.stage.time").tags("stage", "lock", "mode", "LOCKING").timer().count());
+    }
+
+    @Test
+    void mark_IgnoresThreadsWithoutTrace() {
+        // Act
+        recorder.mark(TransferStage.LOCK);
+        recorder.finish(TransferStage.COMMIT, TransferMode.LOCKING, "success");
+
+        // Assert
+        assertTrue(recorder.slowest().isEmpty());
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    private void transfer(String transactionId, long lockMillis) throws InterruptedException {
+        recorder.start(transactionId);
+        Thread.sleep(lockMillis);
+        recorder.mark(TransferStage.LOCK);
+        recorder.finish(TransferStage.COMMIT, TransferMode.LOCKING, "success");
+    }
+}
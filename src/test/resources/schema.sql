@@ -6,6 +6,8 @@ CREATE TABLE IF NOT EXISTS accounts (
     version BIGINT NOT NULL DEFAULT 0,
     account_type VARCHAR(50) NOT NULL,
     currency VARCHAR(3) NOT NULL DEFAULT 'USD',
+    ledger_entry_id BIGINT NOT NULL DEFAULT 0,
+    balance_slots INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
@@ -19,9 +21,41 @@ CREATE TABLE IF NOT EXISTS transactions (
     transaction_type VARCHAR(20) NOT NULL,
     status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
     description TEXT,
+    transaction_id UUID UNIQUE,
     version INTEGER NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     CONSTRAINT chk_different_accounts CHECK (source_account_id != destination_account_id),
     CONSTRAINT chk_positive_amount CHECK (amount > 0)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id UUID NOT NULL,
+    account_id BIGINT NOT NULL,
+    entry_type VARCHAR(6) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    created_txid BIGINT NOT NULL DEFAULT txid_current(),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_ledger_entry_type CHECK (entry_type IN ('DEBIT', 'CREDIT')),
+    CONSTRAINT chk_ledger_entry_amount CHECK (amount > 0)
+);
+
+CREATE TABLE IF NOT EXISTS account_balance_slots (
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    slot INTEGER NOT NULL,
+    balance DECIMAL(19, 2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (account_id, slot)
+);
+
+CREATE TABLE IF NOT EXISTS transfer_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(30) NOT NULL,
+    transaction_id UUID NOT NULL,
+    source_account_number VARCHAR(50) NOT NULL,
+    destination_account_number VARCHAR(50) NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP WITH TIME ZONE
+);